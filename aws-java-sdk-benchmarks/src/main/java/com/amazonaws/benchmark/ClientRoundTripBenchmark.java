@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Measures complete client calls, from request object to result object,
+ * through {@link com.amazonaws.http.AmazonHttpClient#execute} against an
+ * in-process HTTP server that returns canned responses. Network latency is
+ * limited to the loopback interface, so the measurement is dominated by the
+ * client's own request pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(4)
+@Fork(1)
+public class ClientRoundTripBenchmark {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AmazonDynamoDBClient dynamoDB;
+    private AmazonSQSClient sqs;
+
+    private GetItemRequest getItem;
+    private ReceiveMessageRequest receiveMessage;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Headers and body are written separately; without this, Nagle's
+        // algorithm adds a delayed ACK round trip to every response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/dynamodb", new CannedResponseHandler(
+                "application/x-amz-json-1.0", Payloads.dynamoDBGetItemResult()));
+        server.createContext("/sqs", new CannedResponseHandler(
+                "text/xml", Payloads.sqsReceiveMessageResult(10)));
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String endpoint = "http://localhost:" + server.getAddress().getPort();
+        BasicAWSCredentials credentials = new BasicAWSCredentials("AKIDEXAMPLE", "SECRET");
+        ClientConfiguration config = new ClientConfiguration().withMaxConnections(16);
+
+        dynamoDB = new AmazonDynamoDBClient(credentials, config);
+        dynamoDB.setEndpoint(endpoint + "/dynamodb");
+        sqs = new AmazonSQSClient(credentials, config);
+        sqs.setEndpoint(endpoint);
+
+        getItem = new GetItemRequest()
+                .withTableName(Payloads.TABLE_NAME)
+                .addKeyEntry("id", new AttributeValue().withS("item-0"));
+        receiveMessage = new ReceiveMessageRequest(endpoint + "/sqs/123456789012/benchmark-queue")
+                .withMaxNumberOfMessages(10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dynamoDB.shutdown();
+        sqs.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public GetItemResult dynamoDBGetItem() {
+        return dynamoDB.getItem(getItem);
+    }
+
+    @Benchmark
+    public ReceiveMessageResult sqsReceiveMessage() {
+        return sqs.receiveMessage(receiveMessage);
+    }
+
+    /**
+     * Consumes the request and returns the same response every time.
+     */
+    private static class CannedResponseHandler implements HttpHandler {
+        private final String contentType;
+        private final byte[] response;
+
+        CannedResponseHandler(String contentType, byte[] response) {
+            this.contentType = contentType;
+            this.response = response;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            InputStream requestBody = exchange.getRequestBody();
+            byte[] buffer = new byte[4096];
+            while (requestBody.read(buffer) != -1) {
+                // Drain the request so the connection can be reused
+            }
+            requestBody.close();
+
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("x-amzn-RequestId", "benchmark");
+            exchange.sendResponseHeaders(200, response.length);
+            OutputStream responseBody = exchange.getResponseBody();
+            responseBody.write(response);
+            responseBody.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.Request;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.transform.PutItemRequestMarshaller;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.transform.DescribeInstancesRequestMarshaller;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.transform.SendMessageBatchRequestMarshaller;
+
+/**
+ * Measures marshalling of requests into their wire format: JSON through
+ * {@link com.amazonaws.util.json.SdkJsonGenerator} for DynamoDB and query
+ * parameters for SQS and EC2.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MarshallingBenchmark {
+
+    private final PutItemRequestMarshaller putItemMarshaller = new PutItemRequestMarshaller();
+    private final SendMessageBatchRequestMarshaller sendMessageBatchMarshaller =
+            new SendMessageBatchRequestMarshaller();
+    private final DescribeInstancesRequestMarshaller describeInstancesMarshaller =
+            new DescribeInstancesRequestMarshaller();
+
+    private PutItemRequest putItem;
+    private SendMessageBatchRequest sendMessageBatch;
+    private DescribeInstancesRequest describeInstances;
+
+    @Setup
+    public void setUp() {
+        putItem = Payloads.putItemRequest();
+        sendMessageBatch = Payloads.sendMessageBatchRequest();
+        describeInstances = Payloads.describeInstancesRequest();
+    }
+
+    @Benchmark
+    public Request<?> marshallDynamoDBPutItem() {
+        return putItemMarshaller.marshall(putItem);
+    }
+
+    @Benchmark
+    public Request<?> marshallSqsSendMessageBatch() {
+        return sendMessageBatchMarshaller.marshall(sendMessageBatch);
+    }
+
+    @Benchmark
+    public Request<?> marshallEc2DescribeInstances() {
+        return describeInstancesMarshaller.marshall(describeInstances);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Representative requests and service responses shared by the benchmarks.
+ * Responses are generated rather than recorded so their size can be varied.
+ */
+final class Payloads {
+
+    static final String TABLE_NAME = "benchmark-table";
+    static final String QUEUE_URL = "https://sqs.us-east-1.amazonaws.com/123456789012/benchmark-queue";
+
+    private static final String MESSAGE_BODY = repeat("The quick brown fox jumps over the lazy dog. ", 20);
+
+    private Payloads() {
+    }
+
+    /**
+     * A DynamoDB item with a mix of scalar, set, binary and document
+     * attributes.
+     */
+    static Map<String, AttributeValue> dynamoDBItem(int index) {
+        Map<String, AttributeValue> attributes = new HashMap<String, AttributeValue>();
+        attributes.put("name", new AttributeValue().withS("attribute-" + index));
+        attributes.put("count", new AttributeValue().withN(Integer.toString(index)));
+
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("id", new AttributeValue().withS("item-" + index));
+        item.put("score", new AttributeValue().withN(Integer.toString(index * 31)));
+        item.put("tags", new AttributeValue().withSS("red", "green", "blue"));
+        item.put("payload", new AttributeValue().withB(ByteBuffer.wrap(new byte[64])));
+        item.put("active", new AttributeValue().withBOOL(index % 2 == 0));
+        item.put("attributes", new AttributeValue().withM(attributes));
+        return item;
+    }
+
+    static PutItemRequest putItemRequest() {
+        return new PutItemRequest()
+                .withTableName(TABLE_NAME)
+                .withItem(dynamoDBItem(0));
+    }
+
+    static SendMessageBatchRequest sendMessageBatchRequest() {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<SendMessageBatchRequestEntry>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(new SendMessageBatchRequestEntry("message-" + i, MESSAGE_BODY)
+                    .addMessageAttributesEntry("Attribute", new MessageAttributeValue()
+                            .withDataType("String")
+                            .withStringValue("value-" + i)));
+        }
+        return new SendMessageBatchRequest(QUEUE_URL, entries);
+    }
+
+    static DescribeInstancesRequest describeInstancesRequest() {
+        return new DescribeInstancesRequest()
+                .withFilters(
+                        new Filter("instance-state-name").withValues("running", "pending"),
+                        new Filter("tag:Environment").withValues("production"))
+                .withMaxResults(1000);
+    }
+
+    /** A DynamoDB Query response with the given number of items. */
+    static byte[] dynamoDBQueryResult(int itemCount) {
+        StringBuilder json = new StringBuilder("{\"Count\":").append(itemCount).append(",\"Items\":[");
+        for (int i = 0; i < itemCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendDynamoDBItem(json, i);
+        }
+        json.append("],\"ScannedCount\":").append(itemCount).append('}');
+        return bytes(json);
+    }
+
+    /** A DynamoDB GetItem response. */
+    static byte[] dynamoDBGetItemResult() {
+        StringBuilder json = new StringBuilder("{\"Item\":");
+        appendDynamoDBItem(json, 0);
+        json.append('}');
+        return bytes(json);
+    }
+
+    private static void appendDynamoDBItem(StringBuilder json, int index) {
+        json.append("{\"id\":{\"S\":\"item-").append(index).append("\"},")
+            .append("\"score\":{\"N\":\"").append(index * 31).append("\"},")
+            .append("\"tags\":{\"SS\":[\"red\",\"green\",\"blue\"]},")
+            .append("\"payload\":{\"B\":\"").append(BinaryUtils.toBase64(new byte[64])).append("\"},")
+            .append("\"active\":{\"BOOL\":").append(index % 2 == 0).append("},")
+            .append("\"attributes\":{\"M\":{\"name\":{\"S\":\"attribute-").append(index)
+            .append("\"},\"count\":{\"N\":\"").append(index).append("\"}}}}");
+    }
+
+    /** An SQS ReceiveMessage response with the given number of messages. */
+    static byte[] sqsReceiveMessageResult(int messageCount) {
+        String md5OfBody = BinaryUtils.toHex(Md5Utils.computeMD5Hash(MESSAGE_BODY.getBytes(StringUtils.UTF8)));
+        StringBuilder xml = new StringBuilder(
+                "<ReceiveMessageResponse xmlns=\"http://queue.amazonaws.com/doc/2012-11-05/\"><ReceiveMessageResult>");
+        for (int i = 0; i < messageCount; i++) {
+            xml.append("<Message><MessageId>5fea7756-0ea4-451a-a703-a558b933e27").append(i % 10)
+               .append("</MessageId><ReceiptHandle>MbZj6wDWli+JvwwJaBV+3dcjk2YW2vA3+STFFljTM8tJJg6HRG6PYSasuWXPJB+Cw")
+               .append(i).append("</ReceiptHandle><MD5OfBody>").append(md5OfBody)
+               .append("</MD5OfBody><Body>").append(MESSAGE_BODY).append("</Body>")
+               .append("<Attribute><Name>SenderId</Name><Value>195004372649</Value></Attribute>")
+               .append("<Attribute><Name>SentTimestamp</Name><Value>1238099229000</Value></Attribute>")
+               .append("<Attribute><Name>ApproximateReceiveCount</Name><Value>5</Value></Attribute>")
+               .append("</Message>");
+        }
+        xml.append("</ReceiveMessageResult><ResponseMetadata><RequestId>b6633655-283d-45b4-aee4-4e84e0ae6afa")
+           .append("</RequestId></ResponseMetadata></ReceiveMessageResponse>");
+        return bytes(xml);
+    }
+
+    /** An EC2 DescribeInstances response with the given number of instances. */
+    static byte[] ec2DescribeInstancesResult(int instanceCount) {
+        StringBuilder xml = new StringBuilder(
+                "<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2015-10-01/\">")
+                .append("<requestId>8f7724cf-496f-496e-8fe3-example</requestId><reservationSet>");
+        for (int i = 0; i < instanceCount; i++) {
+            xml.append("<item><reservationId>r-").append(10000000 + i).append("</reservationId>")
+               .append("<ownerId>123456789012</ownerId><groupSet/><instancesSet><item>")
+               .append("<instanceId>i-").append(20000000 + i).append("</instanceId>")
+               .append("<imageId>ami-1a2b3c4d</imageId>")
+               .append("<instanceState><code>16</code><name>running</name></instanceState>")
+               .append("<privateDnsName>ip-10-0-0-").append(i % 256).append(".ec2.internal</privateDnsName>")
+               .append("<dnsName/><keyName>my-key-pair</keyName><amiLaunchIndex>0</amiLaunchIndex>")
+               .append("<instanceType>m4.large</instanceType>")
+               .append("<launchTime>2016-01-01T00:00:00.000Z</launchTime>")
+               .append("<placement><availabilityZone>us-east-1a</availabilityZone><tenancy>default</tenancy></placement>")
+               .append("<monitoring><state>disabled</state></monitoring>")
+               .append("<subnetId>subnet-1a2b3c4d</subnetId><vpcId>vpc-1a2b3c4d</vpcId>")
+               .append("<privateIpAddress>10.0.0.").append(i % 256).append("</privateIpAddress>")
+               .append("<groupSet><item><groupId>sg-1a2b3c4d</groupId><groupName>default</groupName></item></groupSet>")
+               .append("<architecture>x86_64</architecture><rootDeviceType>ebs</rootDeviceType>")
+               .append("<rootDeviceName>/dev/xvda</rootDeviceName><blockDeviceMapping><item>")
+               .append("<deviceName>/dev/xvda</deviceName><ebs><volumeId>vol-").append(30000000 + i)
+               .append("</volumeId><status>attached</status><attachTime>2016-01-01T00:00:00.000Z</attachTime>")
+               .append("<deleteOnTermination>true</deleteOnTermination></ebs></item></blockDeviceMapping>")
+               .append("<virtualizationType>hvm</virtualizationType>")
+               .append("<tagSet><item><key>Name</key><value>instance-").append(i).append("</value></item>")
+               .append("<item><key>Environment</key><value>production</value></item></tagSet>")
+               .append("<hypervisor>xen</hypervisor><ebsOptimized>false</ebsOptimized>")
+               .append("</item></instancesSet></item>");
+        }
+        xml.append("</reservationSet></DescribeInstancesResponse>");
+        return bytes(xml);
+    }
+
+    /** An S3 ListObjects response with the given number of keys. */
+    static byte[] s3ListObjectsResult(int keyCount) {
+        StringBuilder xml = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>benchmark-bucket</Name><Prefix></Prefix><Marker></Marker>")
+                .append("<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>");
+        for (int i = 0; i < keyCount; i++) {
+            xml.append("<Contents><Key>logs/2016/01/01/object-").append(i).append(".gz</Key>")
+               .append("<LastModified>2016-01-01T00:00:00.000Z</LastModified>")
+               .append("<ETag>&quot;fba9dede5f27731c9771645a39863328&quot;</ETag>")
+               .append("<Size>").append(1024 + i).append("</Size>")
+               .append("<Owner><ID>75aa57f09aa0c8caeab4f8c24e99d10f8e7faeebf76c078efc7c6caea54ba06a</ID>")
+               .append("<DisplayName>benchmark</DisplayName></Owner>")
+               .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        xml.append("</ListBucketResult>");
+        return bytes(xml);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder result = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            result.append(s);
+        }
+        return result.toString();
+    }
+
+    private static byte[] bytes(StringBuilder content) {
+        return content.toString().getBytes(StringUtils.UTF8);
+    }
+}
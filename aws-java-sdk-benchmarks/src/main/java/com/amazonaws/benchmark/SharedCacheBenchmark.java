@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.internal.FIFOCache;
+import com.amazonaws.util.ResponseMetadataCache;
+
+/**
+ * Measures the caches every request of a client goes through, from many
+ * threads at once: the signing key cache shared by all SigV4 signers, and the
+ * response metadata cache of the HTTP client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(32)
+@Fork(1)
+public class SharedCacheBenchmark {
+
+    private static final String[] SIGNER_KEYS = {
+        "AKIDEXAMPLE-us-east-1-dynamodb",
+        "AKIDEXAMPLE-us-east-1-sqs",
+        "AKIDEXAMPLE-us-east-1-s3",
+        "AKIDEXAMPLE-us-west-2-dynamodb",
+    };
+
+    private FIFOCache<byte[]> signerCache;
+    private ResponseMetadataCache responseMetadataCache;
+    private ResponseMetadata responseMetadata;
+
+    @Setup
+    public void setUp() {
+        signerCache = new FIFOCache<byte[]>(300);
+        for (String key : SIGNER_KEYS) {
+            signerCache.add(key, new byte[32]);
+        }
+        responseMetadataCache = new ResponseMetadataCache(50);
+        Map<String, String> metadata = new HashMap<String, String>();
+        metadata.put(ResponseMetadata.AWS_REQUEST_ID, "benchmark");
+        responseMetadata = new ResponseMetadata(metadata);
+    }
+
+    @Benchmark
+    public byte[] signerKeyLookup(ThreadState thread) {
+        return signerCache.get(SIGNER_KEYS[thread.next() & (SIGNER_KEYS.length - 1)]);
+    }
+
+    @Benchmark
+    public void responseMetadataCapture(ThreadState thread) {
+        responseMetadataCache.add(thread.request, responseMetadata);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final AmazonWebServiceRequest request = new AmazonWebServiceRequest() {};
+        private int counter;
+
+        int next() {
+            return counter++;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.services.dynamodbv2.model.transform.PutItemRequestMarshaller;
+import com.amazonaws.services.s3.internal.AWSS3V4Signer;
+import com.amazonaws.services.sqs.model.transform.SendMessageBatchRequestMarshaller;
+
+/**
+ * Measures SigV4 signing of already marshalled requests. Signing replaces the
+ * headers it adds, so the same request is signed over and over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final AWSCredentials CREDENTIALS =
+            new BasicAWSCredentials("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    private AWS4Signer dynamoDBSigner;
+    private AWS4Signer sqsSigner;
+    private AWSS3V4Signer s3Signer;
+
+    private Request<?> putItem;
+    private Request<?> sendMessageBatch;
+    private Request<?> getObject;
+
+    @Setup
+    public void setUp() {
+        dynamoDBSigner = newSigner(new AWS4Signer(false), "dynamodb");
+        sqsSigner = newSigner(new AWS4Signer(), "sqs");
+        s3Signer = newSigner(new AWSS3V4Signer(), "s3");
+
+        putItem = new PutItemRequestMarshaller().marshall(Payloads.putItemRequest());
+        putItem.setEndpoint(URI.create("https://dynamodb.us-east-1.amazonaws.com"));
+
+        sendMessageBatch = new SendMessageBatchRequestMarshaller().marshall(Payloads.sendMessageBatchRequest());
+        sendMessageBatch.setEndpoint(URI.create(Payloads.QUEUE_URL));
+
+        getObject = new DefaultRequest<Void>("Amazon S3");
+        getObject.setHttpMethod(HttpMethodName.GET);
+        getObject.setEndpoint(URI.create("https://benchmark-bucket.s3.amazonaws.com"));
+        getObject.setResourcePath("/logs/2016/01/01/object-0.gz");
+        getObject.addHeader("Range", "bytes=0-1023");
+    }
+
+    private static <T extends AWS4Signer> T newSigner(T signer, String serviceName) {
+        signer.setServiceName(serviceName);
+        signer.setRegionName("us-east-1");
+        return signer;
+    }
+
+    @Benchmark
+    public Request<?> signDynamoDBPutItem() {
+        dynamoDBSigner.sign(putItem, CREDENTIALS);
+        return putItem;
+    }
+
+    @Benchmark
+    public Request<?> signSqsSendMessageBatch() {
+        sqsSigner.sign(sendMessageBatch, CREDENTIALS);
+        return sendMessageBatch;
+    }
+
+    @Benchmark
+    public Request<?> signS3GetObject() {
+        s3Signer.sign(getObject, CREDENTIALS);
+        return getObject;
+    }
+}
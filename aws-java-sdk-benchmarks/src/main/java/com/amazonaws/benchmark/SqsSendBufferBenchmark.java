@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.buffered.AmazonSQSBufferedAsyncClient;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
+
+/**
+ * Measures how many messages many threads can hand to a single queue of
+ * {@link AmazonSQSBufferedAsyncClient}, the path on which concurrent senders
+ * contend for the open batch. The batches are sent to a stub that answers
+ * immediately, so the measurement is dominated by the buffer's own batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(16)
+@Fork(1)
+public class SqsSendBufferBenchmark {
+
+    private static final String QUEUE_URL = "https://sqs.us-east-1.amazonaws.com/123456789012/benchmark-queue";
+
+    private AmazonSQSBufferedAsyncClient sqs;
+    private SendMessageRequest sendMessage;
+
+    @Setup
+    public void setUp() {
+        sqs = new AmazonSQSBufferedAsyncClient(new ImmediateSQS());
+        sendMessage = new SendMessageRequest(QUEUE_URL, "benchmark message body");
+    }
+
+    @TearDown
+    public void tearDown() {
+        sqs.shutdown();
+    }
+
+    @Benchmark
+    public Future<SendMessageResult> sendMessageAsync() {
+        return sqs.sendMessageAsync(sendMessage);
+    }
+
+    /**
+     * Reports every message of a batch as sent.
+     */
+    private static class ImmediateSQS extends AbstractAmazonSQSAsync {
+
+        @Override
+        public SendMessageBatchResult sendMessageBatch(SendMessageBatchRequest request) {
+            List<SendMessageBatchResultEntry> successful =
+                    new ArrayList<SendMessageBatchResultEntry>(request.getEntries().size());
+            for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+                successful.add(new SendMessageBatchResultEntry()
+                        .withId(entry.getId())
+                        .withMessageId(entry.getId())
+                        .withMD5OfMessageBody("d41d8cd98f00b204e9800998ecf8427e"));
+            }
+            return new SendMessageBatchResult().withSuccessful(successful);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.JsonResponseHandler;
+import com.amazonaws.http.StaxResponseHandler;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.transform.QueryResultJsonUnmarshaller;
+import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.transform.DescribeInstancesResultStaxUnmarshaller;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.transform.ReceiveMessageResultStaxUnmarshaller;
+import com.amazonaws.util.json.SdkJsonProtocolFactory;
+
+/**
+ * Measures unmarshalling of service responses through the same response
+ * handlers the clients use: {@link com.amazonaws.transform.JsonUnmarshallerContextImpl}
+ * for DynamoDB, {@link com.amazonaws.transform.StaxUnmarshallerContext} for SQS
+ * and EC2, and the SAX parser for S3.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UnmarshallingBenchmark {
+
+    /** The number of items, messages, instances or keys in each response. */
+    @Param({"10", "100"})
+    public int size;
+
+    private final Request<?> request = new DefaultRequest<Void>("benchmark");
+
+    private JsonResponseHandler<QueryResult> queryHandler;
+    private StaxResponseHandler<ReceiveMessageResult> receiveMessageHandler;
+    private StaxResponseHandler<DescribeInstancesResult> describeInstancesHandler;
+
+    private byte[] queryResult;
+    private byte[] receiveMessageResult;
+    private byte[] describeInstancesResult;
+    private byte[] listObjectsResult;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        queryHandler = SdkJsonProtocolFactory.createResponseHandler(
+                QueryResultJsonUnmarshaller.getInstance(), false);
+        queryHandler.setIsPayloadJson(true);
+        receiveMessageHandler = new StaxResponseHandler<ReceiveMessageResult>(
+                ReceiveMessageResultStaxUnmarshaller.getInstance());
+        describeInstancesHandler = new StaxResponseHandler<DescribeInstancesResult>(
+                DescribeInstancesResultStaxUnmarshaller.getInstance());
+
+        queryResult = Payloads.dynamoDBQueryResult(size);
+        receiveMessageResult = Payloads.sqsReceiveMessageResult(size);
+        describeInstancesResult = Payloads.ec2DescribeInstancesResult(size);
+        listObjectsResult = Payloads.s3ListObjectsResult(size);
+    }
+
+    @Benchmark
+    public AmazonWebServiceResponse<QueryResult> unmarshallDynamoDBQuery() throws Exception {
+        return queryHandler.handle(response(queryResult));
+    }
+
+    @Benchmark
+    public AmazonWebServiceResponse<ReceiveMessageResult> unmarshallSqsReceiveMessage() throws Exception {
+        return receiveMessageHandler.handle(response(receiveMessageResult));
+    }
+
+    @Benchmark
+    public AmazonWebServiceResponse<DescribeInstancesResult> unmarshallEc2DescribeInstances() throws Exception {
+        return describeInstancesHandler.handle(response(describeInstancesResult));
+    }
+
+    @Benchmark
+    public ObjectListing unmarshallS3ListObjects() throws Exception {
+        return new XmlResponsesSaxParser()
+                .parseListBucketObjectsResponse(new ByteArrayInputStream(listObjectsResult), false)
+                .getObjectListing();
+    }
+
+    private HttpResponse response(byte[] content) {
+        HttpResponse response = new HttpResponse(request, null);
+        response.setStatusCode(200);
+        response.setContent(new ByteArrayInputStream(content));
+        return response;
+    }
+}
@@ -65,14 +65,15 @@ public class CloudWatchMetricConfig {
      */
     static final int MAX_METRICS_DATUM_SIZE = 20;
     /**
-     * Default metrics queue size. If the queue size
-     * exceeds this value, then excessive metrics will be dropped to prevent
-     * resource exhaustion.
+     * Default metrics queue size, which is the maximum number of unique
+     * metrics summarized in memory between two uploads. Data points of any
+     * additional metric will be dropped to prevent resource exhaustion.
      */
     public static final int DEFAULT_METRICS_QSIZE = 1000;
     /**
-     * Default timeout in millisecond for queue polling.  Set to one-minute
-     * which is the finest granularity of Amazon CloudWatch. 
+     * Default timeout in millisecond for queue polling, which is the interval
+     * between two uploads.  Set to one-minute which is the finest granularity
+     * of Amazon CloudWatch. 
      */
     public static final int DEFAULT_QUEUE_POLL_TIMEOUT_MILLI = (int)TimeUnit.MINUTES.toMillis(1);
 
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Summarizes metric data points into the statistics of the respective unique
+ * metric as they are collected, so that the cost of collecting a data point
+ * stays the same regardless of how many are collected between two uploads.
+ * <p>
+ * The statistics of each unique metric are striped by thread, and each stripe
+ * is updated by compare-and-set; so collecting threads neither block each
+ * other nor contend with the uploader thread.
+ */
+@ThreadSafe
+class MetricAggregator {
+    /** Number of stripes per unique metric; a power of two. */
+    private static final int STRIPES = stripeCount();
+
+    /** Marks the stripes of a metric that has been removed after going idle. */
+    private static final Statistics RETIRED = new Statistics(0, 0, 0, 0);
+
+    private final ConcurrentMap<MetricKey, StripedStatistics> metrics =
+        new ConcurrentHashMap<MetricKey, StripedStatistics>();
+    private final int maxMetrics;
+
+    /**
+     * @param maxMetrics
+     *            the maximum number of unique metrics to be summarized between
+     *            two uploads; data points of any additional metric are dropped
+     *            to prevent resource exhaustion.
+     */
+    MetricAggregator(int maxMetrics) {
+        this.maxMetrics = maxMetrics;
+    }
+
+    /**
+     * Summarizes the given datum into the statistics of the respective unique
+     * metric, returning true if successful or false if there is no space
+     * available for a new unique metric.
+     */
+    boolean add(MetricDatum datum) {
+        Double value = datum.getValue();
+        if (value == null) {
+            return true;
+        }
+        MetricKey key = new MetricKey(datum);
+        while (true) {
+            StripedStatistics stats = metrics.get(key);
+            if (stats == null) {
+                if (metrics.size() >= maxMetrics) {
+                    return false;
+                }
+                StripedStatistics newStats = new StripedStatistics();
+                stats = metrics.putIfAbsent(key, newStats);
+                if (stats == null) {
+                    stats = newStats;
+                }
+            }
+            if (stats.add(value)) {
+                return true;
+            }
+            // Raced with the removal of an idle metric; try again with a new one.
+        }
+    }
+
+    /**
+     * Returns the statistics summarized since the last call, one datum per
+     * unique metric, and starts over. Metrics without any data point since the
+     * last call are removed to make room for others.
+     */
+    List<MetricDatum> drain() {
+        List<MetricDatum> data = new ArrayList<MetricDatum>();
+        for (Map.Entry<MetricKey, StripedStatistics> entry : metrics.entrySet()) {
+            MetricKey key = entry.getKey();
+            StripedStatistics stats = entry.getValue();
+            Statistics total = stats.drain();
+            if (total == null && metrics.remove(key, stats)) {
+                // Collects whatever got in between the drain and the removal
+                total = stats.retire();
+            }
+            if (total != null) {
+                data.add(key.toMetricDatum(total));
+            }
+        }
+        return data;
+    }
+
+    private static int stripeCount() {
+        int n = Runtime.getRuntime().availableProcessors() * 2;
+        int stripes = 1;
+        while (stripes < n && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * The identity of a unique metric: its name, unit and dimensions, with the
+     * dimensions in a canonical order.
+     */
+    private static final class MetricKey {
+        private final String metricName;
+        private final String unit;
+        private final List<Dimension> dimensions;
+        private final int hash;
+
+        MetricKey(MetricDatum datum) {
+            this.metricName = datum.getMetricName();
+            this.unit = datum.getUnit();
+            List<Dimension> dims = datum.getDimensions();
+            if (dims.size() > 1) {
+                dims = new ArrayList<Dimension>(dims);
+                Collections.sort(dims, DimensionComparator.INSTANCE);
+            }
+            this.dimensions = dims;
+            int h = metricName == null ? 0 : metricName.hashCode();
+            h = 31 * h + (unit == null ? 0 : unit.hashCode());
+            this.hash = 31 * h + dims.hashCode();
+        }
+
+        MetricDatum toMetricDatum(Statistics stats) {
+            return new MetricDatum()
+                .withDimensions(dimensions)
+                .withMetricName(metricName)
+                .withUnit(unit)
+                .withStatisticValues(new StatisticSet()
+                    .withMaximum(stats.maximum)
+                    .withMinimum(stats.minimum)
+                    .withSampleCount((double) stats.sampleCount)
+                    .withSum(stats.sum))
+                ;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey that = (MetricKey) obj;
+            return hash == that.hash
+                && eq(metricName, that.metricName)
+                && eq(unit, that.unit)
+                && dimensions.equals(that.dimensions);
+        }
+
+        private static boolean eq(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    /**
+     * The statistics of a unique metric, striped by thread.
+     */
+    private static final class StripedStatistics {
+        private final AtomicReferenceArray<Statistics> stripes =
+            new AtomicReferenceArray<Statistics>(STRIPES);
+
+        /**
+         * Returns true if the value is added; or false if this metric has
+         * been retired.
+         */
+        boolean add(double value) {
+            final int i = (int) Thread.currentThread().getId() & (STRIPES - 1);
+            while (true) {
+                Statistics current = stripes.get(i);
+                if (current == RETIRED) {
+                    return false;
+                }
+                Statistics next = current == null
+                    ? new Statistics(1, value, value, value)
+                    : current.plus(value);
+                if (stripes.compareAndSet(i, current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /** Returns and resets the statistics; or null if there are none. */
+        Statistics drain() {
+            return collect(null);
+        }
+
+        /**
+         * Prevents any further value from being added, returning the
+         * statistics added since the last drain; or null if there are none.
+         */
+        Statistics retire() {
+            return collect(RETIRED);
+        }
+
+        private Statistics collect(Statistics replacement) {
+            Statistics total = null;
+            for (int i = 0; i < STRIPES; i++) {
+                Statistics stripe = stripes.getAndSet(i, replacement);
+                if (stripe != null && stripe != RETIRED) {
+                    total = total == null ? stripe : total.plus(stripe);
+                }
+            }
+            return total;
+        }
+    }
+
+    /** Immutable statistics of a set of values. */
+    private static final class Statistics {
+        final long sampleCount;
+        final double sum;
+        final double minimum;
+        final double maximum;
+
+        Statistics(long sampleCount, double sum, double minimum, double maximum) {
+            this.sampleCount = sampleCount;
+            this.sum = sum;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        Statistics plus(double value) {
+            return new Statistics(sampleCount + 1, sum + value,
+                Math.min(minimum, value), Math.max(maximum, value));
+        }
+
+        Statistics plus(Statistics that) {
+            return new Statistics(sampleCount + that.sampleCount, sum + that.sum,
+                Math.min(minimum, that.minimum), Math.max(maximum, that.maximum));
+        }
+    }
+}
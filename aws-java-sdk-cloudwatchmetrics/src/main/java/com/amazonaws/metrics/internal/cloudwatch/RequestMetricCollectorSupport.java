@@ -14,8 +14,6 @@
  */
 package com.amazonaws.metrics.internal.cloudwatch;
 
-import java.util.concurrent.BlockingQueue;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.annotation.ThreadSafe;
@@ -39,18 +37,18 @@ import com.amazonaws.util.AWSRequestMetrics;
 public class RequestMetricCollectorSupport extends RequestMetricCollector 
 {
     protected final static Log log = LogFactory.getLog(RequestMetricCollectorSupport.class);
-    private final BlockingQueue<MetricDatum> queue;
+    private final MetricAggregator aggregator;
     private final PredefinedMetricTransformer transformer = new PredefinedMetricTransformer();
 
-    protected RequestMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
-        this.queue = queue;
+    protected RequestMetricCollectorSupport(MetricAggregator aggregator) {
+        this.aggregator = aggregator;
     }
 
     /**
      * Collects the metrics at the end of a request/response cycle, transforms
      * the metric data points into a cloud watch metric datum representation,
-     * and then adds it to a memory queue so it will get summarized into the
-     * necessary statistics and uploaded to Amazon CloudWatch.
+     * and then summarizes it in memory into the necessary statistics to be
+     * uploaded to Amazon CloudWatch.
      */
     @Override
     public void collectMetrics(Request<?> request, Response<?> response) {
@@ -73,16 +71,16 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
             PredefinedMetricTransformer transformer = getTransformer();
             for (MetricDatum datum : transformer.toMetricData(type, request, response)) {
                 try {
-                    if (!addMetricsToQueue(datum)) {
+                    if (!addMetrics(datum)) {
                         if (log.isDebugEnabled()) {
-                            log.debug("Failed to add to the metrics queue (due to no space available) for "
+                            log.debug("Failed to summarize the metrics (due to no space available) for "
                                     + type.name()
                                     + ":"
                                     + request.getServiceName());
                         }
                     }
                 } catch(RuntimeException ex) {
-                    log.warn("Failed to add to the metrics queue for "
+                    log.warn("Failed to summarize the metrics for "
                         + type.name() + ":" + request.getServiceName(),
                         ex);
                 }
@@ -91,11 +89,11 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
     }
 
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Summarizes the given metric into the statistics to be uploaded, returning
+     * true if successful or false if no space available.
      */
-    protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+    protected boolean addMetrics(MetricDatum metric) {
+        return aggregator.add(metric);
     }
     /** Returns the predefined metrics transformer. */
     protected PredefinedMetricTransformer getTransformer() { return transformer; }
@@ -15,7 +15,6 @@
 package com.amazonaws.metrics.internal.cloudwatch;
 
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -46,10 +45,10 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
 {
     static final double NANO_PER_SEC = TimeUnit.SECONDS.toNanos(1);
     protected final static Log log = LogFactory.getLog(ServiceMetricCollectorSupport.class);
-    private final BlockingQueue<MetricDatum> queue;
+    private final MetricAggregator aggregator;
 
-    protected ServiceMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
-        this.queue = queue;
+    protected ServiceMetricCollectorSupport(MetricAggregator aggregator) {
+        this.aggregator = aggregator;
     }
 
     @Override
@@ -103,7 +102,7 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
                 .withDimensions(throughputDimension)
                 .withUnit(StandardUnit.BytesSecond)
                 .withValue(bytesPerSec);
-            safeAddMetricsToQueue(throughputDatum);
+            safeAddMetrics(throughputDatum);
         }
         if (metrics.contains(byteCountType)) {
             // Byte count metric
@@ -115,7 +114,7 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
                 .withDimensions(byteCountDimension)
                 .withUnit(StandardUnit.Bytes)
                 .withValue(byteCount);
-            safeAddMetricsToQueue(byteCountDatum);
+            safeAddMetrics(byteCountDatum);
         }
     }
 
@@ -132,28 +131,28 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
                 .withDimensions(dim)
                 .withUnit(StandardUnit.Milliseconds)
                 .withValue(provider.getDurationMilli());
-            safeAddMetricsToQueue(datum);
+            safeAddMetrics(datum);
         }
     }
 
-    private void safeAddMetricsToQueue(MetricDatum metric) {
+    private void safeAddMetrics(MetricDatum metric) {
         try {
-            if (!addMetricsToQueue(metric)) {
+            if (!addMetrics(metric)) {
                 if (log.isDebugEnabled()) {
-                    log.debug("Failed to add to the metrics queue (due to no space available) for "
+                    log.debug("Failed to summarize the metrics (due to no space available) for "
                             + metric.getMetricName());
                 }
             }
         } catch (RuntimeException ex) {
-            log.warn("Failed to add to the metrics queue for metric: " + metric,
+            log.warn("Failed to summarize the metrics for metric: " + metric,
                     ex);
         }
     }
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Summarizes the given metric into the statistics to be uploaded, returning
+     * true if successful or false if no space available.
      */
-    protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+    protected boolean addMetrics(MetricDatum metric) {
+        return aggregator.add(metric);
     }
 }
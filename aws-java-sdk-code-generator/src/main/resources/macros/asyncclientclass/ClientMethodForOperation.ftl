@@ -18,6 +18,9 @@ public ${operation.asyncFutureType} ${operation.methodName}Async(
     final ${operation.input.variableType} request,
     final ${operation.asyncHandlerType} asyncHandler) {
 
+<#if AsyncHttpTransportDispatchMacro?has_content>
+    <@AsyncHttpTransportDispatchMacro.content operation/>
+</#if>
     return executorService.submit(new ${operation.asyncCallableType}() {
         @Override
         public ${operation.asyncReturnType} call() throws Exception {
@@ -0,0 +1,16 @@
+<#--
+    Sends the request through the non-blocking HTTP transport of the client, when
+    one is configured, instead of blocking a thread of the executor service on it.
+    Operations with streaming input or output, or without a result, always use
+    the executor service.
+-->
+<#macro content operation>
+<#if operation.returnType?? && !operation.hasBlobMemberAsPayload && !operation.input.streamPropertyName?has_content>
+    if (client.isAsyncHttpTransportEnabled()) {
+        return invokeAsync(request, new ${operation.input.variableType}Marshaller(),
+                new ${operation.syncReturnType}${metadata.unmarshallerClassSuffix}(), asyncHandler,
+                executorService);
+    }
+
+</#if>
+</#macro>
@@ -2,6 +2,9 @@
 package ${metadata.packageName};
 
 import ${metadata.packageName}.model.*;
+<#if AsyncHttpTransportDispatchMacro?has_content>
+import ${metadata.packageName}.model.transform.*;
+</#if>
 import com.amazonaws.annotation.ThreadSafe;
 
 /**
@@ -250,6 +250,9 @@ public class ${metadata.syncClient} extends AmazonWebServiceClient implements ${
     </#if>
     }
 
+<#if ClientInvokeAsyncMethodMacro?has_content>
+    <@ClientInvokeAsyncMethodMacro.content metadata/>
+</#if>
     /**
      * Normal invoke with authentication. Credentials are required and may be overriden at the
      * request level.
@@ -29,6 +29,8 @@ import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFieldSupport;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.Classes;
 import com.amazonaws.util.HttpUtils;
@@ -392,6 +394,25 @@ public abstract class AmazonWebServiceClient {
         client.shutdown();
     }
 
+    /**
+     * Opens connections to this client's endpoint ahead of the requests that
+     * will use them, typically at application startup, so that the first
+     * requests don't pay for the TCP connection and TLS handshakes. Unless the
+     * idle connection reaper is disabled, it keeps the requested number of
+     * connections open from then on, opening new ones as idle ones are closed.
+     * <p>
+     * This method blocks until the connections are open, or have failed to
+     * open.
+     *
+     * @param connections
+     *            The number of connections to open; at most
+     *            {@link ClientConfiguration#getMaxConnections()}.
+     * @return The number of connections to the endpoint open in the pool.
+     */
+    public int prewarmConnections(int connections) {
+        return client.prewarmConnections(endpoint, connections);
+    }
+
     /**
      * @deprecated by {@link #addRequestHandler(RequestHandler2)}.
      *
@@ -454,8 +475,7 @@ public abstract class AmazonWebServiceClient {
     }
 
     protected ExecutionContext createExecutionContext(AmazonWebServiceRequest req) {
-        boolean isMetricsEnabled = isRequestMetricsEnabled(req) || isProfilingEnabled();
-        return new ExecutionContext(requestHandler2s, isMetricsEnabled, this);
+        return new ExecutionContext(requestHandler2s, newAwsRequestMetrics(req), this);
     }
 
     protected final ExecutionContext createExecutionContext(Request<?> req) {
@@ -484,6 +504,29 @@ public abstract class AmazonWebServiceClient {
         return System.getProperty(PROFILING_SYSTEM_PROPERTY) != null;
     }
 
+    /**
+     * Returns a new instance of request metrics for the given request: the
+     * full support if profiling is enabled or the applicable request metric
+     * collector requires it, the low overhead support if the collector only
+     * needs the predefined metrics, or the minimal support if request metric
+     * collection is not applicable.
+     */
+    protected final AWSRequestMetrics newAwsRequestMetrics(AmazonWebServiceRequest req) {
+        if (isProfilingEnabled()) {
+            return new AWSRequestMetricsFullSupport();
+        }
+        RequestMetricCollector c = req.getRequestMetricCollector(); // request level collector
+        if (c == null || !c.isEnabled()) {
+            c = requestMetricCollector();
+        }
+        if (c == null || !c.isEnabled()) {
+            return new AWSRequestMetrics();
+        }
+        return c.requiresFullSupport()
+             ? new AWSRequestMetricsFullSupport()
+             : new AWSRequestMetricsFieldSupport();
+    }
+
     /**
      * Returns true if request metric collection is applicable to the given
      * request; false otherwise.
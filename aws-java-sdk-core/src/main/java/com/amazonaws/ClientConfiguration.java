@@ -14,6 +14,7 @@
  */
 package com.amazonaws;
 
+import com.amazonaws.http.AsyncHttpTransportFactory;
 import com.amazonaws.http.IdleConnectionReaper;
 import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.retry.RetryPolicy;
@@ -50,6 +51,12 @@ public class ClientConfiguration {
     /** The default max connection pool size. */
     public static final int DEFAULT_MAX_CONNECTIONS = 50;
 
+    /** The default number of shards the connection pool is split into. */
+    public static final int DEFAULT_CONNECTION_POOL_SHARDS = 1;
+
+    /** The default fraction of hedge-enabled requests that may be sent twice. */
+    public static final double DEFAULT_HEDGING_BUDGET = 0.05;
+
     /**
      * The default on whether to utilize the USE_EXPECT_CONTINUE handshake for operations. Currently
      * only honored for PUT operations.
@@ -100,6 +107,11 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_THROTTLE_RETRIES = false;
 
+    /**
+     * The default on whether to adapt the send rate to throttling errors.
+     */
+    public static final boolean DEFAULT_USE_ADAPTIVE_RATE_LIMITING = false;
+
     /**
      * The default response metadata cache size.
      */
@@ -154,6 +166,12 @@ public class ClientConfiguration {
     /** The maximum number of open HTTP connections. */
     private int maxConnections = DEFAULT_MAX_CONNECTIONS;
 
+    /** The number of independently locked shards the connection pool is split into. */
+    private int connectionPoolShards = DEFAULT_CONNECTION_POOL_SHARDS;
+
+    /** The fraction of hedge-enabled requests that may be sent twice. */
+    private double hedgingBudget = DEFAULT_HEDGING_BUDGET;
+
     /**
      * The amount of time to wait (in milliseconds) for data to be transfered over an established,
      * open connection before the connection is timed out. A value of 0 means infinity, and is not
@@ -179,6 +197,8 @@ public class ClientConfiguration {
 
     private boolean throttleRetries = DEFAULT_THROTTLE_RETRIES;
 
+    private boolean adaptiveRateLimiting = DEFAULT_USE_ADAPTIVE_RATE_LIMITING;
+
     /**
      * Optional size hint (in bytes) for the low level TCP send buffer. This is an advanced option
      * for advanced users who want to tune low level TCP parameters to try and squeeze out more
@@ -265,6 +285,13 @@ public class ClientConfiguration {
      */
     private boolean useExpectContinue = DEFAULT_USE_EXPECT_CONTINUE;
 
+    /**
+     * Optional factory for the non-blocking HTTP transport used by asynchronous clients; null if
+     * asynchronous clients should execute requests on their executor using the blocking HTTP
+     * client.
+     */
+    private AsyncHttpTransportFactory asyncHttpTransportFactory;
+
     /**
      * Can be used to specify custom specific Apache HTTP client configurations.
      */
@@ -277,9 +304,12 @@ public class ClientConfiguration {
     public ClientConfiguration(ClientConfiguration other) {
         this.connectionTimeout = other.connectionTimeout;
         this.maxConnections = other.maxConnections;
+        this.connectionPoolShards = other.connectionPoolShards;
+        this.hedgingBudget = other.hedgingBudget;
         this.maxErrorRetry = other.maxErrorRetry;
         this.retryPolicy = other.retryPolicy;
         this.throttleRetries = other.throttleRetries;
+        this.adaptiveRateLimiting = other.adaptiveRateLimiting;
         this.localAddress = other.localAddress;
         this.protocol = other.protocol;
         this.proxyDomain = other.proxyDomain;
@@ -301,6 +331,7 @@ public class ClientConfiguration {
         this.responseMetadataCacheSize = other.responseMetadataCacheSize;
         this.dnsResolver = other.dnsResolver;
         this.useExpectContinue = other.useExpectContinue;
+        this.asyncHttpTransportFactory = other.asyncHttpTransportFactory;
         this.apacheHttpClientConfig = new ApacheHttpClientConfig(other.apacheHttpClientConfig);
     }
 
@@ -384,6 +415,104 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns the number of shards the HTTP connection pool is split into.
+     * <p>
+     * Each shard is a separate pool with its own lock, holding the connections
+     * of the routes (i.e. the endpoints) hashed to it, so that clients talking
+     * to many endpoints at once, such as Amazon S3 clients using virtual hosted
+     * buckets, don't have every request thread contend for a single pool lock.
+     * The connections of a single route always share one shard. Each shard is
+     * limited to {@link #getMaxConnections()} connections, so that the total
+     * number of open connections may reach the maximum times the number of
+     * shards. The default is a single, unsharded pool.
+     * </p>
+     *
+     * @return The number of shards the HTTP connection pool is split into.
+     */
+    public int getConnectionPoolShards() {
+        return connectionPoolShards;
+    }
+
+    /**
+     * Sets the number of shards the HTTP connection pool is split into.
+     *
+     * @param connectionPoolShards
+     *            The number of shards the HTTP connection pool is split into;
+     *            at least 1.
+     * @see #getConnectionPoolShards()
+     */
+    public void setConnectionPoolShards(int connectionPoolShards) {
+        if (connectionPoolShards < 1) {
+            throw new IllegalArgumentException("connectionPoolShards must be at least 1");
+        }
+        this.connectionPoolShards = connectionPoolShards;
+    }
+
+    /**
+     * Sets the number of shards the HTTP connection pool is split into, and
+     * returns the updated ClientConfiguration object.
+     *
+     * @param connectionPoolShards
+     *            The number of shards the HTTP connection pool is split into;
+     *            at least 1.
+     * @return The updated ClientConfiguration object.
+     * @see #getConnectionPoolShards()
+     */
+    public ClientConfiguration withConnectionPoolShards(int connectionPoolShards) {
+        setConnectionPoolShards(connectionPoolShards);
+        return this;
+    }
+
+    /**
+     * Returns the fraction of requests that may be hedged, i.e. sent a second
+     * time on another connection because the first attempt is slow.
+     * <p>
+     * Hedging is enabled per request with
+     * {@link RequestClientOptions#setHedgingDelay(int)}. Every such request
+     * earns the client this fraction of a hedge, and a hedge is only sent if a
+     * whole one has been earned, so that the extra load a slow service sees
+     * from hedging stays within the budget. The default is
+     * {@value #DEFAULT_HEDGING_BUDGET}, i.e. at most one extra request for
+     * every twenty hedge-enabled ones.
+     * </p>
+     *
+     * @return The fraction of hedge-enabled requests that may be sent twice.
+     */
+    public double getHedgingBudget() {
+        return hedgingBudget;
+    }
+
+    /**
+     * Sets the fraction of requests that may be hedged.
+     *
+     * @param hedgingBudget
+     *            The fraction of hedge-enabled requests that may be sent
+     *            twice, between 0 and 1.
+     * @see #getHedgingBudget()
+     */
+    public void setHedgingBudget(double hedgingBudget) {
+        if (!(hedgingBudget >= 0 && hedgingBudget <= 1)) {
+            throw new IllegalArgumentException("hedgingBudget must be between 0 and 1");
+        }
+        this.hedgingBudget = hedgingBudget;
+    }
+
+    /**
+     * Sets the fraction of requests that may be hedged, and returns the
+     * updated ClientConfiguration object.
+     *
+     * @param hedgingBudget
+     *            The fraction of hedge-enabled requests that may be sent
+     *            twice, between 0 and 1.
+     * @return The updated ClientConfiguration object.
+     * @see #getHedgingBudget()
+     */
+    public ClientConfiguration withHedgingBudget(double hedgingBudget) {
+        setHedgingBudget(hedgingBudget);
+        return this;
+    }
+
     /**
      * Returns the HTTP user agent header to send with all requests.
      *
@@ -1183,6 +1312,52 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns whether adaptive rate limiting will be used.
+     * <p>
+     * Adaptive rate limiting is a feature which limits the rate at which all requests of a
+     * client are sent once the service starts returning throttling errors.  Each throttling
+     * error lowers the send rate, and the rate recovers smoothly once throttling stops, so
+     * that the threads sharing a client stop amplifying an overload by retrying all at once.
+     * Requests are delayed, rather than failed, while the send rate is exceeded.
+     * </p>
+     * <p>
+     * Adaptive rate limiting implies retry throttling (see {@link #useThrottledRetries()}),
+     * with retries of throttling errors also drawing on the retry capacity, so that retries
+     * stop altogether when throttling persists.
+     * </p>
+     *
+     * @return true if adaptive rate limiting will be used
+     */
+    public boolean useAdaptiveRateLimiting() {
+        return adaptiveRateLimiting || getSystemProperty(
+                SDKGlobalConfiguration.ADAPTIVE_RATE_LIMITING_SYSTEM_PROPERTY) != null;
+    }
+
+    /**
+     * Sets whether adaptive rate limiting should be used.
+     *
+     * @param use
+     *            true if adaptive rate limiting should be used
+     * @see #useAdaptiveRateLimiting()
+     */
+    public void setUseAdaptiveRateLimiting(boolean use) {
+        this.adaptiveRateLimiting = use;
+    }
+
+    /**
+     * Sets whether adaptive rate limiting should be used.
+     *
+     * @param use
+     *            true if adaptive rate limiting should be used
+     * @return The updated ClientConfiguration object.
+     * @see #useAdaptiveRateLimiting()
+     */
+    public ClientConfiguration withAdaptiveRateLimiting(boolean use) {
+        setUseAdaptiveRateLimiting(use);
+        return this;
+    }
+
     /**
      * Checks if gzip compression is used
      *
@@ -1617,7 +1792,9 @@ public class ClientConfiguration {
 
     /**
      * Sets the response metadata cache size. By default, it is set to
-     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}.
+     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}. Setting it to zero turns
+     * off the capture of response metadata, for applications that never call
+     * {@code getCachedResponseMetadata}.
      * 
      * @param responseMetadataCacheSize
      *            maximum cache size.
@@ -1628,7 +1805,9 @@ public class ClientConfiguration {
 
     /**
      * Sets the response metadata cache size. By default, it is set to
-     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}.
+     * {@value #DEFAULT_RESPONSE_METADATA_CACHE_SIZE}. Setting it to zero turns
+     * off the capture of response metadata, for applications that never call
+     * {@code getCachedResponseMetadata}.
      * 
      * @param responseMetadataCacheSize
      *            maximum cache size.
@@ -1705,4 +1884,44 @@ public class ClientConfiguration {
 
         return this;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the factory for the non-blocking HTTP transport used by asynchronous clients, or null
+     * if none has been configured.
+     */
+    public AsyncHttpTransportFactory getAsyncHttpTransportFactory() {
+        return asyncHttpTransportFactory;
+    }
+
+    /**
+     * Sets the factory for the non-blocking HTTP transport used by asynchronous clients. When set,
+     * asynchronous clients send their requests through the transport and only use their executor
+     * for short, non-blocking tasks such as signing and unmarshalling, so the number of concurrent
+     * requests is no longer bounded by the number of executor threads. By default no transport is
+     * configured and each asynchronous request occupies an executor thread until it completes.
+     * <p>
+     * Signing, retries, request handlers and request metrics behave the same way on both paths.
+     *
+     * @param asyncHttpTransportFactory
+     *            The transport factory, for example
+     *            {@link com.amazonaws.http.nio.ApacheAsyncHttpTransportFactory}; or null to
+     *            disable the non-blocking transport.
+     */
+    public void setAsyncHttpTransportFactory(AsyncHttpTransportFactory asyncHttpTransportFactory) {
+        this.asyncHttpTransportFactory = asyncHttpTransportFactory;
+    }
+
+    /**
+     * Sets the factory for the non-blocking HTTP transport used by asynchronous clients.
+     *
+     * @param asyncHttpTransportFactory
+     *            The transport factory; or null to disable the non-blocking transport.
+     * @return The updated ClientConfiguration object.
+     * @see #setAsyncHttpTransportFactory(AsyncHttpTransportFactory)
+     */
+    public ClientConfiguration withAsyncHttpTransportFactory(
+            AsyncHttpTransportFactory asyncHttpTransportFactory) {
+        setAsyncHttpTransportFactory(asyncHttpTransportFactory);
+        return this;
+    }
+}
@@ -51,6 +51,15 @@ public final class RequestClientOptions {
      * Used for mark-and-reset purposes during retry.
      */
     private int readLimit = DEFAULT_STREAM_BUFFER_SIZE;
+    /**
+     * Delay in milliseconds before a hedged request is sent; zero disables
+     * hedging.
+     */
+    private int hedgingDelay;
+    /**
+     * Whether POST requests are hedged too.
+     */
+    private boolean hedgingPostRequests;
 
     /**
      * Returns the value of the specified marker; or null if there is no such
@@ -108,12 +117,65 @@ public final class RequestClientOptions {
         this.readLimit = readLimit;
     }
 
+    /**
+     * Returns the delay, in milliseconds, after which a second copy of the
+     * request is sent if no response has been received yet; zero, the
+     * default, if the request is never hedged.
+     */
+    public final int getHedgingDelay() {
+        return hedgingDelay;
+    }
+
+    /**
+     * Sets the delay, in milliseconds, after which a second copy of the
+     * request is sent on another connection if no response has been received
+     * yet. Whichever response arrives first is used and the other request is
+     * aborted. A good delay is the 95th or 99th percentile latency of the
+     * operation, so that only the slowest requests are duplicated. Zero
+     * disables hedging.
+     * <p>
+     * Only GET and HEAD requests, which are safe to send twice, are hedged,
+     * unless POST requests are allowed too with
+     * {@link #setHedgingPostRequests(boolean)}. The number of hedged requests
+     * is capped by {@link ClientConfiguration#getHedgingBudget()}.
+     */
+    public final void setHedgingDelay(int hedgingDelay) {
+        if (hedgingDelay < 0) {
+            throw new IllegalArgumentException("hedgingDelay must not be negative");
+        }
+        this.hedgingDelay = hedgingDelay;
+    }
+
+    /**
+     * Returns true if POST requests are hedged as well as GET and HEAD
+     * requests; false, the default, otherwise.
+     */
+    public final boolean isHedgingPostRequests() {
+        return hedgingPostRequests;
+    }
+
+    /**
+     * Sets whether POST requests are hedged as well as GET and HEAD requests,
+     * when a hedging delay is set. Many read operations, such as DynamoDB
+     * GetItem, are sent as POST requests, but so are most operations that
+     * change state; only allow it for operations that are safe to send twice.
+     * Only POST requests with no payload, or a payload of at most 64 KB that
+     * can be reset, are hedged.
+     *
+     * @see #setHedgingDelay(int)
+     */
+    public final void setHedgingPostRequests(boolean hedgingPostRequests) {
+        this.hedgingPostRequests = hedgingPostRequests;
+    }
+
     /**
      * Copy the internal states of this <code>RequestClientOptions</code> to the
      * target <code>RequestClientOptions</code>.
      */
     void copyTo(RequestClientOptions target) {
         target.setReadLimit(getReadLimit());
+        target.setHedgingDelay(getHedgingDelay());
+        target.setHedgingPostRequests(isHedgingPostRequests());
         for (Marker marker: Marker.values())
             target.putClientMarker(marker, getClientMarker(marker));
     }
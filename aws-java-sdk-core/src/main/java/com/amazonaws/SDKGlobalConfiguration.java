@@ -78,6 +78,17 @@ public class SDKGlobalConfiguration {
     public static final String RETRY_THROTTLING_SYSTEM_PROPERTY =
             "com.amazonaws.sdk.enableThrottledRetry";
 
+    /**
+     * By default, the client sends requests as fast as it is asked to, whatever the throttling
+     * errors returned by the service.  Setting this property enables adaptive rate limiting,
+     * which lowers the rate at which the client sends requests while the service is throttling
+     * them and recovers it once throttling stops.
+     *
+     * @see ClientConfiguration#useAdaptiveRateLimiting()
+     */
+    public static final String ADAPTIVE_RATE_LIMITING_SYSTEM_PROPERTY =
+            "com.amazonaws.sdk.enableAdaptiveRateLimiting";
+
     /**
      * Path to an override file for the region metadata loaded by the SDK
      * that maps service/region pairs to endpoints and vice versa.
@@ -16,10 +16,12 @@ package com.amazonaws.auth;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.ReadLimitInfo;
+import com.amazonaws.Request;
 import com.amazonaws.SignableRequest;
 import com.amazonaws.auth.internal.AWS4SignerRequestParams;
 import com.amazonaws.auth.internal.AWS4SignerUtils;
 import com.amazonaws.auth.internal.SignerKey;
+import com.amazonaws.handlers.HandlerContextKey;
 import com.amazonaws.internal.FIFOCache;
 import com.amazonaws.log.InternalLogApi;
 import com.amazonaws.log.InternalLogFactory;
@@ -369,8 +371,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
-                SigningAlgorithm.HmacSHA256);
+        return sign(stringToSign, signingKey, SigningAlgorithm.HmacSHA256);
     }
 
     /**
@@ -428,16 +429,38 @@ public class AWS4Signer extends AbstractAWSSigner implements
     }
 
     protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request.getHeaders()
-                .keySet());
+        StringBuilder buffer = new StringBuilder();
+        appendCanonicalizedHeaders(buffer, request,
+                getSortedSignedHeaders(request));
+        return buffer.toString();
+    }
+
+    protected String getSignedHeadersString(SignableRequest<?> request) {
+        StringBuilder buffer = new StringBuilder();
+        appendSignedHeaders(buffer, getSortedSignedHeaders(request));
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the names of the request headers to sign, sorted case
+     * insensitively.
+     */
+    private List<String> getSortedSignedHeaders(SignableRequest<?> request) {
+        final Set<String> headers = request.getHeaders().keySet();
+        final List<String> sortedHeaders = new ArrayList<String>(headers.size());
+        for (String header : headers) {
+            if (!shouldExcludeHeaderFromSigning(header)) {
+                sortedHeaders.add(header);
+            }
+        }
         Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        return sortedHeaders;
+    }
 
+    private static void appendCanonicalizedHeaders(StringBuilder buffer,
+            SignableRequest<?> request, List<String> sortedHeaders) {
         final Map<String, String> requestHeaders = request.getHeaders();
-        StringBuilder buffer = new StringBuilder();
         for (String header : sortedHeaders) {
-            if (shouldExcludeHeaderFromSigning(header)) {
-                continue;
-            }
             String key = StringUtils.lowerCase(header);
             String value = requestHeaders.get(header);
 
@@ -449,30 +472,24 @@ public class AWS4Signer extends AbstractAWSSigner implements
 
             buffer.append("\n");
         }
-
-        return buffer.toString();
     }
 
-    protected String getSignedHeadersString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request
-                .getHeaders().keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
-
-        StringBuilder buffer = new StringBuilder();
-        for (String header : sortedHeaders) {
-            if (shouldExcludeHeaderFromSigning(header)) {
-                continue;
-            }
-            if (buffer.length() > 0)
+    private static void appendSignedHeaders(StringBuilder buffer,
+            List<String> sortedHeaders) {
+        for (int i = 0; i < sortedHeaders.size(); i++) {
+            if (i > 0)
                 buffer.append(";");
-            buffer.append(StringUtils.lowerCase(header));
+            buffer.append(StringUtils.lowerCase(sortedHeaders.get(i)));
         }
-
-        return buffer.toString();
     }
 
     protected boolean shouldExcludeHeaderFromSigning(String header) {
-        return listOfHeadersToIgnoreInLowerCase.contains(header.toLowerCase());
+        for (String ignored : listOfHeadersToIgnoreInLowerCase) {
+            if (ignored.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected void addHostHeader(SignableRequest<?> request) {
@@ -495,8 +512,18 @@ public class AWS4Signer extends AbstractAWSSigner implements
      * do any other necessary set-ups on the request headers. (e.g. aws-chunked
      * uses a pre-defined header value, and needs to change some headers
      * relating to content-encoding and content-length.)
+     * <p>
+     * A hash already computed for the request is taken from the
+     * {@link HandlerContextKey#PAYLOAD_SHA256} handler context, if present.
      */
     protected String calculateContentHash(SignableRequest<?> request) {
+        if (request instanceof Request) {
+            String payloadSha256 = ((Request<?>) request)
+                    .getHandlerContext(HandlerContextKey.PAYLOAD_SHA256);
+            if (payloadSha256 != null) {
+                return payloadSha256;
+            }
+        }
         InputStream payloadStream = getBinaryRequestPayloadStream(request);
         ReadLimitInfo info = request.getReadLimitInfo();
         payloadStream.mark(info == null ? -1 : info.getReadLimit());
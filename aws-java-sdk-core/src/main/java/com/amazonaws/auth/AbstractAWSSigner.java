@@ -22,14 +22,10 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -54,6 +50,50 @@ import com.amazonaws.util.StringUtils;
 public abstract class AbstractAWSSigner implements Signer {
     public static final String EMPTY_STRING_SHA256_HEX;
 
+    /** Per-thread SHA-256 digest, reset before each use. */
+    private static final ThreadLocal<MessageDigest> SHA256_MESSAGE_DIGEST =
+            new ThreadLocal<MessageDigest>() {
+                @Override
+                protected MessageDigest initialValue() {
+                    try {
+                        return MessageDigest.getInstance("SHA-256");
+                    } catch (Exception e) {
+                        throw new AmazonClientException(
+                                "Unable to get SHA256 Function"
+                                        + e.getMessage(), e);
+                    }
+                }
+            };
+
+    /** Per-thread MACs, indexed by SigningAlgorithm ordinal. */
+    private static final ThreadLocal<Mac[]> MACS = new ThreadLocal<Mac[]>() {
+        @Override
+        protected Mac[] initialValue() {
+            return new Mac[SigningAlgorithm.values().length];
+        }
+    };
+
+    /** Per-thread buffer for the UTF-8 encoding of the text to hash or sign. */
+    private static final ThreadLocal<Utf8Buffer> UTF8_BUFFER =
+            new ThreadLocal<Utf8Buffer>() {
+                @Override
+                protected Utf8Buffer initialValue() {
+                    return new Utf8Buffer();
+                }
+            };
+
+    /**
+     * Per-thread buffer of encoded query parameter names and values, to be
+     * sorted in place. Cleared after each use.
+     */
+    private static final ThreadLocal<String[]> QUERY_PARAMETER_BUFFER =
+            new ThreadLocal<String[]>() {
+                @Override
+                protected String[] initialValue() {
+                    return new String[64];
+                }
+            };
+
     static {
         EMPTY_STRING_SHA256_HEX = BinaryUtils.toHex(doHash(""));
     }
@@ -86,8 +126,10 @@ public abstract class AbstractAWSSigner implements Signer {
     public byte[] sign(String stringData, byte[] key,
             SigningAlgorithm algorithm) throws AmazonClientException {
         try {
-            byte[] data = stringData.getBytes(UTF8);
-            return sign(data, key, algorithm);
+            Utf8Buffer data = UTF8_BUFFER.get().encode(stringData);
+            Mac mac = getMac(key, algorithm);
+            mac.update(data.bytes, 0, data.length);
+            return mac.doFinal();
         } catch (Exception e) {
             throw new AmazonClientException(
                     "Unable to calculate a request signature: "
@@ -108,9 +150,7 @@ public abstract class AbstractAWSSigner implements Signer {
     protected byte[] sign(byte[] data, byte[] key,
             SigningAlgorithm algorithm) throws AmazonClientException {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
-            mac.init(new SecretKeySpec(key, algorithm.toString()));
-            return mac.doFinal(data);
+            return getMac(key, algorithm).doFinal(data);
         } catch (Exception e) {
             throw new AmazonClientException(
                     "Unable to calculate a request signature: "
@@ -118,6 +158,21 @@ public abstract class AbstractAWSSigner implements Signer {
         }
     }
 
+    /**
+     * Returns this thread's MAC for the given algorithm, initialized with the
+     * given key.
+     */
+    private static Mac getMac(byte[] key, SigningAlgorithm algorithm) throws Exception {
+        Mac[] macs = MACS.get();
+        Mac mac = macs[algorithm.ordinal()];
+        if (mac == null) {
+            mac = Mac.getInstance(algorithm.toString());
+            macs[algorithm.ordinal()] = mac;
+        }
+        mac.init(new SecretKeySpec(key, algorithm.toString()));
+        return mac;
+    }
+
     /**
      * Hashes the string contents (assumed to be UTF-8) using the SHA-256
      * algorithm.
@@ -136,8 +191,10 @@ public abstract class AbstractAWSSigner implements Signer {
 
     private static byte[] doHash(String text) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(text.getBytes(UTF8));
+            Utf8Buffer data = UTF8_BUFFER.get().encode(text);
+            MessageDigest md = SHA256_MESSAGE_DIGEST.get();
+            md.reset();
+            md.update(data.bytes, 0, data.length);
             return md.digest();
         } catch (Exception e) {
             throw new AmazonClientException(
@@ -176,7 +233,8 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(byte[] data) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = SHA256_MESSAGE_DIGEST.get();
+            md.reset();
             md.update(data);
             return md.digest();
         } catch (Exception e) {
@@ -199,40 +257,98 @@ public abstract class AbstractAWSSigner implements Signer {
      * @return A canonicalized form for the specified query string parameters.
      */
     protected String getCanonicalizedQueryString(Map<String, List<String>> parameters) {
+        StringBuilder result = new StringBuilder();
+        appendCanonicalizedQueryString(result, parameters);
+        return result.toString();
+    }
 
-        final SortedMap<String, List<String>> sorted = new TreeMap<String, List<String>>();
+    /**
+     * Appends the canonicalized form of the specified query string parameters
+     * to the given buffer, as returned by
+     * {@link #getCanonicalizedQueryString(Map)}.
+     */
+    static void appendCanonicalizedQueryString(StringBuilder buffer,
+            Map<String, List<String>> parameters) {
+        int count = 0;
+        for (List<String> values : parameters.values()) {
+            count += values.size();
+        }
+        String[] pairs = QUERY_PARAMETER_BUFFER.get();
+        if (pairs.length < 2 * count) {
+            pairs = new String[2 * count];
+            QUERY_PARAMETER_BUFFER.set(pairs);
+        }
 
-        /**
+        /*
          * Signing protocol expects the param values also to be sorted after url
          * encoding in addition to sorted parameter names.
          */
+        int size = 0;
         for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
             final String encodedParamName = SdkHttpUtils.urlEncode(
                     entry.getKey(), false);
-            final List<String> paramValues = entry.getValue();
-            final List<String> encodedValues = new ArrayList<String>(
-                    paramValues.size());
-            for (String value : paramValues) {
-                encodedValues.add(SdkHttpUtils.urlEncode(value, false));
+            for (String value : entry.getValue()) {
+                pairs[size++] = encodedParamName;
+                pairs[size++] = SdkHttpUtils.urlEncode(value, false);
+            }
+        }
+        try {
+            sortPairs(pairs, count);
+            for (int i = 0; i < size; i += 2) {
+                if (i > 0) {
+                    buffer.append('&');
+                }
+                buffer.append(pairs[i]).append('=').append(pairs[i + 1]);
             }
-            Collections.sort(encodedValues);
-            sorted.put(encodedParamName, encodedValues);
+        } finally {
+            Arrays.fill(pairs, 0, size, null);
+        }
+    }
 
+    /**
+     * Sorts the first count name and value pairs of the given array, stored
+     * at even and odd indexes respectively, by name and then by value. A heap
+     * sort is used so that no memory is allocated.
+     */
+    private static void sortPairs(String[] pairs, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(pairs, i, count);
         }
+        for (int end = count - 1; end > 0; end--) {
+            swapPairs(pairs, 0, end);
+            siftDown(pairs, 0, end);
+        }
+    }
 
-        final StringBuilder result = new StringBuilder();
-        for(Map.Entry<String, List<String>> entry : sorted.entrySet()) {
-            for(String value : entry.getValue()) {
-                if (result.length() > 0) {
-                    result.append("&");
-                }
-                result.append(entry.getKey())
-                      .append("=")
-                      .append(value);
+    private static void siftDown(String[] pairs, int root, int count) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= count) {
+                return;
             }
+            if (child + 1 < count && comparePairs(pairs, child + 1, child) > 0) {
+                child++;
+            }
+            if (comparePairs(pairs, root, child) >= 0) {
+                return;
+            }
+            swapPairs(pairs, root, child);
+            root = child;
         }
+    }
 
-        return result.toString();
+    private static int comparePairs(String[] pairs, int i, int j) {
+        int result = pairs[2 * i].compareTo(pairs[2 * j]);
+        return result != 0 ? result : pairs[2 * i + 1].compareTo(pairs[2 * j + 1]);
+    }
+
+    private static void swapPairs(String[] pairs, int i, int j) {
+        String name = pairs[2 * i];
+        String value = pairs[2 * i + 1];
+        pairs[2 * i] = pairs[2 * j];
+        pairs[2 * i + 1] = pairs[2 * j + 1];
+        pairs[2 * j] = name;
+        pairs[2 * j + 1] = value;
     }
 
     protected String getCanonicalizedQueryString(SignableRequest<?> request) {
@@ -459,4 +575,62 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     protected abstract void addSessionCredentials(SignableRequest<?> request,
             AWSSessionCredentials credentials);
+
+    /**
+     * A reusable buffer holding the UTF-8 encoding of a string, so that text
+     * can be fed to a digest or MAC without allocating its bytes.
+     */
+    private static final class Utf8Buffer {
+        /** Larger buffers are not kept for reuse. */
+        private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        /**
+         * Encodes the given text into this buffer, or into a new one if it
+         * is too large to be retained. Unpaired surrogates are replaced with
+         * '?', as String.getBytes does.
+         */
+        Utf8Buffer encode(String text) {
+            int maxLength = text.length() * 3;
+            Utf8Buffer target = this;
+            if (maxLength > bytes.length) {
+                if (maxLength > MAX_RETAINED_SIZE) {
+                    target = new Utf8Buffer();
+                }
+                target.bytes = new byte[maxLength];
+            }
+            target.length = encode(text, target.bytes);
+            return target;
+        }
+
+        private static int encode(String text, byte[] out) {
+            int length = text.length();
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    out[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[n++] = (byte) (0xC0 | (c >> 6));
+                    out[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[n++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    out[n++] = '?';
+                } else {
+                    out[n++] = (byte) (0xE0 | (c >> 12));
+                    out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        }
+    }
 }
@@ -16,14 +16,13 @@ package com.amazonaws.auth;
 
 import java.io.IOException;
 import java.util.Date;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.internal.CredentialsRefreshScheduler;
 import com.amazonaws.internal.EC2MetadataClient;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.json.Jackson;
@@ -33,6 +32,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 /**
  * Credentials provider implementation that loads credentials from the Amazon
  * EC2 Instance Metadata Service.
+ * <p>
+ * Once credentials have been loaded, the next load is scheduled in the
+ * background on the {@link CredentialsRefreshScheduler} threads shared by all
+ * credentials providers, at a randomly jittered time ahead of the expiration
+ * and refresh thresholds, so that callers keep using the current credentials
+ * instead of waiting for new ones.
  */
 public class InstanceProfileCredentialsProvider implements AWSCredentialsProvider {
 
@@ -59,12 +64,6 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
     /** The name of the Json Object that contains the token.*/
     private static final String TOKEN = "Token";
 
-    /**
-     * The wait time, after which the background thread initiates a refresh to
-     * load latest credentials if needed.
-     */
-    private static final int ASYNC_REFRESH_INTERVAL_TIME_MINUTES= 1;
-
 
     /** The current instance profile credentials */
     protected volatile AWSCredentials credentials;
@@ -75,20 +74,19 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
     /** The time of the last attempt to check for new credentials */
     protected volatile Date lastInstanceProfileCheck;
 
-    /**
-     * The executor service used for refreshing the credentials in the
-     * background.
-     */
-    private volatile ScheduledExecutorService executor;
+    /** The next background load of the credentials, if any. */
+    private ScheduledFuture<?> scheduledRefresh;
 
     public InstanceProfileCredentialsProvider() {
         this(false);
     }
 
     /**
-     * Spins up a new thread to refresh the credentials asynchronously if
-     * refreshCredentialsAsync is set to true, otherwise the credentials will be
-     * refreshed from the instance metadata service synchronously,
+     * Loads the credentials in the background right away if
+     * refreshCredentialsAsync is set to true, otherwise the credentials will
+     * first be loaded from the instance metadata service synchronously, on the
+     * first call to {@link #getCredentials()}. Either way, later loads are
+     * scheduled in the background ahead of the time they are needed.
      *
      * @param refreshCredentialsAsync
      *            true if credentials needs to be refreshed asynchronously else
@@ -96,29 +94,10 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
      */
     public InstanceProfileCredentialsProvider(boolean refreshCredentialsAsync) {
         if (refreshCredentialsAsync) {
-            executor = Executors.newScheduledThreadPool(1);
-            executor.scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        getCredentials();
-                    } catch (AmazonClientException ace) {
-                        handleError(ace);
-                    } catch (RuntimeException re) {
-                        handleError(re);
-                    } catch (Error e) {
-                        handleError(e);
-                    }
-                }
-            }, 0, ASYNC_REFRESH_INTERVAL_TIME_MINUTES, TimeUnit.MINUTES);
+            CredentialsRefreshScheduler.schedule(new BackgroundRefreshTask(this), 0);
         }
     }
 
-    private void handleError(Throwable t) {
-        credentials = null;
-        LOG.error(t.getMessage(), t);
-    }
-
     public AWSCredentials getCredentials() {
         if (needsToLoadCredentials())
             loadCredentials();
@@ -177,6 +156,42 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
     private synchronized void loadCredentials() {
         if (!needsToLoadCredentials()) return;
 
+        fetchCredentials();
+    }
+
+    /**
+     * Loads the credentials on one of the shared background threads. Errors
+     * are only logged; callers keep using the current credentials until they
+     * are within the expiration threshold, and load them inline from then on.
+     */
+    private void backgroundRefresh() {
+        try {
+            fetchCredentials();
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to refresh credentials from Amazon EC2 metadata service in the background", e);
+        }
+    }
+
+    /**
+     * Schedules the next background load of the credentials, ahead of the
+     * time they would have to be loaded inline.
+     */
+    private void scheduleRefresh() {
+        long refreshTime = lastInstanceProfileCheck.getTime() + REFRESH_THRESHOLD;
+        if (credentialsExpiration != null) {
+            refreshTime = Math.min(refreshTime, credentialsExpiration.getTime() - EXPIRATION_THRESHOLD);
+        }
+        long delay = refreshTime - System.currentTimeMillis();
+        if (delay <= 0) return;
+
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = CredentialsRefreshScheduler.schedule(
+                new BackgroundRefreshTask(this), CredentialsRefreshScheduler.jitter(delay));
+    }
+
+    private synchronized void fetchCredentials() {
         JsonNode accessKey;
         JsonNode secretKey;
         JsonNode node;
@@ -219,6 +234,8 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
                     handleError("Unable to parse credentials expiration date from Amazon EC2 metadata service", ex);
                 }
             }
+
+            scheduleRefresh();
         } catch (JsonMappingException e) {
             handleError("Unable to parse credentials from Amazon EC2 metadata service", e);
         } catch (IOException e) {
@@ -252,10 +269,20 @@ public class InstanceProfileCredentialsProvider implements AWSCredentialsProvide
         return getClass().getSimpleName();
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        if (executor != null) {
-            executor.shutdownNow();
+    /**
+     * Loads the credentials in the background, without keeping the provider
+     * from being garbage collected.
+     */
+    private static final class BackgroundRefreshTask
+            extends CredentialsRefreshScheduler.RefreshTask<InstanceProfileCredentialsProvider> {
+
+        BackgroundRefreshTask(InstanceProfileCredentialsProvider provider) {
+            super(provider);
+        }
+
+        @Override
+        protected void run(InstanceProfileCredentialsProvider provider) {
+            provider.backgroundRefresh();
         }
     }
 }
@@ -19,12 +19,17 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.annotation.NotThreadSafe;
 import com.amazonaws.annotation.SdkInternalApi;
 import com.amazonaws.annotation.ThreadSafe;
+import com.amazonaws.auth.internal.CredentialsRefreshScheduler;
+import com.amazonaws.internal.SdkFunction;
 import com.amazonaws.internal.SdkPredicate;
 import com.amazonaws.util.ValidationUtils;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Date;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -34,10 +39,17 @@ import java.util.concurrent.locks.ReentrantLock;
 /**
  * Handles refreshing a value with a simple synchronization policy. Does a blocking, synchronous
  * refresh if needed, otherwise queues an asynchronous refresh and returns the current value.
+ * <p>
+ * If a prefetch time function is configured, every refreshed value also schedules the next
+ * refresh, slightly jittered, ahead of the time it is due, so that callers normally never wait
+ * for one. Asynchronous refreshes run on the {@link CredentialsRefreshScheduler} threads shared
+ * by all tasks, one at a time per task, while callers keep getting the current value.
  */
 @ThreadSafe
 @SdkInternalApi
-class RefreshableTask<T> {
+public class RefreshableTask<T> {
+
+    private static final Log LOG = LogFactory.getLog(RefreshableTask.class);
 
     /**
      * Maximum time to wait for a blocking refresh lock before calling refresh again. This is to
@@ -58,9 +70,10 @@ class RefreshableTask<T> {
     private final AtomicReference<T> refreshableValueHolder = new AtomicReference<T>();
 
     /**
-     * Single threaded executor to asynchronous refresh the value.
+     * The next scheduled prefetch of the value, if any.
      */
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicReference<ScheduledFuture<?>> scheduledPrefetch =
+            new AtomicReference<ScheduledFuture<?>>();
 
     /**
      * Used to ensure only one thread at any given time refreshes the value.
@@ -82,13 +95,20 @@ class RefreshableTask<T> {
      */
     private final SdkPredicate<T> shouldDoAsyncRefresh;
 
+    /**
+     * Function returning when a value should be refreshed in the background, or null if it
+     * shouldn't.
+     */
+    private final SdkFunction<T, Date> prefetchTime;
+
     private RefreshableTask(Callable<T> refreshCallable, SdkPredicate<T> shouldDoBlockingRefresh,
-                            SdkPredicate<T> shouldDoAsyncRefresh) {
+                            SdkPredicate<T> shouldDoAsyncRefresh, SdkFunction<T, Date> prefetchTime) {
         this.refreshCallable = ValidationUtils.assertNotNull(refreshCallable, "refreshCallable");
         this.shouldDoBlockingRefresh = ValidationUtils
                 .assertNotNull(shouldDoBlockingRefresh, "shouldDoBlockingRefresh");
         this.shouldDoAsyncRefresh = ValidationUtils
                 .assertNotNull(shouldDoAsyncRefresh, "shouldDoAsyncRefresh");
+        this.prefetchTime = prefetchTime;
     }
 
     @NotThreadSafe
@@ -96,13 +116,14 @@ class RefreshableTask<T> {
         private Callable<T> refreshCallable;
         private SdkPredicate<T> shouldDoBlockingRefresh;
         private SdkPredicate<T> shouldDoAsyncRefresh;
+        private SdkFunction<T, Date> prefetchTime;
 
         /**
          * Set the callable that will provide the value when a refresh occurs.
          *
          * @return This object for method chaining.
          */
-        public Builder withRefreshCallable(Callable<T> refreshCallable) {
+        public Builder<T> withRefreshCallable(Callable<T> refreshCallable) {
             this.refreshCallable = refreshCallable;
             return this;
         }
@@ -112,7 +133,7 @@ class RefreshableTask<T> {
          *
          * @return This object for method chaining.
          */
-        public Builder withBlockingRefreshPredicate(SdkPredicate<T> shouldDoBlockingRefresh) {
+        public Builder<T> withBlockingRefreshPredicate(SdkPredicate<T> shouldDoBlockingRefresh) {
             this.shouldDoBlockingRefresh = shouldDoBlockingRefresh;
             return this;
         }
@@ -123,17 +144,29 @@ class RefreshableTask<T> {
          *
          * @return This object for method chaining.
          */
-        public Builder withAsyncRefreshPredicate(SdkPredicate<T> shouldDoAsyncRefresh) {
+        public Builder<T> withAsyncRefreshPredicate(SdkPredicate<T> shouldDoAsyncRefresh) {
             this.shouldDoAsyncRefresh = shouldDoAsyncRefresh;
             return this;
         }
 
+        /**
+         * Set the function that returns the time at which a value should be refreshed in the
+         * background, ahead of the refresh predicates. The function may return null for values
+         * that shouldn't be prefetched. Optional.
+         *
+         * @return This object for method chaining.
+         */
+        public Builder<T> withPrefetchTimeFunction(SdkFunction<T, Date> prefetchTime) {
+            this.prefetchTime = prefetchTime;
+            return this;
+        }
+
         /**
          * @return The configured RefreshableTask
          */
         public RefreshableTask<T> build() {
             return new RefreshableTask<T>(refreshCallable, shouldDoBlockingRefresh,
-                                          shouldDoAsyncRefresh);
+                                          shouldDoAsyncRefresh, prefetchTime);
         }
     }
 
@@ -226,16 +259,12 @@ class RefreshableTask<T> {
         // Immediately return if refresh already in progress
         if (asyncRefreshing.compareAndSet(false, true)) {
             try {
-                executor.submit(new Runnable() {
+                CredentialsRefreshScheduler.schedule(new Runnable() {
                     @Override
                     public void run() {
-                        try {
-                            refreshValue();
-                        } finally {
-                            asyncRefreshing.set(false);
-                        }
+                        backgroundRefresh();
                     }
-                });
+                }, 0);
             } catch (RuntimeException ex) {
                 asyncRefreshing.set(false);
                 throw ex;
@@ -243,13 +272,67 @@ class RefreshableTask<T> {
         }
     }
 
+    /**
+     * Refreshes the value on a background thread, and releases the asynchronous refresh flag
+     * taken by the caller. Errors are only logged; callers keep getting the current value, and
+     * do a blocking refresh once it can't be used any longer.
+     */
+    private void backgroundRefresh() {
+        try {
+            refreshValue();
+        } catch (RuntimeException ex) {
+            LOG.warn("Unable to refresh the value in the background", ex);
+        } finally {
+            asyncRefreshing.set(false);
+        }
+    }
+
+    /**
+     * Refreshes the value ahead of time, unless it has already been refreshed since the prefetch
+     * was scheduled or another asynchronous refresh is in progress.
+     */
+    private void prefetch(T scheduledValue) {
+        if (refreshableValueHolder.get() == scheduledValue
+            && asyncRefreshing.compareAndSet(false, true)) {
+            backgroundRefresh();
+        }
+    }
+
+    /**
+     * Schedules the prefetch of the specified value at its jittered prefetch time, replacing any
+     * prefetch scheduled for the previous value. Values whose prefetch time has already passed
+     * are left to the refresh predicates.
+     */
+    private void schedulePrefetch(T value) {
+        if (prefetchTime == null) {
+            return;
+        }
+        Date time = prefetchTime.apply(value);
+        if (time == null) {
+            return;
+        }
+        long delay = time.getTime() - System.currentTimeMillis();
+        if (delay <= 0) {
+            return;
+        }
+        ScheduledFuture<?> previous = scheduledPrefetch.getAndSet(
+                CredentialsRefreshScheduler.schedule(new PrefetchTask<T>(this, value),
+                                                     CredentialsRefreshScheduler.jitter(delay)));
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
     /**
      * Invokes the callback to get a new value.
      */
     private void refreshValue() {
         try {
-            refreshableValueHolder
-                    .compareAndSet(refreshableValueHolder.get(), refreshCallable.call());
+            T value = refreshCallable.call();
+            refreshableValueHolder.set(value);
+            if (value != null) {
+                schedulePrefetch(value);
+            }
         } catch (AmazonServiceException ase) {
             // Preserve the original ASE
             throw ase;
@@ -270,4 +353,23 @@ class RefreshableTask<T> {
         throw new AmazonClientException(message, cause);
     }
 
+    /**
+     * Prefetches the value it was scheduled for, without keeping the task from being garbage
+     * collected.
+     */
+    private static final class PrefetchTask<T>
+            extends CredentialsRefreshScheduler.RefreshTask<RefreshableTask<T>> {
+
+        private final T scheduledValue;
+
+        PrefetchTask(RefreshableTask<T> task, T scheduledValue) {
+            super(task);
+            this.scheduledValue = scheduledValue;
+        }
+
+        @Override
+        protected void run(RefreshableTask<T> task) {
+            task.prefetch(scheduledValue);
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth.internal;
+
+import java.lang.ref.WeakReference;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Schedules the background refresh of credentials for all credentials
+ * providers in the JVM on one small, shared pool of daemon threads, instead of
+ * a thread per provider.
+ * <p>
+ * Refreshes are meant to be scheduled ahead of the time credentials have to be
+ * replaced, with {@link #jitter(long)} applied so that a fleet of hosts started
+ * together doesn't refresh in lock step.
+ */
+@ThreadSafe
+@SdkInternalApi
+public final class CredentialsRefreshScheduler {
+
+    /** The most a refresh is moved ahead of its scheduled time. */
+    private static final long MAX_JITTER_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The fraction of the delay, as a divisor, by which a refresh may at most
+     * be moved ahead of its scheduled time.
+     */
+    private static final int JITTER_DIVISOR = 5;
+
+    /**
+     * Two threads, so that one provider refreshing from an unresponsive
+     * endpoint doesn't hold up the refresh of every other provider.
+     */
+    private static final int THREADS = 2;
+
+    private static final Random RANDOM = new Random();
+
+    private CredentialsRefreshScheduler() {
+    }
+
+    /**
+     * Lazily creates the thread pool, so that applications which never refresh
+     * credentials in the background never start it.
+     */
+    private static final class ExecutorHolder {
+        private static final ScheduledThreadPoolExecutor EXECUTOR = newExecutor();
+    }
+
+    private static ScheduledThreadPoolExecutor newExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(THREADS,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "aws-credentials-refresh-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        setRemoveOnCancel(executor);
+        return executor;
+    }
+
+    /**
+     * {@link ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy(boolean)} is
+     * not available in Java 6. Cancelled refreshes are only kept until they
+     * would have run there, and the tasks only weakly reference their
+     * provider, so the policy is an optimization rather than a requirement.
+     */
+    private static void setRemoveOnCancel(ScheduledThreadPoolExecutor executor) {
+        try {
+            executor.getClass().getMethod("setRemoveOnCancelPolicy", boolean.class)
+                    .invoke(executor, Boolean.TRUE);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Runs the specified task on the shared refresh threads after the
+     * specified delay.
+     *
+     * @param task
+     *            The refresh to run.
+     * @param delayMillis
+     *            The delay, in milliseconds; non-positive values run the task
+     *            as soon as a thread is available.
+     * @return A future that can be used to cancel the refresh.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return ExecutorHolder.EXECUTOR.schedule(task, Math.max(0, delayMillis),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the specified delay moved ahead by a random amount of up to a
+     * fifth of the delay, and at most five minutes.
+     *
+     * @param delayMillis
+     *            The latest time, in milliseconds from now, at which the
+     *            refresh should happen.
+     */
+    public static long jitter(long delayMillis) {
+        long maxJitter = Math.min(MAX_JITTER_MILLIS, delayMillis / JITTER_DIVISOR);
+        if (maxJitter <= 0) {
+            return Math.max(0, delayMillis);
+        }
+        return delayMillis - (long) (RANDOM.nextDouble() * maxJitter);
+    }
+
+    /**
+     * A scheduled refresh which only weakly references the object it
+     * refreshes, so that a pending refresh doesn't keep a credentials provider
+     * the application has let go of from being garbage collected.
+     *
+     * @param <T>
+     *            The type of the object refreshed.
+     */
+    public abstract static class RefreshTask<T> implements Runnable {
+
+        private final WeakReference<T> target;
+
+        protected RefreshTask(T target) {
+            this.target = new WeakReference<T>(target);
+        }
+
+        @Override
+        public final void run() {
+            T t = target.get();
+            if (t != null) {
+                run(t);
+            }
+        }
+
+        /**
+         * Refreshes the specified object.
+         */
+        protected abstract void run(T target);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+/**
+ * Used to indicate whether the byte transfer events for a listener may be
+ * coalesced. The byte counts of the request and response byte transfer events
+ * for such a listener are added up and delivered periodically as a single
+ * event of each type, rather than as one event per chunk of bytes
+ * transferred. All events for the listener are delivered in order on a single
+ * background thread, and any byte counts pending are delivered before each
+ * event of another type.
+ * <p>
+ * This makes progress tracking nearly free on the I/O path, and is
+ * recommended for listeners that only report or accumulate the number of
+ * bytes transferred.
+ *
+ * @see SDKProgressPublisher
+ */
+public interface CoalescingDeliveryMode {
+    /**
+     * Returns true if the byte transfer events for the implementing listener
+     * may be coalesced; false if the listener must receive an event for every
+     * chunk of bytes transferred.
+     */
+    public boolean isCoalescingSafe();
+
+    /**
+     * Provides convenient method to check if the byte transfer events for a
+     * listener may be coalesced.
+     */
+    public static class Check {
+        public static boolean isCoalescingSafe(ProgressListener listener) {
+            if (listener instanceof CoalescingDeliveryMode) {
+                CoalescingDeliveryMode mode = (CoalescingDeliveryMode) listener;
+                return mode.isCoalescingSafe();
+            }
+            return false;
+        }
+    }
+}
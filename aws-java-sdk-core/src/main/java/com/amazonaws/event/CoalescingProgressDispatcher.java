@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+import static com.amazonaws.event.ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT;
+import static com.amazonaws.event.ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Delivers progress events to listeners whose byte transfer events may be
+ * coalesced, on a single daemon thread.
+ * <p>
+ * Byte counts are added to a per-listener accumulator, which is queued for
+ * delivery once per period, so that publishing them costs a map lookup and an
+ * atomic add. Other events are handed to the delivery thread through a
+ * lock-free queue bounded to a fixed number of events; publishers wait for
+ * room when it is full. The accumulator of a listener is drained ahead of each
+ * such event, so that the listener sees its events in order.
+ *
+ * @see CoalescingDeliveryMode
+ */
+final class CoalescingProgressDispatcher implements Runnable {
+
+    /** The default interval between two deliveries of coalesced byte counts. */
+    static final long DEFAULT_PERIOD_MILLIS = 100;
+
+    /** The default maximum number of events waiting for delivery. */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /** How long a publisher waits before checking again for room in a full queue. */
+    private static final long FULL_QUEUE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final long periodNanos;
+    private final int capacity;
+
+    /** The accumulators of the listeners with byte counts pending. */
+    private final ConcurrentMap<ProgressListener, Accumulator> accumulators =
+            new ConcurrentHashMap<ProgressListener, Accumulator>();
+
+    /** Accumulators waiting for the end of their period, in deadline order. */
+    private final Queue<Accumulator> pendingFlushes = new ConcurrentLinkedQueue<Accumulator>();
+
+    /** Events, and accumulators to drain ahead of them, in publication order. */
+    private final Queue<Delivery> deliveries = new ConcurrentLinkedQueue<Delivery>();
+    private final AtomicInteger queuedDeliveries = new AtomicInteger();
+
+    private final Thread thread;
+    private volatile boolean waiting;
+    private volatile boolean shutdown;
+    private volatile boolean discardQueued;
+
+    CoalescingProgressDispatcher() {
+        this(DEFAULT_PERIOD_MILLIS, DEFAULT_CAPACITY);
+    }
+
+    CoalescingProgressDispatcher(long periodMillis, int capacity) {
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.capacity = capacity;
+        thread = new Thread(this);
+        thread.setName("java-sdk-progress-listener-coalescing-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds the given number of bytes to the next request or response byte
+     * transfer event to deliver to the listener.
+     */
+    void publishBytesTransferred(ProgressListener listener,
+            ProgressEventType type, long bytes) {
+        if (shutdown) {
+            return;
+        }
+        Accumulator accumulator = accumulators.get(listener);
+        if (accumulator == null) {
+            Accumulator created = new Accumulator(listener);
+            accumulator = accumulators.putIfAbsent(listener, created);
+            if (accumulator == null) {
+                accumulator = created;
+            }
+        }
+        if (type == REQUEST_BYTE_TRANSFER_EVENT) {
+            accumulator.requestBytes.addAndGet(bytes);
+        } else {
+            accumulator.responseBytes.addAndGet(bytes);
+        }
+        if (!accumulator.scheduled.get()
+                && accumulator.scheduled.compareAndSet(false, true)) {
+            accumulator.deadline = System.nanoTime() + periodNanos;
+            pendingFlushes.offer(accumulator);
+            wakeUp();
+        }
+    }
+
+    /**
+     * Queues the given event for delivery to the listener, after any byte
+     * counts pending for it.
+     */
+    void publish(ProgressListener listener, ProgressEvent event) {
+        if (shutdown) {
+            return;
+        }
+        Accumulator accumulator = accumulators.remove(listener);
+        if (accumulator != null) {
+            enqueue(new Delivery(listener, null, accumulator));
+        }
+        enqueue(new Delivery(listener, event, null));
+    }
+
+    /**
+     * Stops the delivery thread. Events published afterwards are discarded.
+     *
+     * @param now
+     *            true to also discard the events and byte counts already
+     *            queued; false to deliver them first.
+     */
+    void shutdown(boolean now) {
+        discardQueued = now;
+        shutdown = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void enqueue(Delivery delivery) {
+        while (queuedDeliveries.incrementAndGet() > capacity) {
+            queuedDeliveries.decrementAndGet();
+            if (Thread.currentThread() == thread) {
+                // Published from a listener callback; waiting would deadlock
+                delivery.deliver();
+                return;
+            }
+            if (shutdown) {
+                return;
+            }
+            wakeUp();
+            LockSupport.parkNanos(this, FULL_QUEUE_WAIT_NANOS);
+        }
+        deliveries.offer(delivery);
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Delivery delivery;
+            while ((delivery = deliveries.poll()) != null) {
+                queuedDeliveries.decrementAndGet();
+                if (shutdown && discardQueued) {
+                    return;
+                }
+                delivery.deliver();
+            }
+            if (shutdown && discardQueued) {
+                return;
+            }
+            long now = System.nanoTime();
+            Accumulator accumulator = pendingFlushes.peek();
+            if (accumulator != null && accumulator.deadline - now <= 0) {
+                pendingFlushes.poll();
+                flush(accumulator);
+                continue;
+            }
+            if (shutdown) {
+                // Deliver the byte counts pending without waiting for their
+                // periods to end
+                while ((accumulator = pendingFlushes.poll()) != null) {
+                    flush(accumulator);
+                }
+                return;
+            }
+            waiting = true;
+            if (deliveries.isEmpty()) {
+                accumulator = pendingFlushes.peek();
+                if (accumulator == null) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, accumulator.deadline - now);
+                }
+            }
+            waiting = false;
+        }
+    }
+
+    /**
+     * Delivers the byte counts of an accumulator whose period has ended. The
+     * accumulator is unscheduled before it is drained, so that bytes added
+     * concurrently are either drained now or schedule it again.
+     */
+    private void flush(Accumulator accumulator) {
+        accumulator.scheduled.set(false);
+        accumulators.remove(accumulator.listener, accumulator);
+        accumulator.drain();
+    }
+
+    /**
+     * The byte counts pending for a listener.
+     */
+    private static final class Accumulator {
+        private final ProgressListener listener;
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        /** True while the accumulator is waiting in the pending flushes. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long deadline;
+
+        private Accumulator(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        private void drain() {
+            long bytes = requestBytes.getAndSet(0);
+            if (bytes > 0) {
+                quietlyCallListener(listener,
+                        new ProgressEvent(REQUEST_BYTE_TRANSFER_EVENT, bytes));
+            }
+            bytes = responseBytes.getAndSet(0);
+            if (bytes > 0) {
+                quietlyCallListener(listener,
+                        new ProgressEvent(RESPONSE_BYTE_TRANSFER_EVENT, bytes));
+            }
+        }
+    }
+
+    /**
+     * An event to deliver, or an accumulator to drain.
+     */
+    private static final class Delivery {
+        private final ProgressListener listener;
+        private final ProgressEvent event;
+        private final Accumulator accumulator;
+
+        private Delivery(ProgressListener listener, ProgressEvent event,
+                Accumulator accumulator) {
+            this.listener = listener;
+            this.event = event;
+            this.accumulator = accumulator;
+        }
+
+        private void deliver() {
+            if (accumulator != null) {
+                accumulator.drain();
+            } else {
+                quietlyCallListener(listener, event);
+            }
+        }
+    }
+
+    private static void quietlyCallListener(ProgressListener listener,
+            ProgressEvent event) {
+        try {
+            listener.progressChanged(event);
+        } catch (Throwable t) {
+            LogFactory.getLog(SDKProgressPublisher.class)
+                .debug("Failure from the event listener", t);
+        }
+    }
+}
@@ -32,7 +32,8 @@ import org.apache.commons.logging.LogFactory;
  * deprecated in favor of this new class.
  * </p>
  */
-public class ProgressListenerChain implements ProgressListener, DeliveryMode {
+public class ProgressListenerChain implements ProgressListener, DeliveryMode,
+        CoalescingDeliveryMode {
     private static final Log log = LogFactory.getLog(ProgressListenerChain.class);
 
     private final List<ProgressListener> listeners = new CopyOnWriteArrayList<ProgressListener>();
@@ -44,6 +45,13 @@ public class ProgressListenerChain implements ProgressListener, DeliveryMode {
      * @see SDKProgressPublisher
      */
     private volatile boolean syncCallSafe = true;
+    /**
+     * True if the byte transfer events of every listener in this chain may be
+     * coalesced.
+     *
+     * @see SDKProgressPublisher
+     */
+    private volatile boolean coalescingSafe = true;
 
     /**
      * Create a listener chain that directly passes all the progress events to
@@ -71,6 +79,8 @@ public class ProgressListenerChain implements ProgressListener, DeliveryMode {
             return;
         if (syncCallSafe)
             syncCallSafe = DeliveryMode.Check.isSyncCallSafe(listener);
+        if (coalescingSafe)
+            coalescingSafe = CoalescingDeliveryMode.Check.isCoalescingSafe(listener);
         this.listeners.add(listener);
     }
 
@@ -103,4 +113,12 @@ public class ProgressListenerChain implements ProgressListener, DeliveryMode {
     }
 
     @Override public boolean isSyncCallSafe() { return syncCallSafe; }
+
+    /**
+     * Returns true if this chain has listeners, and the byte transfer events
+     * of every one of them may be coalesced.
+     */
+    @Override public boolean isCoalescingSafe() {
+        return coalescingSafe && !listeners.isEmpty();
+    }
 }
@@ -33,6 +33,10 @@ import org.apache.commons.logging.LogFactory;
  * This class is responsible for executing the callback method of
  * ProgressListener; listener callbacks are executed sequentially in a separate
  * single thread.
+ * <p>
+ * Listeners that are {@link CoalescingDeliveryMode#isCoalescingSafe()
+ * coalescing safe} have their byte transfer events added up and delivered
+ * periodically instead, through a bounded queue to a separate delivery thread.
  */
 public class SDKProgressPublisher {
 
@@ -73,6 +77,10 @@ public class SDKProgressPublisher {
     private static Future<?> deliverEvent(final ProgressListener listener,
             final ProgressEvent event) {
 
+        if (CoalescingDeliveryMode.Check.isCoalescingSafe(listener)) {
+            CoalescingHolder.dispatcher.publish(listener, event);
+            return null;
+        }
         if (listener instanceof DeliveryMode) {
             DeliveryMode mode = (DeliveryMode) listener;
             if (mode.isSyncCallSafe()) {
@@ -171,6 +179,11 @@ public class SDKProgressPublisher {
             final long bytes) {
         if (listener == ProgressListener.NOOP || listener == null || bytes <= 0)
             return null;
+        if ((type == REQUEST_BYTE_TRANSFER_EVENT || type == RESPONSE_BYTE_TRANSFER_EVENT)
+                && CoalescingDeliveryMode.Check.isCoalescingSafe(listener)) {
+            CoalescingHolder.dispatcher.publishBytesTransferred(listener, type, bytes);
+            return null;
+        }
         return deliverEvent(listener, new ProgressEvent(type, bytes));
     }
 
@@ -273,7 +286,28 @@ public class SDKProgressPublisher {
     }
 
     /**
-     * Can be used to shutdown the (legacy) executor.
+     * Used to avoid creating the coalescing delivery thread until a listener
+     * needs it.
+     */
+    private static final class CoalescingHolder {
+        private static final CoalescingProgressDispatcher dispatcher =
+                new CoalescingProgressDispatcher();
+
+        static {
+            coalescingDispatcherCreated = true;
+        }
+    }
+
+    /**
+     * True once the coalescing delivery thread has been created, so that
+     * {@link #shutdown(boolean)} can stop it without creating it.
+     */
+    private static volatile boolean coalescingDispatcherCreated;
+
+    /**
+     * Can be used to shutdown the (legacy) executor, and the thread delivering
+     * the events of listeners that are {@link CoalescingDeliveryMode coalescing
+     * safe}.
      * <p>
      * However, the recommended best practice is to always make use of progress
      * listeners that are short-lived (ie do not block) and are subclasses of
@@ -288,5 +322,7 @@ public class SDKProgressPublisher {
             LazyHolder.executor.shutdownNow();
         else
             LazyHolder.executor.shutdown();
+        if (coalescingDispatcherCreated)
+            CoalescingHolder.dispatcher.shutdown(now);
     }
 }
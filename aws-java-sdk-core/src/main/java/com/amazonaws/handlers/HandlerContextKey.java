@@ -41,6 +41,15 @@ package com.amazonaws.handlers;
  * </pre>
  */
 public class HandlerContextKey<T> {
+
+    /**
+     * The hex-encoded SHA-256 hash of the request payload, when it has already
+     * been computed along with the other checksums of the payload. Signers
+     * that hash the payload use it instead of reading the payload again.
+     */
+    public static final HandlerContextKey<String> PAYLOAD_SHA256 =
+            new HandlerContextKey<String>("PayloadSha256");
+
     private final String name;
 
     public HandlerContextKey(String name) {
@@ -39,6 +39,7 @@ import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.SdkBufferedInputStream;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.AdaptiveRateLimiter;
 import com.amazonaws.util.CapacityManager;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.retry.RetryUtils;
@@ -52,11 +53,17 @@ import org.apache.http.*;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.message.BasicHttpRequest;
 import org.apache.http.pool.ConnPoolControl;
 import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.BasicHttpContext;
@@ -69,6 +76,18 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.amazonaws.SDKGlobalConfiguration.PROFILING_SYSTEM_PROPERTY;
 import static com.amazonaws.event.SDKProgressPublisher.*;
@@ -130,6 +149,21 @@ public class AmazonHttpClient {
     /** Internal client for sending HTTP requests */
     private final HttpClient httpClient;
 
+    /** Non-blocking transport used by asynchronous executions; or null if none is configured. */
+    private final AsyncHttpTransport asyncHttpTransport;
+
+    /** Schedules the retries and timeouts of asynchronous executions; lazily initialized. */
+    private volatile ScheduledThreadPoolExecutor asyncScheduler;
+
+    /** Sends the copies of hedged requests; lazily initialized. */
+    private volatile ExecutorService hedgeExecutor;
+
+    /** Caps the number of copies sent for hedged requests. */
+    private final HedgedRequest.Budget hedgingBudget;
+
+    /** When a request was last sent through the connection pool, in milliseconds. */
+    private final AtomicLong lastRequestTime = new AtomicLong();
+
     /** Client configuration options, such as proxy settings, max retries, etc. */
     private final ClientConfiguration config;
 
@@ -142,6 +176,9 @@ public class AmazonHttpClient {
     /** Retry capacity manager, used to manage throttled retry resource */
     private final CapacityManager retryCapacity;
 
+    /** Limits the send rate while the service is throttling requests; or null if disabled. */
+    private final AdaptiveRateLimiter rateLimiter;
+
     /**
      * Timer to enforce timeouts on the whole execution of the request (request handlers, retries,
      * backoff strategy, unmarshalling, etc)
@@ -199,12 +236,18 @@ public class AmazonHttpClient {
         this.responseMetadataCache = new ResponseMetadataCache(clientConfig.getResponseMetadataCacheSize());
         this.httpRequestTimer = new HttpRequestTimer();
         this.clientExecutionTimer = new ClientExecutionTimer();
+        AsyncHttpTransportFactory asyncHttpTransportFactory = clientConfig.getAsyncHttpTransportFactory();
+        this.asyncHttpTransport = asyncHttpTransportFactory == null ? null
+                : asyncHttpTransportFactory.createTransport(clientConfig);
 
         // When enabled, total retry capacity is computed based on retry cost
         // and desired number of retries.
-        int throttledRetryMaxCapacity = clientConfig.useThrottledRetries()
+        final boolean adaptiveRateLimiting = clientConfig.useAdaptiveRateLimiting();
+        int throttledRetryMaxCapacity = clientConfig.useThrottledRetries() || adaptiveRateLimiting
                 ? THROTTLED_RETRY_COST * THROTTLED_RETRIES : -1;
         this.retryCapacity = new CapacityManager(throttledRetryMaxCapacity);
+        this.rateLimiter = adaptiveRateLimiting ? new AdaptiveRateLimiter() : null;
+        this.hedgingBudget = new HedgedRequest.Budget(clientConfig.getHedgingBudget());
     }
 
     /**
@@ -291,6 +334,65 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Returns true if this client sends asynchronous executions through a non-blocking transport.
+     *
+     * @see ClientConfiguration#setAsyncHttpTransportFactory(AsyncHttpTransportFactory)
+     */
+    public boolean isAsyncHttpTransportEnabled() {
+        return asyncHttpTransport != null;
+    }
+
+    /**
+     * Executes the request asynchronously and returns a future for its response.
+     * <p>
+     * If a non-blocking transport is configured, the request is sent through that transport and
+     * the executor is only used for the non-blocking steps of the execution (request handlers,
+     * signing, response handling and notification of the callback), so no thread is held while
+     * the request is on the wire and backoffs between retries are scheduled rather than slept.
+     * Signing, retries, request handlers and request metrics behave exactly as for
+     * {@link #execute(Request, HttpResponseHandler, HttpResponseHandler, ExecutionContext)}.
+     * Otherwise, or if either response handler needs the HTTP connection left open, the request
+     * is executed using the blocking HTTP client on the executor.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the remote server
+     * @param executionContext
+     *            Additional information about the context of this web service call
+     * @param executor
+     *            The executor on which the steps of the execution are run.
+     * @param callback
+     *            Optional callback notified of the outcome of the execution before the returned
+     *            future completes; may be null.
+     * @return A future for the response. Cancelling the future aborts the execution.
+     */
+    public <T> Future<Response<T>> executeAsync(Request<?> request,
+                                                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                                                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                                                ExecutionContext executionContext,
+                                                Executor executor,
+                                                FutureCallback<Response<T>> callback) {
+        if (executionContext == null) {
+            throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        AsyncExecution<T> execution = new AsyncExecution<T>(request, getNonNullResponseHandler(responseHandler),
+                getNonNullResponseHandler(errorResponseHandler), executionContext, executor, callback);
+        if (asyncHttpTransport == null || execution.responseHandler.needsConnectionLeftOpen()
+                || execution.errorResponseHandler.needsConnectionLeftOpen()) {
+            execution.startBlocking();
+        } else {
+            execution.start();
+        }
+        return execution;
+    }
+
     /**
      * Ensures the response handler is not null. If it is this method returns a dummy response
      * handler.
@@ -348,21 +450,9 @@ public class AmazonHttpClient {
         final List<RequestHandler2> requestHandler2s = requestHandler2s(request, executionContext);
 
         AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-
-        setSdkTransactionId(request);
-        setUserAgent(request);
+        addClientHeadersAndParameters(request);
 
         ProgressListener listener = awsreq.getGeneralProgressListener();
-        // add custom headers
-        Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
-        if (customHeaders != null) {
-            request.getHeaders().putAll(customHeaders);
-        }
-        // add custom query parameters
-        Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
-        if (customQueryParams != null) {
-            mergeQueryParameters(request, customQueryParams);
-        }
         final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
         Response<T> response = null;
         final InputStream origContent = request.getContent();
@@ -446,6 +536,28 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Adds the SDK transaction id, the user agent and any custom headers and query parameters of
+     * the original request to the given request.
+     */
+    private void addClientHeadersAndParameters(Request<?> request) {
+        AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+
+        setSdkTransactionId(request);
+        setUserAgent(request);
+
+        // add custom headers
+        Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
+        if (customHeaders != null) {
+            request.getHeaders().putAll(customHeaders);
+        }
+        // add custom query parameters
+        Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
+        if (customQueryParams != null) {
+            mergeQueryParameters(request, customQueryParams);
+        }
+    }
+
     /**
      * Merge query parameters into the given request.
      */
@@ -565,44 +677,11 @@ public class AmazonHttpClient {
         // Always mark the input stream before execution.
         final ExecOneRequestParams execOneParams = new ExecOneRequestParams();
         final InputStream originalContent = request.getContent();
-        if (originalContent != null && originalContent.markSupported()
-                && !(originalContent instanceof BufferedInputStream)) {
-            // Mark only once for non-BufferedInputStream
-            AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-            final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
-            originalContent.mark(readLimit);
-        }
+        markOriginalContent(request, originalContent);
         while (true) {
             checkInterrupted();
-            if (originalContent instanceof BufferedInputStream && originalContent.markSupported()) {
-                // Mark everytime for BufferedInputStream, since the marker could
-                // have been invalidated
-                AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-                final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
-                originalContent.mark(readLimit);
-            }
-            execOneParams.initPerRetry();
-            if (execOneParams.redirectedURI != null) {
-                /*
-                 * [scheme:][//authority][path][?query][#fragment]
-                 */
-                String scheme = execOneParams.redirectedURI.getScheme();
-                String beforeAuthority = scheme == null ? "" : scheme + "://";
-                String authority = execOneParams.redirectedURI.getAuthority();
-                String path = execOneParams.redirectedURI.getPath();
-
-                request.setEndpoint(URI.create(beforeAuthority + authority));
-                request.setResourcePath(path);
-            }
-            if (execOneParams.authRetryParam != null) {
-                request.setEndpoint(execOneParams.authRetryParam.getEndpointForRetry());
-            }
-            awsRequestMetrics.setCounter(Field.RequestCount, execOneParams.requestCount);
-            if (execOneParams.isRetry()) {
-                request.setParameters(originalParameters);
-                request.setHeaders(originalHeaders);
-                request.setContent(originalContent);
-            }
+            beforeAttempt(request, awsRequestMetrics, execOneParams, originalParameters, originalHeaders,
+                    originalContent);
             try {
                 Response<T> response = executeOneRequest(request, responseHandler, errorResponseHandler,
                         executionContext, awsRequestMetrics, execOneParams, requestHandlers);
@@ -610,44 +689,120 @@ public class AmazonHttpClient {
                     return response;
                 }
             } catch (IOException ioe) {
-                if (log.isInfoEnabled()) {
-                    log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
-                }
-                captureExceptionMetrics(ioe, awsRequestMetrics);
-                awsRequestMetrics.addProperty(Field.AWSRequestID, null);
-                AmazonClientException ace = new AmazonClientException(
-                        "Unable to execute HTTP request: " + ioe.getMessage(), ioe);
-                if (!shouldRetry(request.getOriginalRequest(), execOneParams, ace,
-                        executionContext)) {
-                    throw lastReset(ace, request);
+                AmazonClientException ace = handleIOException(request, ioe, executionContext, awsRequestMetrics,
+                        execOneParams);
+                if (ace != null) {
+                    throw ace;
                 }
-                // Cache the retryable exception
-                execOneParams.retriedException = ace;
             } catch (RuntimeException e) {
                 throw lastReset(captureExceptionMetrics(e, awsRequestMetrics), request);
             } catch (Error e) {
                 throw lastReset(captureExceptionMetrics(e, awsRequestMetrics), request);
             } finally {
-                /*
-                 * Some response handlers need to manually manage the HTTP connection and will take
-                 * care of releasing the connection on their own, but if this response handler
-                 * doesn't need the connection left open, we go ahead and release the it to free up
-                 * resources.
-                 */
-                if (!execOneParams.leaveHttpConnectionOpen) {
-                    if (execOneParams.apacheResponse != null) {
-                        HttpEntity entity = execOneParams.apacheResponse.getEntity();
-                        if (entity != null) {
-                            try {
-                                closeQuietly(entity.getContent(), log);
-                            } catch (IOException e) {
-                                log.warn("Cannot close the response content.", e);
-                            }
-                        }
+                releaseResponseContent(execOneParams);
+            }
+        } /* end while (true) */
+    }
+
+    /**
+     * Always mark the input stream before execution. Streams other than {@link BufferedInputStream}
+     * are only marked once; see {@link #beforeAttempt}.
+     */
+    private void markOriginalContent(final Request<?> request, final InputStream originalContent) {
+        if (originalContent != null && originalContent.markSupported()
+                && !(originalContent instanceof BufferedInputStream)) {
+            // Mark only once for non-BufferedInputStream
+            AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+            final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
+            originalContent.mark(readLimit);
+        }
+    }
+
+    /**
+     * Restores the request to its original state, and points it at the redirected or auth retry
+     * endpoint if any, before each attempt.
+     */
+    private void beforeAttempt(final Request<?> request,
+                               final AWSRequestMetrics awsRequestMetrics,
+                               final ExecOneRequestParams execOneParams,
+                               final Map<String, List<String>> originalParameters,
+                               final Map<String, String> originalHeaders,
+                               final InputStream originalContent) {
+        if (originalContent instanceof BufferedInputStream && originalContent.markSupported()) {
+            // Mark everytime for BufferedInputStream, since the marker could
+            // have been invalidated
+            AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+            final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
+            originalContent.mark(readLimit);
+        }
+        execOneParams.initPerRetry();
+        if (execOneParams.redirectedURI != null) {
+            /*
+             * [scheme:][//authority][path][?query][#fragment]
+             */
+            String scheme = execOneParams.redirectedURI.getScheme();
+            String beforeAuthority = scheme == null ? "" : scheme + "://";
+            String authority = execOneParams.redirectedURI.getAuthority();
+            String path = execOneParams.redirectedURI.getPath();
+
+            request.setEndpoint(URI.create(beforeAuthority + authority));
+            request.setResourcePath(path);
+        }
+        if (execOneParams.authRetryParam != null) {
+            request.setEndpoint(execOneParams.authRetryParam.getEndpointForRetry());
+        }
+        awsRequestMetrics.setCounter(Field.RequestCount, execOneParams.requestCount);
+        if (execOneParams.isRetry()) {
+            request.setParameters(originalParameters);
+            request.setHeaders(originalHeaders);
+            request.setContent(originalContent);
+        }
+    }
+
+    /**
+     * Handles an I/O failure of a single attempt.
+     *
+     * @return the exception to throw to the caller; or null if the request should be retried.
+     */
+    private AmazonClientException handleIOException(final Request<?> request,
+                                                    final IOException ioe,
+                                                    final ExecutionContext executionContext,
+                                                    final AWSRequestMetrics awsRequestMetrics,
+                                                    final ExecOneRequestParams execOneParams) {
+        if (log.isInfoEnabled()) {
+            log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+        }
+        captureExceptionMetrics(ioe, awsRequestMetrics);
+        awsRequestMetrics.addProperty(Field.AWSRequestID, null);
+        AmazonClientException ace = new AmazonClientException(
+                "Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+        if (!shouldRetry(request.getOriginalRequest(), execOneParams, ace,
+                executionContext)) {
+            return lastReset(ace, request);
+        }
+        // Cache the retryable exception
+        execOneParams.retriedException = ace;
+        return null;
+    }
+
+    /**
+     * Some response handlers need to manually manage the HTTP connection and will take care of
+     * releasing the connection on their own, but if this response handler doesn't need the
+     * connection left open, we go ahead and release the it to free up resources.
+     */
+    private void releaseResponseContent(final ExecOneRequestParams execOneParams) {
+        if (!execOneParams.leaveHttpConnectionOpen) {
+            if (execOneParams.apacheResponse != null) {
+                HttpEntity entity = execOneParams.apacheResponse.getEntity();
+                if (entity != null) {
+                    try {
+                        closeQuietly(entity.getContent(), log);
+                    } catch (IOException e) {
+                        log.warn("Cannot close the response content.", e);
                     }
                 }
             }
-        } /* end while (true) */
+        }
     }
 
     /**
@@ -675,6 +830,548 @@ public class AmazonHttpClient {
         return t;
     }
 
+    /**
+     * Returns the scheduler for the retries and timeouts of asynchronous executions. The scheduler
+     * only hands tasks over to the executor of the execution, so a single thread is enough.
+     */
+    private synchronized ScheduledThreadPoolExecutor getAsyncScheduler() {
+        if (asyncScheduler == null) {
+            asyncScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "aws-async-http-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return asyncScheduler;
+    }
+
+    /**
+     * Returns the executor the copies of hedged requests are sent on. Each copy blocks a thread
+     * until its response is received, so threads are created as needed.
+     */
+    private synchronized ExecutorService getHedgeExecutor() {
+        if (hedgeExecutor == null) {
+            hedgeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,
+                            "aws-hedged-request-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return hedgeExecutor;
+    }
+
+    /**
+     * A single asynchronous execution of a request. It goes through the same steps as
+     * {@link #doExecute} and {@link #executeHelper}, but each step runs on the executor of the
+     * execution: the transport's I/O threads only hand the outcome of each HTTP exchange over to
+     * the executor, and backoffs and timeouts are scheduled on the async scheduler.
+     * <p>
+     * Only one step of an execution runs at a time. Steps that find the execution already done
+     * (completed, failed, timed out or cancelled) do nothing.
+     */
+    private final class AsyncExecution<T> extends BasicFuture<Response<T>> {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final Executor executor;
+        private final FutureCallback<Response<T>> callback;
+        private final AWSRequestMetrics awsRequestMetrics;
+        private final ProgressListener listener;
+        private final ExecOneRequestParams execOneParams = new ExecOneRequestParams();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private List<RequestHandler2> requestHandler2s = Collections.emptyList();
+        private boolean contentWrapped;
+        private InputStream origContent;
+        private InputStream toBeClosed;
+        private Map<String, List<String>> originalParameters;
+        private Map<String, String> originalHeaders;
+        private InputStream originalContent;
+
+        private volatile Future<org.apache.http.HttpResponse> inFlight;
+        private volatile ScheduledFuture<?> requestTimeoutTask;
+        private volatile ScheduledFuture<?> clientExecutionTimeoutTask;
+        private volatile boolean requestTimedOut;
+        private volatile boolean clientExecutionTimedOut;
+
+        AsyncExecution(Request<?> request,
+                       HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                       HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                       ExecutionContext executionContext,
+                       Executor executor,
+                       FutureCallback<Response<T>> callback) {
+            super(null);
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.executor = executor;
+            this.callback = callback;
+            this.awsRequestMetrics = executionContext.getAwsRequestMetrics();
+            this.listener = request.getOriginalRequest().getGeneralProgressListener();
+        }
+
+        /**
+         * Executes the request with the blocking HTTP client on the executor.
+         */
+        void startBlocking() {
+            dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    if (done.get()) {
+                        return;
+                    }
+                    Response<T> response;
+                    try {
+                        response = execute(request, responseHandler, errorResponseHandler, executionContext);
+                    } catch (RuntimeException e) {
+                        if (markDone()) {
+                            deliverFailure(e);
+                        }
+                        return;
+                    }
+                    if (markDone()) {
+                        deliver(response);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Executes the request through the non-blocking transport.
+         */
+        void start() {
+            final int clientExecutionTimeout = getClientExecutionTimeout(request.getOriginalRequest());
+            if (clientExecutionTimeout > 0) {
+                clientExecutionTimeoutTask = getAsyncScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        clientExecutionTimedOut = true;
+                        cancelInFlight();
+                        dispatch(new Runnable() {
+                            @Override
+                            public void run() {
+                                fail(new ClientExecutionTimeoutException());
+                            }
+                        });
+                    }
+                }, clientExecutionTimeout, TimeUnit.MILLISECONDS);
+            }
+            dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    begin();
+                }
+            });
+        }
+
+        /**
+         * Same as the preamble of {@link #doExecute} and {@link #executeHelper}.
+         */
+        private void begin() {
+            if (isStopped()) {
+                stopped();
+                return;
+            }
+            try {
+                requestHandler2s = requestHandler2s(request, executionContext);
+                addClientHeadersAndParameters(request);
+                origContent = request.getContent();
+                toBeClosed = beforeRequest(request); // for progress tracking
+                contentWrapped = true;
+                // make "notCloseable", so reset would work with retries
+                request.setContent(toBeClosed == null ? null
+                        : ReleasableInputStream.wrap(toBeClosed).disableClose());
+                publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
+
+                awsRequestMetrics.addPropertyWith(Field.ServiceName, request.getServiceName())
+                        .addPropertyWith(Field.ServiceEndpoint, request.getEndpoint());
+                originalParameters = new LinkedHashMap<String, List<String>>(request.getParameters());
+                originalHeaders = new HashMap<String, String>(request.getHeaders());
+                originalContent = request.getContent();
+                markOriginalContent(request, originalContent);
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+            attempt();
+        }
+
+        /**
+         * Sends the next attempt once the send rate allows it.
+         */
+        private void attempt() {
+            final long delay = rateLimiter == null || isStopped() ? 0 : rateLimiter.acquire();
+            if (delay > 0) {
+                getAsyncScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatch(new Runnable() {
+                            @Override
+                            public void run() {
+                                send();
+                            }
+                        });
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } else {
+                send();
+            }
+        }
+
+        /**
+         * Same as {@link #executeOneRequest} up to sending the HTTP request, which is handed over
+         * to the transport.
+         */
+        private void send() {
+            if (isStopped()) {
+                stopped();
+                return;
+            }
+            try {
+                beforeAttempt(request, awsRequestMetrics, execOneParams, originalParameters, originalHeaders,
+                        originalContent);
+                if (execOneParams.isRetry()) {
+                    resetRequestInputStream(request);
+                }
+                if (requestLog.isDebugEnabled()) {
+                    requestLog.debug("Sending Request: " + request);
+                }
+                final AWSCredentials credentials = getCredentialsFromContext(executionContext, awsRequestMetrics);
+                updateRetryHeaderInfo(request, execOneParams);
+                signRequest(request, executionContext, awsRequestMetrics, execOneParams, credentials);
+                execOneParams.newApacheRequest(httpRequestFactory, request, config, executionContext);
+
+                captureConnectionPoolMetrics(asyncHttpTransport.getConnectionPoolStats(), awsRequestMetrics);
+                HttpContext httpContext = beforeHttpRequest(awsRequestMetrics, execOneParams, listener);
+
+                requestTimedOut = false;
+                final int requestTimeout = getRequestTimeout(request.getOriginalRequest());
+                if (requestTimeout > 0) {
+                    requestTimeoutTask = getAsyncScheduler().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            requestTimedOut = true;
+                            cancelInFlight();
+                        }
+                    }, requestTimeout, TimeUnit.MILLISECONDS);
+                }
+                inFlight = asyncHttpTransport.execute(execOneParams.apacheRequest, httpContext,
+                        new FutureCallback<org.apache.http.HttpResponse>() {
+                            @Override
+                            public void completed(final org.apache.http.HttpResponse apacheResponse) {
+                                dispatch(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        onHttpResponse(apacheResponse);
+                                    }
+                                });
+                            }
+
+                            @Override
+                            public void failed(final Exception ex) {
+                                dispatch(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        onHttpFailure(ex);
+                                    }
+                                });
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                dispatch(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        onHttpFailure(null);
+                                    }
+                                });
+                            }
+                        });
+                if (isStopped()) {
+                    cancelInFlight();
+                }
+            } catch (Throwable t) {
+                onAttemptFailure(t);
+            }
+        }
+
+        private void onHttpResponse(org.apache.http.HttpResponse apacheResponse) {
+            afterHttpRequest();
+            execOneParams.apacheResponse = apacheResponse;
+            if (isStopped()) {
+                releaseResponseContent(execOneParams);
+                stopped();
+                return;
+            }
+            final Response<T> response;
+            try {
+                response = handleHttpResponse(request, responseHandler, errorResponseHandler, executionContext,
+                        awsRequestMetrics, execOneParams, requestHandler2s, logHeaderRequestId(apacheResponse),
+                        listener);
+            } catch (Throwable t) {
+                releaseResponseContent(execOneParams);
+                onAttemptFailure(t);
+                return;
+            }
+            releaseResponseContent(execOneParams);
+            if (response == null) {
+                retry();
+            } else {
+                complete(response);
+            }
+        }
+
+        /**
+         * @param ex
+         *            the failure reported by the transport; or null if the HTTP request was
+         *            cancelled
+         */
+        private void onHttpFailure(Exception ex) {
+            afterHttpRequest();
+            if (isStopped()) {
+                stopped();
+                return;
+            }
+            if (requestTimedOut) {
+                onAttemptFailure(new HttpRequestTimeoutException(ex));
+            } else if (ex == null) {
+                onAttemptFailure(new IOException("The HTTP request was cancelled"));
+            } else if (ex instanceof IOException) {
+                onAttemptFailure(ex);
+            } else {
+                onAttemptFailure(new AmazonClientException("Unable to execute HTTP request: " + ex.getMessage(), ex));
+            }
+        }
+
+        /**
+         * Same as the exception handling of {@link #executeHelper}.
+         */
+        private void onAttemptFailure(Throwable t) {
+            if (t instanceof IOException) {
+                AmazonClientException ace = handleIOException(request, (IOException) t, executionContext,
+                        awsRequestMetrics, execOneParams);
+                if (ace == null) {
+                    retry();
+                } else {
+                    fail(ace);
+                }
+            } else if (t instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                fail(new AmazonClientException(t));
+            } else {
+                fail(lastReset(captureExceptionMetrics(t, awsRequestMetrics), request));
+            }
+        }
+
+        /**
+         * Same as {@link #pauseBeforeRetry}, except that the next attempt is scheduled after the
+         * backoff delay instead of sleeping.
+         */
+        private void retry() {
+            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
+            awsRequestMetrics.startEvent(Field.RetryPauseTime);
+            long delay = 0;
+            // don't pause if the retry was not due to a redirection
+            // ie when retried exception is null
+            if (execOneParams.retriedException != null) {
+                delay = delayBeforeNextRetry(request.getOriginalRequest(), execOneParams.retriedException,
+                        execOneParams.requestCount + 1, config.getRetryPolicy(), execOneParams);
+            }
+            final Runnable nextAttempt = new Runnable() {
+                @Override
+                public void run() {
+                    awsRequestMetrics.endEvent(Field.RetryPauseTime);
+                    attempt();
+                }
+            };
+            if (delay > 0) {
+                getAsyncScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatch(nextAttempt);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } else {
+                dispatch(nextAttempt);
+            }
+        }
+
+        /**
+         * Same as the completion of {@link #doExecute}.
+         */
+        private void complete(Response<T> response) {
+            if (!markDone()) {
+                return;
+            }
+            try {
+                publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
+                TimingInfo timingInfo = awsRequestMetrics.getTimingInfo().endTiming();
+                afterResponse(request, requestHandler2s, response, timingInfo);
+            } catch (AmazonClientException e) {
+                failDone(e, response);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failDone(new AmazonClientException(e), response);
+                return;
+            }
+            restoreContent();
+            deliver(response);
+        }
+
+        private void fail(Throwable t) {
+            if (markDone()) {
+                failDone(t, null);
+            }
+        }
+
+        /**
+         * Same as the failure handling of {@link #doExecute}.
+         */
+        private void failDone(Throwable t, Response<?> response) {
+            cancelInFlight();
+            Exception exception;
+            if (t instanceof AmazonClientException) {
+                exception = (AmazonClientException) t;
+                publishProgress(listener, ProgressEventType.CLIENT_REQUEST_FAILED_EVENT);
+                try {
+                    afterError(request, response, requestHandler2s, (AmazonClientException) t);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    exception = e;
+                }
+            } else if (t instanceof Exception) {
+                exception = (Exception) t;
+            } else {
+                exception = new AmazonClientException(t);
+            }
+            restoreContent();
+            deliverFailure(exception);
+        }
+
+        private void deliver(Response<T> response) {
+            if (callback != null) {
+                try {
+                    callback.completed(response);
+                } catch (RuntimeException e) {
+                    log.warn("Unexpected exception from the callback of an asynchronous request", e);
+                }
+            }
+            completed(response);
+        }
+
+        private void deliverFailure(Exception exception) {
+            if (callback != null) {
+                try {
+                    callback.failed(exception);
+                } catch (RuntimeException e) {
+                    log.warn("Unexpected exception from the callback of an asynchronous request", e);
+                }
+            }
+            failed(exception);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (!markDone()) {
+                return false;
+            }
+            cancelInFlight();
+            if (callback != null) {
+                try {
+                    callback.cancelled();
+                } catch (RuntimeException e) {
+                    log.warn("Unexpected exception from the callback of an asynchronous request", e);
+                }
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        /**
+         * Marks the execution as done and cancels its timers.
+         *
+         * @return true if the execution was not already done.
+         */
+        private boolean markDone() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            cancelTask(clientExecutionTimeoutTask);
+            cancelTask(requestTimeoutTask);
+            return true;
+        }
+
+        /**
+         * Returns true if the execution is done or has timed out, in which case it must not
+         * proceed any further.
+         */
+        private boolean isStopped() {
+            return done.get() || clientExecutionTimedOut;
+        }
+
+        /**
+         * Cleans up after a step that found the execution stopped.
+         */
+        private void stopped() {
+            if (clientExecutionTimedOut) {
+                fail(new ClientExecutionTimeoutException());
+            } else if (isCancelled()) {
+                restoreContent();
+            }
+        }
+
+        private void afterHttpRequest() {
+            cancelTask(requestTimeoutTask);
+            awsRequestMetrics.endEvent(Field.HttpRequestTime);
+        }
+
+        private void cancelInFlight() {
+            Future<org.apache.http.HttpResponse> future = inFlight;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        private void cancelTask(ScheduledFuture<?> task) {
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+
+        /**
+         * Always close so any progress tracking would get the final events propagated, and
+         * restore the original content.
+         */
+        private void restoreContent() {
+            if (contentWrapped) {
+                contentWrapped = false;
+                closeQuietly(toBeClosed, log);
+                request.setContent(origContent);
+            }
+        }
+
+        private void dispatch(Runnable step) {
+            try {
+                executor.execute(step);
+            } catch (RejectedExecutionException e) {
+                cancelInFlight();
+                fail(new AmazonClientException("Unable to execute HTTP request: " + e.getMessage(), e));
+            }
+        }
+    }
+
     /**
      * Stateful parameters that are used for executing a single http request.
      */
@@ -793,48 +1490,56 @@ public class AmazonHttpClient {
         if (execOneParams.isRetry()) {
             pauseBeforeRetry(request, awsRequestMetrics, execOneParams, listener);
         }
-        updateRetryHeaderInfo(request, execOneParams);
-
-        // Sign the request if a signer was provided
-        execOneParams.newSigner(request, execContext);
-        if (execOneParams.signer != null && credentials != null) {
-            awsRequestMetrics.startEvent(Field.RequestSigningTime);
-            try {
-                if (timeOffset != 0) {
-                    // Always use the client level timeOffset if it was
-                    // non-zero; Otherwise, we respect the timeOffset in the
-                    // request, which could have been externally configured (at
-                    // least for the 1st non-retry request).
-                    //
-                    // For retry due to clock skew, the timeOffset in the
-                    // request used for the retry is assumed to have been
-                    // adjusted when execution reaches here.
-                    request.setTimeOffset(timeOffset);
-                }
-                execOneParams.signer.sign(request, credentials);
-            } finally {
-                awsRequestMetrics.endEvent(Field.RequestSigningTime);
+        if (rateLimiter != null) {
+            long delay = rateLimiter.acquire();
+            if (delay > 0) {
+                Thread.sleep(delay);
             }
         }
+        updateRetryHeaderInfo(request, execOneParams);
+        signRequest(request, execContext, awsRequestMetrics, execOneParams, credentials);
         checkInterrupted();
         execOneParams.newApacheRequest(httpRequestFactory, request, config, execContext);
+        lastRequestTime.lazySet(System.currentTimeMillis());
 
         captureConnectionPoolMetrics(httpClient.getConnectionManager(), awsRequestMetrics);
-        HttpContext httpContext = new BasicHttpContext();
-        httpContext.setAttribute(AWSRequestMetrics.class.getSimpleName(), awsRequestMetrics);
-        execOneParams.resetBeforeHttpRequest();
-        publishProgress(listener, ProgressEventType.HTTP_REQUEST_STARTED_EVENT);
-        awsRequestMetrics.startEvent(Field.HttpRequestTime);
-        awsRequestMetrics.setCounter(Field.RetryCapacityConsumed, retryCapacity.consumedCapacity());
+        HttpContext httpContext = beforeHttpRequest(awsRequestMetrics, execOneParams, listener);
 
         /////////// Send HTTP request ////////////
         execContext.getClientExecutionTrackerTask().setCurrentHttpRequest(execOneParams.apacheRequest);
         final boolean isHeaderReqIdAvail;
-        final HttpRequestAbortTaskTracker requestAbortTaskTracker = httpRequestTimer
-                .startTimer(execOneParams.apacheRequest, getRequestTimeout(awsreq));
+        final int requestTimeout = getRequestTimeout(awsreq);
+        final long requestStartTime = System.currentTimeMillis();
+        HttpRequestAbortTaskTracker requestAbortTaskTracker = httpRequestTimer
+                .startTimer(execOneParams.apacheRequest, requestTimeout);
 
         try {
-            execOneParams.apacheResponse = httpClient.execute(execOneParams.apacheRequest, httpContext);
+            final int hedgingDelay = awsreq.getRequestClientOptions().getHedgingDelay();
+            final HttpRequestBase hedge = hedgingDelay > 0 ? HedgedRequest.createHedge(httpRequestFactory,
+                    request, config, execContext, execOneParams.apacheRequest) : null;
+            if (hedge != null) {
+                HedgedRequest hedgedRequest = new HedgedRequest(httpClient, execOneParams.apacheRequest, hedge);
+                execOneParams.apacheResponse = hedgedRequest.execute(httpContext, hedgingDelay,
+                        hedgingBudget, getAsyncScheduler(), getHedgeExecutor());
+                if (hedgedRequest.wasHedgeSent()) {
+                    awsRequestMetrics.incrementCounter(Field.HedgedRequestCount);
+                }
+                HttpRequestBase winningRequest = hedgedRequest.getWinningRequest();
+                if (winningRequest != execOneParams.apacheRequest) {
+                    // The copy responded first; the response is read, timed
+                    // out and aborted through it from now on
+                    execOneParams.apacheRequest = winningRequest;
+                    execContext.getClientExecutionTrackerTask().setCurrentHttpRequest(winningRequest);
+                    if (requestAbortTaskTracker.isEnabled()) {
+                        requestAbortTaskTracker.cancelTask();
+                        long elapsed = System.currentTimeMillis() - requestStartTime;
+                        requestAbortTaskTracker = httpRequestTimer.startTimer(winningRequest,
+                                (int) Math.max(1, requestTimeout - elapsed));
+                    }
+                }
+            } else {
+                execOneParams.apacheResponse = httpClient.execute(execOneParams.apacheRequest, httpContext);
+            }
             if (shouldBufferHttpEntity(responseHandler.needsConnectionLeftOpen(), execContext, execOneParams,
                     requestAbortTaskTracker)) {
                 execOneParams.apacheResponse
@@ -855,6 +1560,70 @@ public class AmazonHttpClient {
             awsRequestMetrics.endEvent(Field.HttpRequestTime);
         }
 
+        return handleHttpResponse(request, responseHandler, errorResponseHandler, execContext, awsRequestMetrics,
+                execOneParams, requestHandlers, isHeaderReqIdAvail, listener);
+    }
+
+    /**
+     * Signs the request if a signer was provided.
+     */
+    private void signRequest(final Request<?> request,
+                             final ExecutionContext execContext,
+                             final AWSRequestMetrics awsRequestMetrics,
+                             final ExecOneRequestParams execOneParams,
+                             final AWSCredentials credentials) {
+        execOneParams.newSigner(request, execContext);
+        if (execOneParams.signer != null && credentials != null) {
+            awsRequestMetrics.startEvent(Field.RequestSigningTime);
+            try {
+                if (timeOffset != 0) {
+                    // Always use the client level timeOffset if it was
+                    // non-zero; Otherwise, we respect the timeOffset in the
+                    // request, which could have been externally configured (at
+                    // least for the 1st non-retry request).
+                    //
+                    // For retry due to clock skew, the timeOffset in the
+                    // request used for the retry is assumed to have been
+                    // adjusted when execution reaches here.
+                    request.setTimeOffset(timeOffset);
+                }
+                execOneParams.signer.sign(request, credentials);
+            } finally {
+                awsRequestMetrics.endEvent(Field.RequestSigningTime);
+            }
+        }
+    }
+
+    /**
+     * Returns the context for sending the HTTP request, and starts the HTTP request timing.
+     */
+    private HttpContext beforeHttpRequest(final AWSRequestMetrics awsRequestMetrics,
+                                          final ExecOneRequestParams execOneParams,
+                                          final ProgressListener listener) {
+        HttpContext httpContext = new BasicHttpContext();
+        httpContext.setAttribute(AWSRequestMetrics.class.getSimpleName(), awsRequestMetrics);
+        execOneParams.resetBeforeHttpRequest();
+        publishProgress(listener, ProgressEventType.HTTP_REQUEST_STARTED_EVENT);
+        awsRequestMetrics.startEvent(Field.HttpRequestTime);
+        awsRequestMetrics.setCounter(Field.RetryCapacityConsumed, retryCapacity.consumedCapacity());
+        return httpContext;
+    }
+
+    /**
+     * Handles the HTTP response received for a single attempt.
+     *
+     * @return the response; or null for retry.
+     */
+    private <T> Response<T> handleHttpResponse(final Request<?> request,
+                                               final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                                               final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                                               final ExecutionContext execContext,
+                                               final AWSRequestMetrics awsRequestMetrics,
+                                               final ExecOneRequestParams execOneParams,
+                                               final List<RequestHandler2> requestHandlers,
+                                               final boolean isHeaderReqIdAvail,
+                                               final ProgressListener listener)
+                                                       throws IOException, InterruptedException {
         publishProgress(listener, ProgressEventType.HTTP_REQUEST_COMPLETED_EVENT);
         final StatusLine statusLine = execOneParams.apacheResponse.getStatusLine();
         final int statusCode = statusLine == null ? -1 : statusLine.getStatusCode();
@@ -880,6 +1649,9 @@ public class AmazonHttpClient {
             } else {
                 retryCapacity.release();
             }
+            if (rateLimiter != null) {
+                rateLimiter.onResponse(false);
+            }
             return new Response<T>(response, httpResponse);
         }
         if (isTemporaryRedirect(execOneParams.apacheResponse)) {
@@ -904,6 +1676,9 @@ public class AmazonHttpClient {
         awsRequestMetrics.addPropertyWith(Field.AWSRequestID, ase.getRequestId())
                 .addPropertyWith(Field.AWSErrorCode, ase.getErrorCode())
                 .addPropertyWith(Field.StatusCode, ase.getStatusCode());
+        if (rateLimiter != null) {
+            rateLimiter.onResponse(RetryUtils.isThrottlingException(ase));
+        }
         // Check whether we should internally retry the auth error
         execOneParams.authRetryParam = null;
         AuthErrorRetryStrategy authRetry = execContext.getAuthErrorRetryStrategy();
@@ -1015,7 +1790,15 @@ public class AmazonHttpClient {
                                               AWSRequestMetrics awsRequestMetrics) {
         if (awsRequestMetrics.isEnabled() && connectionManager instanceof ConnPoolControl) {
             ConnPoolControl<?> control = (ConnPoolControl<?>) connectionManager;
-            PoolStats stats = control.getTotalStats();
+            captureConnectionPoolMetrics(control.getTotalStats(), awsRequestMetrics);
+        }
+    }
+
+    /**
+     * Captures the given connection pool statistics, if any.
+     */
+    private void captureConnectionPoolMetrics(PoolStats stats, AWSRequestMetrics awsRequestMetrics) {
+        if (awsRequestMetrics.isEnabled() && stats != null) {
             awsRequestMetrics.withCounter(Field.HttpClientPoolAvailableCount, stats.getAvailable())
                     .withCounter(Field.HttpClientPoolLeasedCount, stats.getLeased())
                     .withCounter(Field.HttpClientPoolPendingCount, stats.getPending());
@@ -1097,6 +1880,50 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Opens connections to the specified endpoint ahead of the requests that will use them, so
+     * that the first requests don't pay for the TCP and TLS handshakes. Connections already open
+     * in the pool count towards the number requested. If the {@link IdleConnectionReaper} is
+     * used, it keeps this many connections open after closing idle ones, until no request has
+     * been sent for longer than the connection maximum idle time. Connections tunnelled
+     * through a proxy can't be opened ahead of time.
+     *
+     * @param endpoint
+     *            The endpoint to open connections to.
+     * @param connections
+     *            The number of connections to open; at most the maximum number of connections.
+     * @return The number of connections to the endpoint open in the pool.
+     */
+    public int prewarmConnections(URI endpoint, int connections) {
+        if (!(httpClient instanceof AbstractHttpClient)) {
+            log.debug("Connections can't be prewarmed for " + httpClient.getClass().getName());
+            return 0;
+        }
+        HttpHost target = URIUtils.extractHost(endpoint);
+        BasicHttpRequest request = new BasicHttpRequest("HEAD", endpoint.toString());
+        request.setParams(httpClient.getParams());
+        HttpRoute route;
+        try {
+            route = ((AbstractHttpClient) httpClient).getRoutePlanner()
+                    .determineRoute(target, request, new BasicHttpContext());
+        } catch (HttpException e) {
+            throw new AmazonClientException("Unable to determine the route to " + endpoint, e);
+        }
+        if (route.isTunnelled()) {
+            log.debug("Connections tunnelled through a proxy can't be prewarmed");
+            return 0;
+        }
+
+        ConnectionPoolWarmer warmer = new ConnectionPoolWarmer(httpClient.getConnectionManager(),
+                route, httpClient.getParams(), connections, config.getConnectionMaxIdleMillis(),
+                lastRequestTime);
+        int open = warmer.warm();
+        if (config.useReaper()) {
+            IdleConnectionReaper.registerConnectionPoolWarmer(warmer);
+        }
+        return open;
+    }
+
     /**
      * Shuts down this HTTP client object, releasing any resources that might be held open. This is
      * an optional method, and callers are not expected to call it, but can if they want to
@@ -1108,6 +1935,17 @@ public class AmazonHttpClient {
         httpRequestTimer.shutdown();
         IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
         httpClient.getConnectionManager().shutdown();
+        if (asyncHttpTransport != null) {
+            asyncHttpTransport.shutdown();
+        }
+        synchronized (this) {
+            if (asyncScheduler != null) {
+                asyncScheduler.shutdownNow();
+            }
+            if (hedgeExecutor != null) {
+                hedgeExecutor.shutdownNow();
+            }
+        }
     }
 
     /**
@@ -1155,8 +1993,10 @@ public class AmazonHttpClient {
             }
         }
 
-        // Do not use retry capacity for throttling exceptions
-        if (!(exception instanceof AmazonServiceException &&
+        // Do not use retry capacity for throttling exceptions, unless the send rate is adapted
+        // to them: retries are then paced by the rate limiter and capacity stops them
+        // altogether once throttling persists.
+        if (rateLimiter != null || !(exception instanceof AmazonServiceException &&
                 RetryUtils.isThrottlingException((AmazonServiceException) exception)))
         {
             // See if we have enough available retry capacity to be able to execute
@@ -1461,6 +2301,19 @@ public class AmazonHttpClient {
                                     int requestCount,
                                     RetryPolicy retryPolicy,
                                     ExecOneRequestParams execOneParams) throws InterruptedException {
+        Thread.sleep(delayBeforeNextRetry(originalRequest, previousException, requestCount, retryPolicy,
+                execOneParams));
+    }
+
+    /**
+     * Returns the delay before the next retry, as computed by the backoff strategy of the retry
+     * policy, and records it for the retry header of the next attempt.
+     */
+    private long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                                      AmazonClientException previousException,
+                                      int requestCount,
+                                      RetryPolicy retryPolicy,
+                                      ExecOneRequestParams execOneParams) {
         final int retries = requestCount // including next attempt
                 - 1 // number of attempted requests
                 - 1; // number of attempted retries
@@ -1471,8 +2324,7 @@ public class AmazonHttpClient {
         if (log.isDebugEnabled()) {
             log.debug("Retriable error detected, " + "will retry in " + delay + "ms, attempt number: " + retries);
         }
-
-        Thread.sleep(delay);
+        return delay;
     }
 
     // SWF: Signature not yet current: 20140819T173921Z is still later than 20140819T173829Z
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A non-blocking HTTP transport used by {@link AmazonHttpClient} to send
+ * requests without holding a thread for the duration of each exchange.
+ * <p>
+ * Implementations are expected to fully consume the response entity before
+ * completing the callback, so the returned response can be read without any
+ * further network I/O. Callbacks may be invoked from the transport's I/O
+ * threads and must therefore return quickly; {@link AmazonHttpClient} hands
+ * off all response processing to a separate executor.
+ *
+ * @see AsyncHttpTransportFactory
+ */
+public interface AsyncHttpTransport {
+
+    /**
+     * Sends the given request and notifies the callback once the response has
+     * been received, the request has failed, or it has been cancelled.
+     *
+     * @param request
+     *            The fully signed request to send.
+     * @param context
+     *            The HTTP context for this exchange.
+     * @param callback
+     *            The callback to notify of the outcome of the exchange.
+     * @return A future which can be used to cancel the exchange.
+     */
+    public Future<HttpResponse> execute(HttpRequestBase request,
+            HttpContext context, FutureCallback<HttpResponse> callback);
+
+    /**
+     * Returns the current statistics of the transport's connection pool, which
+     * are reported in the request metrics just like those of the blocking
+     * HTTP client's pool.
+     *
+     * @return The connection pool statistics, or null if the transport does
+     *         not pool connections.
+     */
+    public PoolStats getConnectionPoolStats();
+
+    /**
+     * Releases all resources held by this transport. Exchanges that are still
+     * in flight are aborted.
+     */
+    public void shutdown();
+}
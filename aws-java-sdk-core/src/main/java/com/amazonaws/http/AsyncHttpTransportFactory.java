@@ -0,0 +1,37 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Creates the {@link AsyncHttpTransport} used by an {@link AmazonHttpClient}.
+ * A factory is set on the {@link ClientConfiguration} and invoked once for
+ * every client built from that configuration.
+ *
+ * @see ClientConfiguration#setAsyncHttpTransportFactory(AsyncHttpTransportFactory)
+ */
+public interface AsyncHttpTransportFactory {
+
+    /**
+     * Creates a new transport configured according to the given client
+     * configuration (ex: timeouts, connection limits, proxy settings).
+     *
+     * @param config
+     *            The configuration of the client that will own the transport.
+     * @return A new transport; never null.
+     */
+    public AsyncHttpTransport createTransport(ClientConfiguration config);
+}
@@ -16,6 +16,8 @@ package com.amazonaws.http;
 
 import java.util.concurrent.TimeUnit;
 
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -24,6 +26,7 @@ import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.HttpParams;
 
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.conn.ShardedClientConnectionManager;
 
 /**
  * Responsible for creating and configuring instances of Apache HttpClient4's
@@ -31,19 +34,25 @@ import com.amazonaws.ClientConfiguration;
  */
 class ConnectionManagerFactory {
 
-    public static PoolingClientConnectionManager createPoolingClientConnManager(
+    public static ClientConnectionManager createPoolingClientConnManager(
             ClientConfiguration config,
             HttpParams httpClientParams,
             SSLSocketFactory socketFactory) {
 
-        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
-                createSchemeRegistry(socketFactory),
-                config.getConnectionTTL(),
-                TimeUnit.MILLISECONDS,
-                new DelegatingDnsResolver(config.getDnsResolver()));
+        SchemeRegistry schemeRegistry = createSchemeRegistry(socketFactory);
+        DnsResolver dnsResolver = new DelegatingDnsResolver(config.getDnsResolver());
 
-        connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
-        connectionManager.setMaxTotal(config.getMaxConnections());
+        ClientConnectionManager connectionManager;
+        int shardCount = config.getConnectionPoolShards();
+        if (shardCount > 1) {
+            PoolingClientConnectionManager[] shards = new PoolingClientConnectionManager[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = createPool(config, schemeRegistry, dnsResolver);
+            }
+            connectionManager = new ShardedClientConnectionManager(shards);
+        } else {
+            connectionManager = createPool(config, schemeRegistry, dnsResolver);
+        }
 
         if (config.useReaper()) {
             IdleConnectionReaper.registerConnectionManager(connectionManager);
@@ -52,6 +61,22 @@ class ConnectionManagerFactory {
         return connectionManager;
     }
 
+    private static PoolingClientConnectionManager createPool(
+            ClientConfiguration config,
+            SchemeRegistry schemeRegistry,
+            DnsResolver dnsResolver) {
+
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
+                schemeRegistry,
+                config.getConnectionTTL(),
+                TimeUnit.MILLISECONDS,
+                dnsResolver);
+
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
+        connectionManager.setMaxTotal(config.getMaxConnections());
+        return connectionManager;
+    }
+
     private static SchemeRegistry createSchemeRegistry(SSLSocketFactory socketFactory) {
         final SchemeRegistry registry = new SchemeRegistry();
         registry.register(
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.BasicHttpContext;
+
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Opens connections to a route ahead of the requests that will use them, so
+ * that the TCP and TLS handshakes are not on the critical path of the first
+ * requests to the route.
+ * <p>
+ * Connections are leased from the pool, opened if they aren't open already,
+ * and released back to the pool as reusable. Warming only takes connections
+ * the pool can hand out without waiting, and none while requests are waiting
+ * for a connection. Connections found open are released as soon as the
+ * connections to open have been leased, so only those being opened are held
+ * for the duration of the handshakes. The {@link IdleConnectionReaper}
+ * warms the pool again after closing idle connections, so that the number of
+ * open connections doesn't drop below the number warmed, as long as the client
+ * sends requests. Once the client has sent no request for longer than
+ * connections may stay idle, the pool is left to go cold rather than
+ * reopening connections nothing uses.
+ */
+class ConnectionPoolWarmer {
+
+    private static final Log log = LogFactory.getLog(ConnectionPoolWarmer.class);
+
+    /** The most connections opened at the same time. */
+    private static final int MAX_CONCURRENT_OPENS = 8;
+
+    /**
+     * How long to wait for a connection from the pool, in milliseconds. The
+     * pool is only asked for connections it can hand out right away, so this
+     * only matters if requests take them first.
+     */
+    private static final long LEASE_TIMEOUT_MILLIS = 1;
+
+    /** Opens the connections of all warmers. */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final ClientConnectionManager connectionManager;
+    private final HttpRoute route;
+    private final HttpParams params;
+    private final int connections;
+    private final long validDurationMillis;
+    private final AtomicLong lastRequestTime;
+    private final long warmedTime = System.currentTimeMillis();
+
+    /**
+     * @param connectionManager
+     *            The connection manager to warm.
+     * @param route
+     *            The route to open connections to.
+     * @param params
+     *            The parameters to open the connections with.
+     * @param connections
+     *            The number of connections to keep open.
+     * @param validDurationMillis
+     *            How long released connections may be reused, in milliseconds;
+     *            non-positive values mean indefinitely.
+     * @param lastRequestTime
+     *            The time, in milliseconds, the client last sent a request.
+     */
+    ConnectionPoolWarmer(ClientConnectionManager connectionManager, HttpRoute route,
+            HttpParams params, int connections, long validDurationMillis,
+            AtomicLong lastRequestTime) {
+        this.connectionManager = connectionManager;
+        this.route = route;
+        this.params = params;
+        this.validDurationMillis = validDurationMillis;
+        this.lastRequestTime = lastRequestTime;
+        if (connectionManager instanceof ConnPoolControl) {
+            @SuppressWarnings("unchecked")
+            ConnPoolControl<HttpRoute> control = (ConnPoolControl<HttpRoute>) connectionManager;
+            connections = Math.min(connections, control.getMaxPerRoute(route));
+        }
+        this.connections = connections;
+    }
+
+    ClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    HttpRoute getRoute() {
+        return route;
+    }
+
+    /**
+     * Opens connections until the pool holds the configured number of open
+     * connections to the route, or as many as the pool can hand out without
+     * waiting.
+     *
+     * @return The number of open connections leased and released back to the
+     *         pool.
+     */
+    int warm() {
+        int open = 0;
+        List<ManagedClientConnection> checked = new ArrayList<ManagedClientConnection>();
+        List<ManagedClientConnection> toOpen = new ArrayList<ManagedClientConnection>();
+        try {
+            // Connections found open can't be released right away, as the
+            // pool would hand the same connection out again
+            int leasable = getLeasableConnections();
+            for (int i = 0; i < leasable; i++) {
+                ManagedClientConnection conn;
+                try {
+                    conn = connectionManager.requestConnection(route, null)
+                            .getConnection(LEASE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (ConnectionPoolTimeoutException e) {
+                    // The rest of the connections are in use
+                    break;
+                }
+                if (conn.isOpen() && !conn.isStale()) {
+                    checked.add(conn);
+                } else {
+                    toOpen.add(conn);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (ManagedClientConnection conn : checked) {
+                conn.markReusable();
+                release(conn);
+                open++;
+            }
+        }
+
+        try {
+            openAll(toOpen);
+            for (ManagedClientConnection conn : toOpen) {
+                if (conn.isOpen()) {
+                    conn.markReusable();
+                    open++;
+                }
+            }
+        } finally {
+            for (ManagedClientConnection conn : toOpen) {
+                release(conn);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Returns the number of connections to the route the pool can hand out
+     * without waiting, up to the configured number; zero if requests are
+     * waiting for a connection.
+     */
+    private int getLeasableConnections() {
+        if (!(connectionManager instanceof ConnPoolControl)) {
+            return connections;
+        }
+        @SuppressWarnings("unchecked")
+        ConnPoolControl<HttpRoute> control = (ConnPoolControl<HttpRoute>) connectionManager;
+        PoolStats routeStats = control.getStats(route);
+        PoolStats totalStats = control.getTotalStats();
+        if (routeStats.getPending() > 0 || totalStats.getPending() > 0) {
+            return 0;
+        }
+        int routeAllocated = routeStats.getLeased() + routeStats.getAvailable();
+        int totalAllocated = totalStats.getLeased() + totalStats.getAvailable();
+        int unallocated = Math.min(routeStats.getMax() - routeAllocated,
+                totalStats.getMax() - totalAllocated);
+        return Math.min(connections, routeStats.getAvailable() + Math.max(0, unallocated));
+    }
+
+    private void release(ManagedClientConnection conn) {
+        connectionManager.releaseConnection(conn, validDurationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Warms the pool again if the client sent a request, or the pool was
+     * first warmed, more recently than connections may stay idle.
+     *
+     * @return The number of open connections leased and released back to the
+     *         pool; zero if the pool was left cold.
+     */
+    int rewarm() {
+        long maxIdleMillis = validDurationMillis > 0 ? validDurationMillis
+                : ClientConfiguration.DEFAULT_CONNECTION_MAX_IDLE_MILLIS;
+        long lastActiveTime = Math.max(warmedTime, lastRequestTime.get());
+        if (System.currentTimeMillis() - lastActiveTime >= maxIdleMillis) {
+            return 0;
+        }
+        return warm();
+    }
+
+    /**
+     * Opens the given connections, waiting for all of them to be opened or to
+     * fail, so that none is released while it is still being opened.
+     */
+    private void openAll(List<ManagedClientConnection> toOpen) {
+        List<Future<?>> futures = new ArrayList<Future<?>>(toOpen.size());
+        for (final ManagedClientConnection conn : toOpen) {
+            futures.add(EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    open(conn);
+                }
+            }));
+        }
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    log.debug("Unable to open connection to " + route, e.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_OPENS, MAX_CONCURRENT_OPENS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "java-sdk-http-connection-warmer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void open(ManagedClientConnection conn) {
+        try {
+            if (conn.isOpen()) {
+                // Closed by the server while idle in the pool
+                conn.close();
+            }
+            conn.open(route, new BasicHttpContext(), params);
+        } catch (Exception e) {
+            log.debug("Unable to open connection to " + route, e);
+            try {
+                conn.shutdown();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
+
+/**
+ * Sends an HTTP request and, if no response has been received after a delay,
+ * a second copy of it on another connection. The first response received is
+ * returned and the other request is aborted.
+ * <p>
+ * The original request is sent on the calling thread; the copy, if any, on a
+ * thread of the given executor. The copy is only sent if the {@link Budget}
+ * allows it.
+ */
+class HedgedRequest {
+
+    private static final Log log = LogFactory.getLog(HedgedRequest.class);
+
+    /** The largest payload, in bytes, of a request that may be hedged. */
+    static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+
+    private final HttpClient httpClient;
+    private final HttpRequestBase primary;
+    private final HttpRequestBase hedge;
+
+    /** The request whose outcome is kept; set once, by the first to finish. */
+    private final AtomicReference<HttpRequestBase> winner = new AtomicReference<HttpRequestBase>();
+    private final CountDownLatch hedgeDone = new CountDownLatch(1);
+    private volatile HttpResponse hedgeResponse;
+    private volatile boolean hedgeSent;
+
+    HedgedRequest(HttpClient httpClient, HttpRequestBase primary, HttpRequestBase hedge) {
+        this.httpClient = httpClient;
+        this.primary = primary;
+        this.hedge = hedge;
+    }
+
+    /**
+     * Returns a copy of the given HTTP request that can be sent at the same
+     * time as it; or null if the request can't be hedged. Only GET and HEAD
+     * requests are hedged, and POST requests if the request client options
+     * allow it and their payload is small and can be read ahead and reset.
+     *
+     * @param primary
+     *            The HTTP request already created for the request.
+     */
+    static HttpRequestBase createHedge(HttpRequestFactory httpRequestFactory, Request<?> request,
+            ClientConfiguration config, ExecutionContext execContext, HttpRequestBase primary)
+            throws IOException {
+        HttpMethodName method = request.getHttpMethod();
+        if (method == HttpMethodName.POST) {
+            if (!request.getOriginalRequest().getRequestClientOptions().isHedgingPostRequests()) {
+                return null;
+            }
+        } else if (method != HttpMethodName.GET && method != HttpMethodName.HEAD) {
+            return null;
+        }
+        byte[] payload = null;
+        if (request.getContent() != null) {
+            payload = readPayload(request);
+            if (payload == null) {
+                return null;
+            }
+        }
+        HttpRequestBase hedge = httpRequestFactory.createHttpRequest(request, config, execContext);
+        hedge.setURI(primary.getURI());
+        if (payload != null) {
+            // The copy must not share the content stream with the original
+            ((HttpEntityEnclosingRequest) hedge).setEntity(new ByteArrayEntity(payload));
+        }
+        return hedge;
+    }
+
+    /**
+     * Reads the payload of the request and resets its content stream to the
+     * mark set before the attempt; returns null if the payload is too large
+     * or of unknown length, or the stream can't be reset.
+     */
+    private static byte[] readPayload(Request<?> request) throws IOException {
+        InputStream content = request.getContent();
+        String contentLength = request.getHeaders().get("Content-Length");
+        if (!content.markSupported() || contentLength == null) {
+            return null;
+        }
+        long length;
+        try {
+            length = Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int readLimit = request.getOriginalRequest().getRequestClientOptions().getReadLimit();
+        if (length > Math.min(MAX_PAYLOAD_SIZE, readLimit)) {
+            return null;
+        }
+        byte[] payload = new byte[(int) length];
+        int offset = 0;
+        try {
+            while (offset < payload.length) {
+                int read = content.read(payload, offset, payload.length - offset);
+                if (read == -1) {
+                    break;
+                }
+                offset += read;
+            }
+        } finally {
+            content.reset();
+        }
+        return offset == payload.length ? payload : null;
+    }
+
+    /**
+     * Sends the request, and its copy after the given delay, and returns the
+     * first response received.
+     *
+     * @param context
+     *            The context to send the original request with; the copy is
+     *            sent with a context of its own.
+     * @param delayMillis
+     *            How long to wait for a response before sending the copy.
+     * @param scheduler
+     *            Schedules the sending of the copy.
+     * @param executor
+     *            Sends the copy.
+     * @throws IOException
+     *             if the original request failed and the copy, if it was
+     *             sent, failed too.
+     */
+    HttpResponse execute(HttpContext context, long delayMillis, final Budget budget,
+            ScheduledExecutorService scheduler, final Executor executor)
+            throws IOException, InterruptedException {
+        budget.deposit();
+        ScheduledFuture<?> hedgeTask = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendHedge(budget);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    hedgeDone.countDown();
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+
+        HttpResponse response;
+        try {
+            response = httpClient.execute(primary, context);
+        } catch (IOException e) {
+            if (primary.isAborted() && winner.get() != hedge) {
+                // Aborted by a request or client execution timeout
+                abandonHedge(hedgeTask);
+                throw e;
+            }
+            // Give the copy, if it was sent, a chance to succeed
+            if (!hedgeTask.cancel(false)) {
+                try {
+                    hedgeDone.await();
+                } catch (InterruptedException ie) {
+                    abandonHedge(hedgeTask);
+                    throw ie;
+                }
+            }
+            if (winner.compareAndSet(null, primary)) {
+                throw e;
+            }
+            return hedgeResponse;
+        } catch (RuntimeException e) {
+            abandonHedge(hedgeTask);
+            throw e;
+        }
+
+        if (winner.compareAndSet(null, primary)) {
+            hedgeTask.cancel(false);
+            hedge.abort();
+            return response;
+        }
+        // The copy won while the response was being received
+        primary.abort();
+        return hedgeResponse;
+    }
+
+    /**
+     * Returns the request whose response was returned by {@link #execute}:
+     * the original request, or its copy if that responded first.
+     */
+    HttpRequestBase getWinningRequest() {
+        HttpRequestBase request = winner.get();
+        return request == null ? primary : request;
+    }
+
+    /**
+     * Returns true if the copy of the request has been sent.
+     */
+    boolean wasHedgeSent() {
+        return hedgeSent;
+    }
+
+    private void sendHedge(Budget budget) {
+        try {
+            if (winner.get() != null || !budget.tryAcquire()) {
+                return;
+            }
+            hedgeSent = true;
+            HttpResponse response = httpClient.execute(hedge, new BasicHttpContext());
+            hedgeResponse = response;
+            if (winner.compareAndSet(null, hedge)) {
+                primary.abort();
+            } else {
+                hedge.abort();
+            }
+        } catch (IOException e) {
+            log.debug("Hedged request failed", e);
+        } catch (RuntimeException e) {
+            log.debug("Hedged request failed", e);
+        } finally {
+            hedgeDone.countDown();
+        }
+    }
+
+    private void abandonHedge(ScheduledFuture<?> hedgeTask) {
+        winner.compareAndSet(null, primary);
+        hedgeTask.cancel(false);
+        hedge.abort();
+    }
+
+    /**
+     * Caps the number of hedged requests to a fraction of the requests that
+     * may be hedged. Every such request deposits the fraction of a token, and
+     * sending a copy takes a whole one. Instances are thread-safe and meant to
+     * be shared by all requests of a client.
+     */
+    static final class Budget {
+        /** The amount of a whole token. */
+        private static final long TOKEN = 1000000;
+
+        /** The most copies that may be sent in a burst. */
+        private static final long MAX_TOKENS = 10 * TOKEN;
+
+        private final long tokensPerRequest;
+        private final AtomicLong tokens = new AtomicLong();
+
+        /**
+         * @param ratio
+         *            The fraction of requests that may be hedged.
+         */
+        Budget(double ratio) {
+            this.tokensPerRequest = (long) (ratio * TOKEN);
+        }
+
+        void deposit() {
+            for (;;) {
+                long current = tokens.get();
+                long next = Math.min(MAX_TOKENS, current + tokensPerRequest);
+                if (next == current || tokens.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        boolean tryAcquire() {
+            for (;;) {
+                long current = tokens.get();
+                if (current < TOKEN) {
+                    return false;
+                }
+                if (tokens.compareAndSet(current, current - TOKEN)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
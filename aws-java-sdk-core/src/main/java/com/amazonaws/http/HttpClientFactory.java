@@ -47,6 +47,7 @@ import org.apache.http.client.RedirectStrategy;
 import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.params.ConnRoutePNames;
 import org.apache.http.conn.params.ConnRouteParams;
@@ -60,7 +61,6 @@ import org.apache.http.conn.ssl.SSLInitializationException;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
-import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
@@ -110,7 +110,7 @@ public class HttpClientFactory {
                     SSLSocketFactory.STRICT_HOSTNAME_VERIFIER);
         }
 
-        PoolingClientConnectionManager connectionManager = ConnectionManagerFactory
+        ClientConnectionManager connectionManager = ConnectionManagerFactory
             .createPoolingClientConnManager(config, httpClientParams, sslSocketFactory);
 
         SdkHttpClient httpClient = new SdkHttpClient(connectionManager, httpClientParams);
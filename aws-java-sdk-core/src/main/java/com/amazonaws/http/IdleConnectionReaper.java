@@ -15,6 +15,7 @@
 package com.amazonaws.http;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -39,6 +40,12 @@ import org.apache.http.conn.ClientConnectionManager;
  * cleaning up old/inactive HTTP connections, we'd see more IO exceptions when
  * stale connections (i.e. closed on the AWS side) are left in the connection
  * pool, and requests grab one of them to begin executing a request.
+ * <p>
+ * Connection pools warmed with
+ * {@link com.amazonaws.AmazonWebServiceClient#prewarmConnections(int)} are
+ * warmed again after their idle connections are closed, so that they keep the
+ * number of open connections they were warmed with, as long as their client
+ * keeps sending requests.
  */
 public final class IdleConnectionReaper extends Thread {
 
@@ -50,6 +57,12 @@ public final class IdleConnectionReaper extends Thread {
      * will be periodically checked and idle connections closed.
      */
     private static final ArrayList<ClientConnectionManager> connectionManagers = new ArrayList<ClientConnectionManager>();
+
+    /**
+     * The warmers of registered connection managers, run after their idle
+     * connections have been closed.
+     */
+    private static final ArrayList<ConnectionPoolWarmer> warmers = new ArrayList<ConnectionPoolWarmer>();
     /**
      * Set to true when shutting down the reaper;  Once set to true, this
      * flag is never set back to false.
@@ -91,11 +104,31 @@ public final class IdleConnectionReaper extends Thread {
      */
     public static synchronized boolean removeConnectionManager(ClientConnectionManager connectionManager) {
         boolean b = connectionManagers.remove(connectionManager);
+        for (Iterator<ConnectionPoolWarmer> it = warmers.iterator(); it.hasNext();) {
+            if (it.next().getConnectionManager() == connectionManager) {
+                it.remove();
+            }
+        }
         if (connectionManagers.isEmpty())
             shutdown();
         return b;
     }
     
+    /**
+     * Keeps the connection pool of a registered connection manager warm,
+     * replacing any warmer previously registered for the same route.
+     */
+    static synchronized void registerConnectionPoolWarmer(ConnectionPoolWarmer warmer) {
+        for (Iterator<ConnectionPoolWarmer> it = warmers.iterator(); it.hasNext();) {
+            ConnectionPoolWarmer registered = it.next();
+            if (registered.getConnectionManager() == warmer.getConnectionManager()
+                    && registered.getRoute().equals(warmer.getRoute())) {
+                it.remove();
+            }
+        }
+        warmers.add(warmer);
+    }
+
     private void markShuttingDown() {
         shuttingDown = true;
     }
@@ -116,8 +149,10 @@ public final class IdleConnectionReaper extends Thread {
                 // removeConnectionManager are called while we're iterating (rather
                 // than block/lock while this loop executes).
                 List<ClientConnectionManager> connectionManagers = null;
+                List<ConnectionPoolWarmer> warmers = null;
                 synchronized (IdleConnectionReaper.class) {
                     connectionManagers = (List<ClientConnectionManager>)IdleConnectionReaper.connectionManagers.clone();
+                    warmers = (List<ConnectionPoolWarmer>)IdleConnectionReaper.warmers.clone();
                 }
                 for (ClientConnectionManager connectionManager : connectionManagers) {
                     // When we release connections, the connection manager leaves them
@@ -129,6 +164,13 @@ public final class IdleConnectionReaper extends Thread {
                         log.warn("Unable to close idle connections", t);
                     }
                 }
+                for (ConnectionPoolWarmer warmer : warmers) {
+                    try {
+                        warmer.rewarm();
+                    } catch (Exception t) {
+                        log.warn("Unable to warm connection pool", t);
+                    }
+                }
             } catch (Throwable t) {
                 log.debug("Reaper thread: ",  t);
             }
@@ -151,6 +193,7 @@ public final class IdleConnectionReaper extends Thread {
             instance.markShuttingDown();
             instance.interrupt();
             connectionManagers.clear();
+            warmers.clear();
             instance = null;
             return true;
         }
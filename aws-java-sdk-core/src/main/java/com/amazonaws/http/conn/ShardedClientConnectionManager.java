@@ -0,0 +1,194 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.conn;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import com.amazonaws.annotation.SdkInternalApi;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * Connection manager that splits the connections into several pools, each
+ * with its own lock, by the hash of their route. Connections to one route
+ * always come from the same pool, so the limits per route are those of a
+ * single pool, while requests to different routes mostly don't contend for
+ * the same lock.
+ */
+@ThreadSafe
+@SdkInternalApi
+public class ShardedClientConnectionManager
+        implements ClientConnectionManager, ConnPoolControl<HttpRoute> {
+
+    private final PoolingClientConnectionManager[] shards;
+
+    /**
+     * @param shards
+     *            The pools to split the connections into; they must all share
+     *            the same scheme registry.
+     */
+    public ShardedClientConnectionManager(PoolingClientConnectionManager[] shards) {
+        if (shards.length == 0) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        for (PoolingClientConnectionManager shard : shards) {
+            if (shard.getSchemeRegistry() != shards[0].getSchemeRegistry()) {
+                throw new IllegalArgumentException("The shards must share their scheme registry");
+            }
+        }
+        this.shards = shards.clone();
+    }
+
+    private PoolingClientConnectionManager shardFor(HttpRoute route) {
+        int hash = route.hashCode();
+        // Spread the bits, as the low bits of route hash codes vary little
+        hash ^= (hash >>> 16);
+        return shards[(hash & Integer.MAX_VALUE) % shards.length];
+    }
+
+    @Override
+    public SchemeRegistry getSchemeRegistry() {
+        return shards[0].getSchemeRegistry();
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+        return shardFor(route).requestConnection(route, state);
+    }
+
+    @Override
+    public void releaseConnection(ManagedClientConnection conn, long validDuration, TimeUnit timeUnit) {
+        PoolingClientConnectionManager shard;
+        try {
+            shard = shardFor(conn.getRoute());
+        } catch (RuntimeException e) {
+            // The connection was detached from its pool entry
+            shard = null;
+        }
+        if (shard != null) {
+            try {
+                shard.releaseConnection(conn, validDuration, timeUnit);
+                return;
+            } catch (IllegalStateException notFromThisShard) {
+                // The route changed after the connection was leased
+            }
+        }
+        for (PoolingClientConnectionManager other : shards) {
+            if (other == shard) {
+                continue;
+            }
+            try {
+                other.releaseConnection(conn, validDuration, timeUnit);
+                return;
+            } catch (IllegalStateException notFromThisShard) {
+                // Try the next shard
+            }
+        }
+        throw new IllegalStateException("Connection not obtained from this manager");
+    }
+
+    @Override
+    public void closeIdleConnections(long idletime, TimeUnit tunit) {
+        for (PoolingClientConnectionManager shard : shards) {
+            shard.closeIdleConnections(idletime, tunit);
+        }
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        for (PoolingClientConnectionManager shard : shards) {
+            shard.closeExpiredConnections();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (PoolingClientConnectionManager shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Sets the maximum number of connections of each shard.
+     */
+    @Override
+    public void setMaxTotal(int max) {
+        for (PoolingClientConnectionManager shard : shards) {
+            shard.setMaxTotal(max);
+        }
+    }
+
+    /**
+     * Returns the maximum number of connections of each shard.
+     */
+    @Override
+    public int getMaxTotal() {
+        return shards[0].getMaxTotal();
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(int max) {
+        for (PoolingClientConnectionManager shard : shards) {
+            shard.setDefaultMaxPerRoute(max);
+        }
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return shards[0].getDefaultMaxPerRoute();
+    }
+
+    @Override
+    public void setMaxPerRoute(HttpRoute route, int max) {
+        shardFor(route).setMaxPerRoute(route, max);
+    }
+
+    @Override
+    public int getMaxPerRoute(HttpRoute route) {
+        return shardFor(route).getMaxPerRoute(route);
+    }
+
+    /**
+     * Returns the statistics of all shards added up.
+     */
+    @Override
+    public PoolStats getTotalStats() {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        int max = 0;
+        for (PoolingClientConnectionManager shard : shards) {
+            PoolStats stats = shard.getTotalStats();
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    @Override
+    public PoolStats getStats(HttpRoute route) {
+        return shardFor(route).getStats(route);
+    }
+}
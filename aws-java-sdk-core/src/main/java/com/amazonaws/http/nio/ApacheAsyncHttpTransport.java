@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.nio;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.amazonaws.http.AsyncHttpTransport;
+
+/**
+ * {@link AsyncHttpTransport} backed by an Apache HttpAsyncClient. The response
+ * entity is buffered in memory by the client before the callback is completed.
+ */
+class ApacheAsyncHttpTransport implements AsyncHttpTransport {
+
+    private static final Log log = LogFactory.getLog(ApacheAsyncHttpTransport.class);
+
+    private final CloseableHttpAsyncClient client;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    ApacheAsyncHttpTransport(CloseableHttpAsyncClient client,
+            PoolingNHttpClientConnectionManager connectionManager) {
+        this.client = client;
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public Future<HttpResponse> execute(HttpRequestBase request,
+            HttpContext context, FutureCallback<HttpResponse> callback) {
+        return client.execute(request, context, callback);
+    }
+
+    @Override
+    public PoolStats getConnectionPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.debug("Unable to shut down the async HTTP client cleanly", e);
+        }
+    }
+}
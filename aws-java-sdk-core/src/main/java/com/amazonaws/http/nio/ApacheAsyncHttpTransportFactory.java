@@ -0,0 +1,240 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http.nio;
+
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.NTCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.SSLInitializationException;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.SDKGlobalConfiguration;
+import com.amazonaws.http.AsyncHttpTransport;
+import com.amazonaws.http.AsyncHttpTransportFactory;
+import com.amazonaws.http.HttpClientFactory;
+import com.amazonaws.http.conn.SdkConnectionKeepAliveStrategy;
+
+/**
+ * Creates {@link AsyncHttpTransport}s backed by the Apache HttpAsyncClient,
+ * which multiplexes all connections of a client over a small, fixed number of
+ * I/O reactor threads.
+ * <p>
+ * The transport honors the same {@link ClientConfiguration} settings as the
+ * default blocking HTTP client: connection and socket timeouts, the maximum
+ * number of connections, TCP keep-alive, socket buffer size hints, the local
+ * address, the maximum connection idle time, and the proxy settings. Response
+ * compression ({@link ClientConfiguration#useGzip()}) is not supported.
+ * <p>
+ * This factory requires the optional
+ * {@code org.apache.httpcomponents:httpasyncclient} dependency on the
+ * classpath.
+ */
+public class ApacheAsyncHttpTransportFactory implements AsyncHttpTransportFactory {
+
+    private static final Log log = LogFactory.getLog(ApacheAsyncHttpTransportFactory.class);
+
+    private final int ioThreadCount;
+
+    /**
+     * Creates a factory whose transports use one I/O thread per available
+     * processor.
+     */
+    public ApacheAsyncHttpTransportFactory() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a factory whose transports use the given number of I/O threads.
+     *
+     * @param ioThreadCount
+     *            The number of I/O reactor threads of each transport.
+     */
+    public ApacheAsyncHttpTransportFactory(int ioThreadCount) {
+        if (ioThreadCount <= 0) {
+            throw new IllegalArgumentException("ioThreadCount must be positive");
+        }
+        this.ioThreadCount = ioThreadCount;
+    }
+
+    @Override
+    public AsyncHttpTransport createTransport(ClientConfiguration config) {
+        IOReactorConfig.Builder reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreadCount)
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .setTcpNoDelay(true)
+                .setSoKeepAlive(config.useTcpKeepAlive());
+        int socketSendBufferSizeHint = config.getSocketBufferSizeHints()[0];
+        int socketReceiveBufferSizeHint = config.getSocketBufferSizeHints()[1];
+        if (socketSendBufferSizeHint > 0) {
+            reactorConfig.setSndBufSize(socketSendBufferSizeHint);
+        }
+        if (socketReceiveBufferSizeHint > 0) {
+            reactorConfig.setRcvBufSize(socketReceiveBufferSizeHint);
+        }
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setRedirectsEnabled(false)
+                .setLocalAddress(config.getLocalAddress());
+
+        PoolingNHttpClientConnectionManager connectionManager =
+                createConnectionManager(config, reactorConfig.build());
+        HttpAsyncClientBuilder builder = HttpAsyncClientBuilder.create()
+                .setConnectionManager(connectionManager);
+
+        if (config.getConnectionMaxIdleMillis() > 0) {
+            builder.setKeepAliveStrategy(new SdkConnectionKeepAliveStrategy(
+                    config.getConnectionMaxIdleMillis()));
+        }
+
+        /* Set proxy if configured */
+        String proxyHost = config.getProxyHost();
+        int proxyPort = config.getProxyPort();
+        if (proxyHost != null && proxyPort > 0) {
+            log.info("Configuring Proxy. Proxy Host: " + proxyHost + " " + "Proxy Port: " + proxyPort);
+            requestConfig.setProxy(new HttpHost(proxyHost, proxyPort));
+
+            String proxyUsername = config.getProxyUsername();
+            String proxyPassword = config.getProxyPassword();
+            if (proxyUsername != null && proxyPassword != null) {
+                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(
+                        new AuthScope(proxyHost, proxyPort),
+                        new NTCredentials(proxyUsername, proxyPassword,
+                                config.getProxyWorkstation(), config.getProxyDomain()));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+        }
+        builder.setDefaultRequestConfig(requestConfig.build());
+
+        CloseableHttpAsyncClient client = builder.build();
+        client.start();
+        return new ApacheAsyncHttpTransport(client, connectionManager);
+    }
+
+    /**
+     * Creates the connection pool explicitly, rather than leaving it to the
+     * client builder, so that its statistics can be reported in the request
+     * metrics.
+     */
+    private PoolingNHttpClientConnectionManager createConnectionManager(
+            ClientConfiguration config, IOReactorConfig reactorConfig) {
+        DefaultConnectingIOReactor ioReactor;
+        try {
+            ioReactor = new DefaultConnectingIOReactor(reactorConfig, new IOReactorThreadFactory());
+        } catch (IOReactorException e) {
+            throw new AmazonClientException("Unable to create the I/O reactor: " + e.getMessage(), e);
+        }
+        Registry<SchemeIOSessionStrategy> sessionStrategies = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", createSSLStrategy(config))
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(ioReactor, sessionStrategies);
+        connectionManager.setMaxTotal(config.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
+        return connectionManager;
+    }
+
+    private static SSLIOSessionStrategy createSSLStrategy(ClientConfiguration config) {
+        /*
+         * If SSL cert checking for endpoints has been explicitly disabled,
+         * accept any certificate and host name.
+         */
+        if (SDKGlobalConfiguration.isCertCheckingDisabled()) {
+            try {
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, new TrustManager[] { new TrustingX509TrustManager() }, null);
+                return new SSLIOSessionStrategy(context,
+                        SSLIOSessionStrategy.ALLOW_ALL_HOSTNAME_VERIFIER);
+            } catch (NoSuchAlgorithmException e) {
+                throw new SSLInitializationException(e.getMessage(), e);
+            } catch (KeyManagementException e) {
+                throw new SSLInitializationException(e.getMessage(), e);
+            }
+        }
+        return new SSLIOSessionStrategy(HttpClientFactory.createSSLContext(config),
+                SSLIOSessionStrategy.STRICT_HOSTNAME_VERIFIER);
+    }
+
+    /**
+     * Names the I/O reactor threads and marks them as daemon threads so an
+     * idle transport never prevents the JVM from exiting.
+     */
+    private static final class IOReactorThreadFactory implements ThreadFactory {
+        private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable);
+            thread.setName("aws-async-http-transport-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Simple implementation of X509TrustManager that trusts all certificates.
+     * This class is only used when SSL cert checking has been explicitly
+     * disabled.
+     */
+    private static final class TrustingX509TrustManager implements X509TrustManager {
+        private static final X509Certificate[] X509_CERTIFICATES = new X509Certificate[0];
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return X509_CERTIFICATES;
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            // No-op, to trust all certs
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            // No-op, to trust all certs
+        }
+    }
+}
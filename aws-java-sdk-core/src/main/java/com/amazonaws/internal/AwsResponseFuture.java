@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.internal;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.amazonaws.Response;
+
+/**
+ * Exposes the future of an asynchronous execution, as returned by
+ * {@link com.amazonaws.http.AmazonHttpClient#executeAsync}, as a future of the
+ * unmarshalled result. Cancelling this future cancels the execution.
+ *
+ * @param <T>
+ *            The type of the unmarshalled result.
+ */
+public class AwsResponseFuture<T> implements Future<T> {
+
+    private final Future<Response<T>> responseFuture;
+
+    public AwsResponseFuture(Future<Response<T>> responseFuture) {
+        this.responseFuture = responseFuture;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return responseFuture.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return responseFuture.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return responseFuture.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return responseFuture.get().getAwsResponse();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        return responseFuture.get(timeout, unit).getAwsResponse();
+    }
+}
@@ -14,23 +14,29 @@
  */
 package com.amazonaws.internal;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import com.amazonaws.annotation.ThreadSafe;
 
 /**
  * A bounded cache that has a FIFO eviction policy when the cache is full.
+ * <p>
+ * Reads never block: entries are held in a {@link ConcurrentHashMap}, and the
+ * keys in the order they were added in a lock-free queue from which the
+ * earliest entries are evicted. While entries are being added concurrently,
+ * the cache may briefly hold more than its maximum size.
  *
  * @param <T>
  *            value type
  */
 @ThreadSafe
 public final class FIFOCache<T> {
-    private final BoundedLinkedHashMap<String, T> map;
-    private final ReadLock rlock;
-    private final WriteLock wlock;
+    private final ConcurrentMap<String, T> map;
+    private final Queue<String> keys = new ConcurrentLinkedQueue<String>();
+    private final int maxSize;
 
     /**
      * @param maxSize
@@ -41,60 +47,48 @@ public final class FIFOCache<T> {
             throw new IllegalArgumentException("maxSize " + maxSize
                     + " must be at least 1");
         }
-        map = new BoundedLinkedHashMap<String, T>(maxSize);
-        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-        rlock = lock.readLock();
-        wlock = lock.writeLock();
+        this.map = new ConcurrentHashMap<String, T>(maxSize * 4 / 3 + 1);
+        this.maxSize = maxSize;
     }
 
     /**
      * Adds an entry to the cache, evicting the earliest entry if necessary.
      */
     public T add(String key, T value) {
-        wlock.lock();
-        try {
-            return map.put(key, value);
-        } finally {
-            wlock.unlock();
+        T previous = map.put(key, value);
+        if (previous == null) {
+            // Replacing the value of a key doesn't change its place in line
+            keys.offer(key);
+            while (map.size() > maxSize) {
+                String earliest = keys.poll();
+                if (earliest == null) break;
+                map.remove(earliest);
+            }
         }
+        return previous;
     }
 
     /** Returns the value of the given key; or null of no such entry exists. */
     public T get(String key) {
-        rlock.lock();
-        try {
-            return map.get(key);
-        } finally {
-            rlock.unlock();
-        }
+        return map.get(key);
     }
 
     /**
      * Returns the current size of the cache.
      */
     public int size() {
-        rlock.lock();
-        try {
-            return map.size();
-        } finally {
-            rlock.unlock();
-        }
+        return map.size();
     }
 
     /**
      * Returns the maximum size of the cache.
      */
     public int getMaxSize() {
-        return map.getMaxSize();
+        return maxSize;
     }
 
     @Override
     public String toString() {
-        rlock.lock();
-        try {
-            return map.toString();
-        } finally {
-            rlock.unlock();
-        }
+        return map.toString();
     }
 }
@@ -43,6 +43,17 @@ public abstract class RequestMetricCollector {
     public abstract void collectMetrics(Request<?> request, Response<?> response);
     public boolean isEnabled() { return true; }
 
+    /**
+     * Returns true if this collector makes use of the sub-measurements,
+     * string-named counters or multi-valued properties of the full support of
+     * request metrics; false if the predefined
+     * {@link com.amazonaws.util.AWSRequestMetrics.Field} metrics recorded at low
+     * overhead by {@link com.amazonaws.util.AWSRequestMetricsFieldSupport} are
+     * sufficient.
+     * Returns true by default.
+     */
+    public boolean requiresFullSupport() { return true; }
+
     /** A convenient instance of a no-op request metric collector. */
     public static final RequestMetricCollector NONE = new RequestMetricCollector() {
         @Override public void collectMetrics(Request<?> request, Response<?> response) {}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+/**
+ * Client-wide limit on the rate at which requests are sent, adapted to the
+ * throttling errors returned by the service.
+ * <p>
+ * The limiter does nothing until the first throttling error is seen. From
+ * then on, every request takes a token from a bucket refilled at the current
+ * send rate. Each throttling error cuts the send rate to a fraction of the
+ * rate measured when it occurred; every other response lets it grow back along
+ * a cubic curve, slowly around the rate at which throttling last occurred and
+ * faster beyond it, so that the client settles just below the capacity
+ * available to it and probes for more once throttling stops.
+ * <p>
+ * Requests that have to wait are told how long rather than blocked, so the
+ * limiter can serve both blocking and asynchronous callers. Instances are
+ * thread-safe and meant to be shared by all requests of a client.
+ *
+ * @see com.amazonaws.ClientConfiguration#useAdaptiveRateLimiting()
+ */
+public class AdaptiveRateLimiter {
+
+    /** The fraction of the measured send rate kept after a throttling error. */
+    private static final double BETA = 0.7;
+
+    /** Scales the cubic growth of the send rate after a throttling error. */
+    private static final double SCALE_CONSTANT = 0.4;
+
+    /** Weight of the latest sample in the smoothed measured send rate. */
+    private static final double SMOOTHING = 0.8;
+
+    /** The lowest send rate, in requests per second. */
+    private static final double MIN_FILL_RATE = 0.5;
+
+    /** The lowest number of tokens the bucket may hold. */
+    private static final double MIN_CAPACITY = 1;
+
+    /** Width of the buckets the send rate is measured over, in seconds. */
+    private static final double MEASUREMENT_INTERVAL = 0.5;
+
+    private boolean enabled;
+
+    private double fillRate;
+    private double maxCapacity;
+    private double currentCapacity;
+    private double lastRefillTime = Double.NaN;
+
+    private double measuredSendRate;
+    private double lastMeasurementBucket = Double.NaN;
+    private long requestsInBucket;
+
+    private double lastMaxRate;
+    private double lastThrottleTime;
+    private double timeWindow;
+
+    /**
+     * Takes a send token for a request about to be sent, and returns how long
+     * the request must wait before it is sent. The token is taken even if the
+     * request has to wait, so that later requests queue up behind it.
+     *
+     * @return the delay before the request may be sent, in milliseconds; zero
+     *         if it may be sent right away.
+     */
+    public synchronized long acquire() {
+        if (!enabled) {
+            return 0;
+        }
+        refill(now());
+        currentCapacity -= 1;
+        if (currentCapacity >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-currentCapacity / fillRate * 1000);
+    }
+
+    /**
+     * Adjusts the send rate to the outcome of a request.
+     *
+     * @param throttled
+     *            true if the service rejected the request with a throttling
+     *            error.
+     */
+    public synchronized void onResponse(boolean throttled) {
+        double now = now();
+        updateMeasuredRate(now);
+
+        double calculatedRate;
+        if (throttled) {
+            double rateToUse = enabled ? Math.min(measuredSendRate, fillRate) : measuredSendRate;
+            lastMaxRate = rateToUse;
+            updateTimeWindow();
+            lastThrottleTime = now;
+            calculatedRate = rateToUse * BETA;
+            enabled = true;
+        } else {
+            updateTimeWindow();
+            calculatedRate = SCALE_CONSTANT * Math.pow(now - lastThrottleTime - timeWindow, 3) + lastMaxRate;
+        }
+
+        updateFillRate(now, Math.min(calculatedRate, 2 * measuredSendRate));
+    }
+
+    /**
+     * Returns the current send rate limit, in requests per second; or
+     * {@link Double#POSITIVE_INFINITY} if no throttling error has been seen
+     * yet.
+     */
+    public synchronized double getSendRate() {
+        return enabled ? fillRate : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the current time in seconds. Overridden by tests.
+     */
+    protected double now() {
+        return System.nanoTime() / 1e9;
+    }
+
+    private void refill(double now) {
+        if (!Double.isNaN(lastRefillTime)) {
+            currentCapacity = Math.min(maxCapacity, currentCapacity + (now - lastRefillTime) * fillRate);
+        }
+        lastRefillTime = now;
+    }
+
+    private void updateFillRate(double now, double newRate) {
+        refill(now);
+        fillRate = Math.max(newRate, MIN_FILL_RATE);
+        maxCapacity = Math.max(newRate, MIN_CAPACITY);
+        currentCapacity = Math.min(currentCapacity, maxCapacity);
+    }
+
+    private void updateMeasuredRate(double now) {
+        double bucket = Math.floor(now / MEASUREMENT_INTERVAL) * MEASUREMENT_INTERVAL;
+        requestsInBucket++;
+        if (Double.isNaN(lastMeasurementBucket)) {
+            lastMeasurementBucket = bucket;
+        } else if (bucket > lastMeasurementBucket) {
+            double currentRate = requestsInBucket / (bucket - lastMeasurementBucket);
+            measuredSendRate = currentRate * SMOOTHING + measuredSendRate * (1 - SMOOTHING);
+            requestsInBucket = 0;
+            lastMeasurementBucket = bucket;
+        }
+    }
+
+    /**
+     * Computes how long after a throttling error the send rate grows back to
+     * the rate at which the error occurred.
+     */
+    private void updateTimeWindow() {
+        timeWindow = Math.cbrt(lastMaxRate * (1 - BETA) / SCALE_CONSTANT);
+    }
+}
@@ -23,7 +23,6 @@ import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Stack;
 
 import com.amazonaws.http.HttpResponse;
 import com.amazonaws.util.json.SdkJsonProtocolFactory;
@@ -43,7 +42,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
     private String currentHeader;
 
     /**
-     * A stack of JsonFieldTokenPair objects that indicates the current state of the context.
+     * A stack of field and token pairs that indicates the current state of the context, kept as
+     * two arrays and a depth so that moving through the document does not allocate.
      * For example, if we have a JSON object:
      * {
      *   A :
@@ -60,14 +60,15 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
      * When the parser points to "D", the state of this stack should be (from top to bottom):
      *  [ (C, START_OBJECT), (B, START_ARRAY), (A, START_OBJECT) ]
      */
-    private final Stack<JsonFieldTokenPair> stack = new Stack<JsonFieldTokenPair>();
+    private String[] stackFields = new String[16];
+    private JsonToken[] stackTokens = new JsonToken[16];
+    private int stackSize;
 
     /**
      * The name of the field that is currently being parsed. This value is
      * nulled out when the parser reaches into the object/array structure of the
-     * corresponding value, and then it will be pushed into the stack after
-     * wrapped into a JsonFieldTokenPair object with the START_OBJECT or
-     * START_ARRAY token following it.
+     * corresponding value, and then it will be pushed into the stack together
+     * with the START_OBJECT or START_ARRAY token following it.
      * So in the same example as shown above:
      *   (1) when the parser moves from "C" to "{", (currentField, START_OBJECT)
      *       will be pushed into the stack and currentField will be set null;
@@ -118,7 +119,7 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
 
     @Override
     public int getCurrentDepth() {
-        int depth = stack.size();
+        int depth = stackSize;
         if (currentField != null) depth++;
         return depth;
     }
@@ -140,8 +141,10 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         case VALUE_FALSE: return "false";
         case VALUE_TRUE: return "true";
         case VALUE_NULL: return null;
-        case VALUE_NUMBER_FLOAT:
         case VALUE_NUMBER_INT:
+            // The text of an integer is its canonical form; no need to box it first
+            return jsonParser.getText();
+        case VALUE_NUMBER_FLOAT:
             return jsonParser.getNumberValue().toString();
         case FIELD_NAME:
             return jsonParser.getText();
@@ -169,8 +172,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
             if (currentField != null) {
                 return currentField.equals(expression);
             } else {
-                return (!stack.isEmpty())
-                        && stack.peek().getField().equals(expression);
+                return stackSize > 0
+                        && stackFields[stackSize - 1].equals(expression);
             }
         }
     }
@@ -180,8 +183,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         String parentElement;
         if (currentField != null) {
             parentElement = currentField;
-        } else if ( !stack.isEmpty() ) {
-            parentElement = stack.peek().getField();
+        } else if (stackSize > 0) {
+            parentElement = stackFields[stackSize - 1];
         } else {
             parentElement = "";
         }
@@ -193,8 +196,8 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         if (expression.equals(".")) {
             return true;
         } else {
-            return testExpression(expression)
-                    && stackDepth == getCurrentDepth();
+            return stackDepth == getCurrentDepth()
+                    && testExpression(expression);
         }
     }
 
@@ -253,15 +256,16 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
 
         if (currentToken == START_OBJECT || currentToken == START_ARRAY) {
             if (currentField != null) {
-                stack.push(new JsonFieldTokenPair(currentField, currentToken));
+                push(currentField, currentToken);
                 currentField = null;
             }
         } else if (currentToken == END_OBJECT || currentToken == END_ARRAY) {
-            if (!stack.isEmpty()) {
-                boolean squareBracketsMatch = currentToken == END_ARRAY && stack.peek().getToken() == START_ARRAY;
-                boolean curlyBracketsMatch = currentToken == END_OBJECT && stack.peek().getToken() == START_OBJECT;
+            if (stackSize > 0) {
+                JsonToken startToken = stackTokens[stackSize - 1];
+                boolean squareBracketsMatch = currentToken == END_ARRAY && startToken == START_ARRAY;
+                boolean curlyBracketsMatch = currentToken == END_OBJECT && startToken == START_OBJECT;
                 if (squareBracketsMatch || curlyBracketsMatch) {
-                    lastParsedParentElement = stack.pop().getField();
+                    lastParsedParentElement = pop();
                 }
             }
             currentField = null;
@@ -271,13 +275,35 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
         }
     }
 
+    private void push(String field, JsonToken token) {
+        if (stackSize == stackFields.length) {
+            String[] fields = new String[stackSize * 2];
+            JsonToken[] tokens = new JsonToken[stackSize * 2];
+            System.arraycopy(stackFields, 0, fields, 0, stackSize);
+            System.arraycopy(stackTokens, 0, tokens, 0, stackSize);
+            stackFields = fields;
+            stackTokens = tokens;
+        }
+        stackFields[stackSize] = field;
+        stackTokens[stackSize] = token;
+        stackSize++;
+    }
+
+    private String pop() {
+        stackSize--;
+        String field = stackFields[stackSize];
+        stackFields[stackSize] = null;
+        stackTokens[stackSize] = null;
+        return field;
+    }
+
     @Override
     public String toString() {
         StringBuilder stackString = new StringBuilder();
 
-        for (JsonFieldTokenPair jsonFieldTokenPair : stack) {
+        for (int i = 0; i < stackSize; i++) {
             stackString.append("/")
-                       .append(jsonFieldTokenPair.getField());
+                       .append(stackFields[i]);
         }
 
         if (currentField != null) {
@@ -292,37 +318,4 @@ public class JsonUnmarshallerContextImpl extends JsonUnmarshallerContext {
     public String getLastParsedParentElement() {
         return lastParsedParentElement;
     }
-
-    /**
-     * An immutable class used to indicate a JSON field value followed by a
-     * subsequent JSON token. This inner class should only be used by the
-     * private stack to indicate the current state of the context.
-     */
-    private static class JsonFieldTokenPair {
-        private final String field;
-        private final JsonToken jsonToken;
-
-        /**
-         * @param fieldString
-         *            Not null.
-         * @param token
-         *            Not null.
-         */
-        public JsonFieldTokenPair(String fieldString, JsonToken token) {
-            field = fieldString;
-            jsonToken = token;
-        }
-
-        public String getField() {
-            return field;
-        }
-
-        public JsonToken getToken() {
-            return jsonToken;
-        }
-
-        public String toString() {
-            return field + ": " + jsonToken.asString();
-        }
-    }
 }
@@ -21,8 +21,24 @@ import java.util.Date;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.util.Base64;
 import com.amazonaws.util.DateUtils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 public class SimpleTypeJsonUnmarshallers {
+
+    /**
+     * Returns the parser of the context if it is positioned on the current
+     * token of the context and that token is of the given type, so that the
+     * value can be read from the parser directly instead of going through its
+     * text; or null otherwise, e.g. for values read from headers.
+     */
+    private static JsonParser parserAt(JsonUnmarshallerContext unmarshallerContext, JsonToken token) {
+        if (unmarshallerContext.getCurrentToken() != token) return null;
+
+        JsonParser parser = unmarshallerContext.getJsonParser();
+        return (parser != null && parser.getCurrentToken() == token) ? parser : null;
+    }
+
     /**
      * Unmarshaller for String values.
      */
@@ -43,6 +59,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class DoubleJsonUnmarshaller implements Unmarshaller<Double, JsonUnmarshallerContext> {
         public Double unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, JsonToken.VALUE_NUMBER_FLOAT);
+            if (parser == null) parser = parserAt(unmarshallerContext, JsonToken.VALUE_NUMBER_INT);
+            if (parser != null) return parser.getDoubleValue();
+
             String doubleString = unmarshallerContext.readText();
             return (doubleString == null) ? null : Double.parseDouble(doubleString);
         }
@@ -59,6 +79,9 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class IntegerJsonUnmarshaller implements Unmarshaller<Integer, JsonUnmarshallerContext> {
         public Integer unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, JsonToken.VALUE_NUMBER_INT);
+            if (parser != null) return parser.getIntValue();
+
             String intString = unmarshallerContext.readText();
             return (intString == null) ? null : Integer.parseInt(intString);
         }
@@ -101,6 +124,10 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class BooleanJsonUnmarshaller implements Unmarshaller<Boolean, JsonUnmarshallerContext> {
         public Boolean unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonToken token = unmarshallerContext.getCurrentToken();
+            if (token == JsonToken.VALUE_TRUE) return Boolean.TRUE;
+            if (token == JsonToken.VALUE_FALSE) return Boolean.FALSE;
+
             String booleanString = unmarshallerContext.readText();
             return (booleanString == null) ? null : Boolean.parseBoolean(booleanString);
         }
@@ -133,6 +160,9 @@ public class SimpleTypeJsonUnmarshallers {
      */
     public static class LongJsonUnmarshaller implements Unmarshaller<Long, JsonUnmarshallerContext> {
         public Long unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
+            JsonParser parser = parserAt(unmarshallerContext, JsonToken.VALUE_NUMBER_INT);
+            if (parser != null) return parser.getLongValue();
+
             String longString = unmarshallerContext.readText();
             return (longString == null) ? null : Long.parseLong(longString);
         }
@@ -14,17 +14,28 @@
  */
 package com.amazonaws.transform;
 
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 /**
@@ -34,18 +45,60 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The position in the document is tracked as the array of the names of the
+ * enclosing elements and its depth, and the expressions tested against it are
+ * parsed once into the element names they match, so that testing an
+ * expression takes no more than a depth comparison and a few name
+ * comparisons.
+ * <p>
+ * A context created on an {@link XMLStreamReader} reads the document through
+ * the reader's cursor instead of allocating an event object per XML event; the
+ * events it returns are then only valid until the next call to
+ * {@link #nextEvent()}.
  */
 public class StaxUnmarshallerContext {
 
+    /** Expressions parsed into element paths, by expression. */
+    private static final ConcurrentMap<String, ElementPath> elementPaths =
+            new ConcurrentHashMap<String, ElementPath>();
+
+    private static final XMLEventFactory xmlEventFactory = XMLEventFactory.newInstance();
+
     private XMLEvent currentEvent;
     private final XMLEventReader eventReader;
 
+    private final XMLStreamReader streamReader;
+    private final CursorEvent cursorEvent;
+
+    /**
+     * True if {@code streamReader} is positioned on an event not returned by
+     * {@link #nextEvent()} yet: the start of the document, or the end of the
+     * element whose text was read by {@link #readText()}.
+     */
+    private boolean cursorPending = true;
+
+    /**
+     * @deprecated The element depth is given by {@link #getCurrentDepth()},
+     *             and the position is tested with
+     *             {@link #testExpression(String, int)}.
+     */
+    @Deprecated
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /** The names of the elements enclosing the current position. */
+    private String[] elementNames = new String[16];
+    private int depth;
+
+    /** The name of the current attribute, or null if not on an attribute. */
+    private String attributeName;
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
 
+    /** The metadata keys to store the text of the current element under. */
+    private List<String> pendingMetadataKeys;
+
     private Iterator<?> attributeIterator;
     private final Map<String, String> headers;
 
@@ -81,6 +134,26 @@ public class StaxUnmarshallerContext {
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
         this.eventReader = eventReader;
+        this.streamReader = null;
+        this.cursorEvent = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context reading the XML document from the
+     * cursor of the specified stream reader, and a set of response headers.
+     * The reader must be positioned at the start of the document.
+     *
+     * @param streamReader
+     *            The XML stream reader for this unmarshalling context.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.eventReader = null;
+        this.streamReader = streamReader;
+        this.cursorEvent = new CursorEvent(streamReader);
         this.headers = headers;
     }
 
@@ -115,6 +188,14 @@ public class StaxUnmarshallerContext {
             return attribute.getValue();
         }
 
+        if (streamReader != null) {
+            String text = streamReader.getElementText();
+            // The reader now is on the end of the element, for the next event
+            cursorPending = true;
+            storePendingMetadata(text);
+            return text;
+        }
+
         StringBuilder sb = new StringBuilder();
         while (true) {
             XMLEvent event = eventReader.peek();
@@ -137,7 +218,7 @@ public class StaxUnmarshallerContext {
      *         document being parsed.
      */
     public int getCurrentDepth() {
-        return stack.size();
+        return depth;
     }
 
     /**
@@ -151,7 +232,15 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            path.append('/').append(elementNames[i]);
+        }
+        if (attributeName != null) {
+            path.append("/@").append(attributeName);
+        }
+        return path.toString().endsWith(expression);
     }
 
     /**
@@ -171,17 +260,25 @@ public class StaxUnmarshallerContext {
     public boolean testExpression(String expression, int startingStackDepth) {
         if (expression.equals(".")) return true;
 
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
-        }
+        ElementPath path = ElementPath.of(expression);
+        // Don't consider attributes a new depth level
+        if (startingStackDepth + path.depth != depth) return false;
 
+        if (path.attributeName == null ? attributeName != null
+                : !path.attributeName.equals(attributeName)) {
+            return false;
+        }
 
-        return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+        String[] names = path.elementNames;
+        if (names.length > depth) return false;
+        for (int i = names.length - 1, j = depth - 1; i >= 0; i--, j--) {
+            // Parsers intern the names they return, like the names of paths
+            String name = elementNames[j];
+            if (names[i] != name && !names[i].equals(name)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -193,6 +290,9 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
+        if (streamReader != null) {
+            return cursorPending && streamReader.getEventType() == XMLStreamConstants.START_DOCUMENT;
+        }
         return eventReader.peek().isStartDocument();
     }
 
@@ -204,6 +304,10 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
+        if (streamReader != null) {
+            return nextCursorEvent();
+        }
+
         if (attributeIterator != null && attributeIterator.hasNext()) {
             currentEvent = (XMLEvent)attributeIterator.next();
         } else {
@@ -280,26 +384,260 @@ public class StaxUnmarshallerContext {
         }
     }
 
+    /**
+     * An expression parsed into the names of the elements it matches, and the
+     * name of the attribute it matches if any.
+     */
+    private static class ElementPath {
+        final String[] elementNames;
+        final String attributeName;
+
+        /** The depth of the last element relative to the first one. */
+        final int depth;
+
+        private ElementPath(String expression) {
+            List<String> names = new ArrayList<String>();
+            String attribute = null;
+            for (String step : expression.split("/")) {
+                if (step.startsWith("@")) {
+                    attribute = step.substring(1).intern();
+                } else {
+                    names.add(step.intern());
+                }
+            }
+            this.elementNames = names.toArray(new String[names.size()]);
+            this.attributeName = attribute;
+            this.depth = Math.max(elementNames.length - 1, 0);
+        }
+
+        static ElementPath of(String expression) {
+            ElementPath path = elementPaths.get(expression);
+            if (path == null) {
+                path = new ElementPath(expression);
+                elementPaths.putIfAbsent(expression, path);
+            }
+            return path;
+        }
+    }
+
+    private XMLEvent nextCursorEvent() throws XMLStreamException {
+        if (attributeIterator != null && attributeIterator.hasNext()) {
+            currentEvent = (XMLEvent)attributeIterator.next();
+            updateContext(currentEvent);
+            return currentEvent;
+        }
+        attributeIterator = null;
+
+        int eventType;
+        if (cursorPending) {
+            eventType = streamReader.getEventType();
+            cursorPending = false;
+        } else {
+            eventType = streamReader.next();
+        }
+
+        cursorEvent.eventType = eventType;
+        currentEvent = cursorEvent;
+
+        switch (eventType) {
+        case XMLStreamConstants.START_ELEMENT:
+            pushElement(streamReader.getLocalName());
+            attributeName = null;
+            pendingMetadataKeys = null;
+            if (streamReader.getAttributeCount() > 0) {
+                attributeIterator = readAttributes();
+            }
+            matchMetadataExpressions();
+            break;
+        case XMLStreamConstants.END_ELEMENT:
+            popElement();
+            attributeName = null;
+            pendingMetadataKeys = null;
+            break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+            if (pendingMetadataKeys != null) {
+                storePendingMetadata(streamReader.getText());
+            }
+            break;
+        default:
+            break;
+        }
+        return currentEvent;
+    }
+
+    /**
+     * Returns the attributes of the current start element, which are gone
+     * once the cursor moves past it.
+     */
+    private Iterator<Attribute> readAttributes() {
+        int count = streamReader.getAttributeCount();
+        List<Attribute> attributes = new ArrayList<Attribute>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.add(xmlEventFactory.createAttribute(
+                    streamReader.getAttributeName(i), streamReader.getAttributeValue(i)));
+        }
+        return attributes.iterator();
+    }
+
+    private void matchMetadataExpressions() {
+        for (MetadataExpression metadataExpression : metadataExpressions) {
+            if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
+                if (pendingMetadataKeys == null) {
+                    pendingMetadataKeys = new ArrayList<String>(1);
+                }
+                pendingMetadataKeys.add(metadataExpression.key);
+            }
+        }
+    }
+
+    private void storePendingMetadata(String text) {
+        if (pendingMetadataKeys == null) return;
+
+        for (String key : pendingMetadataKeys) {
+            metadata.put(key, text);
+        }
+        pendingMetadataKeys = null;
+    }
+
+    private void pushElement(String name) {
+        if (depth == elementNames.length) {
+            String[] grown = new String[depth * 2];
+            System.arraycopy(elementNames, 0, grown, 0, depth);
+            elementNames = grown;
+        }
+        elementNames[depth++] = name;
+        stack.push(name);
+    }
+
+    private void popElement() {
+        elementNames[--depth] = null;
+        stack.pop();
+    }
+
     private void updateContext(XMLEvent event) {
         if (event == null) return;
 
         if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
+            popElement();
+            attributeName = null;
         } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
+            pushElement(event.asStartElement().getName().getLocalPart());
+            attributeName = null;
         } else if (event.isAttribute()) {
             Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            attributeName = attribute.getName().getLocalPart();
         }
     }
 
+    /**
+     * The event returned for the current position of an XML stream reader.
+     * Only the type of event is recorded; the rest is read from the reader or
+     * created on demand.
+     */
+    private static class CursorEvent implements XMLEvent {
+        private final XMLStreamReader reader;
+        private int eventType;
+
+        CursorEvent(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int getEventType() {
+            return eventType;
+        }
+
+        @Override
+        public Location getLocation() {
+            return reader.getLocation();
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return eventType == XMLStreamConstants.START_ELEMENT;
+        }
+
+        @Override
+        public boolean isAttribute() {
+            return eventType == XMLStreamConstants.ATTRIBUTE;
+        }
+
+        @Override
+        public boolean isNamespace() {
+            return eventType == XMLStreamConstants.NAMESPACE;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return eventType == XMLStreamConstants.END_ELEMENT;
+        }
+
+        @Override
+        public boolean isEntityReference() {
+            return eventType == XMLStreamConstants.ENTITY_REFERENCE;
+        }
+
+        @Override
+        public boolean isProcessingInstruction() {
+            return eventType == XMLStreamConstants.PROCESSING_INSTRUCTION;
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return eventType == XMLStreamConstants.CHARACTERS
+                    || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE;
+        }
+
+        @Override
+        public boolean isStartDocument() {
+            return eventType == XMLStreamConstants.START_DOCUMENT;
+        }
+
+        @Override
+        public boolean isEndDocument() {
+            return eventType == XMLStreamConstants.END_DOCUMENT;
+        }
+
+        @Override
+        public StartElement asStartElement() {
+            if (!isStartElement()) throw new ClassCastException("Not a start element: " + eventType);
+            return xmlEventFactory.createStartElement(reader.getName(),
+                    Collections.emptyList().iterator(), Collections.emptyList().iterator());
+        }
+
+        @Override
+        public EndElement asEndElement() {
+            if (!isEndElement()) throw new ClassCastException("Not an end element: " + eventType);
+            return xmlEventFactory.createEndElement(reader.getName(), Collections.emptyList().iterator());
+        }
+
+        @Override
+        public Characters asCharacters() {
+            if (!isCharacters()) throw new ClassCastException("Not characters: " + eventType);
+            return xmlEventFactory.createCharacters(reader.getText());
+        }
+
+        @Override
+        public QName getSchemaType() {
+            return null;
+        }
+
+        @Override
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            if (isStartElement()) {
+                asStartElement().writeAsEncodedUnicode(writer);
+            } else if (isEndElement()) {
+                asEndElement().writeAsEncodedUnicode(writer);
+            } else if (isCharacters()) {
+                asCharacters().writeAsEncodedUnicode(writer);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "XMLEvent of type " + eventType;
+        }
+    }
 }
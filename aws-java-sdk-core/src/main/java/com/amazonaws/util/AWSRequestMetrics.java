@@ -97,6 +97,11 @@ public class AWSRequestMetrics {
          * request to AWS.
          */
         HttpClientRetryCount,
+        /**
+         * Number of duplicate requests sent because a hedged request was slow
+         * to receive a response.
+         */
+        HedgedRequestCount,
         /**
          * Time taken to send a request to AWS by the http client library,
          * excluding any retry.
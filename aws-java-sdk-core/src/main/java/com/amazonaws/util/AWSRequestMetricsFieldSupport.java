@@ -0,0 +1,268 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.metrics.MetricType;
+import com.amazonaws.metrics.RequestMetricCollector;
+
+/**
+ * A low overhead support of AWS SDK request metrics, limited to the predefined
+ * {@link Field} metrics.
+ * <p>
+ * In contrast to {@link AWSRequestMetricsFullSupport}, which keeps every
+ * sub-event as a separate {@link TimingInfo}, this class accumulates the total
+ * time and number of occurrences of each event, along with the counters, into
+ * primitive arrays allocated once per request; so recording a metric allocates
+ * nothing. Only the latest value of each property is kept. Events, counters
+ * and properties not identified by a {@link Field} are ignored.
+ * <p>
+ * This class is instantiated instead of {@link AWSRequestMetricsFullSupport}
+ * when the request metric collector in use does not
+ * {@link RequestMetricCollector#requiresFullSupport() require full support}.
+ */
+@NotThreadSafe
+public class AWSRequestMetricsFieldSupport extends AWSRequestMetrics {
+    private static final Log latencyLogger = LogFactory.getLog("com.amazonaws.latency");
+    private static final Object KEY_VALUE_SEPARATOR = "=";
+    private static final Object COMMA_SEPARATOR = ", ";
+
+    private static final Field[] FIELDS = Field.values();
+    private static final Map<String, Field> FIELDS_BY_NAME = new HashMap<String, Field>();
+    static {
+        // Pending events are tracked as the bits of a long
+        if (FIELDS.length > Long.SIZE) {
+            throw new IllegalStateException("Too many fields: " + FIELDS.length);
+        }
+        for (Field f : FIELDS) {
+            FIELDS_BY_NAME.put(f.name(), f);
+        }
+    }
+
+    /* Start time in nanosecond of the events being profiled, by field ordinal. */
+    private final long[] eventStartNanos = new long[FIELDS.length];
+    /* Total time in nanosecond of the ended events, by field ordinal. */
+    private final long[] eventTotalNanos = new long[FIELDS.length];
+    /* Number of the ended events, by field ordinal. */
+    private final int[] eventCounts = new int[FIELDS.length];
+    private final long[] counters = new long[FIELDS.length];
+    /* Bit set of the events being profiled, by field ordinal. */
+    private long pendingEvents;
+    /* Latest value of each property by field ordinal; allocated on first use. */
+    private Object[] properties;
+
+    /**
+     * This constructor should be used in the case when AWS SDK metrics
+     * collector is enabled and only needs the predefined {@link Field}
+     * metrics.
+     */
+    public AWSRequestMetricsFieldSupport() {
+        super(TimingInfo.startTiming());
+    }
+
+    /**
+     * Start an event which will be timed. If you start the same event without
+     * ending it, this will overwrite the old event. Events started and ended
+     * multiple times accumulate their time taken.
+     */
+    @Override
+    public void startEvent(String eventName) {
+        Field f = FIELDS_BY_NAME.get(eventName);
+        if (f != null) {
+            startEvent(f);
+        }
+    }
+
+    @Override
+    public void startEvent(MetricType f) {
+        if (f instanceof Field) {
+            int i = ((Field) f).ordinal();
+            eventStartNanos[i] = System.nanoTime();
+            pendingEvents |= 1L << i;
+        }
+    }
+
+    /**
+     * End an event which was previously started, adding the time it took to
+     * the total time of the event.
+     */
+    @Override
+    public void endEvent(String eventName) {
+        Field f = FIELDS_BY_NAME.get(eventName);
+        if (f != null) {
+            endEvent(f);
+        }
+    }
+
+    @Override
+    public void endEvent(MetricType f) {
+        if (!(f instanceof Field)) {
+            return;
+        }
+        final long endNano = System.nanoTime();
+        final int i = ((Field) f).ordinal();
+        final long bit = 1L << i;
+        /* Somebody tried to end an event that was not started. */
+        if ((pendingEvents & bit) == 0) {
+            LogFactory.getLog(getClass()).warn
+                ("Trying to end an event which was never started: " + f.name());
+            return;
+        }
+        pendingEvents &= ~bit;
+        eventTotalNanos[i] += endNano - eventStartNanos[i];
+        eventCounts[i]++;
+    }
+
+    @Override
+    public void incrementCounter(String event) {
+        Field f = FIELDS_BY_NAME.get(event);
+        if (f != null) {
+            incrementCounter(f);
+        }
+    }
+
+    @Override
+    public void incrementCounter(MetricType f) {
+        if (f instanceof Field) {
+            counters[((Field) f).ordinal()]++;
+        }
+    }
+
+    @Override
+    public void setCounter(String counterName, long count) {
+        Field f = FIELDS_BY_NAME.get(counterName);
+        if (f != null) {
+            setCounter(f, count);
+        }
+    }
+
+    @Override
+    public void setCounter(MetricType f, long count) {
+        if (f instanceof Field) {
+            counters[((Field) f).ordinal()] = count;
+        }
+    }
+
+    /**
+     * Sets a property, replacing any previous value of the same property.
+     */
+    @Override
+    public void addProperty(String propertyName, Object value) {
+        Field f = FIELDS_BY_NAME.get(propertyName);
+        if (f != null) {
+            addProperty(f, value);
+        }
+    }
+
+    @Override
+    public void addProperty(MetricType f, Object value) {
+        if (f instanceof Field) {
+            if (properties == null) {
+                properties = new Object[FIELDS.length];
+            }
+            properties[((Field) f).ordinal()] = value;
+        }
+    }
+
+    /**
+     * Returns a list with the latest value of the given property; or an empty
+     * list if there is none.
+     */
+    @Override
+    public List<Object> getProperty(String propertyName) {
+        Field f = FIELDS_BY_NAME.get(propertyName);
+        return f == null ? Collections.<Object>emptyList() : getProperty(f);
+    }
+
+    @Override
+    public List<Object> getProperty(MetricType f) {
+        Object value = f instanceof Field ? getLatestProperty((Field) f) : null;
+        return value == null
+             ? Collections.<Object>emptyList()
+             : Collections.singletonList(value);
+    }
+
+    /**
+     * Returns the latest value of the given property; or null if there is
+     * none.
+     */
+    public Object getLatestProperty(Field f) {
+        return properties == null ? null : properties[f.ordinal()];
+    }
+
+    /**
+     * Returns the total time in nanosecond taken by all the occurrences of the
+     * given event that have ended.
+     */
+    public long getEventTimeNano(Field f) {
+        return eventTotalNanos[f.ordinal()];
+    }
+
+    /**
+     * Returns the number of occurrences of the given event that have ended.
+     */
+    public int getEventCount(Field f) {
+        return eventCounts[f.ordinal()];
+    }
+
+    /**
+     * Returns the value of the given counter, which is zero if never set.
+     */
+    public long getCounter(Field f) {
+        return counters[f.ordinal()];
+    }
+
+    @Override
+    public void log() {
+        if (latencyLogger.isInfoEnabled()) {
+            StringBuilder builder = new StringBuilder();
+            for (Field f : FIELDS) {
+                Object value = getLatestProperty(f);
+                if (value != null) {
+                    keyValueFormat(f, value, builder);
+                }
+            }
+            for (Field f : FIELDS) {
+                if (counters[f.ordinal()] != 0) {
+                    keyValueFormat(f, counters[f.ordinal()], builder);
+                }
+            }
+            for (Field f : FIELDS) {
+                if (eventCounts[f.ordinal()] != 0) {
+                    keyValueFormat(f, TimingInfo.durationMilliOf(0, eventTotalNanos[f.ordinal()]), builder);
+                }
+            }
+            latencyLogger.info(builder.toString());
+        }
+    }
+
+    private void keyValueFormat(Object key, Object value, StringBuilder builder) {
+        builder.append(key).append(KEY_VALUE_SEPARATOR).append(value).append(COMMA_SEPARATOR);
+    }
+
+    /** Always returns true. */
+    @Override
+    public final boolean isEnabled() {
+        return true;
+    }
+}
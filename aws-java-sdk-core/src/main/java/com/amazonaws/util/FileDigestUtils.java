@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.security.MessageDigest;
+
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Utility methods for computing several digests of a file in a single pass
+ * over its contents.
+ * <p>
+ * The file is mapped into memory one region at a time, and each region is fed
+ * to all the digests slice by slice, so that every slice is read from the
+ * file once and stays in the processor cache while it is digested.
+ */
+public class FileDigestUtils {
+
+    /** The size of the file regions mapped into memory at a time. */
+    private static final int REGION_SIZE = 1 << 23;
+
+    /** The size of the slices of a region fed to each digest in turn. */
+    private static final int SLICE_SIZE = 1 << 16;
+
+    /**
+     * Updates each of the given digests with the contents of the given file.
+     */
+    public static void update(File file, MessageDigest... digests)
+            throws FileNotFoundException, IOException {
+        update(file, 0, file.length(), digests);
+    }
+
+    /**
+     * Updates each of the given digests with the given range of the contents
+     * of the given file. The range ends early if the file is shorter.
+     *
+     * @param file
+     *            The file to digest.
+     * @param offset
+     *            The offset in the file of the first byte to digest.
+     * @param length
+     *            The number of bytes to digest.
+     * @param digests
+     *            The digests to update.
+     */
+    public static void update(File file, long offset, long length, MessageDigest... digests)
+            throws FileNotFoundException, IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            long end = Math.min(offset + length, channel.size());
+            for (long position = offset; position < end; position += REGION_SIZE) {
+                MappedByteBuffer region = channel.map(MapMode.READ_ONLY,
+                        position, Math.min(REGION_SIZE, end - position));
+                update(region, digests);
+            }
+        } finally {
+            IOUtils.closeQuietly(fis, LogFactory.getLog(FileDigestUtils.class));
+        }
+    }
+
+    private static void update(MappedByteBuffer region, MessageDigest[] digests) {
+        int capacity = region.capacity();
+        for (int slice = 0; slice < capacity; slice += SLICE_SIZE) {
+            int sliceEnd = Math.min(slice + SLICE_SIZE, capacity);
+            for (MessageDigest digest : digests) {
+                region.limit(sliceEnd);
+                region.position(slice);
+                digest.update(region);
+            }
+        }
+    }
+}
@@ -19,7 +19,6 @@ package com.amazonaws.util;
 
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -94,7 +93,14 @@ public class Md5Utils {
      * Computes the MD5 of the given file.
      */
     public static byte[] computeMD5Hash(File file) throws FileNotFoundException, IOException {
-        return computeMD5Hash(new FileInputStream(file));
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            FileDigestUtils.update(file, messageDigest);
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // should never get here
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -14,8 +14,8 @@
  */
 package com.amazonaws.util;
 
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.amazonaws.ResponseMetadata;
 
@@ -23,10 +23,16 @@ import com.amazonaws.ResponseMetadata;
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * The entries are kept in a ring of the most recently added ones, so that
+ * adding an entry takes no lock: only an atomic increment of the position of
+ * the next entry. A cache with a max size of zero or less holds nothing.
  */
 public class ResponseMetadataCache {
-    private final InternalCache internalCache;
+    private final AtomicReferenceArray<Entry> entries;
 
+    /** The number of entries added so far; the next one goes at this position. */
+    private final AtomicLong added = new AtomicLong();
 
     /**
      * Creates a new cache that will contain, at most the specified number of
@@ -36,7 +42,7 @@ public class ResponseMetadataCache {
      *            The maximum size of this cache.
      */
     public ResponseMetadataCache(int maxEntries) {
-        internalCache = new InternalCache(maxEntries);
+        entries = new AtomicReferenceArray<Entry>(Math.max(maxEntries, 0));
     }
 
     /**
@@ -48,9 +54,10 @@ public class ResponseMetadataCache {
      * @param metadata
      *            The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
-        if (obj == null) return;
-        internalCache.put(System.identityHashCode(obj), metadata);
+    public void add(Object obj, ResponseMetadata metadata) {
+        if (obj == null || entries.length() == 0) return;
+        int index = (int) (added.getAndIncrement() % entries.length());
+        entries.set(index, new Entry(System.identityHashCode(obj), metadata));
     }
 
     /**
@@ -63,32 +70,35 @@ public class ResponseMetadataCache {
      * @return The response metadata associated with the given object key,
      *         otherwise null if no metadata is associated with that object.
      */
-    public synchronized ResponseMetadata get(Object obj) {
+    public ResponseMetadata get(Object obj) {
         // System.identityHashCode isn't guaranteed to be unique
         // on all platforms, but should be reasonable enough to use
         // for a few requests at a time.  We can always easily move
         // to our own unique IDs if needed.
-        return internalCache.get(System.identityHashCode(obj));
+        int key = System.identityHashCode(obj);
+        int length = entries.length();
+        long last = added.get() - 1;
+        // Look from the most recent entry back, so that the latest metadata
+        // added for an object wins
+        for (long i = last; i >= 0 && i > last - length; i--) {
+            Entry entry = entries.get((int) (i % length));
+            if (entry != null && entry.key == key) {
+                return entry.metadata;
+            }
+        }
+        return null;
     }
 
-
     /**
-     * Simple implementation of LinkedHashMap that overrides the
-     * <code>removeEldestEntry</code> method to turn LinkedHashMap into a
-     * LRU(ish) cache that automatically evicts old entries.
+     * The metadata added for an object, by the identity hash code of the object.
      */
-    private static final class InternalCache extends LinkedHashMap<Integer, ResponseMetadata> {
-        private static final long serialVersionUID = 1L;
-        private int maxSize;
-
-        public InternalCache(int maxSize) {
-            super(maxSize);
-            this.maxSize = maxSize;
-        }
+    private static final class Entry {
+        private final int key;
+        private final ResponseMetadata metadata;
 
-        @Override
-        protected boolean removeEldestEntry(Entry<Integer,ResponseMetadata> eldest) {
-            return size() > maxSize;
+        Entry(int key, ResponseMetadata metadata) {
+            this.key = key;
+            this.metadata = metadata;
         }
     }
 }
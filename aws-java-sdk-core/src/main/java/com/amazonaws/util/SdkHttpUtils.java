@@ -17,13 +17,10 @@ package com.amazonaws.util;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
-import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.amazonaws.SignableRequest;
 import com.amazonaws.http.HttpMethodName;
@@ -32,32 +29,29 @@ public class SdkHttpUtils {
 
     private static final String DEFAULT_ENCODING = "UTF-8";
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
-     * Regex which matches any of the sequences that we need to fix up after
-     * URLEncoder.encode().
+     * The characters left as is when encoding: the unreserved characters of
+     * RFC 3986, indexed by ASCII code.
      */
-    private static final Pattern ENCODED_CHARACTERS_PATTERN;
+    private static final boolean[] UNRESERVED = new boolean[128];
     static {
-        StringBuilder pattern = new StringBuilder();
-
-        pattern
-            .append(Pattern.quote("+"))
-            .append("|")
-            .append(Pattern.quote("*"))
-            .append("|")
-            .append(Pattern.quote("%7E"))
-            .append("|")
-            .append(Pattern.quote("%2F"));
-
-        ENCODED_CHARACTERS_PATTERN = Pattern.compile(pattern.toString());
+        for (char c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+        for (char c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['~'] = true;
     }
 
     /**
-     * Encode a string for use in the path of a URL; uses URLEncoder.encode,
-     * (which encodes a string for use in the query portion of a URL), then
-     * applies some postfilters to fix things up per the RFC. Can optionally
-     * handle strings which are meant to encode a path (ie include '/'es
-     * which should NOT be escaped).
+     * Encode a string for use in the path of a URL, per RFC 3986: every
+     * character but the unreserved ones is percent-encoded from its UTF-8
+     * bytes, with upper case hex digits. Can optionally handle strings which
+     * are meant to encode a path (ie include '/'es which should NOT be
+     * escaped).
      *
      * @param value the value to encode
      * @param path true if the value is intended to represent a path
@@ -68,36 +62,76 @@ public class SdkHttpUtils {
             return "";
         }
 
-        try {
-            String encoded = URLEncoder.encode(value, DEFAULT_ENCODING);
-
-            Matcher matcher = ENCODED_CHARACTERS_PATTERN.matcher(encoded);
-            StringBuffer buffer = new StringBuffer(encoded.length());
-
-            while (matcher.find()) {
-                String replacement = matcher.group(0);
-
-                if ("+".equals(replacement)) {
-                    replacement = "%20";
-                } else if ("*".equals(replacement)) {
-                    replacement = "%2A";
-                } else if ("%7E".equals(replacement)) {
-                    replacement = "~";
-                } else if (path && "%2F".equals(replacement)) {
-                    replacement = "/";
-                }
+        int length = value.length();
+        int i = 0;
+        while (i < length && isUnreserved(value.charAt(i), path)) {
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
 
-                matcher.appendReplacement(buffer, replacement);
-            }
+        StringBuilder buffer = new StringBuilder(length + 16);
+        buffer.append(value, 0, i);
+        appendUrlEncoded(buffer, value, i, path);
+        return buffer.toString();
+    }
 
-            matcher.appendTail(buffer);
-            return buffer.toString();
+    /**
+     * Appends the given string to the given buffer, encoded as by
+     * {@link #urlEncode(String, boolean)}. A null value appends nothing.
+     *
+     * @param buffer the buffer to append to
+     * @param value the value to encode
+     * @param path true if the value is intended to represent a path
+     */
+    public static void appendUrlEncoded(final StringBuilder buffer,
+            final String value, final boolean path) {
+        if (value != null) {
+            appendUrlEncoded(buffer, value, 0, path);
+        }
+    }
 
-        } catch (UnsupportedEncodingException ex) {
-            throw new RuntimeException(ex);
+    private static void appendUrlEncoded(StringBuilder buffer, String value,
+            int start, boolean path) {
+        int length = value.length();
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c, path)) {
+                buffer.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(buffer, c);
+            } else if (c < 0x800) {
+                appendEscaped(buffer, 0xC0 | (c >> 6));
+                appendEscaped(buffer, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEscaped(buffer, 0xF0 | (codePoint >> 18));
+                appendEscaped(buffer, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscaped(buffer, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscaped(buffer, 0x80 | (codePoint & 0x3F));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // Unpaired surrogates are replaced, as String.getBytes does
+                appendEscaped(buffer, '?');
+            } else {
+                appendEscaped(buffer, 0xE0 | (c >> 12));
+                appendEscaped(buffer, 0x80 | ((c >> 6) & 0x3F));
+                appendEscaped(buffer, 0x80 | (c & 0x3F));
+            }
         }
     }
 
+    private static boolean isUnreserved(char c, boolean path) {
+        return c < 0x80 && (UNRESERVED[c] || (path && c == '/'));
+    }
+
+    private static void appendEscaped(StringBuilder buffer, int b) {
+        buffer.append('%')
+              .append(HEX_DIGITS[(b >> 4) & 0xF])
+              .append(HEX_DIGITS[b & 0xF]);
+    }
+
     /**
      * Decode a string for use in the path of a URL; uses URLDecoder.decode,
      * which decodes a string for use in the query portion of a URL.
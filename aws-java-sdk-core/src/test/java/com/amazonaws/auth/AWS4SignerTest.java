@@ -35,7 +35,10 @@ import org.junit.Test;
 
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.SignableRequest;
 import com.amazonaws.auth.internal.AWS4SignerUtils;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.util.BinaryUtils;
 
 /**
  * Unit tests for the
@@ -138,6 +141,63 @@ public class AWS4SignerTest {
         assertNull(request.getHeaders().get("Authorization"));
     }
 
+    /**
+     * Tests that a payload hash found in the handler context is signed
+     * instead of a hash of the payload itself.
+     */
+    @Test
+    public void testPrecomputedPayloadHash() throws Exception {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        signer.setOverrideDate(c.getTime());
+        signer.setServiceName("demo");
+
+        Request<?> request = generateBasicRequest();
+        signer.sign(request, credentials);
+        String authorization = request.getHeaders().get("Authorization");
+
+        // Sign a request whose payload no longer matches the given hash
+        request = generateBasicRequest();
+        request.setContent(new ByteArrayInputStream(new byte[0]));
+        request.addHandlerContext(HandlerContextKey.PAYLOAD_SHA256,
+                BinaryUtils.toHex(signer.hash("{\"TableName\": \"foo\"}")));
+        signer.sign(request, credentials);
+
+        assertEquals(authorization, request.getHeaders().get("Authorization"));
+    }
+
+    /**
+     * Tests that the overridable canonicalization methods take part in the
+     * canonical request.
+     */
+    @Test
+    public void testCanonicalRequestUsesOverridableMethods() {
+        AWS4Signer customSigner = new AWS4Signer() {
+            @Override
+            protected String getCanonicalizedQueryString(SignableRequest<?> request) {
+                return "custom-query";
+            }
+
+            @Override
+            protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
+                return "custom-headers\n";
+            }
+
+            @Override
+            protected String getSignedHeadersString(SignableRequest<?> request) {
+                return "custom-signed-headers";
+            }
+        };
+
+        String canonicalRequest = customSigner.createCanonicalRequest(
+                generateBasicRequest(), "hash");
+
+        assertEquals("POST\n/\ncustom-query\ncustom-headers\n\ncustom-signed-headers\nhash",
+                canonicalRequest);
+    }
+
     private Request<?> generateBasicRequest() {
         Request<?> request = new DefaultRequest<Void>("Foo");
         request.setContent(new ByteArrayInputStream("{\"TableName\": \"foo\"}".getBytes()));
@@ -2,8 +2,16 @@ package com.amazonaws.auth;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
 
+import com.amazonaws.SignableRequest;
+import com.amazonaws.util.BinaryUtils;
+
 public class AbstractAWSSignerTest {
 
     @Test
@@ -13,4 +21,32 @@ public class AbstractAWSSignerTest {
             AbstractAWSSigner.EMPTY_STRING_SHA256_HEX);
     }
 
+    @Test
+    public void canonicalizedQueryStringIsSortedByEncodedNameAndValue() {
+        Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+        parameters.put("b", Arrays.asList("2", "1"));
+        parameters.put("a b", Arrays.asList("z"));
+        parameters.put("a", Arrays.asList("\u00e9", "*", ""));
+
+        assertEquals("a=&a=%2A&a=%C3%A9&a%20b=z&b=1&b=2",
+                new TestSigner().getCanonicalizedQueryString(parameters));
+    }
+
+    @Test
+    public void hashesTextAsUtf8() {
+        assertEquals(
+            BinaryUtils.toHex(new TestSigner().hash(new byte[] { (byte) 0xC3, (byte) 0xA9 })),
+            BinaryUtils.toHex(new TestSigner().hash("\u00e9")));
+    }
+
+    private static class TestSigner extends AbstractAWSSigner {
+        @Override
+        public void sign(SignableRequest<?> request, AWSCredentials credentials) {
+        }
+
+        @Override
+        protected void addSessionCredentials(SignableRequest<?> request,
+                AWSSessionCredentials credentials) {
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.internal.SdkFunction;
+import com.amazonaws.internal.SdkPredicate;
+
+public class RefreshableTaskTest {
+
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    @Test
+    public void prefetchesValueInTheBackground() throws Exception {
+        RefreshableTask<Integer> task = new RefreshableTask.Builder<Integer>()
+                .withRefreshCallable(new CountingCallable(null))
+                .withBlockingRefreshPredicate(new IsNull())
+                .withAsyncRefreshPredicate(new Never())
+                .withPrefetchTimeFunction(new SdkFunction<Integer, Date>() {
+                    @Override
+                    public Date apply(Integer value) {
+                        // Only prefetch the first value
+                        return value == 1 ? new Date(System.currentTimeMillis() + 50) : null;
+                    }
+                }).build();
+
+        assertEquals(1, task.getValue().intValue());
+        waitForRefreshes(2);
+        assertEquals(2, task.getValue().intValue());
+        assertEquals(2, refreshes.get());
+    }
+
+    @Test
+    public void servesCurrentValueWhileRefreshing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RefreshableTask<Integer> task = new RefreshableTask.Builder<Integer>()
+                .withRefreshCallable(new CountingCallable(release))
+                .withBlockingRefreshPredicate(new IsNull())
+                .withAsyncRefreshPredicate(new SdkPredicate<Integer>() {
+                    @Override
+                    public boolean test(Integer value) {
+                        return value == 1;
+                    }
+                }).build();
+
+        // Only one asynchronous refresh is started, and the current value is
+        // returned until it completes
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, task.getValue().intValue());
+        }
+        assertTrue(refreshes.get() <= 2);
+        release.countDown();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (task.getValue() == 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, task.getValue().intValue());
+        assertEquals(2, refreshes.get());
+    }
+
+    private void waitForRefreshes(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (refreshes.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, refreshes.get());
+    }
+
+    /**
+     * Returns the number of refreshes so far; every refresh after the first
+     * waits for the specified latch, if any.
+     */
+    private class CountingCallable implements Callable<Integer> {
+        private final CountDownLatch release;
+
+        CountingCallable(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            int refresh = refreshes.incrementAndGet();
+            if (refresh > 1 && release != null) {
+                release.await();
+            }
+            return refresh;
+        }
+    }
+
+    private static class IsNull extends SdkPredicate<Integer> {
+        @Override
+        public boolean test(Integer value) {
+            return value == null;
+        }
+    }
+
+    private static class Never extends SdkPredicate<Integer> {
+        @Override
+        public boolean test(Integer value) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+import static com.amazonaws.event.ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT;
+import static com.amazonaws.event.ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT;
+import static com.amazonaws.event.ProgressEventType.TRANSFER_COMPLETED_EVENT;
+import static com.amazonaws.event.ProgressEventType.TRANSFER_PART_COMPLETED_EVENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CoalescingProgressDispatcherTest {
+
+    private CoalescingProgressDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(false);
+        }
+    }
+
+    @Test
+    public void byteTransferEventsAreCoalescedAheadOfOtherEvents() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(50, 16);
+        RecordingListener listener = new RecordingListener(TRANSFER_COMPLETED_EVENT);
+
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.publishBytesTransferred(listener, REQUEST_BYTE_TRANSFER_EVENT, 8192);
+        }
+        dispatcher.publishBytesTransferred(listener, RESPONSE_BYTE_TRANSFER_EVENT, 100);
+        dispatcher.publish(listener, new ProgressEvent(TRANSFER_COMPLETED_EVENT));
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1000 * 8192, listener.bytes(REQUEST_BYTE_TRANSFER_EVENT));
+        assertEquals(100, listener.bytes(RESPONSE_BYTE_TRANSFER_EVENT));
+        assertTrue(listener.events.size() < 10);
+        assertEquals(TRANSFER_COMPLETED_EVENT,
+                listener.events.get(listener.events.size() - 1).getEventType());
+    }
+
+    @Test
+    public void pendingBytesAreDeliveredAtTheEndOfThePeriod() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(20, 16);
+        RecordingListener listener = new RecordingListener(REQUEST_BYTE_TRANSFER_EVENT);
+
+        dispatcher.publishBytesTransferred(listener, REQUEST_BYTE_TRANSFER_EVENT, 10);
+        dispatcher.publishBytesTransferred(listener, REQUEST_BYTE_TRANSFER_EVENT, 20);
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(30, listener.bytes(REQUEST_BYTE_TRANSFER_EVENT));
+    }
+
+    @Test
+    public void fullQueueDelaysButDoesNotDropEvents() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(20, 2);
+        final int count = 50;
+        RecordingListener listener = new RecordingListener(TRANSFER_COMPLETED_EVENT) {
+            @Override
+            public void progressChanged(ProgressEvent progressEvent) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.progressChanged(progressEvent);
+            }
+        };
+
+        for (int i = 0; i < count - 1; i++) {
+            dispatcher.publish(listener, new ProgressEvent(TRANSFER_PART_COMPLETED_EVENT));
+        }
+        dispatcher.publish(listener, new ProgressEvent(TRANSFER_COMPLETED_EVENT));
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(count, listener.events.size());
+    }
+
+    @Test
+    public void shutdownNowDiscardsQueuedEvents() throws InterruptedException {
+        dispatcher = new CoalescingProgressDispatcher(20, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(TRANSFER_COMPLETED_EVENT) {
+            @Override
+            public void progressChanged(ProgressEvent progressEvent) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.progressChanged(progressEvent);
+            }
+        };
+
+        dispatcher.publish(listener, new ProgressEvent(TRANSFER_PART_COMPLETED_EVENT));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        dispatcher.publish(listener, new ProgressEvent(TRANSFER_PART_COMPLETED_EVENT));
+        dispatcher.shutdown(true);
+        // Would wait for room in the full queue if the dispatcher were running
+        dispatcher.publish(listener, new ProgressEvent(TRANSFER_COMPLETED_EVENT));
+        release.countDown();
+
+        Thread.sleep(100);
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void publisherCoalescesForCoalescingSafeChains() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(TRANSFER_COMPLETED_EVENT);
+        ProgressListenerChain chain = new ProgressListenerChain(listener);
+
+        assertNull(SDKProgressPublisher.publishRequestBytesTransferred(chain, 100));
+        assertNull(SDKProgressPublisher.publishRequestBytesTransferred(chain, 200));
+        assertNull(SDKProgressPublisher.publishProgress(chain, TRANSFER_COMPLETED_EVENT));
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(300, listener.bytes(REQUEST_BYTE_TRANSFER_EVENT));
+    }
+
+    @Test
+    public void chainIsCoalescingSafeOnlyIfAllListenersAre() {
+        ProgressListenerChain chain = new ProgressListenerChain();
+        assertEquals(false, chain.isCoalescingSafe());
+        chain.addProgressListener(new RecordingListener(TRANSFER_COMPLETED_EVENT));
+        assertEquals(true, chain.isCoalescingSafe());
+        chain.addProgressListener(ProgressListener.NOOP);
+        assertEquals(false, chain.isCoalescingSafe());
+    }
+
+    private static class RecordingListener implements ProgressListener, CoalescingDeliveryMode {
+        private final List<ProgressEvent> events = new CopyOnWriteArrayList<ProgressEvent>();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final ProgressEventType lastEventType;
+
+        RecordingListener(ProgressEventType lastEventType) {
+            this.lastEventType = lastEventType;
+        }
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            events.add(progressEvent);
+            if (progressEvent.getEventType() == lastEventType) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public boolean isCoalescingSafe() {
+            return true;
+        }
+
+        long bytes(ProgressEventType type) {
+            long bytes = 0;
+            for (ProgressEvent event : events) {
+                if (event.getEventType() == type) {
+                    bytes += event.getBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.util.IOUtils;
+
+public class AmazonHttpClientAsyncTest {
+
+    private static final RetryPolicy NO_DELAY_RETRY_POLICY = new RetryPolicy(
+            PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION,
+            RetryPolicy.BackoffStrategy.NO_DELAY, 3, false);
+
+    private FakeTransport transport;
+    private AmazonHttpClient client;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport();
+        ClientConfiguration config = new ClientConfiguration()
+                .withRetryPolicy(NO_DELAY_RETRY_POLICY)
+                .withAsyncHttpTransportFactory(new AsyncHttpTransportFactory() {
+                    @Override
+                    public AsyncHttpTransport createTransport(ClientConfiguration config) {
+                        return transport;
+                    }
+                });
+        client = new AmazonHttpClient(config);
+        // A single thread is enough for any number of requests in flight
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void successfulResponseIsUnmarshalled() throws Exception {
+        CountingRequestHandler handler = new CountingRequestHandler();
+        ExecutionContext context = new ExecutionContext(
+                Collections.<RequestHandler2>singletonList(handler), false, null);
+
+        Future<Response<String>> future = client.executeAsync(newRequest(), new StringResponseHandler(),
+                null, context, executor, null);
+        transport.awaitRequests(1);
+        assertTrue(transport.requests.get(0).containsHeader(AmazonHttpClient.HEADER_SDK_TRANSACTION_ID));
+        transport.respond(0, 200, "hello");
+
+        assertEquals("hello", future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        assertEquals(1, handler.beforeRequest.get());
+        assertEquals(1, handler.afterResponse.get());
+        assertEquals(0, handler.afterError.get());
+    }
+
+    @Test
+    public void manyRequestsInFlightOnOneThread() throws Exception {
+        List<Future<Response<String>>> futures = new ArrayList<Future<Response<String>>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.executeAsync(newRequest(), new StringResponseHandler(), null,
+                    new ExecutionContext(), executor, null));
+        }
+        transport.awaitRequests(20);
+        for (int i = 0; i < 20; i++) {
+            transport.respond(i, 200, "response" + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("response" + i, futures.get(i).get(5, TimeUnit.SECONDS).getAwsResponse());
+        }
+    }
+
+    @Test
+    public void serverErrorIsRetried() throws Exception {
+        final AtomicInteger completed = new AtomicInteger();
+        Future<Response<String>> future = client.executeAsync(newRequest(), new StringResponseHandler(),
+                new ServiceErrorHandler(), new ExecutionContext(), executor, new FutureCallback<Response<String>>() {
+                    @Override
+                    public void completed(Response<String> result) {
+                        completed.incrementAndGet();
+                    }
+
+                    @Override
+                    public void failed(Exception ex) {
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+                });
+        transport.awaitRequests(1);
+        transport.respond(0, 500, "");
+        transport.awaitRequests(2);
+        assertTrue(transport.requests.get(1).getFirstHeader(AmazonHttpClient.HEADER_SDK_RETRY_INFO)
+                .getValue().startsWith("1/"));
+        transport.respond(1, 200, "retried");
+
+        assertEquals("retried", future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        assertEquals(1, completed.get());
+    }
+
+    @Test
+    public void ioExceptionIsRetriedUntilRetriesAreExhausted() throws Exception {
+        CountingRequestHandler handler = new CountingRequestHandler();
+        ExecutionContext context = new ExecutionContext(
+                Collections.<RequestHandler2>singletonList(handler), false, null);
+        IOException exception = new IOException("BOOM");
+
+        Future<Response<String>> future = client.executeAsync(newRequest(), new StringResponseHandler(),
+                null, context, executor, null);
+        for (int i = 0; i < 4; i++) {
+            transport.awaitRequests(i + 1);
+            transport.fail(i, exception);
+        }
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("No exception when request repeatedly fails!");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AmazonClientException);
+            assertSame(exception, e.getCause().getCause());
+        }
+        assertEquals(4, transport.requests.size());
+        assertEquals(1, handler.afterError.get());
+    }
+
+    @Test
+    public void cancellingAbortsTheRequestInFlight() throws Exception {
+        Future<Response<String>> future = client.executeAsync(newRequest(), new StringResponseHandler(),
+                null, new ExecutionContext(), executor, null);
+        transport.awaitRequests(1);
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        // The transport future may only be known to the execution once execute returns
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!transport.futures.get(0).isCancelled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(transport.futures.get(0).isCancelled());
+        assertFalse(future.cancel(true));
+    }
+
+    private static Request<?> newRequest() {
+        Request<?> request = new DefaultRequest<Object>("testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+        request.setContent(new ByteArrayInputStream(new byte[0]));
+        return request;
+    }
+
+    /**
+     * Records the requests it is given; the test completes them explicitly.
+     */
+    private static class FakeTransport implements AsyncHttpTransport {
+        private final List<HttpRequestBase> requests = Collections
+                .synchronizedList(new ArrayList<HttpRequestBase>());
+        private final List<BasicFuture<HttpResponse>> futures = Collections
+                .synchronizedList(new ArrayList<BasicFuture<HttpResponse>>());
+
+        @Override
+        public synchronized Future<HttpResponse> execute(HttpRequestBase request, HttpContext context,
+                FutureCallback<HttpResponse> callback) {
+            BasicFuture<HttpResponse> future = new BasicFuture<HttpResponse>(callback);
+            requests.add(request);
+            futures.add(future);
+            notifyAll();
+            return future;
+        }
+
+        @Override
+        public PoolStats getConnectionPoolStats() {
+            return null;
+        }
+
+        synchronized void awaitRequests(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (requests.size() < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertTrue("Expected " + count + " requests", requests.size() >= count);
+        }
+
+        void respond(int index, int statusCode, String body) {
+            BasicHttpResponse response = new BasicHttpResponse(new ProtocolVersion("HTTP", 1, 1),
+                    statusCode, "Status " + statusCode);
+            response.setEntity(new ByteArrayEntity(body.getBytes()));
+            futures.get(index).completed(response);
+        }
+
+        void fail(int index, Exception exception) {
+            futures.get(index).failed(exception);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class StringResponseHandler
+            implements HttpResponseHandler<AmazonWebServiceResponse<String>> {
+        @Override
+        public AmazonWebServiceResponse<String> handle(com.amazonaws.http.HttpResponse response)
+                throws Exception {
+            AmazonWebServiceResponse<String> awsResponse = new AmazonWebServiceResponse<String>();
+            awsResponse.setResult(IOUtils.toString(response.getContent()));
+            return awsResponse;
+        }
+
+        @Override
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    private static class ServiceErrorHandler implements HttpResponseHandler<AmazonServiceException> {
+        @Override
+        public AmazonServiceException handle(com.amazonaws.http.HttpResponse response) {
+            return new AmazonServiceException("Internal failure");
+        }
+
+        @Override
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    private static class CountingRequestHandler extends RequestHandler2 {
+        private final AtomicInteger beforeRequest = new AtomicInteger();
+        private final AtomicInteger afterResponse = new AtomicInteger();
+        private final AtomicInteger afterError = new AtomicInteger();
+
+        @Override
+        public void beforeRequest(Request<?> request) {
+            beforeRequest.incrementAndGet();
+        }
+
+        @Override
+        public void afterResponse(Request<?> request, Response<?> response) {
+            afterResponse.incrementAndGet();
+        }
+
+        @Override
+        public void afterError(Request<?> request, Response<?> response, Exception e) {
+            afterError.incrementAndGet();
+        }
+    }
+}
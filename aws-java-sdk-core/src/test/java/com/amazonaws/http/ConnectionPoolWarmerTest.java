@@ -0,0 +1,230 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.scheme.SchemeSocketFactory;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.ClientConfiguration;
+
+public class ConnectionPoolWarmerTest {
+
+    private ServerSocket serverSocket;
+    private final List<Socket> accepted = new ArrayList<Socket>();
+    private URI endpoint;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0);
+        endpoint = URI.create("http://localhost:" + serverSocket.getLocalPort());
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket socket = serverSocket.accept();
+                        synchronized (accepted) {
+                            accepted.add(socket);
+                        }
+                    }
+                } catch (IOException closed) {
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        synchronized (accepted) {
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void opensConnectionsOnce() throws Exception {
+        AmazonHttpClient client = new AmazonHttpClient(new ClientConfiguration()
+                .withReaper(false));
+        try {
+            assertEquals(5, client.prewarmConnections(endpoint, 5));
+            assertEquals(5, client.prewarmConnections(endpoint, 5));
+            assertAccepted(5);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void opensConnectionsInShardedPool() throws Exception {
+        AmazonHttpClient client = new AmazonHttpClient(new ClientConfiguration()
+                .withReaper(false)
+                .withConnectionPoolShards(4));
+        try {
+            assertEquals(3, client.prewarmConnections(endpoint, 3));
+            assertEquals(6, client.prewarmConnections(endpoint, 6));
+            assertAccepted(6);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void opensAtMostMaxConnections() throws Exception {
+        AmazonHttpClient client = new AmazonHttpClient(new ClientConfiguration()
+                .withReaper(false)
+                .withMaxConnections(2));
+        try {
+            assertEquals(2, client.prewarmConnections(endpoint, 10));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void rewarmsOnlyWhileClientIsActive() throws Exception {
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+        AtomicLong lastRequestTime = new AtomicLong();
+        ConnectionPoolWarmer warmer = new ConnectionPoolWarmer(connectionManager,
+                new HttpRoute(new HttpHost("localhost", serverSocket.getLocalPort())),
+                new BasicHttpParams(), 2, 500, lastRequestTime);
+        try {
+            assertEquals(2, warmer.rewarm());
+            Thread.sleep(600);
+            assertEquals(0, warmer.rewarm());
+            lastRequestTime.set(System.currentTimeMillis());
+            assertEquals(2, warmer.rewarm());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test
+    public void releasesOpenConnectionsWhileOpeningOthers() throws Exception {
+        final AtomicBoolean slowConnect = new AtomicBoolean();
+        final CountDownLatch connecting = new CountDownLatch(1);
+        final CountDownLatch connected = new CountDownLatch(1);
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, new SchemeSocketFactory() {
+            private final PlainSocketFactory delegate = PlainSocketFactory.getSocketFactory();
+
+            @Override
+            public Socket createSocket(HttpParams params) throws IOException {
+                return delegate.createSocket(params);
+            }
+
+            @Override
+            public Socket connectSocket(Socket socket, InetSocketAddress remoteAddress,
+                    InetSocketAddress localAddress, HttpParams params) throws IOException {
+                if (slowConnect.get()) {
+                    connecting.countDown();
+                    try {
+                        connected.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e.getMessage());
+                    }
+                }
+                return delegate.connectSocket(socket, remoteAddress, localAddress, params);
+            }
+
+            @Override
+            public boolean isSecure(Socket socket) {
+                return false;
+            }
+        }));
+        final PoolingClientConnectionManager connectionManager =
+                new PoolingClientConnectionManager(schemeRegistry);
+        connectionManager.setMaxTotal(3);
+        connectionManager.setDefaultMaxPerRoute(3);
+        final HttpRoute route = new HttpRoute(new HttpHost("localhost", serverSocket.getLocalPort()));
+        try {
+            assertEquals(2, new ConnectionPoolWarmer(connectionManager, route,
+                    new BasicHttpParams(), 2, 0, new AtomicLong()).warm());
+
+            slowConnect.set(true);
+            final ConnectionPoolWarmer warmer = new ConnectionPoolWarmer(connectionManager, route,
+                    new BasicHttpParams(), 3, 0, new AtomicLong());
+            final AtomicInteger warmed = new AtomicInteger();
+            Thread warming = new Thread() {
+                @Override
+                public void run() {
+                    warmed.set(warmer.warm());
+                }
+            };
+            warming.start();
+            assertTrue(connecting.await(5, TimeUnit.SECONDS));
+
+            // The open connections are free for requests while the third
+            // connection is being opened
+            ManagedClientConnection conn = connectionManager.requestConnection(route, null)
+                    .getConnection(100, TimeUnit.MILLISECONDS);
+            assertTrue(conn.isOpen());
+            conn.markReusable();
+            connectionManager.releaseConnection(conn, 0, TimeUnit.MILLISECONDS);
+
+            connected.countDown();
+            warming.join(5000);
+            assertEquals(3, warmed.get());
+        } finally {
+            connected.countDown();
+            connectionManager.shutdown();
+        }
+    }
+
+    private void assertAccepted(int expected) throws InterruptedException {
+        // The connections are established, but the server may not have
+        // accepted them all yet
+        for (int i = 0; i < 200 && acceptedCount() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, acceptedCount());
+    }
+
+    private int acceptedCount() {
+        synchronized (accepted) {
+            return accepted.size();
+        }
+    }
+}
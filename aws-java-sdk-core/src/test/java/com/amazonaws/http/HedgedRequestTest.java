@@ -0,0 +1,153 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.http.response.DummyResponseHandler;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+import utils.http.WireMockTestBase;
+
+public class HedgedRequestTest extends WireMockTestBase {
+
+    private static final String RESOURCE_PATH = "/hedged/";
+
+    /** How long the server takes to answer the first request. */
+    private static final int SLOW_RESPONSE_MILLIS = 1500;
+
+    @Before
+    public void setUp() {
+        stubFor(get(urlEqualTo(RESOURCE_PATH))
+                .inScenario("hedging")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willSetStateTo("answered")
+                .willReturn(aResponse().withStatus(200).withFixedDelay(SLOW_RESPONSE_MILLIS)));
+        stubFor(get(urlEqualTo(RESOURCE_PATH))
+                .inScenario("hedging")
+                .whenScenarioStateIs("answered")
+                .willReturn(aResponse().withStatus(200)));
+        stubFor(post(urlEqualTo(RESOURCE_PATH))
+                .inScenario("hedging")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willSetStateTo("answered")
+                .willReturn(aResponse().withStatus(200).withFixedDelay(SLOW_RESPONSE_MILLIS)));
+        stubFor(post(urlEqualTo(RESOURCE_PATH))
+                .inScenario("hedging")
+                .whenScenarioStateIs("answered")
+                .willReturn(aResponse().withStatus(200)));
+    }
+
+    @Test
+    public void hedgeReturnsBeforeSlowResponse() throws Exception {
+        long elapsed = execute(new ClientConfiguration().withHedgingBudget(1));
+
+        assertTrue("Elapsed " + elapsed, elapsed < SLOW_RESPONSE_MILLIS);
+        verify(2, getRequestedFor(urlEqualTo(RESOURCE_PATH)));
+    }
+
+    @Test
+    public void hedgeWithRequestTimeoutReturnsBeforeSlowResponse() throws Exception {
+        long elapsed = execute(new ClientConfiguration().withHedgingBudget(1)
+                .withRequestTimeout(SLOW_RESPONSE_MILLIS * 2));
+
+        assertTrue("Elapsed " + elapsed, elapsed < SLOW_RESPONSE_MILLIS);
+        verify(2, getRequestedFor(urlEqualTo(RESOURCE_PATH)));
+    }
+
+    @Test
+    public void exhaustedBudgetWaitsForSlowResponse() throws Exception {
+        long elapsed = execute(new ClientConfiguration().withHedgingBudget(0));
+
+        assertTrue("Elapsed " + elapsed, elapsed >= SLOW_RESPONSE_MILLIS);
+        verify(1, getRequestedFor(urlEqualTo(RESOURCE_PATH)));
+    }
+
+    @Test
+    public void postRequestIsNotHedgedByDefault() throws Exception {
+        long elapsed = execute(new ClientConfiguration().withHedgingBudget(1),
+                HttpMethodName.POST, false);
+
+        assertTrue("Elapsed " + elapsed, elapsed >= SLOW_RESPONSE_MILLIS);
+        verify(1, postRequestedFor(urlEqualTo(RESOURCE_PATH)));
+    }
+
+    @Test
+    public void postRequestIsHedgedWhenAllowed() throws Exception {
+        long elapsed = execute(new ClientConfiguration().withHedgingBudget(1),
+                HttpMethodName.POST, true);
+
+        assertTrue("Elapsed " + elapsed, elapsed < SLOW_RESPONSE_MILLIS);
+        verify(2, postRequestedFor(urlEqualTo(RESOURCE_PATH)));
+    }
+
+    @Test
+    public void budgetAllowsFractionOfRequests() {
+        HedgedRequest.Budget budget = new HedgedRequest.Budget(0.5);
+        budget.deposit();
+        assertFalse(budget.tryAcquire());
+        budget.deposit();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    private long execute(ClientConfiguration config) throws Exception {
+        return execute(config, HttpMethodName.GET, false);
+    }
+
+    private long execute(ClientConfiguration config, HttpMethodName method,
+            boolean hedgingPostRequests) throws Exception {
+        AmazonHttpClient httpClient = new AmazonHttpClient(config.withReaper(false));
+        try {
+            AmazonWebServiceRequest originalRequest = new AmazonWebServiceRequest() {
+            };
+            originalRequest.getRequestClientOptions().setHedgingDelay(100);
+            originalRequest.getRequestClientOptions().setHedgingPostRequests(hedgingPostRequests);
+            Request<?> request = new DefaultRequest<String>(originalRequest, "mock");
+            request.setEndpoint(URI.create("http://localhost:" + mockServer.port() + RESOURCE_PATH));
+            request.setHttpMethod(method);
+            if (method == HttpMethodName.POST) {
+                byte[] payload = "{}".getBytes("UTF-8");
+                request.setContent(new ByteArrayInputStream(payload));
+                request.addHeader("Content-Length", String.valueOf(payload.length));
+            }
+            long start = System.currentTimeMillis();
+            httpClient.execute(request, new DummyResponseHandler(), stubErrorHandler(),
+                    new ExecutionContext());
+            return System.currentTimeMillis() - start;
+        } finally {
+            httpClient.shutdown();
+        }
+    }
+}
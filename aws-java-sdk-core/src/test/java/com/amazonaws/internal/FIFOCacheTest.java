@@ -43,6 +43,28 @@ public class FIFOCacheTest {
         assertNull(cache.get("k1"));
     }
 
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final FIFOCache<String> cache = new FIFOCache<String>(10);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.add(id + "-" + i, "v");
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(cache.size() <= 10);
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void testZeroSize() {
         new FIFOCache<Object>(0);
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AdaptiveRateLimiterTest {
+
+    private final ManualClockRateLimiter limiter = new ManualClockRateLimiter();
+
+    @Test
+    public void doesNotLimitBeforeThrottling() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.acquire());
+            limiter.onResponse(false);
+            limiter.time += 0.001;
+        }
+        assertEquals(Double.POSITIVE_INFINITY, limiter.getSendRate(), 0);
+    }
+
+    @Test
+    public void throttlingLowersTheSendRate() {
+        // 100 requests per second for two seconds
+        sendAt(100, 2);
+        limiter.onResponse(true);
+
+        double throttledRate = limiter.getSendRate();
+        assertTrue("Send rate " + throttledRate, throttledRate < 100 && throttledRate > 50);
+
+        // Requests beyond the send rate are delayed
+        long delay = 0;
+        for (int i = 0; i < 200; i++) {
+            delay = limiter.acquire();
+        }
+        assertTrue("Delay " + delay, delay > 1000);
+    }
+
+    @Test
+    public void sendRateRecoversOnceThrottlingStops() {
+        sendAt(100, 2);
+        limiter.onResponse(true);
+        double throttledRate = limiter.getSendRate();
+
+        sendAt(100, 10);
+
+        assertTrue(limiter.getSendRate() > throttledRate);
+    }
+
+    @Test
+    public void repeatedThrottlingKeepsLoweringTheSendRate() {
+        sendAt(100, 2);
+        double previousRate = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < 5; i++) {
+            limiter.onResponse(true);
+            limiter.time += 0.5;
+            assertTrue(limiter.getSendRate() < previousRate);
+            previousRate = limiter.getSendRate();
+        }
+    }
+
+    private void sendAt(int requestsPerSecond, int seconds) {
+        for (int i = 0; i < requestsPerSecond * seconds; i++) {
+            limiter.onResponse(false);
+            limiter.time += 1.0 / requestsPerSecond;
+        }
+    }
+
+    private static class ManualClockRateLimiter extends AdaptiveRateLimiter {
+        private double time = 1000;
+
+        @Override
+        protected double now() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.XMLEvent;
+
+import org.junit.Test;
+
+public class StaxUnmarshallerContextTest {
+
+    private static final String XML =
+            "<DescribeResponse>"
+            + "<requestId>request-1</requestId>"
+            + "<itemSet>"
+            + "<item><itemId>i-1</itemId><Name encoding=\"base64\">bmFtZQ==</Name>"
+            + "<tagSet><item><key>k</key></item></tagSet></item>"
+            + "<item><itemId><![CDATA[i-2]]></itemId></item>"
+            + "</itemSet>"
+            + "</DescribeResponse>";
+
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+    @Test
+    public void eventAndCursorReadersMatchTheSameExpressions() throws Exception {
+        List<String> fromEvents = collect(new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLEventReader(new StringReader(XML))));
+        List<String> fromCursor = collect(new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLStreamReader(new StringReader(XML)), null));
+
+        assertEquals(fromEvents, fromCursor);
+        assertEquals("[itemId=i-1, Name=bmFtZQ==, Name/@encoding=base64, tagSet/item/key=k, itemId=i-2]",
+                fromCursor.toString());
+    }
+
+    @Test
+    public void expressionsOnlyMatchAtTheirDepth() throws Exception {
+        StaxUnmarshallerContext context = new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLStreamReader(new StringReader(XML)), null);
+        assertTrue(context.isStartOfDocument());
+
+        while (!"key".equals(currentName(context.nextEvent())));
+
+        assertEquals(6, context.getCurrentDepth());
+        assertTrue(context.testExpression("tagSet/item/key", 4));
+        assertTrue(context.testExpression("item/key", 5));
+        assertFalse(context.testExpression("tagSet/item/key", 3));
+        assertFalse(context.testExpression("itemSet/item/key", 4));
+        assertFalse(context.testExpression("tagSet/item/key/@encoding", 4));
+        assertTrue(context.testExpression("item/key"));
+        assertTrue(context.testExpression("."));
+    }
+
+    @Test
+    public void metadataIsCollectedWhileReading() throws Exception {
+        StaxUnmarshallerContext cursorContext = new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLStreamReader(new StringReader(XML)), null);
+        StaxUnmarshallerContext eventContext = new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLEventReader(new StringReader(XML)));
+
+        for (StaxUnmarshallerContext context : new StaxUnmarshallerContext[] {cursorContext, eventContext}) {
+            context.registerMetadataExpression("requestId", 2, "RequestId");
+            while (!context.nextEvent().isEndDocument());
+            assertEquals("request-1", context.getMetadata().get("RequestId"));
+        }
+    }
+
+    /**
+     * Walks the document the way generated unmarshallers do, reading the text
+     * of the elements of interest below each item.
+     */
+    private static List<String> collect(StaxUnmarshallerContext context) throws Exception {
+        List<String> matches = new ArrayList<String>();
+        int targetDepth = 4;
+        String[] expressions = {"itemId", "Name", "Name/@encoding", "tagSet/item/key"};
+        while (true) {
+            XMLEvent xmlEvent = context.nextEvent();
+            if (xmlEvent.isEndDocument()) return matches;
+
+            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                for (String expression : expressions) {
+                    if (context.testExpression(expression, targetDepth)) {
+                        matches.add(expression + "=" + context.readText());
+                    }
+                }
+            }
+        }
+    }
+
+    private static String currentName(XMLEvent event) {
+        return event.isStartElement() ? event.asStartElement().getName().getLocalPart() : null;
+    }
+}
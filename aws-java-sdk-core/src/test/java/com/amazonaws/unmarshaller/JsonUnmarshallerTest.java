@@ -28,6 +28,7 @@ import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.junit.Test;
 
 import com.amazonaws.transform.JsonUnmarshallerContext;
@@ -35,11 +36,14 @@ import com.amazonaws.transform.JsonUnmarshallerContextImpl;
 import com.amazonaws.transform.ListUnmarshaller;
 import com.amazonaws.transform.MapUnmarshaller;
 import com.amazonaws.transform.SimpleTypeJsonUnmarshallers;
+import com.amazonaws.transform.Unmarshaller;
 
 
 public class JsonUnmarshallerTest {
     public static final String SIMPLE_MAP = "{\"key1\" : \"value1\", \"key2\" : \"value2\"}";
     public static final String MAP_TO_LIST = "{\"key1\" : [ null, \"value1\"], \"key2\" : [\"value2\"]}";
+    public static final String NUMBERS = "{\"int\" : 42, \"long\" : 5000000000, \"double\" : 1.5, \"intAsDouble\" : 2}";
+    public static final String QUOTED_NUMBERS = "{\"int\" : \"42\", \"long\" : \"5000000000\", \"double\" : \"1.5\"}";
     private static JsonFactory jsonFactory = new JsonFactory();
 
     @Test
@@ -65,6 +69,47 @@ public class JsonUnmarshallerTest {
         assertEquals(Arrays.asList("value2"), map.get("key2"));
     }
 
+    @Test
+    public void testNumbersAreReadFromTheParser() throws Exception {
+        assertEquals(Integer.valueOf(42), readField(NUMBERS, "int", SimpleTypeJsonUnmarshallers.IntegerJsonUnmarshaller.getInstance()));
+        assertEquals(Long.valueOf(5000000000L), readField(NUMBERS, "long", SimpleTypeJsonUnmarshallers.LongJsonUnmarshaller.getInstance()));
+        assertEquals(Double.valueOf(1.5), readField(NUMBERS, "double", SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance()));
+        assertEquals(Double.valueOf(2), readField(NUMBERS, "intAsDouble", SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance()));
+        assertEquals("42", readField(NUMBERS, "int", SimpleTypeJsonUnmarshallers.StringJsonUnmarshaller.getInstance()));
+    }
+
+    @Test
+    public void testNumbersAreParsedFromStrings() throws Exception {
+        assertEquals(Integer.valueOf(42), readField(QUOTED_NUMBERS, "int", SimpleTypeJsonUnmarshallers.IntegerJsonUnmarshaller.getInstance()));
+        assertEquals(Long.valueOf(5000000000L), readField(QUOTED_NUMBERS, "long", SimpleTypeJsonUnmarshallers.LongJsonUnmarshaller.getInstance()));
+        assertEquals(Double.valueOf(1.5), readField(QUOTED_NUMBERS, "double", SimpleTypeJsonUnmarshallers.DoubleJsonUnmarshaller.getInstance()));
+    }
+
+    @Test
+    public void testBooleans() throws Exception {
+        String json = "{\"yes\" : true, \"no\" : false, \"quoted\" : \"true\"}";
+        assertEquals(Boolean.TRUE, readField(json, "yes", SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance()));
+        assertEquals(Boolean.FALSE, readField(json, "no", SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance()));
+        assertEquals(Boolean.TRUE, readField(json, "quoted", SimpleTypeJsonUnmarshallers.BooleanJsonUnmarshaller.getInstance()));
+    }
+
+    /**
+     * Moves to the value of the given top-level field, the way generated
+     * unmarshallers do, and unmarshalls it.
+     */
+    private <T> T readField(String json, String field, Unmarshaller<T, JsonUnmarshallerContext> unmarshaller) throws Exception {
+        JsonUnmarshallerContext unmarshallerContext = setupUnmarshaller(json);
+        JsonToken token = unmarshallerContext.nextToken();
+        while (token != null) {
+            if (token == JsonToken.FIELD_NAME && unmarshallerContext.testExpression(field, 1)) {
+                unmarshallerContext.nextToken();
+                return unmarshaller.unmarshall(unmarshallerContext);
+            }
+            token = unmarshallerContext.nextToken();
+        }
+        throw new AssertionError("No field " + field);
+    }
+
     private JsonUnmarshallerContext setupUnmarshaller(String snippet) throws Exception {
         JsonParser jsonParser = jsonFactory.createJsonParser(new ByteArrayInputStream(snippet.getBytes()));
         JsonUnmarshallerContext unmarshallerContext = new JsonUnmarshallerContextImpl(jsonParser);
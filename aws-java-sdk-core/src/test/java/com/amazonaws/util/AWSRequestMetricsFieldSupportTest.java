@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+public class AWSRequestMetricsFieldSupportTest {
+
+    @Test
+    public void eventsAccumulateTimeAndCount() throws InterruptedException {
+        AWSRequestMetricsFieldSupport metrics = new AWSRequestMetricsFieldSupport();
+        for (int i = 0; i < 3; i++) {
+            metrics.startEvent(Field.HttpSocketReadTime);
+            Thread.sleep(2);
+            metrics.endEvent(Field.HttpSocketReadTime);
+        }
+        metrics.startEvent(Field.RequestSigningTime.name());
+        metrics.endEvent(Field.RequestSigningTime.name());
+        // Ending an event that was never started is ignored
+        metrics.endEvent(Field.HttpRequestTime);
+
+        assertEquals(3, metrics.getEventCount(Field.HttpSocketReadTime));
+        assertTrue(metrics.getEventTimeNano(Field.HttpSocketReadTime) >= 6000000L);
+        assertEquals(1, metrics.getEventCount(Field.RequestSigningTime));
+        assertEquals(0, metrics.getEventCount(Field.HttpRequestTime));
+        assertEquals(0, metrics.getEventTimeNano(Field.HttpRequestTime));
+    }
+
+    @Test
+    public void countersAndProperties() {
+        AWSRequestMetricsFieldSupport metrics = new AWSRequestMetricsFieldSupport();
+        metrics.incrementCounter(Field.RequestCount);
+        metrics.incrementCounter(Field.RequestCount.name());
+        metrics.setCounter(Field.BytesProcessed, 1024);
+        metrics.addProperty(Field.StatusCode, 500);
+        metrics.addProperty(Field.StatusCode, 200);
+        // Metrics not identified by a field are ignored
+        metrics.incrementCounter("NotAField");
+        metrics.addProperty("NotAField", "value");
+
+        assertEquals(2, metrics.getCounter(Field.RequestCount));
+        assertEquals(1024, metrics.getCounter(Field.BytesProcessed));
+        assertEquals(0, metrics.getCounter(Field.RetryCount));
+        assertEquals(200, metrics.getLatestProperty(Field.StatusCode));
+        assertEquals(Collections.<Object>singletonList(200), metrics.getProperty(Field.StatusCode));
+        assertNull(metrics.getLatestProperty(Field.AWSRequestID));
+        assertTrue(metrics.getProperty(Field.AWSRequestID).isEmpty());
+        assertTrue(metrics.getProperty("NotAField").isEmpty());
+        assertTrue(metrics.isEnabled());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FileDigestUtilsTest {
+
+    private static byte[] content;
+    private static File file;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // Spans several slices, and ends in the middle of one
+        content = new byte[300 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        file = File.createTempFile("FileDigestUtilsTest-", "bin");
+        file.deleteOnExit();
+        FileUtils.writeByteArrayToFile(file, content);
+    }
+
+    @Test
+    public void testDigestsWholeFile() throws Exception {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        FileDigestUtils.update(file, md5, sha256);
+
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(content), md5.digest());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), sha256.digest());
+    }
+
+    @Test
+    public void testDigestsRange() throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        FileDigestUtils.update(file, 1000, 100 * 1024, sha256);
+
+        byte[] range = Arrays.copyOfRange(content, 1000, 1000 + 100 * 1024);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(range), sha256.digest());
+    }
+
+    @Test
+    public void testRangeBeyondEndOfFile() throws Exception {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        FileDigestUtils.update(file, 1000, Long.MAX_VALUE - 1000, md5);
+
+        byte[] range = Arrays.copyOfRange(content, 1000, content.length);
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(range), md5.digest());
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        File empty = File.createTempFile("FileDigestUtilsTest-", "bin");
+        empty.deleteOnExit();
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        FileDigestUtils.update(empty, md5);
+
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(), md5.digest());
+    }
+}
@@ -78,6 +78,21 @@ public class ResponseMetadataCacheTest {
         assertNull(cache.get(key));
     }
 
+    /** Tests that the latest metadata added for a key is returned. */
+    @Test
+    public void testLatestEntryWins() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(3);
+
+        AmazonWebServiceRequest key = new TestRequest();
+        ResponseMetadata metadata1 = newResponseMetadata();
+        ResponseMetadata metadata2 = newResponseMetadata();
+
+        cache.add(key, metadata1);
+        cache.add(new TestRequest(), newResponseMetadata());
+        cache.add(key, metadata2);
+        assertEquals(metadata2, cache.get(key));
+    }
+
     private class TestRequest extends AmazonWebServiceRequest {}
 
     private ResponseMetadata newResponseMetadata() {
@@ -95,4 +95,21 @@ public class SdkHttpUtilsTest {
                             expected,
                             SdkHttpUtils.urlEncode(test, false));
     }
+
+    @Test
+    public void testEncodingNonAscii() {
+        // Two, three and four byte UTF-8 sequences, and an unpaired surrogate
+        String test = "a\u00e9/\u20ac\ud83d\ude00\ud800";
+
+        Assert.assertEquals("a%C3%A9%2F%E2%82%AC%F0%9F%98%80%3F",
+                            SdkHttpUtils.urlEncode(test, false));
+        Assert.assertEquals("a%C3%A9/%E2%82%AC%F0%9F%98%80%3F",
+                            SdkHttpUtils.urlEncode(test, true));
+    }
+
+    @Test
+    public void testUnencodedValueIsReturnedAsIs() {
+        String test = "abc-_.~123";
+        Assert.assertSame(test, SdkHttpUtils.urlEncode(test, false));
+    }
 }
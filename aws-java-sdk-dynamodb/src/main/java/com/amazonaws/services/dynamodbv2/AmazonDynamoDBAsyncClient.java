@@ -16,6 +16,7 @@
 package com.amazonaws.services.dynamodbv2;
 
 import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.services.dynamodbv2.model.transform.*;
 import com.amazonaws.annotation.ThreadSafe;
 
 /**
@@ -458,6 +459,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final BatchGetItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<BatchGetItemRequest, BatchGetItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new BatchGetItemRequestMarshaller(),
+                    new BatchGetItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<BatchGetItemResult>() {
                     @Override
@@ -555,6 +562,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final BatchWriteItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<BatchWriteItemRequest, BatchWriteItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new BatchWriteItemRequestMarshaller(),
+                    new BatchWriteItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<BatchWriteItemResult>() {
                     @Override
@@ -619,6 +632,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final CreateTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<CreateTableRequest, CreateTableResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new CreateTableRequestMarshaller(),
+                    new CreateTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<CreateTableResult>() {
                     @Override
@@ -693,6 +712,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DeleteItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<DeleteItemRequest, DeleteItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new DeleteItemRequestMarshaller(),
+                    new DeleteItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DeleteItemResult>() {
                     @Override
@@ -788,6 +813,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DeleteTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<DeleteTableRequest, DeleteTableResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new DeleteTableRequestMarshaller(),
+                    new DeleteTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DeleteTableResult>() {
                     @Override
@@ -851,6 +882,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DescribeLimitsRequest request,
             final com.amazonaws.handlers.AsyncHandler<DescribeLimitsRequest, DescribeLimitsResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new DescribeLimitsRequestMarshaller(),
+                    new DescribeLimitsResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DescribeLimitsResult>() {
                     @Override
@@ -886,6 +923,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DescribeTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<DescribeTableRequest, DescribeTableResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new DescribeTableRequestMarshaller(),
+                    new DescribeTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DescribeTableResult>() {
                     @Override
@@ -950,6 +993,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final GetItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<GetItemRequest, GetItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new GetItemRequestMarshaller(),
+                    new GetItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<GetItemResult>() {
                     @Override
@@ -1043,6 +1092,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final ListTablesRequest request,
             final com.amazonaws.handlers.AsyncHandler<ListTablesRequest, ListTablesResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new ListTablesRequestMarshaller(),
+                    new ListTablesResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<ListTablesResult>() {
                     @Override
@@ -1190,6 +1245,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final PutItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<PutItemRequest, PutItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new PutItemRequestMarshaller(),
+                    new PutItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<PutItemResult>() {
                     @Override
@@ -1283,6 +1344,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final QueryRequest request,
             final com.amazonaws.handlers.AsyncHandler<QueryRequest, QueryResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new QueryRequestMarshaller(),
+                    new QueryResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<QueryResult>() {
                     @Override
@@ -1317,6 +1384,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final ScanRequest request,
             final com.amazonaws.handlers.AsyncHandler<ScanRequest, ScanResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new ScanRequestMarshaller(),
+                    new ScanResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<ScanResult>() {
                     @Override
@@ -1440,6 +1513,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final UpdateItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<UpdateItemRequest, UpdateItemResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new UpdateItemRequestMarshaller(),
+                    new UpdateItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<UpdateItemResult>() {
                     @Override
@@ -1542,6 +1621,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final UpdateTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<UpdateTableRequest, UpdateTableResult> asyncHandler) {
 
+        if (client.isAsyncHttpTransportEnabled()) {
+            return invokeAsync(request, new UpdateTableRequestMarshaller(),
+                    new UpdateTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<UpdateTableResult>() {
                     @Override
@@ -1954,6 +1954,87 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements
         return client.getResponseMetadataForRequest(request);
     }
 
+    /**
+     * Asynchronous invoke through the non-blocking HTTP transport of the
+     * client. The request is marshalled on the calling thread; credentials,
+     * signing, unmarshalling and the async handler callbacks run on the given
+     * executor, which is never blocked on network I/O.
+     **/
+    protected <X, Y extends AmazonWebServiceRequest> java.util.concurrent.Future<X> invokeAsync(
+            final Y originalRequest,
+            Marshaller<Request<Y>, Y> marshaller,
+            Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
+            final AsyncHandler<Y, X> asyncHandler,
+            java.util.concurrent.Executor executor) {
+        ExecutionContext executionContext = createExecutionContext(originalRequest);
+        final AWSRequestMetrics awsRequestMetrics = executionContext
+                .getAwsRequestMetrics();
+        awsRequestMetrics.startEvent(Field.ClientExecuteTime);
+        Request<Y> marshalledRequest = null;
+
+        try {
+            awsRequestMetrics.startEvent(Field.RequestMarshallTime);
+            try {
+                marshalledRequest = marshaller.marshall(super
+                        .beforeMarshalling(originalRequest));
+                // Binds the request metrics to the current request.
+                marshalledRequest.setAWSRequestMetrics(awsRequestMetrics);
+            } finally {
+                awsRequestMetrics.endEvent(Field.RequestMarshallTime);
+            }
+        } catch (Exception e) {
+            endClientExecution(awsRequestMetrics, marshalledRequest, null);
+            if (asyncHandler != null) {
+                asyncHandler.onError(e);
+            }
+            org.apache.http.concurrent.BasicFuture<X> failed = new org.apache.http.concurrent.BasicFuture<X>(
+                    null);
+            failed.failed(e);
+            return failed;
+        }
+        final Request<Y> request = marshalledRequest;
+
+        JsonResponseHandler<X> responseHandler = SdkJsonProtocolFactory
+                .createResponseHandler(unmarshaller, false);
+        responseHandler.setIsPayloadJson(true);
+
+        executionContext.setCredentialsProvider(CredentialUtils
+                .getCredentialsProvider(request.getOriginalRequest(),
+                        awsCredentialsProvider));
+        request.setEndpoint(endpoint);
+        request.setTimeOffset(timeOffset);
+
+        JsonErrorResponseHandlerV2 errorResponseHandler = SdkJsonProtocolFactory
+                .createErrorResponseHandler(jsonErrorUnmarshallers, false);
+
+        return new AwsResponseFuture<X>(client.executeAsync(request,
+                responseHandler, errorResponseHandler, executionContext,
+                executor,
+                new org.apache.http.concurrent.FutureCallback<Response<X>>() {
+                    @Override
+                    public void completed(Response<X> response) {
+                        endClientExecution(awsRequestMetrics, request, response);
+                        if (asyncHandler != null) {
+                            asyncHandler.onSuccess(originalRequest,
+                                    response.getAwsResponse());
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception ex) {
+                        endClientExecution(awsRequestMetrics, request, null);
+                        if (asyncHandler != null) {
+                            asyncHandler.onError(ex);
+                        }
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        endClientExecution(awsRequestMetrics, request, null);
+                    }
+                }));
+    }
+
     /**
      * Normal invoke with authentication. Credentials are required and may be
      * overriden at the request level.
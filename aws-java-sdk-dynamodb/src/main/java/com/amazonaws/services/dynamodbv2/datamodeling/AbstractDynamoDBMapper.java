@@ -225,6 +225,15 @@ public class AbstractDynamoDBMapper implements IDynamoDBMapper {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public <T> void parallelScan(Class<T> clazz,
+                                 DynamoDBScanExpression scanExpression,
+                                 int totalSegments,
+                                 DynamoDBMapperConfig config,
+                                 ParallelScanHandler<T> handler) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public <T> ScanResultPage<T> scanPage(Class<T> clazz,
                                           DynamoDBScanExpression scanExpression,
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+
+/**
+ * Package private engine behind the batch operations of the
+ * {@link DynamoDBMapper}. Items are pulled lazily from the input, grouped into
+ * batches of at most {@code maxItemsPerBatch} and sent with up to
+ * {@code maxRequestsInFlight} requests outstanding at once.
+ * <p>
+ * With a single request in flight, items that need to be retried are sent on
+ * their own once their delay has elapsed, before any more of the input is
+ * taken, so requests on the same item are applied in input order. With more
+ * requests in flight, they are picked up by a later batch along with the rest
+ * of the input, so they never hold up the other requests; the order in which
+ * requests on the same item are applied is then not preserved. In either
+ * case, a batch never holds two requests on the same item.
+ * <p>
+ * Only the requests themselves run on worker threads, taken from a pool
+ * shared by all pipelines; batches are assembled and results are processed
+ * on the calling thread, so subclasses need no synchronization. With a single
+ * request in flight, no worker threads are used at all.
+ *
+ * @param <T>
+ *            the type of item being batched
+ * @param <R>
+ *            the result type of one batch request
+ */
+abstract class BatchRequestPipeline<T, R> {
+
+    /** The first delay imposed on all requests after a throttling error. */
+    static final long MIN_THROTTLING_BACKOFF_IN_MILLISECONDS = 100;
+
+    private static final int MAX_THREADS =
+            Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /** Sends the requests of all pipelines with more than one request in flight. */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final Iterator<? extends T> input;
+    private final int maxItemsPerBatch;
+    private final int maxRequestsInFlight;
+
+    /** Batches that must be sent exactly as they are, ahead of anything else. */
+    private final LinkedList<List<T>> resendQueue = new LinkedList<List<T>>();
+    private final PriorityQueue<DelayedItem<T>> retryQueue = new PriorityQueue<DelayedItem<T>>();
+    private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<Completion>();
+
+    /** An input item held back from the previous batch, which already held a request on its item. */
+    private T heldBack;
+    private int requestsInFlight;
+    private long retrySequence;
+
+    /**
+     * Delay before sending each request, doubled on every throttling error
+     * and halved on every request that isn't throttled.
+     */
+    private long throttlingDelay;
+
+    BatchRequestPipeline(Iterator<? extends T> input, int maxItemsPerBatch, int maxRequestsInFlight) {
+        this.input = input;
+        this.maxItemsPerBatch = maxItemsPerBatch;
+        this.maxRequestsInFlight = maxRequestsInFlight;
+    }
+
+    /**
+     * Sends one batch to DynamoDB. Called on a worker thread, unless only one
+     * request may be in flight.
+     */
+    protected abstract R send(List<T> batch);
+
+    /**
+     * Returns the key of the item the given request applies to, such that
+     * requests on the same item have equal keys; or null if the item can't be
+     * told apart from others.
+     */
+    protected abstract Object getItemKey(T request);
+
+    /**
+     * Handles the result of a batch request. Called on the calling thread.
+     */
+    protected abstract void onResult(List<T> batch, R result);
+
+    /**
+     * Handles a batch request that failed with an exception. Called on the
+     * calling thread; any exception thrown aborts the whole operation.
+     */
+    protected abstract void onFailure(List<T> batch, Exception exception);
+
+    /**
+     * Puts the given items back into the pipeline, to be included in a batch
+     * once the given delay has elapsed.
+     */
+    protected final void retryLater(Collection<? extends T> items, long delayInMilliseconds) {
+        long notBefore = System.currentTimeMillis() + Math.max(0, delayInMilliseconds);
+        for (T item : items) {
+            retryQueue.add(new DelayedItem<T>(item, notBefore, retrySequence++));
+        }
+    }
+
+    /**
+     * Sends the given batch again as is, ahead of any other batch.
+     */
+    protected final void resend(List<T> batch) {
+        resendQueue.add(batch);
+    }
+
+    /**
+     * Runs the pipeline until every item of the input has been processed.
+     */
+    final void run() {
+        while (true) {
+            Completion completion;
+            while ((completion = completions.poll()) != null) {
+                complete(completion);
+            }
+
+            List<T> batch = nextBatch();
+            if (batch == null) {
+                if (requestsInFlight == 0 && retryQueue.isEmpty()) {
+                    return;
+                }
+                awaitCompletion(retryQueue.isEmpty()
+                        ? -1
+                        : Math.max(0, retryQueue.peek().notBefore - System.currentTimeMillis()));
+                continue;
+            }
+
+            pause(throttlingDelay);
+            dispatch(batch);
+            while (requestsInFlight >= maxRequestsInFlight) {
+                awaitCompletion(-1);
+            }
+        }
+    }
+
+    private boolean isSequential() {
+        return maxRequestsInFlight == 1;
+    }
+
+    /**
+     * Returns the next batch ready to be sent, or null if no item is ready:
+     * every item waiting to be retried is still delayed, and either the input
+     * is exhausted or, with a single request in flight, must wait for them.
+     */
+    private List<T> nextBatch() {
+        if (!resendQueue.isEmpty()) {
+            return resendQueue.removeFirst();
+        }
+        List<T> batch = new ArrayList<T>(maxItemsPerBatch);
+        Set<Object> itemKeys = new HashSet<Object>();
+        List<DelayedItem<T>> conflicting = new ArrayList<DelayedItem<T>>();
+        long now = System.currentTimeMillis();
+        while (batch.size() < maxItemsPerBatch
+                && !retryQueue.isEmpty() && retryQueue.peek().notBefore <= now) {
+            DelayedItem<T> delayed = retryQueue.poll();
+            if (!add(batch, itemKeys, delayed.item)) {
+                conflicting.add(delayed);
+            }
+        }
+        retryQueue.addAll(conflicting);
+
+        // Sequentially, items to retry are sent on their own before any more
+        // of the input, as the input may hold later requests on their items
+        if (isSequential() && (!batch.isEmpty() || !retryQueue.isEmpty())) {
+            return batch.isEmpty() ? null : batch;
+        }
+        while (batch.size() < maxItemsPerBatch && (heldBack != null || input.hasNext())) {
+            T item = heldBack != null ? heldBack : input.next();
+            heldBack = null;
+            if (!add(batch, itemKeys, item)) {
+                heldBack = item;
+                break;
+            }
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    /**
+     * Adds the given item to the batch, unless the batch already holds a
+     * request on the same item.
+     */
+    private boolean add(List<T> batch, Set<Object> itemKeys, T item) {
+        Object itemKey = getItemKey(item);
+        if (itemKey != null && !itemKeys.add(itemKey)) {
+            return false;
+        }
+        batch.add(item);
+        return true;
+    }
+
+    private void dispatch(final List<T> batch) {
+        if (isSequential()) {
+            complete(execute(batch));
+            return;
+        }
+        requestsInFlight++;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                completions.add(execute(batch));
+            }
+        });
+    }
+
+    private Completion execute(List<T> batch) {
+        try {
+            return new Completion(batch, send(batch), null);
+        } catch (Throwable t) {
+            return new Completion(batch, null, t);
+        }
+    }
+
+    /**
+     * Waits for the next request in flight to complete, for at most the given
+     * number of milliseconds (or indefinitely if negative), and processes it.
+     */
+    private void awaitCompletion(long timeoutInMilliseconds) {
+        if (requestsInFlight == 0) {
+            pause(timeoutInMilliseconds);
+            return;
+        }
+        try {
+            Completion completion = timeoutInMilliseconds < 0
+                    ? completions.take()
+                    : completions.poll(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+            if (completion != null) {
+                complete(completion);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    private void complete(Completion completion) {
+        if (!isSequential()) {
+            requestsInFlight--;
+        }
+        if (completion.error instanceof Error) {
+            throw (Error) completion.error;
+        }
+        Exception exception = (Exception) completion.error;
+        if (exception instanceof AmazonServiceException
+                && RetryUtils.isThrottlingException((AmazonServiceException) exception)) {
+            throttlingDelay = Math.min(
+                    Math.max(MIN_THROTTLING_BACKOFF_IN_MILLISECONDS, throttlingDelay * 2),
+                    DynamoDBMapper.MAX_BACKOFF_IN_MILLISECONDS);
+        } else {
+            throttlingDelay = throttlingDelay / 2 < MIN_THROTTLING_BACKOFF_IN_MILLISECONDS
+                    ? 0
+                    : throttlingDelay / 2;
+        }
+
+        if (exception != null) {
+            onFailure(completion.batch, exception);
+        } else {
+            onResult(completion.batch, completion.result);
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("dynamodb-batch-request-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void pause(long delay) {
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    private final class Completion {
+        private final List<T> batch;
+        private final R result;
+        private final Throwable error;
+
+        private Completion(List<T> batch, R result, Throwable error) {
+            this.batch = batch;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    private static final class DelayedItem<T> implements Comparable<DelayedItem<T>> {
+        private final T item;
+        private final long notBefore;
+        private final long sequence;
+
+        private DelayedItem(T item, long notBefore, long sequence) {
+            this.item = item;
+            this.notBefore = notBefore;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(DelayedItem<T> other) {
+            if (notBefore != other.notBefore) {
+                return notBefore < other.notBefore ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -23,12 +23,15 @@ import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -204,6 +207,20 @@ public final class ConversionSchemas {
         private final DynamoDBMappingsRegistry registry;
         private final S3ClientCache s3cc;
 
+        /**
+         * The resolved conversions of every getter seen so far, so that
+         * marshaller lookups and the augmentation of collection, map and
+         * document types happen once per attribute rather than once per value.
+         */
+        private final ConcurrentMap<Method, CompiledAttribute> attributes =
+                new ConcurrentHashMap<Method, CompiledAttribute>();
+
+        /**
+         * The compiled attribute mappings of every class converted so far.
+         */
+        private final ConcurrentMap<Class<?>, CompiledMapping[]> classes =
+                new ConcurrentHashMap<Class<?>, CompiledMapping[]>();
+
         public StandardItemConverter(
                 MarshallerSet marshallerSet,
                 UnmarshallerSet unmarshallerSet,
@@ -219,7 +236,7 @@ public final class ConversionSchemas {
         @Override
         public DynamoDBMapperFieldModel getFieldModel(Method getter) {
             final DynamoDBMappingsRegistry.Mapping mapping = registry.mappingOf(getter);
-            ArgumentMarshaller marshaller = getMarshaller(getter);
+            ArgumentMarshaller marshaller = compiledAttributeOf(getter).marshaller();
 
             DynamoDBAttributeType attributeType = null;
             if (marshaller instanceof StringAttributeMarshaller) {
@@ -255,7 +272,7 @@ public final class ConversionSchemas {
                 return null;
             }
 
-            ArgumentMarshaller marshaller = getMarshaller(getter);
+            ArgumentMarshaller marshaller = compiledAttributeOf(getter).marshaller();
             return marshaller.marshall(object);
         }
 
@@ -269,16 +286,15 @@ public final class ConversionSchemas {
             Map<String, AttributeValue> result =
                     new HashMap<String, AttributeValue>();
 
-            final DynamoDBMappingsRegistry.Mappings mappings = registry.mappingsOf(clazz);
-
-            for (final DynamoDBMappingsRegistry.Mapping mapping : mappings.getMappings()) {
+            for (final CompiledMapping compiled : compiledMappingsOf(clazz)) {
                 Object getterResult =
-                        mapping.getValueOf(object);
+                        compiled.mapping.getValueOf(object);
 
                 if (getterResult != null) {
-                    AttributeValue value = convert(mapping.getter(), getterResult);
+                    AttributeValue value =
+                            compiled.attribute.marshaller().marshall(getterResult);
                     if (value != null) {
-                        result.put(mapping.getAttributeName(), value);
+                        result.put(compiled.attributeName, value);
                     }
                 }
             }
@@ -286,6 +302,35 @@ public final class ConversionSchemas {
             return result;
         }
 
+        private CompiledAttribute compiledAttributeOf(Method getter) {
+            CompiledAttribute attribute = attributes.get(getter);
+            if (attribute == null) {
+                attribute = new CompiledAttribute(getter);
+                CompiledAttribute existing = attributes.putIfAbsent(getter, attribute);
+                if (existing != null) {
+                    attribute = existing;
+                }
+            }
+            return attribute;
+        }
+
+        private CompiledMapping[] compiledMappingsOf(Class<?> clazz) {
+            CompiledMapping[] compiled = classes.get(clazz);
+            if (compiled == null) {
+                Collection<DynamoDBMappingsRegistry.Mapping> mappings =
+                        registry.mappingsOf(clazz).getMappings();
+
+                compiled = new CompiledMapping[mappings.size()];
+                int i = 0;
+                for (DynamoDBMappingsRegistry.Mapping mapping : mappings) {
+                    compiled[i++] = new CompiledMapping(
+                            mapping, compiledAttributeOf(mapping.getter()));
+                }
+                classes.putIfAbsent(clazz, compiled);
+            }
+            return compiled;
+        }
+
         private ArgumentMarshaller getMarshaller(Method getter) {
             ArgumentMarshaller marshaller =
                     marshallerSet.getMarshaller(getter);
@@ -402,7 +447,8 @@ public final class ConversionSchemas {
                 Method setter,
                 AttributeValue value) {
 
-            ArgumentUnmarshaller unmarshaller = getUnmarshaller(getter, setter);
+            ArgumentUnmarshaller unmarshaller =
+                    compiledAttributeOf(getter).unmarshaller(setter);
             return unmarshall(unmarshaller, setter, value);
         }
 
@@ -416,15 +462,14 @@ public final class ConversionSchemas {
                 return result;
             }
 
-            final DynamoDBMappingsRegistry.Mappings mappings = registry.mappingsOf(clazz);
-
-            for (final DynamoDBMappingsRegistry.Mapping mapping : mappings.getMappings()) {
-                String attributeName = mapping.getAttributeName();
-                AttributeValue av = value.get(attributeName);
+            for (final CompiledMapping compiled : compiledMappingsOf(clazz)) {
+                AttributeValue av = value.get(compiled.attributeName);
                 if (av != null) {
-                    ArgumentUnmarshaller unmarshaller = getUnmarshaller(mapping.getter(), mapping.setter());
-                    Object unmarshalled = unmarshall(unmarshaller, mapping.setter(), av);
-                    mapping.setValueOf(result, unmarshalled);
+                    Method setter = compiled.mapping.setter();
+                    ArgumentUnmarshaller unmarshaller =
+                            compiled.attribute.unmarshaller(setter);
+                    Object unmarshalled = unmarshall(unmarshaller, setter, av);
+                    compiled.mapping.setValueOf(result, unmarshalled);
                 }
             }
 
@@ -620,6 +665,60 @@ public final class ConversionSchemas {
             }
         }
 
+        /**
+         * The marshaller and unmarshaller of a single attribute, each
+         * resolved the first time it is needed and reused afterwards.
+         * Resolution is deferred so that attributes which are always null
+         * need not be convertible.
+         */
+        private final class CompiledAttribute {
+
+            private final Method getter;
+            private volatile ArgumentMarshaller marshaller;
+            private volatile ArgumentUnmarshaller unmarshaller;
+
+            private CompiledAttribute(Method getter) {
+                this.getter = getter;
+            }
+
+            private ArgumentMarshaller marshaller() {
+                ArgumentMarshaller result = marshaller;
+                if (result == null) {
+                    result = getMarshaller(getter);
+                    marshaller = result;
+                }
+                return result;
+            }
+
+            private ArgumentUnmarshaller unmarshaller(Method setter) {
+                ArgumentUnmarshaller result = unmarshaller;
+                if (result == null) {
+                    result = getUnmarshaller(getter, setter);
+                    unmarshaller = result;
+                }
+                return result;
+            }
+        }
+
+        /**
+         * An attribute mapping of a class along with its compiled conversions.
+         */
+        private static final class CompiledMapping {
+
+            private final DynamoDBMappingsRegistry.Mapping mapping;
+            private final String attributeName;
+            private final CompiledAttribute attribute;
+
+            private CompiledMapping(
+                    DynamoDBMappingsRegistry.Mapping mapping,
+                    CompiledAttribute attribute) {
+
+                this.mapping = mapping;
+                this.attributeName = mapping.getAttributeName();
+                this.attribute = attribute;
+            }
+        }
+
     }
 
     static interface MarshallerSet {
@@ -1286,11 +1385,11 @@ public final class ConversionSchemas {
 
     static class CachingMarshallerSet implements MarshallerSet {
 
-        private final Map<Method, ArgumentMarshaller> cache =
-                new HashMap<Method, ArgumentMarshaller>();
+        private final ConcurrentMap<Method, ArgumentMarshaller> cache =
+                new ConcurrentHashMap<Method, ArgumentMarshaller>();
 
-        private final Map<Type, ArgumentMarshaller> memberCache =
-                new HashMap<Type, ArgumentMarshaller>();
+        private final ConcurrentMap<Type, ArgumentMarshaller> memberCache =
+                new ConcurrentHashMap<Type, ArgumentMarshaller>();
 
         private final MarshallerSet wrapped;
 
@@ -1300,40 +1399,36 @@ public final class ConversionSchemas {
 
         @Override
         public ArgumentMarshaller getMarshaller(Method getter) {
-            synchronized (cache) {
-                ArgumentMarshaller marshaler = cache.get(getter);
-                if (marshaler != null) {
-                    return marshaler;
-                }
-
-                marshaler = wrapped.getMarshaller(getter);
-                cache.put(getter, marshaler);
+            ArgumentMarshaller marshaler = cache.get(getter);
+            if (marshaler != null) {
                 return marshaler;
             }
+
+            marshaler = wrapped.getMarshaller(getter);
+            cache.putIfAbsent(getter, marshaler);
+            return marshaler;
         }
 
         @Override
         public ArgumentMarshaller getMemberMarshaller(Type memberType) {
-            synchronized (memberCache) {
-                ArgumentMarshaller marshaller = memberCache.get(memberType);
-                if (marshaller != null) {
-                    return marshaller;
-                }
-
-                marshaller = wrapped.getMemberMarshaller(memberType);
-                memberCache.put(memberType, marshaller);
+            ArgumentMarshaller marshaller = memberCache.get(memberType);
+            if (marshaller != null) {
                 return marshaller;
             }
+
+            marshaller = wrapped.getMemberMarshaller(memberType);
+            memberCache.putIfAbsent(memberType, marshaller);
+            return marshaller;
         }
     }
 
     static class CachingUnmarshallerSet implements UnmarshallerSet {
 
-        private final Map<Method, ArgumentUnmarshaller> cache =
-                new HashMap<Method, ArgumentUnmarshaller>();
+        private final ConcurrentMap<Method, ArgumentUnmarshaller> cache =
+                new ConcurrentHashMap<Method, ArgumentUnmarshaller>();
 
-        private final Map<Type, ArgumentUnmarshaller> memberCache =
-                new HashMap<Type, ArgumentUnmarshaller>();
+        private final ConcurrentMap<Type, ArgumentUnmarshaller> memberCache =
+                new ConcurrentHashMap<Type, ArgumentUnmarshaller>();
 
         private final UnmarshallerSet wrapped;
 
@@ -1346,30 +1441,26 @@ public final class ConversionSchemas {
                 Method getter,
                 Method setter) {
 
-            synchronized (cache) {
-                ArgumentUnmarshaller unmarshaler = cache.get(getter);
-                if (unmarshaler != null) {
-                    return unmarshaler;
-                }
-
-                unmarshaler = wrapped.getUnmarshaller(getter, setter);
-                cache.put(getter, unmarshaler);
+            ArgumentUnmarshaller unmarshaler = cache.get(getter);
+            if (unmarshaler != null) {
                 return unmarshaler;
             }
+
+            unmarshaler = wrapped.getUnmarshaller(getter, setter);
+            cache.putIfAbsent(getter, unmarshaler);
+            return unmarshaler;
         }
 
         @Override
         public ArgumentUnmarshaller getMemberUnmarshaller(Type memberType) {
-            synchronized (memberCache) {
-                ArgumentUnmarshaller unmarshaller = memberCache.get(memberType);
-                if (unmarshaller != null) {
-                    return unmarshaller;
-                }
-
-                unmarshaller = wrapped.getMemberUnmarshaller(memberType);
-                memberCache.put(memberType, unmarshaller);
+            ArgumentUnmarshaller unmarshaller = memberCache.get(memberType);
+            if (unmarshaller != null) {
                 return unmarshaller;
             }
+
+            unmarshaller = wrapped.getMemberUnmarshaller(memberType);
+            memberCache.putIfAbsent(memberType, unmarshaller);
+            return unmarshaller;
         }
     }
 
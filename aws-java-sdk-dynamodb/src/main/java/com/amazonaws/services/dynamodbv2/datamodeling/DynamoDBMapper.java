@@ -28,6 +28,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +42,7 @@ import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanReadCapacity;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTableSchemaParser.TableIndexesInfo;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
@@ -57,19 +60,24 @@ import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
 import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.Select;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
@@ -192,6 +200,14 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
 
     private final AttributeTransformer transformer;
 
+    /**
+     * Converters of the standard conversion schemas, reused across operations
+     * so that the attribute conversions they compile for each class are only
+     * resolved once per mapper.
+     */
+    private final ConcurrentMap<ConversionSchema, ItemConverter> converters =
+            new ConcurrentHashMap<ConversionSchema, ItemConverter>();
+
     /**
      * The max back off time for batch get. The configuration for batch write
      * has been moved to DynamoDBMapperConfig
@@ -200,6 +216,9 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
 
     /** The max number of items allowed in a BatchWrite request */
     static final int MAX_ITEMS_PER_BATCH = 25;
+
+    /** The max number of keys allowed in a BatchGet request */
+    static final int MAX_KEYS_PER_BATCH_GET = 100;
     /**
      * This retry count is applicable only when every batch get item request
      * results in no data retrieved from server and the un processed keys is
@@ -1320,382 +1339,461 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
                                         DynamoDBMapperConfig config) {
         config = mergeConfig(config);
 
-        List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
+        List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
 
-        HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        // Objects are converted as the pipeline asks for them, in chunks of
+        // 25 items per service request to DynamoDB
+        BatchWritePipeline pipeline = new BatchWritePipeline(
+                new WriteRequestIterator(objectsToWrite, objectsToDelete, config, inMemoryUpdates),
+                config);
+        pipeline.run();
 
-        ItemConverter converter = getConverter(config);
+        // Once the entire batch is processed, update assigned keys in memory
+        for ( ValueUpdate update : inMemoryUpdates ) {
+            update.apply();
+        }
 
-        List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
-        for ( Object toWrite : objectsToWrite ) {
-            Class<?> clazz = toWrite.getClass();
-            String tableName = getTableName(clazz, toWrite, config);
+        return pipeline.failedBatches;
+    }
 
-            Map<String, AttributeValue> attributeValues = new HashMap<String, AttributeValue>();
+    /**
+     * Converts an object to save into a put request, recording any
+     * auto-generated values to set on the object once the batch completes.
+     */
+    private PendingWrite toPutRequest(
+            Object toWrite,
+            ItemConverter converter,
+            DynamoDBMapperConfig config,
+            List<ValueUpdate> inMemoryUpdates) {
 
-            // Look at every getter and construct a value object for it
-            final DynamoDBMappingsRegistry.Mappings mappings = registry.mappingsOf(clazz);
-            for ( final DynamoDBMappingsRegistry.Mapping mapping : mappings.getMappings() ) {
-                Object getterResult =
-                        mapping.getValueOf(toWrite);
+        Class<?> clazz = toWrite.getClass();
+        String tableName = getTableName(clazz, toWrite, config);
 
-                String attributeName = mapping.getAttributeName();
+        Map<String, AttributeValue> attributeValues = new HashMap<String, AttributeValue>();
 
-                AttributeValue currentValue = null;
-                if ( mapping.canAutoGenerate(getterResult, toWrite, config.getSaveBehavior()) && !mapping.isVersion() ) {
-                    Object newVersion = mapping.autoGenerate(getterResult);
-                    currentValue = converter.convert(mapping.getter(), newVersion);
-                    inMemoryUpdates.add(new ValueUpdate(mapping.getter(), currentValue, toWrite, converter));
-                } else {
-                    currentValue = converter.convert(mapping.getter(), getterResult);
-                }
+        // Look at every getter and construct a value object for it
+        final DynamoDBMappingsRegistry.Mappings mappings = registry.mappingsOf(clazz);
+        for ( final DynamoDBMappingsRegistry.Mapping mapping : mappings.getMappings() ) {
+            Object getterResult =
+                    mapping.getValueOf(toWrite);
 
-                if ( currentValue != null ) {
-                    attributeValues.put(attributeName, currentValue);
-                }
+            String attributeName = mapping.getAttributeName();
+
+            AttributeValue currentValue = null;
+            if ( mapping.canAutoGenerate(getterResult, toWrite, config.getSaveBehavior()) && !mapping.isVersion() ) {
+                Object newVersion = mapping.autoGenerate(getterResult);
+                currentValue = converter.convert(mapping.getter(), newVersion);
+                inMemoryUpdates.add(new ValueUpdate(mapping.getter(), currentValue, toWrite, converter));
+            } else {
+                currentValue = converter.convert(mapping.getter(), getterResult);
             }
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
+            if ( currentValue != null ) {
+                attributeValues.put(attributeName, currentValue);
             }
+        }
 
-            AttributeTransformer.Parameters<?> parameters =
-                toParameters(attributeValues, clazz, tableName, config);
+        AttributeTransformer.Parameters<?> parameters =
+            toParameters(attributeValues, clazz, tableName, config);
+
+        WriteRequest request = new WriteRequest().withPutRequest(
+                new PutRequest().withItem(
+                    transformAttributes(parameters)));
 
-            requestItems.get(tableName).add(
-                new WriteRequest().withPutRequest(
-                    new PutRequest().withItem(
-                        transformAttributes(parameters))));
+        Set<String> keyAttributeNames = new HashSet<String>();
+        for ( DynamoDBMappingsRegistry.Mapping mapping : mappings.getPrimaryKeys() ) {
+            keyAttributeNames.add(mapping.getAttributeName());
         }
 
-        for ( Object toDelete : objectsToDelete ) {
-            Class<?> clazz = toDelete.getClass();
+        return new PendingWrite(tableName, request, getKey(request, keyAttributeNames), 0);
+    }
 
-            String tableName = getTableName(clazz, toDelete, config);
+    /**
+     * Converts an object to delete into a delete request for its key.
+     */
+    private PendingWrite toDeleteRequest(
+            Object toDelete,
+            ItemConverter converter,
+            DynamoDBMapperConfig config) {
 
-            Map<String, AttributeValue> key = getKey(converter, toDelete);
+        Class<?> clazz = toDelete.getClass();
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
+        String tableName = getTableName(clazz, toDelete, config);
 
-            requestItems.get(tableName).add(
-                    new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
-        }
+        Map<String, AttributeValue> key = getKey(converter, toDelete);
 
-        // Break into chunks of 25 items and make service requests to DynamoDB
-        while ( !requestItems.isEmpty() ) {
+        return new PendingWrite(tableName,
+                new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)), key, 0);
+    }
 
-            HashMap<String, List<WriteRequest>> batch =
-                    new HashMap<String, List<WriteRequest>>();
+    /**
+     * Returns the number of batch requests to keep in flight for the given
+     * config.
+     */
+    private static int getMaxRequestsInFlight(DynamoDBMapperConfig config) {
+        return config.getBatchConcurrency() == null
+                ? 1
+                : config.getBatchConcurrency().getMaxRequestsInFlight();
+    }
 
-            int i = 0;
+    @Override
+    public Map<String, List<Object>> batchLoad(List<Object> itemsToGet) {
+        return batchLoad((Iterable<Object>) itemsToGet);
+    }
 
-            Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet().iterator();
-            while ( tableIter.hasNext() && i < MAX_ITEMS_PER_BATCH ) {
+    @Override
+    public Map<String, List<Object>> batchLoad(Iterable<? extends Object> itemsToGet) {
+        return batchLoad(itemsToGet, this.config);
+    }
 
-                Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
+    @Override
+    public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
+        return batchLoad((Iterable<Object>) itemsToGet, config);
+    }
 
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
+    @Override
+    public Map<String, List<Object>> batchLoad(Iterable<? extends Object> itemsToGet, DynamoDBMapperConfig config) {
+        config = mergeConfig(config);
 
-                while ( writeRequestIter.hasNext() && i++ < MAX_ITEMS_PER_BATCH ) {
-                    WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
-                }
+        if (itemsToGet == null) {
+            return new HashMap<String, List<Object>>();
+        }
 
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if ( !writeRequestIter.hasNext() ) {
-                    tableIter.remove();
-                }
-            }
+        Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
+        ItemConverter converter = getConverter(config);
+
+        // Keys are converted as the pipeline asks for them, in chunks of the
+        // maximum number which can be handled in a single batchGet
+        BatchLoadPipeline pipeline = new BatchLoadPipeline(
+                new KeyIterator(itemsToGet.iterator(), classesByTableName, converter, config),
+                classesByTableName, converter, config);
+        pipeline.run();
+
+        return pipeline.resultSet;
+    }
+
+    @Override
+    public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet) {
+        return batchLoad(itemsToGet, this.config);
+    }
 
-            List<FailedBatch> failedBatches = writeOneBatch(batch, config.getBatchWriteRetryStrategy());
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
+    @Override
+    public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet, DynamoDBMapperConfig config) {
 
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
+        List<Object> keys = new ArrayList<Object>();
+        if ( itemsToGet != null ) {
+            for ( Class<?> clazz : itemsToGet.keySet() ) {
+                if ( itemsToGet.get(clazz) != null ) {
+                    for ( KeyPair keyPair : itemsToGet.get(clazz) ) {
+                        keys.add(createKeyObject(clazz, keyPair.getHashKey(), keyPair.getRangeKey()));
                     }
                 }
             }
         }
 
+        return batchLoad(keys, config);
+    }
 
+    /**
+     * A write request of a batch write, along with the key of the item it
+     * applies to and the number of times it has been sent back as
+     * unprocessed.
+     */
+    private static final class PendingWrite {
+        private final String tableName;
+        private final WriteRequest request;
+        private final Map<String, AttributeValue> key;
+        private final int retries;
 
-        // Once the entire batch is processed, update assigned keys in memory
-        for ( ValueUpdate update : inMemoryUpdates ) {
-            update.apply();
+        private PendingWrite(String tableName, WriteRequest request,
+                Map<String, AttributeValue> key, int retries) {
+            this.tableName = tableName;
+            this.request = request;
+            this.key = key;
+            this.retries = retries;
         }
-
-        return totalFailedBatches;
     }
 
     /**
-     * Process one batch of requests(max 25). It will divide the batch if
-     * receives request too large exception(the total size of the request is beyond 1M).
+     * Returns the key of the item the given write request applies to, made
+     * of the given key attributes of the item put.
      */
-    private List<FailedBatch> writeOneBatch(
-            Map<String, List<WriteRequest>> batch,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+    private static Map<String, AttributeValue> getKey(
+            WriteRequest request,
+            Collection<String> keyAttributeNames) {
 
-        List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
-        Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
-        Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
-        FailedBatch failedBatch = doBatchWriteItemWithRetry(batch, batchWriteRetryStrategy);
-
-        if (failedBatch != null) {
-            // If the exception is request entity too large, we divide the batch
-            // into smaller parts.
-
-            if (failedBatch.getException() instanceof AmazonServiceException
-            && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) failedBatch.getException())) {
-
-                // If only one item left, the item size must beyond 64k, which
-                // exceedes the limit.
-
-                if (computeFailedBatchSize(failedBatch) == 1) {
-                    failedBatches.add(failedBatch);
-                } else {
-                    divideBatch(batch, firstHalfBatch, secondHalfBatch);
-                    failedBatches.addAll(writeOneBatch(firstHalfBatch, batchWriteRetryStrategy));
-                    failedBatches.addAll(writeOneBatch(secondHalfBatch, batchWriteRetryStrategy));
-                }
-
-            } else {
-                failedBatches.add(failedBatch);
+        if ( request.getDeleteRequest() != null ) {
+            return request.getDeleteRequest().getKey();
+        }
+        Map<String, AttributeValue> item = request.getPutRequest().getItem();
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        for ( String keyAttributeName : keyAttributeNames ) {
+            if ( item.containsKey(keyAttributeName) ) {
+                key.put(keyAttributeName, item.get(keyAttributeName));
             }
-
         }
-        return failedBatches;
+        return key;
     }
 
     /**
-     * Check whether there are throttling exception in the failed batches.
+     * Groups the given write requests by table name.
      */
-    private boolean containsThrottlingException (List<FailedBatch> failedBatches) {
-        for (FailedBatch failedBatch : failedBatches) {
-           Exception e = failedBatch.getException();
-            if (e instanceof AmazonServiceException
-                    && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
-                return true;
+    private static Map<String, List<WriteRequest>> toWriteRequestItems(List<PendingWrite> batch) {
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        for ( PendingWrite write : batch ) {
+            List<WriteRequest> requests = requestItems.get(write.tableName);
+            if ( requests == null ) {
+                requests = new ArrayList<WriteRequest>();
+                requestItems.put(write.tableName, requests);
             }
+            requests.add(write.request);
         }
-        return false;
+        return requestItems;
     }
 
     /**
-     * Divide the batch of objects to save into two smaller batches. Each contains half of the elements.
+     * Converts the objects to save, then the objects to delete, into write
+     * requests as they are needed.
      */
-    private void divideBatch(Map<String, List<WriteRequest>> batch, Map<String, List<WriteRequest>> firstHalfBatch, Map<String, List<WriteRequest>> secondHalfBatch) {
-        for (String key : batch.keySet()) {
-
-            List<WriteRequest> requests = batch.get(key);
+    private final class WriteRequestIterator implements Iterator<PendingWrite> {
 
-            List<WriteRequest> firstHalfRequests = requests.subList(0, requests.size() / 2);
+        private final Iterator<? extends Object> objectsToWrite;
+        private final Iterator<? extends Object> objectsToDelete;
+        private final DynamoDBMapperConfig config;
+        private final ItemConverter converter;
+        private final List<ValueUpdate> inMemoryUpdates;
 
-            List<WriteRequest> secondHalfRequests = requests.subList(requests.size() / 2, requests.size());
+        private WriteRequestIterator(
+                Iterable<? extends Object> objectsToWrite,
+                Iterable<? extends Object> objectsToDelete,
+                DynamoDBMapperConfig config,
+                List<ValueUpdate> inMemoryUpdates) {
 
-            firstHalfBatch.put(key, firstHalfRequests);
+            this.objectsToWrite = objectsToWrite.iterator();
+            this.objectsToDelete = objectsToDelete.iterator();
+            this.config = config;
+            this.converter = getConverter(config);
+            this.inMemoryUpdates = inMemoryUpdates;
+        }
 
-            secondHalfBatch.put(key, secondHalfRequests);
+        @Override
+        public boolean hasNext() {
+            return objectsToWrite.hasNext() || objectsToDelete.hasNext();
+        }
 
+        @Override
+        public PendingWrite next() {
+            if ( objectsToWrite.hasNext() ) {
+                return toPutRequest(objectsToWrite.next(), converter, config, inMemoryUpdates);
+            }
+            return toDeleteRequest(objectsToDelete.next(), converter, config);
         }
 
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
-     * Count the total number of unprocessed items in the failed batch.
+     * Sends batch write requests, putting unprocessed items back into later
+     * requests as according to the specified BatchWriteRetryStrategy.
      */
+    private final class BatchWritePipeline
+            extends BatchRequestPipeline<PendingWrite, BatchWriteItemResult> {
 
-    private int computeFailedBatchSize(FailedBatch failedBatch) {
+        private final BatchWriteRetryStrategy batchWriteRetryStrategy;
+        private final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
 
-        int count = 0;
+        private BatchWritePipeline(Iterator<PendingWrite> writes, DynamoDBMapperConfig config) {
+            super(writes, MAX_ITEMS_PER_BATCH, getMaxRequestsInFlight(config));
+            this.batchWriteRetryStrategy = config.getBatchWriteRetryStrategy();
+        }
 
-        for (String tableName : failedBatch.getUnprocessedItems().keySet()) {
-            count += failedBatch.getUnprocessedItems().get(tableName).size();
+        @Override
+        protected Object getItemKey(PendingWrite write) {
+            return write.key.isEmpty() ? null : Arrays.<Object>asList(write.tableName, write.key);
         }
-        return count;
-    }
 
-    /**
-     * Continue trying to process the batch and retry on UnproccessedItems as
-     * according to the specified BatchWriteRetryStrategy
-     */
-    private FailedBatch doBatchWriteItemWithRetry(
-            Map<String, List<WriteRequest>> batch,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
-
-        BatchWriteItemResult result = null;
-        int retries = 0;
-        int maxRetries = batchWriteRetryStrategy
-                .getMaxRetryOnUnprocessedItems(Collections
-                        .unmodifiableMap(batch));
-
-        FailedBatch failedBatch = null;
-        Map<String, List<WriteRequest>> pendingItems = batch;
-
-        while (true) {
-            try {
-                result = db.batchWriteItem(applyBatchOperationUserAgent(
-                        new BatchWriteItemRequest().withRequestItems(pendingItems)));
-            } catch (Exception e) {
-                failedBatch = new FailedBatch();
-                failedBatch.setUnprocessedItems(pendingItems);
-                failedBatch.setException(e);
-                return failedBatch;
+        @Override
+        protected BatchWriteItemResult send(List<PendingWrite> batch) {
+            return db.batchWriteItem(applyBatchOperationUserAgent(
+                    new BatchWriteItemRequest().withRequestItems(toWriteRequestItems(batch))));
+        }
+
+        @Override
+        protected void onResult(List<PendingWrite> batch, BatchWriteItemResult result) {
+            Map<String, List<WriteRequest>> unprocessedItems = result.getUnprocessedItems();
+            if ( unprocessedItems == null || unprocessedItems.isEmpty() ) {
+                return;
             }
-            pendingItems = result.getUnprocessedItems();
 
-            if (pendingItems.size() > 0) {
+            int retries = 0;
+            Map<String, Set<String>> keyAttributeNames = new HashMap<String, Set<String>>();
+            for ( PendingWrite write : batch ) {
+                retries = Math.max(retries, write.retries);
+                keyAttributeNames.put(write.tableName, write.key.keySet());
+            }
+            int maxRetries = batchWriteRetryStrategy.getMaxRetryOnUnprocessedItems(
+                    Collections.unmodifiableMap(toWriteRequestItems(batch)));
+
+            // return the unprocessed items as a FailedBatch if we have exceeded max retry
+            if ( maxRetries >= 0 && retries >= maxRetries ) {
+                FailedBatch failedBatch = new FailedBatch();
+                failedBatch.setUnprocessedItems(unprocessedItems);
+                failedBatch.setException(null);
+                failedBatches.add(failedBatch);
+                return;
+            }
 
-                // return pendingItems as a FailedBatch if we have exceeded max retry
-                if (maxRetries >= 0 && retries >= maxRetries) {
-                    failedBatch = new FailedBatch();
-                    failedBatch.setUnprocessedItems(pendingItems);
-                    failedBatch.setException(null);
-                    return failedBatch;
+            List<PendingWrite> retryWrites = new ArrayList<PendingWrite>();
+            for ( Entry<String, List<WriteRequest>> entry : unprocessedItems.entrySet() ) {
+                for ( WriteRequest request : entry.getValue() ) {
+                    Set<String> tableKeyAttributeNames = keyAttributeNames.get(entry.getKey());
+                    retryWrites.add(new PendingWrite(entry.getKey(), request,
+                            getKey(request, tableKeyAttributeNames == null
+                                    ? Collections.<String>emptySet()
+                                    : tableKeyAttributeNames),
+                            retries + 1));
                 }
+            }
+            retryLater(retryWrites, batchWriteRetryStrategy.getDelayBeforeRetryUnprocessedItems(
+                    Collections.unmodifiableMap(unprocessedItems), retries));
+        }
 
-                pause(batchWriteRetryStrategy.getDelayBeforeRetryUnprocessedItems(
-                        Collections.unmodifiableMap(pendingItems), retries));
-                retries++;
-            } else {
-                break;
+        @Override
+        protected void onFailure(List<PendingWrite> batch, Exception exception) {
+            // If the exception is request entity too large, we divide the batch
+            // into smaller parts. If only one item is left, the item size must
+            // be beyond 64k, which exceeds the limit.
+            if ( exception instanceof AmazonServiceException
+                    && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) exception)
+                    && batch.size() > 1 ) {
+                resend(batch.subList(0, batch.size() / 2));
+                resend(batch.subList(batch.size() / 2, batch.size()));
+                return;
             }
+
+            FailedBatch failedBatch = new FailedBatch();
+            failedBatch.setUnprocessedItems(toWriteRequestItems(batch));
+            failedBatch.setException(exception);
+            failedBatches.add(failedBatch);
         }
-        return failedBatch;
     }
 
-    @Override
-    public Map<String, List<Object>> batchLoad(List<Object> itemsToGet) {
-        return batchLoad((Iterable<Object>) itemsToGet);
-    }
+    /**
+     * A key of a batch load, along with the number of times it has been sent
+     * in a request for which no data at all was returned.
+     */
+    private static final class PendingKey {
+        private final String tableName;
+        private final Map<String, AttributeValue> key;
+        private final int retries;
 
-    @Override
-    public Map<String, List<Object>> batchLoad(Iterable<? extends Object> itemsToGet) {
-        return batchLoad(itemsToGet, this.config);
+        private PendingKey(String tableName, Map<String, AttributeValue> key, int retries) {
+            this.tableName = tableName;
+            this.key = key;
+            this.retries = retries;
+        }
     }
 
-    @Override
-    public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
-        return batchLoad((Iterable<Object>) itemsToGet, config);
-    }
+    /**
+     * Converts the key objects to load into keys as they are needed.
+     */
+    private final class KeyIterator implements Iterator<PendingKey> {
 
-    @Override
-    public Map<String, List<Object>> batchLoad(Iterable<? extends Object> itemsToGet, DynamoDBMapperConfig config) {
-        config = mergeConfig(config);
-        boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
+        private final Iterator<? extends Object> keyObjects;
+        private final Map<String, Class<?>> classesByTableName;
+        private final ItemConverter converter;
+        private final DynamoDBMapperConfig config;
 
-        if (itemsToGet == null) {
-            return new HashMap<String, List<Object>>();
-        }
+        private KeyIterator(
+                Iterator<? extends Object> keyObjects,
+                Map<String, Class<?>> classesByTableName,
+                ItemConverter converter,
+                DynamoDBMapperConfig config) {
 
-        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
-        Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
-        Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
+            this.keyObjects = keyObjects;
+            this.classesByTableName = classesByTableName;
+            this.converter = converter;
+            this.config = config;
+        }
 
-        ItemConverter converter = getConverter(config);
+        @Override
+        public boolean hasNext() {
+            return keyObjects.hasNext();
+        }
 
-        for ( Object keyObject : itemsToGet ) {
+        @Override
+        public PendingKey next() {
+            Object keyObject = keyObjects.next();
             Class<?> clazz = keyObject.getClass();
 
             String tableName = getTableName(clazz, keyObject, config);
             classesByTableName.put(tableName, clazz);
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
-            }
-
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
-
-            // Reach the maximum number which can be handled in a single batchGet
-            if ( ++count == 100 ) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-                requestItems.clear();
-                count = 0;
-            }
+            return new PendingKey(tableName, getKey(converter, keyObject), 0);
         }
 
-        if ( count > 0 ) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-        }
-
-        return resultSet;
-    }
-
-    @Override
-    public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet) {
-        return batchLoad(itemsToGet, this.config);
-    }
-
-    @Override
-    public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet, DynamoDBMapperConfig config) {
-
-        List<Object> keys = new ArrayList<Object>();
-        if ( itemsToGet != null ) {
-            for ( Class<?> clazz : itemsToGet.keySet() ) {
-                if ( itemsToGet.get(clazz) != null ) {
-                    for ( KeyPair keyPair : itemsToGet.get(clazz) ) {
-                        keys.add(createKeyObject(clazz, keyPair.getHashKey(), keyPair.getRangeKey()));
-                    }
-                }
-            }
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
         }
-
-        return batchLoad(keys, config);
     }
 
     /**
-     * @param config never null
+     * Sends batch get requests, putting unprocessed keys back into later
+     * requests and unmarshalling the returned items into the result set.
      */
-    private void processBatchGetRequest(
-            final Map<String, Class<?>> classesByTableName,
-            final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
-            final DynamoDBMapperConfig config,
-            final ItemConverter converter) {
+    private final class BatchLoadPipeline
+            extends BatchRequestPipeline<PendingKey, BatchGetItemResult> {
 
-        BatchGetItemResult batchGetItemResult = null;
-        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
-            .withRequestMetricCollector(config.getRequestMetricCollector());
-        batchGetItemRequest.setRequestItems(requestItems);
+        private final Map<String, Class<?>> classesByTableName;
+        private final ItemConverter converter;
+        private final DynamoDBMapperConfig config;
+        private final boolean consistentReads;
+        private final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
 
-        int retries = 0;
-        int noOfItemsInOriginalRequest = requestItems.size();
+        private BatchLoadPipeline(
+                Iterator<PendingKey> keys,
+                Map<String, Class<?>> classesByTableName,
+                ItemConverter converter,
+                DynamoDBMapperConfig config) {
 
-        do {
-            if ( batchGetItemResult != null ) {
-                retries++;
+            super(keys, MAX_KEYS_PER_BATCH_GET, getMaxRequestsInFlight(config));
+            this.classesByTableName = classesByTableName;
+            this.converter = converter;
+            this.config = config;
+            this.consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
+        }
 
-                if (noOfItemsInOriginalRequest == batchGetItemResult
-                        .getUnprocessedKeys().size()){
-                    pauseExponentially(retries);
-                    if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
-                        throw new AmazonClientException(
-                                "Batch Get Item request to server hasn't received any data. "
-                                + "Please try again later.");
-                    }
-                }
+        @Override
+        protected Object getItemKey(PendingKey key) {
+            return Arrays.<Object>asList(key.tableName, key.key);
+        }
 
-                batchGetItemRequest.setRequestItems(
-                        batchGetItemResult.getUnprocessedKeys());
+        @Override
+        protected BatchGetItemResult send(List<PendingKey> batch) {
+            Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+            for ( PendingKey key : batch ) {
+                KeysAndAttributes keysAndAttributes = requestItems.get(key.tableName);
+                if ( keysAndAttributes == null ) {
+                    keysAndAttributes = new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
+                            new LinkedList<Map<String, AttributeValue>>());
+                    requestItems.put(key.tableName, keysAndAttributes);
+                }
+                keysAndAttributes.getKeys().add(key.key);
             }
 
-            batchGetItemResult = db.batchGetItem(
-                    applyBatchOperationUserAgent(batchGetItemRequest));
+            BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
+                .withRequestMetricCollector(config.getRequestMetricCollector());
+            batchGetItemRequest.setRequestItems(requestItems);
+
+            return db.batchGetItem(applyBatchOperationUserAgent(batchGetItemRequest));
+        }
 
+        @Override
+        protected void onResult(List<PendingKey> batch, BatchGetItemResult batchGetItemResult) {
             Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult.getResponses();
             for ( String tableName : responses.keySet() ) {
                 List<Object> objects = null;
@@ -1715,9 +1813,49 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
 
                 resultSet.put(tableName, objects);
             }
+
             // To see whether there are unprocessed keys.
-        } while ( batchGetItemResult.getUnprocessedKeys() != null && batchGetItemResult.getUnprocessedKeys().size() > 0 );
+            Map<String, KeysAndAttributes> unprocessedKeys = batchGetItemResult.getUnprocessedKeys();
+            if ( unprocessedKeys == null || unprocessedKeys.isEmpty() ) {
+                return;
+            }
+
+            int retries = 0;
+            for ( PendingKey key : batch ) {
+                retries = Math.max(retries, key.retries);
+            }
+            int unprocessedKeyCount = 0;
+            for ( KeysAndAttributes keysAndAttributes : unprocessedKeys.values() ) {
+                unprocessedKeyCount += keysAndAttributes.getKeys().size();
+            }
+
+            long delay = 0;
+            if ( unprocessedKeyCount >= batch.size() ) {
+                retries++;
+                if ( retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS ) {
+                    throw new AmazonClientException(
+                            "Batch Get Item request to server hasn't received any data. "
+                            + "Please try again later.");
+                }
+                delay = getExponentialBackoffDelay(retries);
+            }
+
+            List<PendingKey> retryKeys = new ArrayList<PendingKey>(unprocessedKeyCount);
+            for ( Entry<String, KeysAndAttributes> entry : unprocessedKeys.entrySet() ) {
+                for ( Map<String, AttributeValue> key : entry.getValue().getKeys() ) {
+                    retryKeys.add(new PendingKey(entry.getKey(), key, retries));
+                }
+            }
+            retryLater(retryKeys, delay);
+        }
 
+        @Override
+        protected void onFailure(List<PendingKey> batch, Exception exception) {
+            if ( exception instanceof RuntimeException ) {
+                throw (RuntimeException) exception;
+            }
+            throw new AmazonClientException(exception.getMessage(), exception);
+        }
     }
 
     private final class ValueUpdate {
@@ -1800,13 +1938,29 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
                                                          DynamoDBMapperConfig config) {
         config = mergeConfig(config);
 
-        // Create hard copies of the original scan request with difference segment number.
-        List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
-        ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests);
+        ParallelScanTask parallelScanTask = createParallelScanTask(clazz, scanExpression, totalSegments, config);
 
         return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask, config.getPaginationLoadingStrategy(), config);
     }
 
+    @Override
+    public <T> void parallelScan(Class<T> clazz,
+                                 DynamoDBScanExpression scanExpression,
+                                 int totalSegments,
+                                 DynamoDBMapperConfig config,
+                                 ParallelScanHandler<T> handler) {
+        config = mergeConfig(config);
+
+        ParallelScanTask parallelScanTask = createParallelScanTask(clazz, scanExpression, totalSegments, config);
+        String tableName = parallelScanTask.getTableName();
+
+        while (!parallelScanTask.isAllSegmentScanFinished()) {
+            for (ScanResult scanResult : parallelScanTask.getNextBatchOfScanResults()) {
+                handler.handlePage(toScanResultPage(clazz, scanResult, tableName, config));
+            }
+        }
+    }
+
     @Override
     public <T> ScanResultPage<T> scanPage(Class<T> clazz,
                                           DynamoDBScanExpression scanExpression,
@@ -1816,9 +1970,16 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         ScanRequest scanRequest = createScanRequestFromExpression(clazz, scanExpression, config);
 
         ScanResult scanResult = db.scan(applyUserAgent(scanRequest));
+        return toScanResultPage(clazz, scanResult, scanRequest.getTableName(), config);
+    }
+
+    private <T> ScanResultPage<T> toScanResultPage(Class<T> clazz,
+                                                   ScanResult scanResult,
+                                                   String tableName,
+                                                   DynamoDBMapperConfig config) {
         ScanResultPage<T> result = new ScanResultPage<T>();
         List<AttributeTransformer.Parameters<T>> parameters =
-            toParameters(scanResult.getItems(), clazz, scanRequest.getTableName(), config);
+            toParameters(scanResult.getItems(), clazz, tableName, config);
 
         result.setResults(marshallIntoObjects(parameters));
         result.setLastEvaluatedKey(scanResult.getLastEvaluatedKey());
@@ -1964,6 +2125,61 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
         return applyUserAgent(scanRequest);
     }
 
+    /**
+     * Creates the task scanning the segments of a parallel scan, paced to
+     * the read capacity configured for parallel scans if any.
+     *
+     * @param config never null
+     */
+    private ParallelScanTask createParallelScanTask(Class<?> clazz, DynamoDBScanExpression scanExpression, int totalSegments, DynamoDBMapperConfig config) {
+        // Create hard copies of the original scan request with difference segment number.
+        List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
+
+        ReadCapacityThrottle throttle = null;
+        ParallelScanReadCapacity readCapacity = config.getParallelScanReadCapacity();
+        if (readCapacity != null) {
+            ScanRequest scanRequest = parallelScanRequests.get(0);
+            long provisionedReadCapacity = getProvisionedReadCapacity(scanRequest.getTableName(), scanRequest.getIndexName());
+            if (provisionedReadCapacity > 0) {
+                throttle = new ReadCapacityThrottle(provisionedReadCapacity * readCapacity.getTargetFraction());
+                // The throttle needs the capacity consumed by every request
+                for (ScanRequest request : parallelScanRequests) {
+                    if (request.getReturnConsumedCapacity() == null
+                            || ReturnConsumedCapacity.NONE.toString().equals(request.getReturnConsumedCapacity())) {
+                        request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+                    }
+                }
+            } else {
+                log.info("No provisioned read capacity found for table " + scanRequest.getTableName()
+                        + (scanRequest.getIndexName() == null ? "" : ", index " + scanRequest.getIndexName())
+                        + "; the parallel scan is not limited.");
+            }
+        }
+        return new ParallelScanTask(db, parallelScanRequests, throttle);
+    }
+
+    /**
+     * Returns the provisioned read capacity units of the given table, or of
+     * the given global secondary index of the table; or zero if none is
+     * found. Local secondary indexes share the capacity of their table.
+     */
+    private long getProvisionedReadCapacity(String tableName, String indexName) {
+        TableDescription table = db.describeTable(
+                applyUserAgent(new DescribeTableRequest(tableName))).getTable();
+        ProvisionedThroughputDescription throughput = table.getProvisionedThroughput();
+        if (indexName != null && table.getGlobalSecondaryIndexes() != null) {
+            for (GlobalSecondaryIndexDescription index : table.getGlobalSecondaryIndexes()) {
+                if (indexName.equals(index.getIndexName())) {
+                    throughput = index.getProvisionedThroughput();
+                }
+            }
+        }
+        if (throughput == null || throughput.getReadCapacityUnits() == null) {
+            return 0;
+        }
+        return throughput.getReadCapacityUnits();
+    }
+
     /**
      * @param config never null
      */
@@ -2506,36 +2722,38 @@ public class DynamoDBMapper extends AbstractDynamoDBMapper {
     private ItemConverter getConverter(DynamoDBMapperConfig config) {
         ConversionSchema schema = config.getConversionSchema();
 
+        if (!(schema instanceof ConversionSchemas.StandardConversionSchema)) {
+            return newConverter(schema);
+        }
+
+        ItemConverter converter = converters.get(schema);
+        if (converter == null) {
+            converter = newConverter(schema);
+            ItemConverter existing = converters.putIfAbsent(schema, converter);
+            if (existing != null) {
+                converter = existing;
+            }
+        }
+        return converter;
+    }
+
+    private ItemConverter newConverter(ConversionSchema schema) {
         ConversionSchema.Dependencies params = new ConversionSchema.Dependencies()
                 .with(S3ClientCache.class, s3cc);
 
         return schema.getConverter(params);
     }
 
-    private void pauseExponentially(int retries) {
+    private static long getExponentialBackoffDelay(int retries) {
         if (retries == 0) {
-            return;
+            return 0;
         }
 
         Random random = new Random();
         long delay = 0;
         long scaleFactor = 500 + random.nextInt(100);
         delay = (long) (Math.pow(2, retries) * scaleFactor);
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
-
-        pause(delay);
-    }
-
-    private void pause(long delay) {
-        if (delay <= 0) {
-            return;
-        }
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
-        }
+        return Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
     }
 
     /**
@@ -56,6 +56,8 @@ public class DynamoDBMapperConfig {
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
         private BatchWriteRetryStrategy batchWriteRetryStrategy;
+        private BatchConcurrency batchConcurrency;
+        private ParallelScanReadCapacity parallelScanReadCapacity;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -70,6 +72,8 @@ public class DynamoDBMapperConfig {
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
             batchWriteRetryStrategy = DEFAULT.getBatchWriteRetryStrategy();
+            batchConcurrency = DEFAULT.getBatchConcurrency();
+            parallelScanReadCapacity = DEFAULT.getParallelScanReadCapacity();
         }
 
         /**
@@ -291,6 +295,52 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the current BatchConcurrency
+         */
+        public BatchConcurrency getBatchConcurrency() {
+            return batchConcurrency;
+        }
+
+        /**
+         * @param value the new BatchConcurrency
+         */
+        public void setBatchConcurrency(BatchConcurrency value) {
+            this.batchConcurrency = value;
+        }
+
+        /**
+         * @param value the new BatchConcurrency
+         * @return this builder
+         */
+        public Builder withBatchConcurrency(BatchConcurrency value) {
+            setBatchConcurrency(value);
+            return this;
+        }
+
+        /**
+         * @return the current ParallelScanReadCapacity
+         */
+        public ParallelScanReadCapacity getParallelScanReadCapacity() {
+            return parallelScanReadCapacity;
+        }
+
+        /**
+         * @param value the new ParallelScanReadCapacity
+         */
+        public void setParallelScanReadCapacity(ParallelScanReadCapacity value) {
+            this.parallelScanReadCapacity = value;
+        }
+
+        /**
+         * @param value the new ParallelScanReadCapacity
+         * @return this builder
+         */
+        public Builder withParallelScanReadCapacity(ParallelScanReadCapacity value) {
+            setParallelScanReadCapacity(value);
+            return this;
+        }
+
 
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
@@ -307,7 +357,9 @@ public class DynamoDBMapperConfig {
                     paginationLoadingStrategy,
                     requestMetricCollector,
                     conversionSchema,
-                    batchWriteRetryStrategy);
+                    batchWriteRetryStrategy,
+                    batchConcurrency,
+                    parallelScanReadCapacity);
         }
     }
 
@@ -394,6 +446,18 @@ public class DynamoDBMapperConfig {
          */
         ITERATION_ONLY,
 
+        /**
+         * Like ITERATION_ONLY, except that the next page of results is fetched
+         * in the background as soon as the iteration moves onto a page, so
+         * that it is usually ready by the time the current page has been
+         * processed. The list keeps at most two pages of the loaded results
+         * in memory: the current page and the one being fetched.
+         * <p>
+         * Use this configuration to overlap the processing of large result
+         * sets with the latency of fetching them.
+         */
+        ITERATION_WITH_PREFETCH,
+
         /**
          * Paginated list will eagerly load all the paginated results from
          * DynamoDB as soon as the list is initialized.
@@ -634,6 +698,95 @@ public class DynamoDBMapperConfig {
 
     }
 
+    /**
+     * Controls how many BatchWriteItem or BatchGetItem requests a single
+     * batch operation of the mapper keeps in flight at once.
+     * <p>
+     * By default, the mapper sends one request at a time, and items left
+     * unprocessed by the service are retried before any more items are sent,
+     * so writes of the same item are applied in the order given.
+     * <p>
+     * With more than one request in flight, items are sent as soon as a
+     * request slot is free, and items left unprocessed by the service are
+     * folded into later requests rather than holding up the rest of the
+     * operation. <b>The order in which writes are applied is then not
+     * preserved</b>: an item left unprocessed may be written after a later put
+     * or delete of the same item. Use {@link #SEQUENTIAL} if a batch write may
+     * hold more than one write of the same item.
+     *
+     * @see DynamoDBMapper#batchWrite(Iterable, Iterable, DynamoDBMapperConfig)
+     * @see DynamoDBMapper#batchLoad(Iterable, DynamoDBMapperConfig)
+     */
+    public static final class BatchConcurrency {
+
+        /**
+         * Sends one batch request at a time from the calling thread.
+         */
+        public static final BatchConcurrency SEQUENTIAL = new BatchConcurrency(1);
+
+        private final int maxRequestsInFlight;
+
+        /**
+         * @param maxRequestsInFlight
+         *            the maximum number of batch requests to have in flight
+         *            at once; must be positive. With values greater than one,
+         *            the requests are sent from a pool of daemon threads
+         *            shared by all batch operations.
+         */
+        public BatchConcurrency(int maxRequestsInFlight) {
+            if (maxRequestsInFlight <= 0) {
+                throw new IllegalArgumentException(
+                        "maxRequestsInFlight must be positive");
+            }
+            this.maxRequestsInFlight = maxRequestsInFlight;
+        }
+
+        /**
+         * Returns the maximum number of batch requests in flight at once.
+         */
+        public int getMaxRequestsInFlight() {
+            return maxRequestsInFlight;
+        }
+    }
+
+    /**
+     * Limits the read capacity consumed by a parallel scan of the mapper to a
+     * fraction of the provisioned read capacity of the table, or of the
+     * global secondary index, being scanned. The provisioned capacity is
+     * looked up when the scan starts, and the scan paces its requests by the
+     * capacity each response reports having consumed.
+     * <p>
+     * By default, parallel scans are not limited.
+     *
+     * @see DynamoDBMapper#parallelScan(Class, DynamoDBScanExpression, int, DynamoDBMapperConfig)
+     */
+    public static final class ParallelScanReadCapacity {
+
+        private final double targetFraction;
+
+        /**
+         * @param targetFraction
+         *            the fraction of the provisioned read capacity units per
+         *            second the scan may consume; must be greater than zero
+         *            and at most one.
+         */
+        public ParallelScanReadCapacity(double targetFraction) {
+            if (!(targetFraction > 0 && targetFraction <= 1)) {
+                throw new IllegalArgumentException(
+                        "targetFraction must be greater than zero and at most one");
+            }
+            this.targetFraction = targetFraction;
+        }
+
+        /**
+         * Returns the fraction of the provisioned read capacity the scan may
+         * consume.
+         */
+        public double getTargetFraction() {
+            return targetFraction;
+        }
+    }
+
     private final SaveBehavior saveBehavior;
     private final ConsistentReads consistentReads;
     private final TableNameOverride tableNameOverride;
@@ -643,6 +796,8 @@ public class DynamoDBMapperConfig {
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
     private final BatchWriteRetryStrategy batchWriteRetryStrategy;
+    private final BatchConcurrency batchConcurrency;
+    private final ParallelScanReadCapacity parallelScanReadCapacity;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -713,7 +868,9 @@ public class DynamoDBMapperConfig {
                 paginationLoadingStrategy,
                 requestMetricCollector,
                 ConversionSchemas.DEFAULT,
-                new DefaultBatchWriteRetryStrategy());
+                new DefaultBatchWriteRetryStrategy(),
+                null,
+                null);
     }
 
     private DynamoDBMapperConfig(
@@ -725,7 +882,9 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy,
             RequestMetricCollector requestMetricCollector,
             ConversionSchema conversionSchema,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+            BatchWriteRetryStrategy batchWriteRetryStrategy,
+            BatchConcurrency batchConcurrency,
+            ParallelScanReadCapacity parallelScanReadCapacity) {
 
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
@@ -736,6 +895,8 @@ public class DynamoDBMapperConfig {
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
         this.batchWriteRetryStrategy = batchWriteRetryStrategy;
+        this.batchConcurrency = batchConcurrency;
+        this.parallelScanReadCapacity = parallelScanReadCapacity;
     }
 
     /**
@@ -743,7 +904,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(SaveBehavior saveBehavior) {
         this(saveBehavior, null, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -752,7 +913,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ConsistentReads consistentReads) {
         this(null, consistentReads, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -760,7 +921,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameOverride tableNameOverride) {
         this(null, null, tableNameOverride, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -768,7 +929,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver) {
         this(null, null, null, tableNameResolver, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -776,7 +937,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, null, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -784,7 +945,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver, ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, tableNameResolver, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -795,14 +956,14 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy) {
 
         this(null, null, null, null, null, paginationLoadingStrategy, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
      * Constructs a new configuration object with the conversion schema given.
      */
     public DynamoDBMapperConfig(ConversionSchema conversionSchema) {
-        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy());
+        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy(), null, null);
     }
 
     /**
@@ -835,6 +996,8 @@ public class DynamoDBMapperConfig {
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
             this.batchWriteRetryStrategy = defaults.getBatchWriteRetryStrategy();
+            this.batchConcurrency = defaults.getBatchConcurrency();
+            this.parallelScanReadCapacity = defaults.getParallelScanReadCapacity();
 
         } else {
 
@@ -876,6 +1039,14 @@ public class DynamoDBMapperConfig {
                     ? defaults.getBatchWriteRetryStrategy()
                     : overrides.getBatchWriteRetryStrategy();
 
+            this.batchConcurrency = (overrides.getBatchConcurrency() == null)
+                    ? defaults.getBatchConcurrency()
+                    : overrides.getBatchConcurrency();
+
+            this.parallelScanReadCapacity = (overrides.getParallelScanReadCapacity() == null)
+                    ? defaults.getParallelScanReadCapacity()
+                    : overrides.getParallelScanReadCapacity();
+
         }
     }
 
@@ -959,9 +1130,25 @@ public class DynamoDBMapperConfig {
         return batchWriteRetryStrategy;
     }
 
+    /**
+     * @return the BatchConcurrency for this config object
+     */
+    public BatchConcurrency getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    /**
+     * @return the ParallelScanReadCapacity for this config object, or null if
+     *         parallel scans are not limited
+     */
+    public ParallelScanReadCapacity getParallelScanReadCapacity() {
+        return parallelScanReadCapacity;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
-     * consistent reads, with no table name override and lazy-loading strategy.
+     * consistent reads, with no table name override, lazy-loading strategy and
+     * sequential batch requests.
      */
     public static final DynamoDBMapperConfig DEFAULT = new DynamoDBMapperConfig(
             SaveBehavior.UPDATE,
@@ -972,5 +1159,7 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy.LAZY_LOADING,
             null,  // RequestMetricCollector
             ConversionSchemas.DEFAULT,
-            new DefaultBatchWriteRetryStrategy());
+            new DefaultBatchWriteRetryStrategy(),
+            BatchConcurrency.SEQUENTIAL,
+            null); // ParallelScanReadCapacity
 }
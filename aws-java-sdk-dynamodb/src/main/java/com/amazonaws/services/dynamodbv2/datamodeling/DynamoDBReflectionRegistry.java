@@ -87,6 +87,26 @@ final class DynamoDBReflectionRegistry {
             this.field = ReflectionUtils.getClassFieldByName(getDeclaringType(), getFieldName());
             this.getterType = getGetter().getReturnType();
             this.setterType = (setter == null || setter.getParameterTypes().length != 1 ? null : setter.getParameterTypes()[0]);
+            suppressAccessChecks(getter);
+            suppressAccessChecks(setter);
+        }
+
+        /**
+         * Skips the language access checks on every invocation of the given
+         * accessor, which otherwise dominate the cost of invoking it once the
+         * JVM has generated its reflective accessor. Accessors are invoked
+         * with checks as before if a security manager denies this.
+         * @param method The accessor, may be null.
+         */
+        private static void suppressAccessChecks(final Method method) {
+            if (method == null) {
+                return;
+            }
+            try {
+                method.setAccessible(true);
+            } catch (final SecurityException e) {
+                // Fall back to checked invocation.
+            }
         }
 
         /**
@@ -395,7 +395,8 @@ public interface IDynamoDBMapper {
      *            API.
      * @param config
      *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} are considered. If
+     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} and
+     *            {@link DynamoDBMapperConfig#getBatchConcurrency()} are considered. If
      *            TableNameOverride is specified, all objects in the two parameter lists will be
      *            considered to belong to the given table override. In particular, this method
      *            <b>always acts as if SaveBehavior.CLOBBER was specified</b> regardless of the
@@ -404,6 +405,7 @@ public interface IDynamoDBMapper {
      *         causing the failure.
      * @see DynamoDBMapperConfig#getTableNameOverride()
      * @see DynamoDBMapperConfig#getBatchWriteRetryStrategy()
+     * @see DynamoDBMapperConfig#getBatchConcurrency()
      */
     List<FailedBatch> batchWrite(Iterable<? extends Object> objectsToWrite,
                                  Iterable<? extends Object> objectsToDelete,
@@ -543,10 +545,11 @@ public interface IDynamoDBMapper {
                                                   int totalSegments);
 
     /**
-     * Scans through an Amazon DynamoDB table on logically partitioned segments in parallel. This
-     * method will create a thread pool of the specified size, and each thread will issue scan
-     * requests for its assigned segment, following the returned continuation token, until the end
-     * of its segment. Callers should be responsible for setting the appropriate number of total
+     * Scans through an Amazon DynamoDB table on logically partitioned segments in parallel. Scan
+     * requests for each segment are issued from a pool of threads shared by all parallel scans,
+     * following the returned continuation token, until the end of the segment. Each segment moves
+     * on independently of the others, and no more pages than there are segments are scanned ahead
+     * of the caller. Callers should be responsible for setting the appropriate number of total
      * segments. More scan segments would result in better performance but more consumed capacity of
      * the table. The results are returned in one unmodifiable list of instantiated objects. The
      * table to scan is determined by looking at the annotations on the specified class, which
@@ -581,6 +584,40 @@ public interface IDynamoDBMapper {
                                                   int totalSegments,
                                                   DynamoDBMapperConfig config);
 
+    /**
+     * Scans through an Amazon DynamoDB table on logically partitioned segments in parallel, and
+     * hands each page of results to the given handler as soon as it has been scanned, rather than
+     * collecting them into a list. Each segment moves on to its next page as soon as its previous
+     * page has been scanned, so segments finish independently of each other. The handler is called
+     * on the calling thread, and this method returns once all the segments have been scanned.
+     * <p>
+     * No more pages than there are segments are scanned ahead of the handler, and the scan
+     * requests are sent from a pool with a bounded number of threads shared by all parallel scans.
+     * If the configuration has a {@link DynamoDBMapperConfig.ParallelScanReadCapacity}, the scan is
+     * paced to consume no more than the given fraction of the provisioned read capacity.
+     *
+     * @param <T>
+     *            The type of the objects being returned.
+     * @param clazz
+     *            The class annotated with DynamoDB annotations describing how to store the object
+     *            data in Amazon DynamoDB.
+     * @param scanExpression
+     *            Details on how to run the scan, including any filters to apply to limit results.
+     * @param totalSegments
+     *            Number of total parallel scan segments. <b>Range: </b>1 - 4096
+     * @param config
+     *            The configuration to use for this scan, which overrides the default provided at
+     *            object construction.
+     * @param handler
+     *            Receives each page of results.
+     * @see ParallelScanHandler
+     */
+    <T> void parallelScan(Class<T> clazz,
+                          DynamoDBScanExpression scanExpression,
+                          int totalSegments,
+                          DynamoDBMapperConfig config,
+                          ParallelScanHandler<T> handler);
+
     /**
      * Scans through an Amazon DynamoDB table and returns a single page of matching results. The
      * table to scan is determined by looking at the annotations on the specified class, which
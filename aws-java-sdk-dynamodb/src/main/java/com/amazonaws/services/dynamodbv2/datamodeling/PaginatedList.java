@@ -14,6 +14,8 @@
  */
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 
@@ -25,6 +27,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unmodifiable list supporting paginated result sets from Amazon DynamoDB.
@@ -43,6 +52,21 @@ public abstract class PaginatedList<T> implements List<T> {
     
     private static final String ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE = " is not supported when using ITERATION_ONLY configuration.";
 
+    private static final AtomicInteger PREFETCH_THREAD_COUNT = new AtomicInteger();
+
+    /** Fetches the next page in ITERATION_WITH_PREFETCH mode. */
+    private static final ExecutorService PREFETCH_EXECUTOR =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName("dynamodb-mapper-page-prefetch-"
+                            + PREFETCH_THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     /**
      * Reference to the DynamoDB mapper for marshalling DynamoDB attributes back
      * into objects
@@ -81,6 +105,12 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     private boolean iterationStarted = false;
 
+    /**
+     * The next page being fetched in the background, or null if none is.
+     * Only used when the list is in ITERATION_WITH_PREFETCH mode.
+     */
+    private Future<List<T>> prefetchedPage;
+
     /**
      * Constructs a PaginatedList instance using the default PaginationLoadingStrategy
      */
@@ -145,7 +175,58 @@ public abstract class PaginatedList<T> implements List<T> {
      * value of true guarantees that nextResults is non-empty.
      */
     private boolean nextResultsAvailable() {
-        return !nextResults.isEmpty() || loadNextResults();
+        return !nextResults.isEmpty() || collectPrefetchedPage() || loadNextResults();
+    }
+
+    /**
+     * Starts fetching the next page of results in the background, unless the
+     * end of the result set has been reached.
+     */
+    private synchronized void prefetchNextPage() {
+        if ( atEndOfResults() )
+            return;
+
+        prefetchedPage = PREFETCH_EXECUTOR.submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+                return fetchNextPage();
+            }
+        });
+    }
+
+    /**
+     * Waits for the page being fetched in the background, if any, and adds
+     * its results to the nextResults buffer. Returns whether there were any
+     * results to add. The wait happens without holding the lock on this list,
+     * which fetchNextPage() may need.
+     */
+    private boolean collectPrefetchedPage() {
+        Future<List<T>> page = prefetchedPage;
+        if ( page == null )
+            return false;
+
+        prefetchedPage = null;
+        List<T> results;
+        try {
+            results = page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException(cause);
+        }
+
+        synchronized (this) {
+            nextResults.addAll(results);
+            return !nextResults.isEmpty();
+        }
     }
 
     /**
@@ -201,7 +282,7 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public Iterator<T> iterator() {
-        return new PaginatedListIterator(paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY);
+        return new PaginatedListIterator(isIterationOnly());
     }
     
     private class PaginatedListIterator implements Iterator<T> {
@@ -235,6 +316,10 @@ public abstract class PaginatedList<T> implements List<T> {
                 
                 allResultsCopy = null; // not needed for ITERATION_ONLY mode
                 innerIterator = allResults.iterator();
+
+                if (paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_WITH_PREFETCH) {
+                    prefetchNextPage();
+                }
             }
             else {
                 /*
@@ -295,6 +380,10 @@ public abstract class PaginatedList<T> implements List<T> {
                      * allResults has been replaced with the latest page of results.
                      */
                     innerIterator = allResults.iterator();
+
+                    if (paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_WITH_PREFETCH) {
+                        prefetchNextPage();
+                    }
                 } else {
                     /*
                      * Update our private results copy, and then update the inner iterator
@@ -514,8 +603,18 @@ public abstract class PaginatedList<T> implements List<T> {
         throw new UnsupportedOperationException(UNMODIFIABLE_MESSAGE);
     }
     
+    /**
+     * Returns whether this list may only be iterated once, keeping no more
+     * than the current page (and, in ITERATION_WITH_PREFETCH mode, the page
+     * being fetched) in memory.
+     */
+    private boolean isIterationOnly() {
+        return paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY
+                || paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_WITH_PREFETCH;
+    }
+
     private void checkUnsupportedOperationForIterationOnlyMode(String methodSignature) {
-        if (this.paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY) {
+        if (isIterationOnly()) {
             throw new UnsupportedOperationException(methodSignature + ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE);
         }
     };
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+/**
+ * Receives the pages of a parallel scan as they are scanned.
+ *
+ * @param <T>
+ *            The type of the objects being returned.
+ * @see DynamoDBMapper#parallelScan(Class, DynamoDBScanExpression, int, DynamoDBMapperConfig, ParallelScanHandler)
+ */
+public interface ParallelScanHandler<T> {
+
+    /**
+     * Called on the thread that started the scan with each page scanned, in
+     * the order the pages complete. Pages from different segments may arrive
+     * in any order, but the pages of a segment arrive in order. The scan of
+     * the other segments goes on while this method runs.
+     *
+     * @param page
+     *            a page of results from one segment of the scan.
+     */
+    void handlePage(ScanResultPage<T> page);
+}
@@ -15,22 +15,40 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
+/**
+ * Scans the segments of a parallel scan concurrently.
+ * <p>
+ * Each segment moves on to its next page as soon as its previous page has
+ * been scanned, independently of the other segments, so a slow segment only
+ * holds up itself. The pages scanned are handed out in the order they
+ * complete. To bound the memory held by a scan, no more pages than there are
+ * segments are scanned ahead of the caller. The requests of all parallel scans
+ * are sent from a shared pool with a bounded number of threads, and may be
+ * paced by a {@link ReadCapacityThrottle}.
+ */
 public class ParallelScanTask {
 
+    private static final int MAX_THREADS =
+            Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /** Sends the scan requests of all parallel scans. */
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
     /**
      * The list of hard copies of ScanRequest with different segment number.
      */
@@ -38,26 +56,26 @@ public class ParallelScanTask {
 
     private final int totalSegments;
 
-    /**
-     * Cache all the future tasks, so that we can extract the exception when
-     * we see failed segment scan.
-     */
-    private final List<Future<ScanResult>> segmentScanFutureTasks;
+    private final AmazonDynamoDB dynamo;
 
-    /**
-     * Cache all the most recent ScanResult on each segment.
-     */
-    private final List<ScanResult> segmentScanResults;
+    /** Paces the scan requests; or null if they are not paced. */
+    private final ReadCapacityThrottle throttle;
 
     /**
-     * The current state of the scan on each segment.
-     * Used as the monitor for synchronization.
+     * Pages scanned but not yet handed out, in the order they completed.
+     * This object is used as the monitor for synchronization.
      */
-    private final List<SegmentScanState> segmentScanStates;
+    private final LinkedList<ScanResult> completedPages = new LinkedList<ScanResult>();
 
-    private ExecutorService executorService;
+    /** Segments with more pages to scan, waiting for their turn. */
+    private final LinkedList<Integer> pendingSegments = new LinkedList<Integer>();
 
-    private final AmazonDynamoDB dynamo;
+    private int pagesInFlight;
+
+    private int segmentsRemaining;
+
+    /** The first failure of a segment scan, rethrown to the caller. */
+    private AmazonClientException failure;
 
     @Deprecated
     public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
@@ -65,17 +83,21 @@ public class ParallelScanTask {
     }
 
     ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
+        this(dynamo, parallelScanRequests, null);
+    }
+
+    ParallelScanTask(AmazonDynamoDB dynamo,
+                     List<ScanRequest> parallelScanRequests,
+                     ReadCapacityThrottle throttle) {
         this.dynamo = dynamo;
-        this.parallelScanRequests = parallelScanRequests;
+        this.parallelScanRequests = new ArrayList<ScanRequest>(parallelScanRequests);
         this.totalSegments = parallelScanRequests.size();
-        executorService = Executors.newCachedThreadPool();
+        this.throttle = throttle;
 
-        // Create synchronized views of the list to guarantee any changes are visible across all threads.
-        segmentScanFutureTasks = Collections.synchronizedList(new ArrayList<Future<ScanResult>>(totalSegments));
-        segmentScanResults = Collections.synchronizedList(new ArrayList<ScanResult>(totalSegments));
-        segmentScanStates = Collections.synchronizedList(new ArrayList<SegmentScanState>(totalSegments));
-
-        initSegmentScanStates();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            pendingSegments.add(segment);
+        }
+        segmentsRemaining = totalSegments;
     }
 
     String getTableName() {
@@ -83,189 +105,139 @@ public class ParallelScanTask {
     }
 
     public boolean isAllSegmentScanFinished() {
-        synchronized(segmentScanStates) {
-            for (int segment = 0; segment < totalSegments; segment++) {
-                if (segmentScanStates.get(segment) != SegmentScanState.SegmentScanCompleted)
-                    return false;
-            }
-            // Shut down if all data have been scanned and loaded.
-            executorService.shutdown();
-            return true;
+        synchronized (completedPages) {
+            return segmentsRemaining == 0 && completedPages.isEmpty();
         }
     }
 
+    /**
+     * Returns the pages scanned since the last call, waiting for at least one
+     * page to complete if none has yet. Returns an empty list once all the
+     * segments have been scanned.
+     */
     public List<ScanResult> getNextBatchOfScanResults() throws AmazonClientException {
-        /**
-         * Kick-off all the parallel scan tasks.
-         */
-        startScanNextPages();
-        /**
-         * Wait till all the tasks have finished.
-         */
-        synchronized(segmentScanStates) {
-            while (segmentScanStates.contains(SegmentScanState.Waiting)
-                    || segmentScanStates.contains(SegmentScanState.Scanning)) {
+        synchronized (completedPages) {
+            startScanNextPages();
+            while (completedPages.isEmpty() && failure == null && segmentsRemaining > 0) {
                 try {
-                    segmentScanStates.wait();
+                    completedPages.wait();
                 } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
                     throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
                 }
             }
-            /**
-             *  Keep the lock on segmentScanStates until all the cached results are marshaled and returned.
-             */
-            return marshalParallelScanResults();
+            if (failure != null) {
+                throw failure;
+            }
+            List<ScanResult> scanResults = new LinkedList<ScanResult>(completedPages);
+            completedPages.clear();
+            startScanNextPages();
+            return scanResults;
         }
-
     }
 
+    /**
+     * Starts scanning the next page of waiting segments, as long as the
+     * number of pages scanned ahead of the caller allows it.
+     */
     private void startScanNextPages() {
-        for (int segment = 0; segment < totalSegments; segment++) {
-            final int currentSegment = segment;
-            final SegmentScanState currentSegmentState = segmentScanStates.get(currentSegment);
-            /**
-             * Assert: Should never see any task in state of "Scanning" when starting a new batch.
-             */
-            if (currentSegmentState == SegmentScanState.Scanning){
-                throw new AmazonClientException("Should never see a 'Scanning' state when starting parallel scans.");
-            }
-            /**
-             * Skip any failed or completed segment, and clear the corresponding cached result.
-             */
-            else if (currentSegmentState == SegmentScanState.Failed
-                    || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-                segmentScanResults.set(currentSegment, null);
-                continue;
-            }
-            /**
-             * Otherwise, submit a new future task and save it in segmentScanFutureTasks.
-             */
-            else {
-                // Update the state to "Scanning" and notify any waiting thread.
-                synchronized(segmentScanStates) {
-                    segmentScanStates.set(currentSegment, SegmentScanState.Scanning);
-                    segmentScanStates.notifyAll();
-                }
-                Future<ScanResult> futureTask = executorService.submit(new Callable<ScanResult>() {
-                    @Override
-                    public ScanResult call() throws Exception {
-                        try {
-                            if (currentSegmentState == SegmentScanState.HasNextPage) {
-                                return scanNextPageOfSegment(currentSegment, true);
-                            }
-                            else if (currentSegmentState == SegmentScanState.Waiting) {
-                                return scanNextPageOfSegment(currentSegment, false);
-                            }
-                            else {
-                                throw new AmazonClientException("Should not start a new future task");
-                            }
-                        } catch (Exception e) {
-                            synchronized(segmentScanStates) {
-                                segmentScanStates.set(currentSegment, SegmentScanState.Failed);
-                                segmentScanStates.notifyAll();
-                            }
-                            throw e;
-                        }
-                    }
-                });
-                // Cache the future task (for getting the Exceptions in the working thread).
-                segmentScanFutureTasks.set(currentSegment, futureTask);
-            }
+        while (failure == null && !pendingSegments.isEmpty()
+                && pagesInFlight + completedPages.size() < totalSegments) {
+            pagesInFlight++;
+            EXECUTOR.execute(new SegmentScan(pendingSegments.removeFirst()));
         }
     }
 
-    private List<ScanResult> marshalParallelScanResults() {
-        List<ScanResult> scanResults = new LinkedList<ScanResult>();
-        for (int segment = 0; segment < totalSegments; segment++) {
-            SegmentScanState currentSegmentState = segmentScanStates.get(segment);
-            /**
-             * Rethrow the exception from any failed segment scan.
-             */
-            if (currentSegmentState == SegmentScanState.Failed) {
-                try {
-                    segmentScanFutureTasks.get(segment).get();
-                    throw new AmazonClientException("No Exception found in the failed scan task.");
-                } catch (ExecutionException ee) {
-                    if ( ee.getCause() instanceof AmazonClientException) {
-                        throw (AmazonClientException) (ee.getCause());
-                    } else {
-                        throw new AmazonClientException("Internal error during the scan on segment #" + segment + ".",
-                                ee.getCause());
-                    }
-                } catch (Exception e) {
-                    throw new AmazonClientException("Error during the scan on segment #" + segment + ".", e);
-                }
-            }
-            /**
-             * Get the ScanResult from cache if the segment scan has finished.
-             */
-            else if (currentSegmentState == SegmentScanState.HasNextPage
-                    || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-                ScanResult scanResult = segmentScanResults.get(segment);
-                scanResults.add(scanResult);
-            }
-            else if (currentSegmentState == SegmentScanState.Waiting
-                    || currentSegmentState == SegmentScanState.Scanning){
-                throw new AmazonClientException("Should never see a 'Scanning' or 'Waiting' state when marshalling parallel scan results.");
+    private void onPageScanned(int segment, ScanResult scanResult) {
+        synchronized (completedPages) {
+            pagesInFlight--;
+            completedPages.add(scanResult);
+            if (scanResult.getLastEvaluatedKey() == null) {
+                segmentsRemaining--;
+            } else {
+                pendingSegments.add(segment);
             }
+            startScanNextPages();
+            completedPages.notifyAll();
         }
-        return scanResults;
     }
 
-    private ScanResult scanNextPageOfSegment(int currentSegment, boolean checkLastEvaluatedKey) {
-        ScanRequest segmentScanRequest = parallelScanRequests.get(currentSegment);
-        if (checkLastEvaluatedKey) {
-            ScanResult lastScanResult = segmentScanResults.get(currentSegment);
-            segmentScanRequest.setExclusiveStartKey(lastScanResult.getLastEvaluatedKey());
-        } else {
-            segmentScanRequest.setExclusiveStartKey(null);
+    private void onScanFailed(int segment, RuntimeException e) {
+        synchronized (completedPages) {
+            pagesInFlight--;
+            if (failure == null) {
+                failure = (e instanceof AmazonClientException)
+                        ? (AmazonClientException) e
+                        : new AmazonClientException("Internal error during the scan on segment #" + segment + ".", e);
+            }
+            completedPages.notifyAll();
         }
-        ScanResult scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(segmentScanRequest));
-
-        /**
-         * Cache the scan result in segmentScanResults.
-         * We should never try to get these scan results by calling get() on the cached future tasks.
-         */
-        segmentScanResults.set(currentSegment, scanResult);
+    }
 
-        /**
-         * Update the state and notify any waiting thread.
-         */
-        synchronized(segmentScanStates) {
-            if (null == scanResult.getLastEvaluatedKey())
-                segmentScanStates.set(currentSegment, SegmentScanState.SegmentScanCompleted);
-            else
-                segmentScanStates.set(currentSegment, SegmentScanState.HasNextPage);
-            segmentScanStates.notifyAll();
+    private static double consumedCapacityUnits(ScanResult scanResult) {
+        ConsumedCapacity consumedCapacity = scanResult.getConsumedCapacity();
+        if (consumedCapacity == null || consumedCapacity.getCapacityUnits() == null) {
+            return 0;
         }
-        return scanResult;
+        return consumedCapacity.getCapacityUnits();
     }
 
-    private void initSegmentScanStates() {
-        for (int segment = 0; segment < totalSegments; segment++) {
-            segmentScanFutureTasks.add(null);
-            segmentScanResults.add(null);
-            segmentScanStates.add(SegmentScanState.Waiting);
-        }
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(MAX_THREADS,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("dynamodb-parallel-scan-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
-     * Enumeration of the possible states of the scan on a segment.
+     * Scans the next page of a segment, once the throttle lets it.
      */
-    private static enum SegmentScanState {
-        /** The scan on the segment is waiting for resources to execute and has not started yet. */
-        Waiting,
+    private class SegmentScan implements Runnable {
+        private final int segment;
+        private ReadCapacityThrottle.Reservation reservation;
 
-        /** The scan is in process, and hasn't finished yet. */
-        Scanning,
-
-        /** The scan has already failed. */
-        Failed,
+        SegmentScan(int segment) {
+            this.segment = segment;
+        }
 
-        /** The scan on the current page has finished, but there are more pages in the segment to be scanned. */
-        HasNextPage,
+        @Override
+        public void run() {
+            synchronized (completedPages) {
+                if (failure != null) {
+                    pagesInFlight--;
+                    return;
+                }
+            }
+            if (throttle != null && reservation == null) {
+                reservation = throttle.reserve();
+                if (reservation.getDelayMillis() > 0) {
+                    EXECUTOR.schedule(this, reservation.getDelayMillis(), TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
 
-        /** The scan on the whole segment has completed. */
-        SegmentScanCompleted,
+            ScanRequest segmentScanRequest = parallelScanRequests.get(segment);
+            ScanResult scanResult;
+            try {
+                scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(segmentScanRequest));
+            } catch (RuntimeException e) {
+                onScanFailed(segment, e);
+                return;
+            }
+            if (throttle != null) {
+                throttle.settle(reservation, consumedCapacityUnits(scanResult));
+            }
+            segmentScanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+            onPageScanned(segment, scanResult);
+        }
     }
 }
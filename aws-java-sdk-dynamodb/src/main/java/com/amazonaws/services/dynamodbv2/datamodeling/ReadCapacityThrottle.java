@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+/**
+ * Paces requests so that the read capacity they consume stays close to a
+ * target rate, in capacity units per second.
+ * <p>
+ * The capacity a request will consume is only known from its response, so
+ * each request reserves the average cost of the requests seen so far before it
+ * is sent, and the difference with its actual cost is settled once the
+ * response arrives. Unused capacity accumulates for up to one second, which
+ * lets requests go out in short bursts after idle periods. Instances are
+ * thread-safe.
+ */
+class ReadCapacityThrottle {
+
+    /** Weight of the latest request in the average request cost. */
+    private static final double SMOOTHING = 0.2;
+
+    private final double unitsPerSecond;
+
+    /** Capacity available to requests; negative while requests are delayed. */
+    private double balance;
+    private long lastRefillNanos;
+
+    private double averageCost;
+    private boolean costKnown;
+
+    /**
+     * @param unitsPerSecond
+     *            the target rate, in read capacity units per second; must be
+     *            positive.
+     */
+    ReadCapacityThrottle(double unitsPerSecond) {
+        if (!(unitsPerSecond > 0)) {
+            throw new IllegalArgumentException("unitsPerSecond must be positive");
+        }
+        this.unitsPerSecond = unitsPerSecond;
+        this.balance = unitsPerSecond;
+        this.lastRefillNanos = nanoTime();
+    }
+
+    /**
+     * Reserves the estimated cost of a request about to be sent, and returns
+     * how long the request must wait before it is sent.
+     *
+     * @return the reservation, to be passed to {@link #settle} once the
+     *         response arrives.
+     */
+    synchronized Reservation reserve() {
+        refill();
+        double estimate = costKnown ? averageCost : 0;
+        balance -= estimate;
+        long delay = balance >= 0 ? 0 : (long) Math.ceil(-balance / unitsPerSecond * 1000);
+        return new Reservation(estimate, delay);
+    }
+
+    /**
+     * Settles a reservation with the capacity the request actually consumed.
+     */
+    synchronized void settle(Reservation reservation, double consumedUnits) {
+        refill();
+        balance += reservation.estimate - consumedUnits;
+        averageCost = costKnown
+                ? consumedUnits * SMOOTHING + averageCost * (1 - SMOOTHING)
+                : consumedUnits;
+        costKnown = true;
+    }
+
+    /**
+     * Returns the current time in nanoseconds. Overridden by tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void refill() {
+        long now = nanoTime();
+        balance = Math.min(unitsPerSecond,
+                balance + (now - lastRefillNanos) / 1e9 * unitsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * The capacity reserved for a request and how long it must wait.
+     */
+    static final class Reservation {
+        private final double estimate;
+        private final long delayMillis;
+
+        private Reservation(double estimate, long delayMillis) {
+            this.estimate = estimate;
+            this.delayMillis = delayMillis;
+        }
+
+        /**
+         * Returns how long the request must wait before it is sent, in
+         * milliseconds.
+         */
+        long getDelayMillis() {
+            return delayMillis;
+        }
+    }
+}
@@ -46,6 +46,15 @@ public abstract class PageBasedCollection<T,R> implements Iterable<T> {
      */
     public abstract Integer getMaxResultSize();
 
+    /**
+     * Returns the number of pages to fetch in the background ahead of the
+     * caller when iterating over this collection; or zero if pages are only
+     * fetched when needed.
+     */
+    int getPrefetchPageCount() {
+        return 0;
+    }
+
     /**
      * Returns the low-level result last retrieved (for the current page) from
      * the server side; or null if there has yet no calls to the server.
@@ -26,6 +26,7 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
 
     private Page<T,R> page;
     private final PageBasedCollection<T,R> col;
+    private PagePrefetcher<T,R> prefetcher;
 
     PageIterator(PageBasedCollection<T,R> col) {
         this.col = col;
@@ -43,8 +44,12 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
     public Page<T,R> next() {
         if (page == null) {
             page = col.firstPage();
+            int prefetchPageCount = col.getPrefetchPageCount();
+            if (prefetchPageCount > 0 && page.hasNextPage()) {
+                prefetcher = new PagePrefetcher<T,R>(page, prefetchPageCount);
+            }
         } else {
-            page = page.nextPage();
+            page = prefetcher == null ? page.nextPage() : prefetcher.nextPage();
             col.setLastLowLevelResult(page.getLowLevelResult());
         }
         return page;
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document.internal;
+
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.services.dynamodbv2.document.Page;
+
+/**
+ * Fetches the pages following a given page in the background, so that the
+ * next page is usually ready by the time the caller asks for it.
+ * <p>
+ * At most one fetch is in flight at any time, since each page can only be
+ * requested once the previous one is known, and at most the configured number
+ * of fetched pages are held until the caller takes them. A failed fetch is
+ * reported to the caller in order, and the page is requested again once the
+ * failure has been taken.
+ *
+ * @param <T> resource type
+ * @param <R> low level result type
+ */
+class PagePrefetcher<T,R> implements Runnable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName("dynamodb-page-prefetch-"
+                            + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final int capacity;
+
+    /** Fetched pages, or the error that ended a fetch, in order. */
+    private final LinkedList<Object> fetched = new LinkedList<Object>();
+
+    /** The last page fetched; the next fetch starts from it. */
+    private Page<T,R> tail;
+    private boolean running;
+    private boolean failed;
+
+    PagePrefetcher(Page<T,R> first, int capacity) {
+        this.tail = first;
+        this.capacity = capacity;
+        schedule();
+    }
+
+    /**
+     * Returns the page following the one last returned, waiting for it to be
+     * fetched if necessary.
+     *
+     * @throws NoSuchElementException if there is no next page
+     */
+    @SuppressWarnings("unchecked")
+    synchronized Page<T,R> nextPage() {
+        while (fetched.isEmpty()) {
+            if (!running) {
+                throw new NoSuchElementException("No more pages");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AbortedException(e);
+            }
+        }
+        Object result = fetched.removeFirst();
+        if (result instanceof Throwable) {
+            failed = false;
+        }
+        schedule();
+        if (result instanceof RuntimeException) {
+            throw (RuntimeException) result;
+        }
+        if (result instanceof Error) {
+            throw (Error) result;
+        }
+        return (Page<T,R>) result;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Page<T,R> from;
+            synchronized (this) {
+                if (!canFetch()) {
+                    running = false;
+                    notifyAll();
+                    return;
+                }
+                from = tail;
+            }
+            Object result;
+            try {
+                result = from.nextPage();
+            } catch (Throwable t) {
+                result = t;
+            }
+            synchronized (this) {
+                if (result instanceof Throwable) {
+                    failed = true;
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Page<T,R> page = (Page<T,R>) result;
+                    tail = page;
+                }
+                fetched.add(result);
+                notifyAll();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (!running && canFetch()) {
+            running = true;
+            EXECUTOR.execute(this);
+        }
+    }
+
+    private boolean canFetch() {
+        return !failed && fetched.size() < capacity && tail.hasNextPage();
+    }
+}
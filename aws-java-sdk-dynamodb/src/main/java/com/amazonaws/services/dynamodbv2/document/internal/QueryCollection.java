@@ -61,6 +61,11 @@ class QueryCollection extends ItemCollection<QueryOutcome>
         return spec.getMaxResultSize();
     }
 
+    @Override
+    int getPrefetchPageCount() {
+        return spec.getPrefetchPageCount();
+    }
+
     protected void setLastLowLevelResult(QueryOutcome lowLevelResult) {
         super.setLastLowLevelResult(lowLevelResult);
         QueryResult result = lowLevelResult.getQueryResult();
@@ -61,6 +61,11 @@ class ScanCollection extends ItemCollection<ScanOutcome> {
         return spec.getMaxResultSize();
     }
 
+    @Override
+    int getPrefetchPageCount() {
+        return spec.getPrefetchPageCount();
+    }
+
     protected void setLastLowLevelResult(ScanOutcome lowLevelResult) {
         super.setLastLowLevelResult(lowLevelResult);
         ScanResult result = lowLevelResult.getScanResult();
@@ -45,6 +45,8 @@ public class ScanSpec extends AbstractCollectionSpec<ScanRequest> {
 
     private Collection<KeyAttribute> exclusiveStartKey;
 
+    private int prefetchPageCount;
+
     public ScanSpec() {
         super(new ScanRequest());
     }
@@ -344,6 +346,35 @@ public class ScanSpec extends AbstractCollectionSpec<ScanRequest> {
         return this;
     }
 
+    /**
+     * Returns the number of pages to fetch ahead of the caller while the
+     * results are being iterated; or zero if each page is fetched only once
+     * the previous one has been used up.
+     */
+    public int getPrefetchPageCount() {
+        return prefetchPageCount;
+    }
+
+    /**
+     * Sets the number of pages to fetch in the background, ahead of the
+     * caller, while the results are being iterated. The next page is then
+     * usually ready by the time the current one has been processed, at the
+     * cost of holding up to this many extra pages in memory. Zero, the
+     * default, fetches each page only when it is needed.
+     */
+    public void setPrefetchPageCount(int prefetchPageCount) {
+        if (prefetchPageCount < 0) {
+            throw new IllegalArgumentException(
+                    "prefetchPageCount must not be negative");
+        }
+        this.prefetchPageCount = prefetchPageCount;
+    }
+
+    public ScanSpec withPrefetchPageCount(int prefetchPageCount) {
+        setPrefetchPageCount(prefetchPageCount);
+        return this;
+    }
+
     @Override
     public ScanSpec withProgressListener(ProgressListener progressListener) {
         setProgressListener(progressListener);
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchConcurrency;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+public class BatchConcurrencyTest {
+
+    private static final String TABLE_NAME = "tableName";
+    private static final String HASH_ATTR = "hash";
+
+    private final FakeDynamoDB fake = new FakeDynamoDB();
+
+    @Test
+    public void testBatchSaveKeepsRequestsInFlight() {
+        DynamoDBMapper mapper = newMapper(4);
+
+        List<FailedBatch> failedBatches = mapper.batchSave(items(1000));
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(1000, fake.written.size());
+        assertEquals(40, fake.writeCalls.get());
+        assertTrue("Expected concurrent requests", fake.maxInFlight.get() > 1);
+        assertTrue("Too many concurrent requests", fake.maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testUnprocessedItemsAreFoldedIntoLaterBatches() {
+        fake.unprocessedPerWrite = 5;
+        DynamoDBMapper mapper = newMapper(4);
+
+        List<FailedBatch> failedBatches = mapper.batchSave(items(1000));
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(1000, fake.written.size());
+        // Unprocessed items share batches with the remaining input, instead
+        // of being resent on their own
+        assertTrue(fake.writeCalls.get() < 40 + 200);
+    }
+
+    @Test
+    public void testSequentialRetriesUnprocessedItemsBeforeLaterWrites() {
+        fake.unprocessedOnce.add("item0");
+        DynamoDBMapper mapper = newMapper(1);
+
+        List<FailedBatch> failedBatches = mapper.batchWrite(
+                items(25), Collections.singletonList(new Item("item0")));
+
+        assertEquals(0, failedBatches.size());
+        // The put of item0 is retried before its delete is sent
+        assertFalse(fake.written.containsKey("item0"));
+        assertEquals(24, fake.written.size());
+        assertEquals(3, fake.writeCalls.get());
+    }
+
+    @Test
+    public void testRetriedItemsNeverShareRequestsWithWritesOfTheSameItem() {
+        List<Item> toDelete = new ArrayList<Item>();
+        for (int i = 0; i < 1000; i += 10) {
+            fake.unprocessedOnce.add("item" + i);
+            toDelete.add(new Item("item" + i));
+        }
+        DynamoDBMapper mapper = newMapper(4);
+
+        // The fake rejects requests holding more than one write of an item
+        List<FailedBatch> failedBatches = mapper.batchWrite(items(1000), toDelete);
+
+        assertEquals(0, failedBatches.size());
+    }
+
+    @Test
+    public void testInputIsConsumedLazily() {
+        final AtomicInteger generated = new AtomicInteger();
+        Iterable<Item> input = new Iterable<Item>() {
+            @Override
+            public Iterator<Item> iterator() {
+                return new Iterator<Item>() {
+                    @Override
+                    public boolean hasNext() {
+                        return generated.get() < 500;
+                    }
+
+                    @Override
+                    public Item next() {
+                        Item item = new Item("item" + generated.incrementAndGet());
+                        // Never more than one batch ahead of the service
+                        assertTrue(generated.get() <= (fake.writeCalls.get() + 1) * 25);
+                        return item;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        List<FailedBatch> failedBatches = newMapper(1).batchSave(input);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(500, fake.written.size());
+    }
+
+    @Test
+    public void testBatchLoadKeepsRequestsInFlight() {
+        fake.unprocessedPerGet = 10;
+        DynamoDBMapper mapper = newMapper(4);
+
+        List<Object> keys = new ArrayList<Object>(items(1000));
+        Map<String, List<Object>> results = mapper.batchLoad(keys);
+
+        Set<String> loaded = new HashSet<String>();
+        for (Object item : results.get(TABLE_NAME)) {
+            loaded.add(((Item) item).getHash());
+        }
+        assertEquals(1000, loaded.size());
+        assertTrue("Expected concurrent requests", fake.maxInFlight.get() > 1);
+        assertTrue("Too many concurrent requests", fake.maxInFlight.get() <= 4);
+    }
+
+    private DynamoDBMapper newMapper(int maxRequestsInFlight) {
+        AmazonDynamoDB ddb = (AmazonDynamoDB) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { AmazonDynamoDB.class }, fake);
+        return new DynamoDBMapper(ddb, new DynamoDBMapperConfig.Builder()
+                .withBatchConcurrency(new BatchConcurrency(maxRequestsInFlight))
+                .withBatchWriteRetryStrategy(new NoDelayBatchWriteRetryStrategy())
+                .build());
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<Item>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("item" + i));
+        }
+        return items;
+    }
+
+    /**
+     * Stores written items and serves them back, optionally leaving the first
+     * few items of every request unprocessed.
+     */
+    private static class FakeDynamoDB implements InvocationHandler {
+        private final Map<String, Map<String, AttributeValue>> written =
+                Collections.synchronizedMap(new HashMap<String, Map<String, AttributeValue>>());
+        private final AtomicInteger writeCalls = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile int unprocessedPerWrite;
+        private final Set<String> unprocessedOnce = Collections.synchronizedSet(new HashSet<String>());
+        private volatile int unprocessedPerGet;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            int current = inFlight.incrementAndGet();
+            try {
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                // Give other requests a chance to overlap
+                Thread.sleep(5);
+                if (method.getName().equals("batchWriteItem")) {
+                    return batchWriteItem((BatchWriteItemRequest) args[0]);
+                } else if (method.getName().equals("batchGetItem")) {
+                    return batchGetItem((BatchGetItemRequest) args[0]);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+            writeCalls.incrementAndGet();
+            List<WriteRequest> requests = request.getRequestItems().get(TABLE_NAME);
+            assertTrue(requests.size() <= DynamoDBMapper.MAX_ITEMS_PER_BATCH);
+
+            Set<String> hashes = new HashSet<String>();
+            for (WriteRequest writeRequest : requests) {
+                if (!hashes.add(hashOf(writeRequest))) {
+                    throw new AmazonServiceException(
+                            "Provided list of item keys contains duplicates");
+                }
+            }
+
+            int unprocessed = requests.size() > unprocessedPerWrite ? unprocessedPerWrite : 0;
+            List<WriteRequest> unprocessedRequests = new ArrayList<WriteRequest>(requests.subList(0, unprocessed));
+            for (WriteRequest writeRequest : requests.subList(unprocessed, requests.size())) {
+                String hash = hashOf(writeRequest);
+                if (unprocessedOnce.remove(hash)) {
+                    unprocessedRequests.add(writeRequest);
+                } else if (writeRequest.getPutRequest() != null) {
+                    written.put(hash, writeRequest.getPutRequest().getItem());
+                } else {
+                    written.remove(hash);
+                }
+            }
+            Map<String, List<WriteRequest>> unprocessedItems = new HashMap<String, List<WriteRequest>>();
+            if (!unprocessedRequests.isEmpty()) {
+                unprocessedItems.put(TABLE_NAME, unprocessedRequests);
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(unprocessedItems);
+        }
+
+        private static String hashOf(WriteRequest writeRequest) {
+            Map<String, AttributeValue> key = writeRequest.getPutRequest() != null
+                    ? writeRequest.getPutRequest().getItem()
+                    : writeRequest.getDeleteRequest().getKey();
+            return key.get(HASH_ATTR).getS();
+        }
+
+        private BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+            List<Map<String, AttributeValue>> keys = request.getRequestItems().get(TABLE_NAME).getKeys();
+            assertTrue(keys.size() <= DynamoDBMapper.MAX_KEYS_PER_BATCH_GET);
+
+            int unprocessed = keys.size() > unprocessedPerGet ? unprocessedPerGet : 0;
+            List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+            for (Map<String, AttributeValue> key : keys.subList(unprocessed, keys.size())) {
+                items.add(key);
+            }
+            Map<String, KeysAndAttributes> unprocessedKeys = new HashMap<String, KeysAndAttributes>();
+            if (unprocessed > 0) {
+                unprocessedKeys.put(TABLE_NAME, new KeysAndAttributes().withKeys(
+                        new ArrayList<Map<String, AttributeValue>>(keys.subList(0, unprocessed))));
+            }
+            return new BatchGetItemResult()
+                    .withResponses(Collections.singletonMap(TABLE_NAME, items))
+                    .withUnprocessedKeys(unprocessedKeys);
+        }
+    }
+
+    private static class NoDelayBatchWriteRetryStrategy implements BatchWriteRetryStrategy {
+        @Override
+        public int getMaxRetryOnUnprocessedItems(Map<String, List<WriteRequest>> batchWriteItemInput) {
+            return -1;
+        }
+
+        @Override
+        public long getDelayBeforeRetryUnprocessedItems(
+                Map<String, List<WriteRequest>> unprocessedItems, int retriesAttempted) {
+            return 0;
+        }
+    }
+
+    @DynamoDBTable(tableName = TABLE_NAME)
+    public static class Item {
+
+        private String hash;
+
+        public Item() {
+        }
+
+        public Item(String hash) {
+            this.hash = hash;
+        }
+
+        @DynamoDBHashKey(attributeName = HASH_ATTR)
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+
+public class PaginatedListPrefetchTest {
+
+    @Test
+    public void testIteratesOverAllPagesInOrder() {
+        FakeList list = new FakeList(pages(5, 3));
+
+        List<Integer> items = new ArrayList<Integer>();
+        for (Integer item : list) {
+            items.add(item);
+        }
+
+        assertEquals(15, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, items.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testFetchesNextPageInBackground() {
+        FakeList list = new FakeList(pages(3, 2));
+
+        Iterator<Integer> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+
+        assertEquals(2, list.fetchingThreads.size());
+        for (Thread thread : list.fetchingThreads) {
+            assertFalse(Thread.currentThread().equals(thread));
+        }
+    }
+
+    @Test
+    public void testSkipsEmptyPages() {
+        List<List<Integer>> pages = new ArrayList<List<Integer>>();
+        pages.add(Arrays.asList(0));
+        pages.add(Collections.<Integer>emptyList());
+        pages.add(Collections.<Integer>emptyList());
+        pages.add(Arrays.asList(1, 2));
+        FakeList list = new FakeList(pages);
+
+        List<Integer> items = new ArrayList<Integer>();
+        for (Integer item : list) {
+            items.add(item);
+        }
+
+        assertEquals(Arrays.asList(0, 1, 2), items);
+    }
+
+    @Test
+    public void testRethrowsFetchFailureAndResumes() {
+        FakeList list = new FakeList(pages(3, 2));
+        list.failuresLeft = 1;
+
+        Iterator<Integer> iterator = list.iterator();
+        assertEquals(0, iterator.next().intValue());
+        assertEquals(1, iterator.next().intValue());
+        try {
+            iterator.hasNext();
+            fail("Expected the failed fetch to be reported");
+        } catch (AmazonServiceException expected) {
+        }
+
+        List<Integer> rest = new ArrayList<Integer>();
+        while (iterator.hasNext()) {
+            rest.add(iterator.next());
+        }
+        assertEquals(Arrays.asList(2, 3, 4, 5), rest);
+    }
+
+    @Test
+    public void testOnlySupportsIteration() {
+        FakeList list = new FakeList(pages(2, 2));
+        try {
+            list.get(0);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        list.iterator();
+        try {
+            list.iterator();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static List<List<Integer>> pages(int pageCount, int pageSize) {
+        List<List<Integer>> pages = new ArrayList<List<Integer>>();
+        int next = 0;
+        for (int i = 0; i < pageCount; i++) {
+            List<Integer> page = new ArrayList<Integer>();
+            for (int j = 0; j < pageSize; j++) {
+                page.add(next++);
+            }
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    private static class FakeList extends PaginatedList<Integer> {
+        private final List<List<Integer>> pages;
+        private final List<Thread> fetchingThreads =
+                Collections.synchronizedList(new ArrayList<Thread>());
+        private int nextPage = 1;
+        private volatile int failuresLeft;
+
+        FakeList(List<List<Integer>> pages) {
+            super(null, Integer.class, null, PaginationLoadingStrategy.ITERATION_WITH_PREFETCH);
+            this.pages = pages;
+            allResults.addAll(pages.get(0));
+        }
+
+        @Override
+        protected boolean atEndOfResults() {
+            return nextPage >= pages.size();
+        }
+
+        @Override
+        protected synchronized List<Integer> fetchNextPage() {
+            fetchingThreads.add(Thread.currentThread());
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new AmazonServiceException("Simulated failure");
+            }
+            return pages.get(nextPage++);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+public class ParallelScanTaskTest {
+
+    @Test
+    public void testReturnsEveryPageOfEverySegment() {
+        FakeDynamoDB fake = new FakeDynamoDB(new int[] { 3, 1, 4, 2 });
+        ParallelScanTask task = new ParallelScanTask(fake.client(), requests(4));
+
+        List<String> items = scanAll(task);
+
+        assertEquals(10, items.size());
+        for (int segment = 0; segment < 4; segment++) {
+            for (int page = 0; page < fake.pagesPerSegment[segment]; page++) {
+                assertTrue(items.contains(segment + "-" + page));
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentsProgressIndependently() {
+        FakeDynamoDB fake = new FakeDynamoDB(new int[] { 1, 5 });
+        fake.slowSegment = 0;
+        ParallelScanTask task = new ParallelScanTask(fake.client(), requests(2));
+
+        List<String> items = scanAll(task);
+
+        // The fast segment finishes all its pages while the slow one scans its only page
+        assertEquals(6, items.size());
+        assertEquals("0-0", items.get(items.size() - 1));
+    }
+
+    @Test
+    public void testDoesNotScanFurtherAheadThanTheNumberOfSegments() throws Exception {
+        FakeDynamoDB fake = new FakeDynamoDB(new int[] { 10, 10 });
+        ParallelScanTask task = new ParallelScanTask(fake.client(), requests(2));
+
+        int returned = task.getNextBatchOfScanResults().size();
+        Thread.sleep(200);
+
+        assertTrue("Scanned " + fake.calls.get(), fake.calls.get() <= returned + 2);
+        assertEquals(20, returned + scanAll(task).size());
+    }
+
+    @Test
+    public void testRethrowsSegmentFailure() {
+        FakeDynamoDB fake = new FakeDynamoDB(new int[] { 3, 3 });
+        fake.failingSegment = 1;
+        ParallelScanTask task = new ParallelScanTask(fake.client(), requests(2));
+
+        try {
+            scanAll(task);
+            fail("Expected the segment failure to be rethrown");
+        } catch (AmazonServiceException expected) {
+            assertEquals("Segment 1 failed", expected.getErrorMessage());
+        }
+        try {
+            task.getNextBatchOfScanResults();
+            fail("Expected the segment failure to be rethrown again");
+        } catch (AmazonClientException expected) {
+        }
+    }
+
+    @Test
+    public void testThrottleDelaysRequestsBeyondTheTargetRate() {
+        FakeDynamoDB fake = new FakeDynamoDB(new int[] { 4 });
+        fake.capacityUnitsPerPage = 10;
+        // One page per second, with one page worth of burst capacity
+        ParallelScanTask task = new ParallelScanTask(fake.client(), requests(1),
+                new ReadCapacityThrottle(10));
+
+        long start = System.currentTimeMillis();
+        assertEquals(4, scanAll(task).size());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("Elapsed " + elapsed, elapsed >= 2500);
+    }
+
+    private static List<String> scanAll(ParallelScanTask task) {
+        List<String> items = new ArrayList<String>();
+        while (!task.isAllSegmentScanFinished()) {
+            for (ScanResult result : task.getNextBatchOfScanResults()) {
+                for (Map<String, AttributeValue> item : result.getItems()) {
+                    items.add(item.get("id").getS());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static List<ScanRequest> requests(int totalSegments) {
+        List<ScanRequest> requests = new ArrayList<ScanRequest>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            requests.add(new ScanRequest("table")
+                    .withSegment(segment).withTotalSegments(totalSegments));
+        }
+        return requests;
+    }
+
+    private static class FakeDynamoDB implements InvocationHandler {
+        private final int[] pagesPerSegment;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int slowSegment = -1;
+        private volatile int failingSegment = -1;
+        private volatile double capacityUnitsPerPage;
+
+        FakeDynamoDB(int[] pagesPerSegment) {
+            this.pagesPerSegment = pagesPerSegment;
+        }
+
+        AmazonDynamoDB client() {
+            return (AmazonDynamoDB) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { AmazonDynamoDB.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!"scan".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            calls.incrementAndGet();
+            ScanRequest request = (ScanRequest) args[0];
+            int segment = request.getSegment();
+            int page = request.getExclusiveStartKey() == null
+                    ? 0
+                    : Integer.parseInt(request.getExclusiveStartKey().get("page").getN());
+
+            if (segment == slowSegment) {
+                Thread.sleep(300);
+            }
+            if (segment == failingSegment && page == 1) {
+                throw new AmazonServiceException("Segment 1 failed");
+            }
+
+            ScanResult result = new ScanResult()
+                    .withItems(Collections.singletonMap("id", new AttributeValue(segment + "-" + page)))
+                    .withConsumedCapacity(new ConsumedCapacity().withCapacityUnits(capacityUnitsPerPage));
+            if (page + 1 < pagesPerSegment[segment]) {
+                result.setLastEvaluatedKey(Collections.singletonMap("page",
+                        new AttributeValue().withN(String.valueOf(page + 1))));
+            }
+            return result;
+        }
+    }
+}
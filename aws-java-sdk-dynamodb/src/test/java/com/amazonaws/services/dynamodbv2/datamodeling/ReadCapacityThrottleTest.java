@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.ReadCapacityThrottle.Reservation;
+
+public class ReadCapacityThrottleTest {
+
+    private final ManualClockThrottle throttle = new ManualClockThrottle(100);
+
+    @Test
+    public void firstRequestIsNotDelayed() {
+        assertEquals(0, throttle.reserve().getDelayMillis());
+    }
+
+    @Test
+    public void burstCapacityIsSpentBeforeRequestsAreDelayed() {
+        throttle.settle(throttle.reserve(), 50);
+        throttle.settle(throttle.reserve(), 50);
+
+        // The next request is expected to cost 50 units, half a second at 100 units per second
+        Reservation reservation = throttle.reserve();
+        assertEquals(500, reservation.getDelayMillis());
+    }
+
+    @Test
+    public void capacityRefillsOverTime() {
+        throttle.settle(throttle.reserve(), 100);
+        throttle.nanos += 1000000000L;
+
+        assertEquals(0, throttle.reserve().getDelayMillis());
+    }
+
+    @Test
+    public void unusedCapacityDoesNotAccumulateBeyondOneSecond() {
+        throttle.nanos += 10 * 1000000000L;
+        throttle.settle(throttle.reserve(), 100);
+
+        throttle.settle(throttle.reserve(), 100);
+        assertTrue(throttle.reserve().getDelayMillis() >= 1000);
+    }
+
+    private static class ManualClockThrottle extends ReadCapacityThrottle {
+        private long nanos;
+
+        ManualClockThrottle(double unitsPerSecond) {
+            super(unitsPerSecond);
+        }
+
+        @Override
+        long nanoTime() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas.MarshallerSet;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas.StandardItemConverter;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas.StandardUnmarshallerSet;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas.UnmarshallerSet;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas.V2MarshallerSet;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+public class StandardItemConverterTest {
+
+    private final CountingMarshallerSet marshallers =
+            new CountingMarshallerSet(new V2MarshallerSet());
+    private final CountingUnmarshallerSet unmarshallers =
+            new CountingUnmarshallerSet(new StandardUnmarshallerSet());
+    private final StandardItemConverter converter = new StandardItemConverter(
+            marshallers, unmarshallers, DynamoDBMappingsRegistry.instance(), null);
+
+    @Test
+    public void testConversionsAreResolvedOncePerAttribute() {
+        Item item = new Item();
+        item.setHash("hash");
+        item.setCount(3);
+        item.setTags(Arrays.asList("a", "b"));
+
+        for (int i = 0; i < 10; i++) {
+            Map<String, AttributeValue> converted = converter.convert(item);
+            assertEquals(3, converted.size());
+            assertEquals("hash", converted.get("hash").getS());
+            assertEquals("3", converted.get("count").getN());
+            assertEquals(2, converted.get("tags").getL().size());
+
+            Item unconverted = converter.unconvert(Item.class, converted);
+            assertEquals("hash", unconverted.getHash());
+            assertEquals(Integer.valueOf(3), unconverted.getCount());
+            assertEquals(Arrays.asList("a", "b"), unconverted.getTags());
+        }
+
+        assertEquals(3, marshallers.calls);
+        assertEquals(3, unmarshallers.calls);
+    }
+
+    @Test
+    public void testUnconvertibleAttributeIsIgnoredWhileNull() {
+        UnconvertibleItem item = new UnconvertibleItem();
+        item.setHash("hash");
+
+        Map<String, AttributeValue> converted = converter.convert(item);
+
+        assertEquals(1, converted.size());
+        UnconvertibleItem unconverted = converter.unconvert(UnconvertibleItem.class, converted);
+        assertEquals("hash", unconverted.getHash());
+        assertNull(unconverted.getOpaque());
+    }
+
+    @Test(expected = DynamoDBMappingException.class)
+    public void testUnconvertibleAttributeFailsWhenSet() {
+        UnconvertibleItem item = new UnconvertibleItem();
+        item.setHash("hash");
+        item.setOpaque(new Opaque());
+
+        converter.convert(item);
+    }
+
+    private static class CountingMarshallerSet implements MarshallerSet {
+        private final MarshallerSet wrapped;
+        private int calls;
+
+        CountingMarshallerSet(MarshallerSet wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public ArgumentMarshaller getMarshaller(Method getter) {
+            calls++;
+            return wrapped.getMarshaller(getter);
+        }
+
+        @Override
+        public ArgumentMarshaller getMemberMarshaller(Type memberType) {
+            return wrapped.getMemberMarshaller(memberType);
+        }
+    }
+
+    private static class CountingUnmarshallerSet implements UnmarshallerSet {
+        private final UnmarshallerSet wrapped;
+        private int calls;
+
+        CountingUnmarshallerSet(UnmarshallerSet wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public ArgumentUnmarshaller getUnmarshaller(Method getter, Method setter) {
+            calls++;
+            return wrapped.getUnmarshaller(getter, setter);
+        }
+
+        @Override
+        public ArgumentUnmarshaller getMemberUnmarshaller(Type memberType) {
+            return wrapped.getMemberUnmarshaller(memberType);
+        }
+    }
+
+    @DynamoDBTable(tableName = "items")
+    public static class Item {
+        private String hash;
+        private Integer count;
+        private List<String> tags;
+
+        @DynamoDBHashKey
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+    }
+
+    @DynamoDBTable(tableName = "items")
+    public static class UnconvertibleItem {
+        private String hash;
+        private Opaque opaque;
+
+        @DynamoDBHashKey
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public Opaque getOpaque() {
+            return opaque;
+        }
+
+        public void setOpaque(Opaque opaque) {
+            this.opaque = opaque;
+        }
+    }
+
+    /**
+     * Neither a supported scalar type nor a {@link DynamoDBDocument}.
+     */
+    public static class Opaque {
+    }
+}
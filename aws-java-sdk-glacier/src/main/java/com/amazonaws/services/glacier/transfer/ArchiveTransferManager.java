@@ -21,15 +21,27 @@ import static com.amazonaws.util.IOUtils.closeQuietly;
 import static com.amazonaws.util.IOUtils.release;
 import static com.amazonaws.util.Throwables.failure;
 
-import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,6 +81,11 @@ import com.amazonaws.util.BinaryUtils;
 
 /**
  * Utilities for uploading and downloading data to and from AWS Glacier.
+ * <p>
+ * The parts of a multipart upload, and the chunks of a download, are
+ * transferred concurrently on the executor given to the manager, or else on a
+ * thread pool of {@value #DEFAULT_THREAD_COUNT} threads created for each
+ * transfer.
  */
 public class ArchiveTransferManager {
 
@@ -87,6 +104,9 @@ public class ArchiveTransferManager {
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
+    /** The number of parts or chunks transferred concurrently when no executor is given. */
+    public static final int DEFAULT_THREAD_COUNT = 4;
+
     /** Glacier client used for making all requests. */
     private final AmazonGlacier glacier;
 
@@ -98,6 +118,12 @@ public class ArchiveTransferManager {
 
     private final AmazonSNSClient sns;
 
+    /**
+     * The executor running part uploads and chunk downloads; or null if a new
+     * thread pool is used for each transfer.
+     */
+    private final ExecutorService executorService;
+
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
     /**
@@ -163,11 +189,35 @@ public class ArchiveTransferManager {
      *            timeouts.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider, ClientConfiguration clientConfiguration) {
+        this(glacier, credentialsProvider, clientConfiguration, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, AWS credentials provider and client configuration, and
+     * the specified executor to transfer the parts of an archive concurrently.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param credentialsProvider
+     *            The AWS credentials provider used to authenticate requests.
+     * @param clientConfiguration
+     *            Client specific options, such as proxy settings, retries, and
+     *            timeouts.
+     * @param executorService
+     *            The executor on which the parts of multipart uploads and the
+     *            chunks of downloads are transferred; or null to use a new
+     *            thread pool of {@value #DEFAULT_THREAD_COUNT} threads for each
+     *            transfer. The executor is not shut down by this manager.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AWSCredentialsProvider credentialsProvider,
+            ClientConfiguration clientConfiguration, ExecutorService executorService) {
         this.credentialsProvider = credentialsProvider;
         this.clientConfiguration = clientConfiguration;
         this.glacier = glacier;
         this.sns = null;
         this.sqs = null;
+        this.executorService = executorService;
     }
 
     /**
@@ -190,11 +240,37 @@ public class ArchiveTransferManager {
      *            retrieval job status.
      */
     public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns) {
+        this(glacier, sqs, sns, null);
+    }
+
+    /**
+     * Constructs a new ArchiveTransferManager, using the specified Amazon
+     * Glacier client, the specified Amazon SQS and Amazon SNS clients for
+     * polling download job status, and the specified executor to transfer the
+     * parts of an archive concurrently.
+     *
+     * @param glacier
+     *            The client for working with Amazon Glacier.
+     * @param sqs
+     *            The client for working with Amazon SQS when polling archive
+     *            retrieval job status.
+     * @param sns
+     *            The client for working with Amazon SNS when polling archive
+     *            retrieval job status.
+     * @param executorService
+     *            The executor on which the parts of multipart uploads and the
+     *            chunks of downloads are transferred; or null to use a new
+     *            thread pool of {@value #DEFAULT_THREAD_COUNT} threads for each
+     *            transfer. The executor is not shut down by this manager.
+     */
+    public ArchiveTransferManager(AmazonGlacierClient glacier, AmazonSQSClient sqs, AmazonSNSClient sns,
+            ExecutorService executorService) {
         this.credentialsProvider = null;
         this.clientConfiguration = null;
         this.glacier = glacier;
         this.sqs = sqs;
         this.sns = sns;
+        this.executorService = executorService;
     }
 
     /**
@@ -460,8 +536,11 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
-     * transient errors along the way.
+     * individual chunks of the data concurrently, in order to handle any
+     * transient errors along the way. Each chunk is written to its position in
+     * the file as it arrives. The chunks written are recorded in a file next
+     * to the specified file, so that a download that fails or is interrupted
+     * can be resumed by calling this method again.
      *
      * @param accountId
      *            The account ID containing the job output to download (or null
@@ -482,8 +561,11 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
-     * transient errors along the way. You can also add an optional progress
+     * individual chunks of the data concurrently, in order to handle any
+     * transient errors along the way. Each chunk is written to its position in
+     * the file as it arrives. The chunks written are recorded in a file next
+     * to the specified file, so that a download that fails or is interrupted
+     * can be resumed by calling this method again. You can also add an optional progress
      * listener for receiving updates about the download status.
      *
      * @param accountId
@@ -500,12 +582,10 @@ public class ArchiveTransferManager {
      *            The optional progress listener for receiving updates about the
      *            download status.
      */
-    public void downloadJobOutput(String accountId, String vaultName,
-            String jobId, File file, ProgressListener progressListener) {
+    public void downloadJobOutput(final String accountId, final String vaultName,
+            final String jobId, final File file, final ProgressListener progressListener) {
         long archiveSize = 0;
         long chunkSize = DEFAULT_DOWNLOAD_CHUNK_SIZE;
-        long currentPosition = 0;
-        long endPosition = 0;
 
         RandomAccessFile output = null;
         String customizedChunkSize = null;
@@ -531,27 +611,61 @@ public class ArchiveTransferManager {
             throw new AmazonClientException("Unable to open the output file " + file.getPath(), e);
         }
 
+        DownloadState state = null;
+        ExecutorService executor = null;
         try {
             publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-            while (currentPosition < archiveSize) {
-                if (currentPosition + chunkSize > archiveSize) {
-                    endPosition = archiveSize - 1;
-                } else {
-                    endPosition = currentPosition + chunkSize - 1;
+            try {
+                output.setLength(archiveSize);
+                state = DownloadState.load(file, jobId, archiveSize, chunkSize);
+
+                final FileChannel channel = output.getChannel();
+                final DownloadState downloadState = state;
+                executor = acquireExecutor();
+                CompletionService<Void> completionService = new ExecutorCompletionService<Void>(executor);
+                List<Future<Void>> futures = new ArrayList<Future<Void>>();
+                for (long currentPosition = 0; currentPosition < archiveSize; currentPosition += chunkSize) {
+                    final long startPosition = currentPosition;
+                    final long endPosition = Math.min(currentPosition + chunkSize, archiveSize) - 1;
+                    futures.add(completionService.submit(new Callable<Void>() {
+                        public Void call() throws IOException {
+                            // A chunk recorded by an interrupted download is
+                            // only skipped if the file still holds it
+                            String recordedTreeHash = downloadState.getTreeHash(startPosition);
+                            if (recordedTreeHash != null && recordedTreeHash.equalsIgnoreCase(
+                                    calculateTreeHash(file, startPosition, endPosition))) {
+                                return null;
+                            }
+                            String treeHash = downloadOneChunk(accountId, vaultName, jobId, channel,
+                                    startPosition, endPosition, progressListener);
+                            // Make sure the chunk is on disk before recording it
+                            channel.force(false);
+                            downloadState.markCompleted(startPosition, treeHash);
+                            return null;
+                        }
+                    }));
                 }
-    
-                // Download the chunk
-                try {
-                    downloadOneChunk(accountId, vaultName, jobId, output,
-                            currentPosition, endPosition, progressListener);
-                } catch (Throwable t) {
-                    publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
-                    throw failure(t);
+                awaitAll(completionService, futures);
+
+                if (!state.delete()) {
+                    log.warn("Unable to delete " + state.getStateFile().getPath());
                 }
-                currentPosition += chunkSize;
+            } catch (Throwable t) {
+                publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                throw failure(t);
             }
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
         } finally {
+            if (executor != null) {
+                releaseExecutor(executor);
+            }
+            if (state != null) {
+                try {
+                    state.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close the download state file", e);
+                }
+            }
             closeQuietly(output, log);
         }
     }
@@ -568,11 +682,29 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Download one chunk from Amazon Glacier. It will do the retry if any
-     * errors are encountered while streaming the data from Amazon Glacier.
+     * Returns the hex encoded tree hash of the given range of the given file;
+     * or null if it can't be read.
+     */
+    private String calculateTreeHash(File file, long startPosition, long endPosition) {
+        try {
+            return TreeHashGenerator.calculateTreeHash(new InputSubstream(
+                    new FileInputStream(file), startPosition,
+                    endPosition - startPosition + 1, true));
+        } catch (Exception e) {
+            log.debug("Unable to check a downloaded chunk of " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Download one chunk from Amazon Glacier, and write it at its position in
+     * the output file. It will do the retry if any errors are encountered
+     * while streaming the data from Amazon Glacier.
+     *
+     * @return the hex encoded tree hash of the chunk.
      */
-    private void downloadOneChunk(String accountId, String vaultName,
-            String jobId, RandomAccessFile output, long currentPosition,
+    private String downloadOneChunk(String accountId, String vaultName,
+            String jobId, FileChannel output, long currentPosition,
             long endPosition, ProgressListener progressListener) {
         final long chunkSize = endPosition - currentPosition + 1;
         TreeHashInputStream input = null;
@@ -588,8 +720,8 @@ public class ArchiveTransferManager {
                     ;
                 GetJobOutputResult jobOutputResult = glacier.getJobOutput(req);
                 try {
-                    input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
-                    appendToFile(output, input);
+                    input = new TreeHashInputStream(jobOutputResult.getBody());
+                    writeToFile(output, currentPosition, input);
                 } catch (NoSuchAlgorithmException e) {
                     throw failure(e, "Unable to compute hash for data integrity");
                 } finally {
@@ -611,10 +743,10 @@ public class ArchiveTransferManager {
                             + "Make sure the InitiateJob and GetJobOutput requests use tree-hash-aligned ranges.");
                 }
                 // Successfully download
-                return;
+                return input.getTreeHash();
                 // We will retry IO exception
             } catch (IOException ioe) {
-                if (retries < DEFAULT_MAX_RETRIES) {
+                if (retries < DEFAULT_MAX_RETRIES && output.isOpen()) {
                     retries++;
                     if (log.isDebugEnabled()) {
                         log.debug(retries
@@ -624,11 +756,6 @@ public class ArchiveTransferManager {
                                 + currentPosition + " endPosition="
                                 + endPosition);
                     }
-                    try {
-                        output.seek(currentPosition);
-                    } catch (IOException e) {
-                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), e);
-                    }
                 } else {
                     throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                 }
@@ -637,19 +764,74 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Writes the data from the given input stream to the given output stream.
+     * Writes the data from the given input stream to the given file channel,
+     * starting at the given position. Positional writes let the chunks of a
+     * download be written concurrently.
      */
-    private void appendToFile(RandomAccessFile output, InputStream input)
+    private void writeToFile(FileChannel output, long position, InputStream input)
             throws IOException {
         byte[] buffer = new byte[1024 * 1024];
-        int bytesRead = 0;
-        do {
-            bytesRead = input.read(buffer);
-            if (bytesRead < 0)
-                break;
-            output.write(buffer, 0, bytesRead);
-        } while (bytesRead > 0);
-        return;
+        int bytesRead;
+        while ((bytesRead = input.read(buffer)) != -1) {
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (data.hasRemaining()) {
+                position += output.write(data, position);
+            }
+        }
+    }
+
+    /**
+     * Returns the executor to transfer the parts of an archive on: the one
+     * given to this manager, or else a new thread pool to be released with
+     * {@link #releaseExecutor(ExecutorService)} once the transfer is over.
+     */
+    private ExecutorService acquireExecutor() {
+        if (executorService != null) {
+            return executorService;
+        }
+        return Executors.newFixedThreadPool(DEFAULT_THREAD_COUNT, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("glacier-transfer-manager-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private void releaseExecutor(ExecutorService executor) {
+        if (executor != executorService) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for all the given tasks, submitted through the given completion
+     * service, to complete. As soon as one of them fails, the others are
+     * cancelled and its failure is rethrown.
+     */
+    private static <T> void awaitAll(CompletionService<T> completionService,
+            List<Future<T>> futures) throws Throwable {
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take().get();
+            }
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static <T> void cancelAll(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
     }
 
     /**
@@ -676,7 +858,7 @@ public class ArchiveTransferManager {
 
     private UploadResult uploadInMultipleParts(final String accountId,
             final String vaultName, final String archiveDescription,
-            final File file, ProgressListener progressListener) {
+            final File file, final ProgressListener progressListener) {
         final long partSize = calculatePartSize(file.length());
         String partSizeString = Long.toString(partSize);
 
@@ -694,76 +876,101 @@ public class ArchiveTransferManager {
             throw failure(t);
         }
         publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
-        final String fileNotFoundMsg = "Unable to find file '"
-                + file.getAbsolutePath() + "'";
+        final String multipartUploadId = uploadId;
+        ExecutorService executor = acquireExecutor();
         try {
-            List<byte[]> binaryChecksums = new LinkedList<byte[]>();
-
-            long currentPosition = 0;
-            while (currentPosition < file.length()) {
-                long length = partSize;
-                if (currentPosition + partSize > file.length()) {
-                    length = file.length() - currentPosition;
-                }
-
-                Exception failedException = null;
-                boolean completed = false;
-                int tries = 0;
-                    while (!completed && tries < 5){
-                        tries++;
-                        InputSubstream inputSubStream = null;
-                        try {
-                            inputSubStream = new InputSubstream(
-                                    newResettableInputStream(file, fileNotFoundMsg)
-                                        .disableClose(), // requires explicit release
-                                    currentPosition, length, true);
-                            String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
-                            byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
-                            inputSubStream.reset();
-                            UploadMultipartPartRequest req = new UploadMultipartPartRequest()
-                                .withAccountId(accountId)
-                                .withChecksum(checksum)
-                                .withBody(inputSubStream)
-                                .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
-                                .withUploadId(uploadId)
-                                .withVaultName(vaultName)
-                                .withGeneralProgressListener(progressListener)
-                                ;
-                            
-                            glacier.uploadMultipartPart(req);
-                            completed = true;
-                            binaryChecksums.add(binaryChecksum);
-                        } catch (Exception e){
-                            failedException = e;
-                        } finally {
-                            // We opened the file underneath; so need to release it
-                            release(inputSubStream, log);
-                        }
-                    } // end inner while
-                if (!completed && failedException!=null)
-                    throw failedException;
-                currentPosition += partSize;
-            } // end outer while
+            final long fileLength = file.length();
+            final int partCount = (int) ((fileLength + partSize - 1) / partSize);
+            // The tree hash of each part is computed by the task uploading it
+            final byte[][] binaryChecksums = new byte[partCount][];
+
+            CompletionService<Void> completionService = new ExecutorCompletionService<Void>(executor);
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(partCount);
+            for (int i = 0; i < partCount; i++) {
+                final int partIndex = i;
+                final long currentPosition = i * partSize;
+                final long length = Math.min(partSize, fileLength - currentPosition);
+                futures.add(completionService.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        binaryChecksums[partIndex] = uploadOnePart(accountId, vaultName,
+                                multipartUploadId, file, currentPosition, length, progressListener);
+                        return null;
+                    }
+                }));
+            }
+            awaitAll(completionService, futures);
 
-            String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
+            String checksum = TreeHashGenerator.calculateTreeHash(Arrays.asList(binaryChecksums));
 
-            String archiveSize = Long.toString(file.length());
+            String archiveSize = Long.toString(fileLength);
             CompleteMultipartUploadResult completeMultipartUploadResult =
                 glacier.completeMultipartUpload(new CompleteMultipartUploadRequest()
                     .withAccountId(accountId)
                     .withArchiveSize(archiveSize)
                     .withVaultName(vaultName)
                     .withChecksum(checksum)
-                    .withUploadId(uploadId));
+                    .withUploadId(multipartUploadId));
 
             String artifactId = completeMultipartUploadResult.getArchiveId();
             publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
             return new UploadResult(artifactId);
         } catch (Throwable t) {
             publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
-            glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
+            glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, multipartUploadId));
             throw failure(t, "Unable to finish the upload");
+        } finally {
+            releaseExecutor(executor);
+        }
+    }
+
+    /**
+     * Computes the tree hash of one part of a multipart upload and uploads
+     * it, retrying any failure up to five times in all.
+     *
+     * @return the binary tree hash of the part.
+     */
+    private byte[] uploadOnePart(String accountId, String vaultName,
+            String uploadId, File file, long currentPosition, long length,
+            ProgressListener progressListener) throws Exception {
+        final String fileNotFoundMsg = "Unable to find file '"
+                + file.getAbsolutePath() + "'";
+        Exception failedException = null;
+        int tries = 0;
+        while (tries < 5) {
+            tries++;
+            InputSubstream inputSubStream = null;
+            try {
+                inputSubStream = new InputSubstream(
+                        newResettableInputStream(file, fileNotFoundMsg)
+                            .disableClose(), // requires explicit release
+                        currentPosition, length, true);
+                String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
+                byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
+                inputSubStream.reset();
+                UploadMultipartPartRequest req = new UploadMultipartPartRequest()
+                    .withAccountId(accountId)
+                    .withChecksum(checksum)
+                    .withBody(inputSubStream)
+                    .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
+                    .withUploadId(uploadId)
+                    .withVaultName(vaultName)
+                    .withGeneralProgressListener(progressListener)
+                    ;
+
+                glacier.uploadMultipartPart(req);
+                return binaryChecksum;
+            } catch (Exception e) {
+                failedException = e;
+                if (Thread.currentThread().isInterrupted()) {
+                    // The upload was cancelled
+                    break;
+                }
+            } finally {
+                // We opened the file underneath; so need to release it
+                release(inputSubStream, log);
+            }
         }
+        throw failedException;
     }
 
     private UploadResult uploadInSinglePart(final String accountId,
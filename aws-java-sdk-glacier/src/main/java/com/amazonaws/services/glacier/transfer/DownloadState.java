@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2016 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Records the chunks of a job output download that have been written to the
+ * target file, so that a download that failed or was interrupted can be
+ * resumed without fetching those chunks again.
+ * <p>
+ * The state is kept next to the target file, in a file named after it with a
+ * {@value #SUFFIX} suffix. It starts with a line identifying the job, archive
+ * size and chunk size, followed by a fixed-width record for each completed
+ * chunk: its start position as {@value #POSITION_DIGITS} decimal digits, a
+ * comma, the hex encoded tree hash of the chunk and a newline. Only complete
+ * records for a chunk boundary inside the archive are trusted; anything after
+ * the last of them, such as a record torn when the download was interrupted,
+ * is truncated before new records are appended. The tree hash lets the chunk
+ * be checked against the target file before it is skipped. The state is only
+ * used to resume a download of the same job output in chunks of the same
+ * size, and is deleted once the download completes.
+ */
+class DownloadState {
+
+    /** The suffix of the name of the state file of a target file. */
+    static final String SUFFIX = ".glacierdownload";
+
+    /** The number of digits of the chunk position in a record. */
+    private static final int POSITION_DIGITS = 20;
+
+    /** The number of hex digits of a SHA-256 tree hash. */
+    private static final int TREE_HASH_DIGITS = 64;
+
+    /** The length of a chunk record, including its comma and newline. */
+    private static final int RECORD_LENGTH = POSITION_DIGITS + 1 + TREE_HASH_DIGITS + 1;
+
+    private final File stateFile;
+    /** The tree hashes of the completed chunks, by start position. */
+    private final Map<Long, String> completedChunks;
+    private RandomAccessFile output;
+
+    private DownloadState(File stateFile, Map<Long, String> completedChunks,
+            RandomAccessFile output) {
+        this.stateFile = stateFile;
+        this.completedChunks = completedChunks;
+        this.output = output;
+    }
+
+    /**
+     * Loads the state of a download of the given job output into the given
+     * file, or starts a new one if no download of that job output in chunks of
+     * the given size was interrupted.
+     */
+    static DownloadState load(File file, String jobId, long archiveSize,
+            long chunkSize) throws IOException {
+        File stateFile = new File(file.getPath() + SUFFIX);
+        byte[] header = (jobId + " " + archiveSize + " " + chunkSize + "\n")
+                .getBytes(StringUtils.UTF8);
+        Map<Long, String> completedChunks = new HashMap<Long, String>();
+
+        RandomAccessFile output = new RandomAccessFile(stateFile, "rw");
+        try {
+            long validLength = readState(output, header, archiveSize,
+                    chunkSize, completedChunks);
+            if (validLength == 0) {
+                output.setLength(0);
+                output.write(header);
+            } else {
+                output.setLength(validLength);
+                output.seek(validLength);
+            }
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
+        return new DownloadState(stateFile, completedChunks, output);
+    }
+
+    /**
+     * Reads the completed chunks from the given state file, and returns the
+     * length of its valid part; or zero if it isn't for the download
+     * identified by the given header.
+     */
+    private static long readState(RandomAccessFile input, byte[] header,
+            long archiveSize, long chunkSize, Map<Long, String> completedChunks)
+            throws IOException {
+        if (input.length() < header.length) {
+            return 0;
+        }
+        byte[] bytes = new byte[header.length];
+        input.readFully(bytes);
+        for (int i = 0; i < header.length; i++) {
+            if (bytes[i] != header[i]) {
+                return 0;
+            }
+        }
+
+        long validLength = header.length;
+        byte[] record = new byte[RECORD_LENGTH];
+        while (validLength + RECORD_LENGTH <= input.length()) {
+            input.readFully(record);
+            long position = parsePosition(record);
+            if (position < 0 || position % chunkSize != 0
+                    || position >= archiveSize || !isTreeHash(record)
+                    || record[POSITION_DIGITS] != ','
+                    || record[RECORD_LENGTH - 1] != '\n') {
+                break;
+            }
+            completedChunks.put(position, new String(record,
+                    POSITION_DIGITS + 1, TREE_HASH_DIGITS, StringUtils.UTF8));
+            validLength += RECORD_LENGTH;
+        }
+        return validLength;
+    }
+
+    /**
+     * Returns the chunk position in the given record, or -1 if it isn't made
+     * of decimal digits.
+     */
+    private static long parsePosition(byte[] record) {
+        long position = 0;
+        for (int i = 0; i < POSITION_DIGITS; i++) {
+            byte b = record[i];
+            if (b < '0' || b > '9' || position > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            position = position * 10 + (b - '0');
+        }
+        return position;
+    }
+
+    private static boolean isTreeHash(byte[] record) {
+        for (int i = POSITION_DIGITS + 1; i < POSITION_DIGITS + 1 + TREE_HASH_DIGITS; i++) {
+            byte b = record[i];
+            if (!((b >= '0' && b <= '9') || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the tree hash recorded for the chunk at the given position, or
+     * null if that chunk hasn't been written to the target file.
+     */
+    String getTreeHash(long position) {
+        return completedChunks.get(position);
+    }
+
+    /**
+     * Records that the chunk at the given position, with the given hex
+     * encoded tree hash, has been written to the target file.
+     */
+    synchronized void markCompleted(long position, String treeHash) throws IOException {
+        if (treeHash.length() != TREE_HASH_DIGITS) {
+            throw new IllegalArgumentException("Invalid tree hash: " + treeHash);
+        }
+        String digits = Long.toString(position);
+        StringBuilder record = new StringBuilder(RECORD_LENGTH);
+        for (int i = digits.length(); i < POSITION_DIGITS; i++) {
+            record.append('0');
+        }
+        record.append(digits).append(',').append(treeHash).append('\n');
+        output.write(record.toString().getBytes(StringUtils.UTF8));
+    }
+
+    /**
+     * Closes the state file, keeping it so that the download can be resumed.
+     */
+    synchronized void close() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    /**
+     * Closes and deletes the state file, once the download has completed.
+     *
+     * @return true if the state file was deleted.
+     */
+    boolean delete() throws IOException {
+        close();
+        return stateFile.delete();
+    }
+
+    /**
+     * Returns the file the state is kept in.
+     */
+    File getStateFile() {
+        return stateFile;
+    }
+}
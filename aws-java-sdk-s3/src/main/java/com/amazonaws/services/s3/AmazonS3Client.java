@@ -81,6 +81,7 @@ import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressInputStream;
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.handlers.HandlerChainFactory;
+import com.amazonaws.handlers.HandlerContextKey;
 import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpMethodName;
@@ -149,6 +150,7 @@ import com.amazonaws.util.Base16;
 import com.amazonaws.util.Base64;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
+import com.amazonaws.util.FileDigestUtils;
 import com.amazonaws.util.HttpUtils;
 import com.amazonaws.util.IOUtils;
 import com.amazonaws.util.LengthCheckInputStream;
@@ -1284,6 +1286,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
             metadata = new ObjectMetadata();
         rejectNull(bucketName, "The bucket name parameter must be specified when uploading an object");
         rejectNull(key, "The key parameter must be specified when uploading an object");
+        boolean calculateMD5 = false;
         // If a file is specified for upload, we need to pull some additional
         // information from it to auto-configure a few options
         if (file == null) {
@@ -1294,21 +1297,12 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
         } else {
             // Always set the content length, even if it's already set
             metadata.setContentLength(file.length());
-            final boolean calculateMD5 = metadata.getContentMD5() == null;
+            calculateMD5 = metadata.getContentMD5() == null
+                    && !skipMd5CheckStrategy.skipServerSideValidation(putObjectRequest);
             // Only set the content type if it hasn't already been set
             if (metadata.getContentType() == null) {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(file));
             }
-
-            if (calculateMD5 && !skipMd5CheckStrategy.skipServerSideValidation(putObjectRequest)) {
-                try {
-                    String contentMd5_b64 = Md5Utils.md5AsBase64(file);
-                    metadata.setContentMD5(contentMd5_b64);
-                } catch (Exception e) {
-                    throw new AmazonClientException(
-                            "Unable to calculate MD5 hash: " + e.getMessage(), e);
-                }
-            }
             input = newResettableInputStream(file, "Unable to find file to upload");
         }
         final ProgressListener listener;
@@ -1316,6 +1310,9 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
         MD5DigestCalculatingInputStream md5DigestStream = null;
         try {
             Request<PutObjectRequest> request = createRequest(bucketName, key, putObjectRequest, HttpMethodName.PUT);
+            if (file != null) {
+                calculateFileDigests(request, bucketName, key, file, metadata, calculateMD5);
+            }
             // Make backward compatible with buffer size via system property
             final Integer bufsize = Constants.getS3StreamBufferSize();
             if (bufsize != null) {
@@ -1456,6 +1453,42 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
         return result;
     }
 
+    /**
+     * Computes the checksums the upload of the given file needs in a single
+     * pass over its contents: its MD5 digest, unless it is already known, and
+     * its SHA-256 hash if the request is signed with Signature Version 4
+     * without chunked encoding. The SHA-256 hash is handed to the signer
+     * through the request's handler context, so it does not read the file
+     * again.
+     */
+    private void calculateFileDigests(Request<?> request, String bucketName, String key,
+            File file, ObjectMetadata metadata, boolean calculateMD5) {
+        final boolean calculateSha256 = clientOptions.isChunkedEncodingDisabled()
+                && createSigner(request, bucketName, key) instanceof AWSS3V4Signer;
+        if (!calculateMD5 && !calculateSha256) {
+            return;
+        }
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            if (calculateMD5 && calculateSha256) {
+                FileDigestUtils.update(file, md5, sha256);
+            } else {
+                FileDigestUtils.update(file, calculateMD5 ? md5 : sha256);
+            }
+            if (calculateMD5) {
+                metadata.setContentMD5(Base64.encodeAsString(md5.digest()));
+            }
+            if (calculateSha256) {
+                request.addHandlerContext(HandlerContextKey.PAYLOAD_SHA256,
+                        BinaryUtils.toHex(sha256.digest()));
+            }
+        } catch (Exception e) {
+            throw new AmazonClientException(
+                    "Unable to calculate hash of file to upload: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Sets the access control headers for the request given.
      */
@@ -3780,8 +3813,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
 
     @Override
     protected final ExecutionContext createExecutionContext(AmazonWebServiceRequest req) {
-        boolean isMetricsEnabled = isRequestMetricsEnabled(req) || isProfilingEnabled();
-        return new S3ExecutionContext(requestHandler2s, isMetricsEnabled, this);
+        return new S3ExecutionContext(requestHandler2s, newAwsRequestMetrics(req), this);
     }
 
     private <X, Y extends AmazonWebServiceRequest> X invoke(Request<Y> request,
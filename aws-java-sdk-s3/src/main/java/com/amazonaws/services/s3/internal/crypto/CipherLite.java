@@ -26,6 +26,7 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.NullCipher;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * Functions like a {@link Cipher} but provides only a subset of all the
@@ -297,6 +298,27 @@ class CipherLite {
         return cipher.update(input, inputOffset, inputLen);
     }
 
+    /**
+     * Continues a multiple-part encryption or decryption operation (depending
+     * on how the underlying cipher was initialized), processing another data
+     * part into the given output buffer rather than a new one.
+     *
+     * @param output
+     *            the buffer for the result, which must have room for at least
+     *            {@link #getOutputSize(int)} bytes of <code>inputLen</code>
+     *            starting at <code>outputOffset</code>
+     * @return the number of bytes stored in <code>output</code>
+     *
+     * @exception ShortBufferException
+     *                if the given output buffer is too small to hold the
+     *                result
+     * @see #update(byte[], int, int)
+     */
+    int update(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException {
+        return cipher.update(input, inputOffset, inputLen, output, outputOffset);
+    }
+
     /**
      * Returns the algorithm name of the underlying cipher.
      */
@@ -19,6 +19,7 @@ import java.io.InputStream;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 
 import com.amazonaws.internal.SdkFilterInputStream;
 
@@ -49,6 +50,11 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
     private boolean eof;
     private byte[] bufin;
     private byte[] bufout;
+    /**
+     * Reused as the output of the cipher updates, so that processing a chunk
+     * of data doesn't allocate a new buffer.
+     */
+    private byte[] bufupdate;
     private int curr_pos;
     private int max_pos;
 
@@ -239,9 +245,18 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
             }
             return -1;
         }
-        bufout = cipherLite.update(bufin, 0, len);
+        int outlen = cipherLite.getOutputSize(len);
+        if (bufupdate == null || bufupdate.length < outlen)
+            bufupdate = new byte[outlen];
+        try {
+            max_pos = cipherLite.update(bufin, 0, len, bufupdate, 0);
+        } catch (ShortBufferException e) {
+            // never happens given the output size computed above
+            throw new IllegalStateException(e);
+        }
+        bufout = bufupdate;
         curr_pos = 0;
-        return max_pos = (bufout == null ? 0 : bufout.length);
+        return max_pos;
     }
 
     void renewCipherLite() {
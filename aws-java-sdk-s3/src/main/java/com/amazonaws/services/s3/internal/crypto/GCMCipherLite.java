@@ -20,6 +20,7 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * A AES/GCM specific {@link CipherLite} that support re-processing of input
@@ -184,6 +185,33 @@ final class GCMCipherLite extends CipherLite {
         return out;
     }
 
+    /**
+     * Delegates to {@link #update(byte[], int, int)}, which keeps track of the
+     * bytes output for mark and reset, and copies the result into the given
+     * output buffer.
+     */
+    @Override
+    int update(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException {
+        byte[] out = update(input, inputOffset, inputLen);
+        if (out == null)
+            return 0;
+        if (out.length > output.length - outputOffset)
+            throw new ShortBufferException();
+        System.arraycopy(out, 0, output, outputOffset, out.length);
+        return out.length;
+    }
+
+    /**
+     * Returns the size of the output buffer needed by the next update of the
+     * given length, taking into account re-processing by the auxiliary AES/CTR
+     * cipher, which outputs as many bytes as its input.
+     */
+    @Override
+    int getOutputSize(int inputLen) {
+        return Math.max(super.getOutputSize(inputLen), inputLen);
+    }
+
     /**
      * Returns the input delta but only if it will not result in exceeding the
      * limit of the maximum number of bytes that can be processed by AES/GCM.
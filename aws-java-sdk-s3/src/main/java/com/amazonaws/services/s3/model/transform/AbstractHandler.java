@@ -14,7 +14,9 @@
  */
 package com.amazonaws.services.s3.model.transform;
 
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.helpers.DefaultHandler;
@@ -27,6 +29,7 @@ abstract class AbstractHandler extends DefaultHandler {
 
     private final StringBuilder text = new StringBuilder();
     private final LinkedList<String> context = new LinkedList<String>();
+    private Map<String, String> sharedText;
 
     @Override
     public final void startElement(
@@ -66,6 +69,25 @@ abstract class AbstractHandler extends DefaultHandler {
         return text.toString();
     }
 
+    /**
+     * Returns the text of the current element, reusing the same String
+     * instance for equal values seen earlier in the document. Use for values
+     * that repeat across the entries of a listing (ex: owner IDs, storage
+     * classes) so large listings don't hold thousands of equal copies.
+     */
+    protected final String getSharedText() {
+        String value = text.toString();
+        if (sharedText == null) {
+            sharedText = new HashMap<String, String>();
+        }
+        String shared = sharedText.get(value);
+        if (shared == null) {
+            sharedText.put(value, value);
+            return value;
+        }
+        return shared;
+    }
+
     protected final boolean atTopLevel() {
         return context.isEmpty();
     }
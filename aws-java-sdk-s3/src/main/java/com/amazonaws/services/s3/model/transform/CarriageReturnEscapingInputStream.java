@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model.transform;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Package private stream that replaces every carriage return (\r) byte of a
+ * UTF-8 encoded XML document with the explicit character entity
+ * <code>&amp;#013;</code> as the document is read, so the SAX parser doesn't
+ * normalize 0x0D characters in key names to 0x0A. The 0x0D byte never occurs
+ * inside a multi-byte UTF-8 sequence, so no decoding is required.
+ */
+class CarriageReturnEscapingInputStream extends FilterInputStream {
+
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte[] CARRIAGE_RETURN_ENTITY = { '&', '#', '0', '1', '3', ';' };
+
+    /**
+     * Index of the next byte of {@link #CARRIAGE_RETURN_ENTITY} to return, or
+     * -1 if no entity is pending.
+     */
+    private int entityPosition = -1;
+
+    CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (entityPosition < 0) {
+            int b = super.read();
+            if (b != CARRIAGE_RETURN) {
+                return b;
+            }
+            entityPosition = 0;
+        }
+        byte b = CARRIAGE_RETURN_ENTITY[entityPosition++];
+        if (entityPosition == CARRIAGE_RETURN_ENTITY.length) {
+            entityPosition = -1;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (entityPosition >= 0) {
+            return drainEntity(b, off, len);
+        }
+
+        /*
+         * Read straight into the caller's buffer, leaving room for the
+         * expansion of every carriage return, then expand in place from the
+         * end of the buffer backwards.
+         */
+        int read = super.read(b, off, Math.max(1, len / CARRIAGE_RETURN_ENTITY.length));
+        if (read == -1) {
+            return -1;
+        }
+
+        int carriageReturns = 0;
+        for (int i = off; i < off + read; i++) {
+            if (b[i] == CARRIAGE_RETURN) {
+                carriageReturns++;
+            }
+        }
+        if (carriageReturns == 0) {
+            return read;
+        }
+
+        int expanded = read + carriageReturns * (CARRIAGE_RETURN_ENTITY.length - 1);
+        if (expanded > len) {
+            // Only possible for a single carriage return read into a tiny buffer
+            entityPosition = 0;
+            return drainEntity(b, off, len);
+        }
+
+        int src = off + read - 1;
+        int dst = off + expanded - 1;
+        while (src >= off) {
+            byte c = b[src--];
+            if (c == CARRIAGE_RETURN) {
+                for (int i = CARRIAGE_RETURN_ENTITY.length - 1; i >= 0; i--) {
+                    b[dst--] = CARRIAGE_RETURN_ENTITY[i];
+                }
+            } else {
+                b[dst--] = c;
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Copies as much of a pending character entity as fits into the given
+     * buffer and returns the number of bytes copied.
+     */
+    private int drainEntity(byte[] b, int off, int len) {
+        if (entityPosition < 0) {
+            return 0;
+        }
+        int count = Math.min(len, CARRIAGE_RETURN_ENTITY.length - entityPosition);
+        System.arraycopy(CARRIAGE_RETURN_ENTITY, entityPosition, b, off, count);
+        entityPosition += count;
+        if (entityPosition == CARRIAGE_RETURN_ENTITY.length) {
+            entityPosition = -1;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] buffer = new byte[(int) Math.min(n, 512)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return entityPosition < 0 ? 0 : CARRIAGE_RETURN_ENTITY.length - entityPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
@@ -19,10 +19,7 @@ package com.amazonaws.services.s3.model.transform;
 
 import com.amazonaws.services.s3.model.*;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -129,6 +126,13 @@ public class XmlResponsesSaxParser {
         }
     }
 
+    /**
+     * Wraps the given XML document stream so that any carriage return (\r)
+     * characters are replaced with explicit XML character entities as the
+     * document is read, to prevent the SAX parser from misinterpreting 0x0D
+     * characters as 0x0A and being unable to parse the XML. The document is
+     * not buffered, so objects are built as the response is read.
+     */
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws IOException {
 
@@ -140,52 +144,7 @@ public class XmlResponsesSaxParser {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
 
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided into a
-                 * string buffer, so we can replace troublesome characters before
-                 * sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                    new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                    listingDoc.getBytes(UTF8));
-
-            } catch (IOException e) {
-                throw e;
-
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Unable to close response InputStream after failure sanitizing XML document", e);
-                    }
-                }
-                throw new AmazonClientException("Failed to sanitize XML document destined for handler "
-                    + handler.getClass(), t);
-            }
-            return sanitizedInputStream;
+            return new CarriageReturnEscapingInputStream(inputStream);
         }
     }
 
@@ -616,7 +575,7 @@ public class XmlResponsesSaxParser {
                     currentObject.setSize(parseLong(getText()));
 
                 } else if (name.equals("StorageClass")) {
-                    currentObject.setStorageClass(getText());
+                    currentObject.setStorageClass(getSharedText());
 
                 } else if (name.equals("Owner")) {
                     currentObject.setOwner(currentOwner);
@@ -626,10 +585,10 @@ public class XmlResponsesSaxParser {
 
             else if (in("ListBucketResult", "Contents", "Owner")) {
                 if (name.equals("ID")) {
-                    currentOwner.setId(getText());
+                    currentOwner.setId(getSharedText());
 
                 } else if (name.equals("DisplayName")) {
-                    currentOwner.setDisplayName(getText());
+                    currentOwner.setDisplayName(getSharedText());
                 }
             }
 
@@ -782,7 +741,7 @@ public class XmlResponsesSaxParser {
                     currentObject.setSize(parseLong(getText()));
 
                 } else if (name.equals("StorageClass")) {
-                    currentObject.setStorageClass(getText());
+                    currentObject.setStorageClass(getSharedText());
 
                 } else if (name.equals("Owner")) {
                     currentObject.setOwner(currentOwner);
@@ -792,10 +751,10 @@ public class XmlResponsesSaxParser {
 
             else if (in("ListBucketResult", "Contents", "Owner")) {
                 if (name.equals("ID")) {
-                    currentOwner.setId(getText());
+                    currentOwner.setId(getSharedText());
 
                 } else if (name.equals("DisplayName")) {
-                    currentOwner.setDisplayName(getText());
+                    currentOwner.setDisplayName(getSharedText());
                 }
             }
 
@@ -1360,7 +1319,7 @@ public class XmlResponsesSaxParser {
                     currentOwner = null;
 
                 } else if (name.equals("StorageClass")) {
-                    currentVersionSummary.setStorageClass(getText());
+                    currentVersionSummary.setStorageClass(getSharedText());
                 }
             }
 
@@ -1368,9 +1327,9 @@ public class XmlResponsesSaxParser {
                     || in("ListVersionsResult", "DeleteMarker", "Owner")) {
 
                 if (name.equals("ID")) {
-                    currentOwner.setId(getText());
+                    currentOwner.setId(getSharedText());
                 } else if (name.equals("DisplayName")) {
-                    currentOwner.setDisplayName(getText());
+                    currentOwner.setDisplayName(getSharedText());
                 }
             }
         }
@@ -1882,7 +1841,7 @@ public class XmlResponsesSaxParser {
                     currentMultipartUpload.setInitiator(currentOwner);
                     currentOwner = null;
                 } else if (name.equals("StorageClass")) {
-                    currentMultipartUpload.setStorageClass(getText());
+                    currentMultipartUpload.setStorageClass(getSharedText());
                 } else if (name.equals("Initiated")) {
                     currentMultipartUpload.setInitiated(
                             ServiceUtils.parseIso8601Date(getText()));
@@ -1893,9 +1852,9 @@ public class XmlResponsesSaxParser {
                   || in("ListMultipartUploadsResult", "Upload", "Initiator")) {
 
                 if (name.equals("ID")) {
-                    currentOwner.setId(checkForEmptyString(getText()));
+                    currentOwner.setId(checkForEmptyString(getSharedText()));
                 } else if (name.equals("DisplayName")) {
-                    currentOwner.setDisplayName(checkForEmptyString(getText()));
+                    currentOwner.setDisplayName(checkForEmptyString(getSharedText()));
                 }
             }
         }
@@ -14,13 +14,23 @@
  */
 package com.amazonaws.services.s3.transfer;
 
+import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
+
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.net.SocketException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLProtocolException;
@@ -29,17 +39,24 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventFilter;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.internal.FileLocks;
 import com.amazonaws.services.s3.internal.ServiceUtils;
 import com.amazonaws.services.s3.internal.ServiceUtils.RetryableS3DownloadTask;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.DownloadPartCallable.ObjectModifiedException;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.exception.FileLockException;
 import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.util.IOUtils;
 
 final class DownloadCallable implements Callable<File> {
     private static final Log log = LogFactory.getLog(DownloadCallable.class);
@@ -54,6 +71,17 @@ final class DownloadCallable implements Callable<File> {
     private final long timeout;
     private final ScheduledExecutorService executor;
 
+    /** The thread pool on which the byte ranges of a parallel download are fetched. */
+    private final ExecutorService threadPool;
+    /** The size of each byte range of a parallel download; zero for a single stream download. */
+    private final long partSize;
+    /** The last byte of the object to be downloaded. */
+    private long lastByte;
+    /** The ETag of the object, used to ensure every byte range comes from the same object. */
+    private String eTag;
+    /** The part numbers of a parallel download that are already present in the file. */
+    private final Set<Integer> completedParts;
+
     private long expectedFileLength;
 
     DownloadCallable(AmazonS3 s3, CountDownLatch latch,
@@ -62,9 +90,25 @@ final class DownloadCallable implements Callable<File> {
             DownloadImpl download, File dstfile, long origStartingByte,
             long expectedFileLength, long timeout,
                      ScheduledExecutorService executor)
+    {
+        this(s3, latch, req, resumeExistingDownload, download, dstfile,
+                origStartingByte, expectedFileLength, timeout, executor, null,
+                0, -1, null, Collections.<Integer>emptySet());
+    }
+
+    DownloadCallable(AmazonS3 s3, CountDownLatch latch,
+            GetObjectRequest req,
+            boolean resumeExistingDownload,
+            DownloadImpl download, File dstfile, long origStartingByte,
+            long expectedFileLength, long timeout,
+            ScheduledExecutorService executor, ExecutorService threadPool,
+            long partSize, long lastByte, String eTag,
+            Set<Integer> completedParts)
     {
         if (s3 == null || latch == null || req == null || dstfile == null || download == null)
             throw new IllegalArgumentException();
+        if (partSize > 0 && (threadPool == null || completedParts == null))
+            throw new IllegalArgumentException();
         this.s3 = s3;
         this.latch = latch;
         this.req = req;
@@ -75,6 +119,11 @@ final class DownloadCallable implements Callable<File> {
         this.expectedFileLength = expectedFileLength;
         this.timeout = timeout;
         this.executor = executor;
+        this.threadPool = threadPool;
+        this.partSize = partSize;
+        this.lastByte = lastByte;
+        this.eTag = eTag;
+        this.completedParts = completedParts;
     }
 
     /**
@@ -104,6 +153,11 @@ final class DownloadCallable implements Callable<File> {
                 }, timeout, TimeUnit.MILLISECONDS);
             }
             download.setState(TransferState.InProgress);
+            if (isParallelDownload()) {
+                downloadInParallel();
+                download.setState(TransferState.Completed);
+                return dstfile;
+            }
             S3Object s3Object = retryableDownloadS3ObjectToFile(dstfile,
                 new DownloadTaskImpl(s3, download, req), 
                 resumeExistingDownload);
@@ -211,6 +265,148 @@ final class DownloadCallable implements Callable<File> {
         }
     }
 
+    private boolean isParallelDownload() {
+        return partSize > 0;
+    }
+
+    /**
+     * Fetches every byte range not yet present in the destination file on the
+     * thread pool, writing each one directly into its position in the
+     * preallocated file.
+     */
+    private void downloadInParallel() throws Exception {
+        publishProgress(req.getGeneralProgressListener(),
+                ProgressEventType.TRANSFER_STARTED_EVENT);
+
+        File parentDirectory = dstfile.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            if (!(parentDirectory.mkdirs())) {
+                throw new AmazonClientException(
+                        "Unable to create directory in the path"
+                                + parentDirectory.getAbsolutePath());
+            }
+        }
+        if (!FileLocks.lock(dstfile)) {
+            throw new FileLockException("Fail to lock " + dstfile
+                    + " for parallel download");
+        }
+        try {
+            try {
+                downloadParts();
+            } catch (ObjectModifiedException e) {
+                // The parts already in the file, if any, are from the old
+                // object
+                log.info("Restarting the download of " + req.getBucketName()
+                        + "/" + req.getKey() + ", file: " + dstfile, e);
+                restartParallelDownload();
+                downloadParts();
+            }
+        } finally {
+            FileLocks.unlock(dstfile);
+        }
+    }
+
+    /**
+     * Starts the parallel download over from the current version of the
+     * object, discarding the parts already written to the file.
+     */
+    private void restartParallelDownload() {
+        ObjectMetadata objectMetadata = TransferManager.getObjectMetadata(s3, req);
+        if (req.getRange() == null) {
+            lastByte = objectMetadata.getContentLength() - 1;
+        }
+        eTag = objectMetadata.getETag();
+        completedParts.clear();
+        TransferProgress progress = download.getProgress();
+        progress.updateProgress(-progress.getBytesTransferred());
+        progress.setTotalBytesToTransfer(lastByte - origStartingByte + 1);
+    }
+
+    /**
+     * Fetches the byte ranges not present in the file, and waits for them to
+     * be written.
+     */
+    private void downloadParts() throws Exception {
+        final long totalBytes = lastByte - origStartingByte + 1;
+        final List<FutureTask<Integer>> tasks = new ArrayList<FutureTask<Integer>>();
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(dstfile, "rw");
+            raf.setLength(totalBytes);
+            FileChannel channel = raf.getChannel();
+            download.setParallelDownloadParts(partSize, eTag, completedParts);
+
+            int numParts = (int) ((totalBytes + partSize - 1) / partSize);
+            for (int partNumber = 1; partNumber <= numParts; partNumber++) {
+                if (completedParts.contains(partNumber)) {
+                    continue;
+                }
+                long offset = (partNumber - 1) * partSize;
+                long partLength = Math.min(partSize, totalBytes - offset);
+                FutureTask<Integer> task = new FutureTask<Integer>(
+                        new DownloadPartCallable(s3, createPartRequest(
+                                origStartingByte + offset, origStartingByte
+                                        + offset + partLength - 1), download,
+                                channel, offset, partNumber));
+                tasks.add(task);
+                threadPool.execute(task);
+            }
+            for (FutureTask<Integer> task : tasks) {
+                // Runs the part on this thread if no pooled thread has picked
+                // it up yet, so that a saturated pool can't stall the download
+                task.run();
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+        } finally {
+            for (FutureTask<Integer> task : tasks) {
+                task.cancel(true);
+            }
+            IOUtils.closeQuietly(raf, log);
+        }
+    }
+
+    /**
+     * Returns a request for the given byte range of the object, carrying over
+     * the settings of the original request.
+     */
+    private GetObjectRequest createPartRequest(long firstByte, long lastByte) {
+        GetObjectRequest partRequest = new GetObjectRequest(
+                req.getBucketName(), req.getKey(), req.getVersionId())
+                .withRange(firstByte, lastByte)
+                .withResponseHeaders(req.getResponseHeaders())
+                .withRequesterPays(req.isRequesterPays())
+                .withSSECustomerKey(req.getSSECustomerKey());
+        if (eTag != null) {
+            partRequest.withMatchingETagConstraint(eTag);
+        }
+        partRequest.setGeneralProgressListener(new ProgressListenerChain(
+                new PartStartedFilter(), req.getGeneralProgressListener()));
+        partRequest.setRequestMetricCollector(req.getRequestMetricCollector());
+        return TransferManager.appendMultipartUserAgent(partRequest);
+    }
+
+    /**
+     * Blocks the STARTED events of the low-level ranged GET requests, since a
+     * single one is fired for the whole parallel download.
+     */
+    private static final class PartStartedFilter implements ProgressEventFilter {
+        @Override
+        public ProgressEvent filter(ProgressEvent progressEvent) {
+            return progressEvent.getEventType() == ProgressEventType.TRANSFER_STARTED_EVENT
+                 ? null // discard this event
+                 : progressEvent
+                 ;
+        }
+    }
+
     private boolean isTimeoutEnabled() {
         return timeout > 0;
     }
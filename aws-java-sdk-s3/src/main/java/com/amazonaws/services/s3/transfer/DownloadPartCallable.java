@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Fetches a single byte range of a parallel download and writes it into its
+ * position in the destination file. Returns the part number once the range
+ * has been fully written.
+ */
+final class DownloadPartCallable implements Callable<Integer> {
+    private static final Log log = LogFactory.getLog(DownloadPartCallable.class);
+
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private final AmazonS3 s3;
+    private final GetObjectRequest request;
+    private final DownloadImpl download;
+    private final FileChannel channel;
+    private final long position;
+    private final int partNumber;
+
+    DownloadPartCallable(AmazonS3 s3, GetObjectRequest request,
+            DownloadImpl download, FileChannel channel, long position,
+            int partNumber) {
+        this.s3 = s3;
+        this.request = request;
+        this.download = download;
+        this.channel = channel;
+        this.position = position;
+        this.partNumber = partNumber;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        S3Object s3Object = s3.getObject(request);
+        if (s3Object == null) {
+            // The only constraint on a part request is the ETag of the object
+            // captured when the download was started
+            throw new ObjectModifiedException("Unable to download part "
+                    + partNumber + " of " + request.getBucketName() + "/"
+                    + request.getKey()
+                    + ": the object was modified during the download");
+        }
+        long[] range = request.getRange();
+        long expectedLength = range[1] - range[0] + 1;
+        long offset = position;
+        InputStream content = s3Object.getObjectContent();
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            int bytesRead;
+            while ((bytesRead = content.read(buffer)) > -1) {
+                if (Thread.interrupted()) {
+                    throw new AbortedException();
+                }
+                byteBuffer.clear();
+                byteBuffer.limit(bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    offset += channel.write(byteBuffer, offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            // Aborts the underlying connection if the range was not fully read
+            IOUtils.closeQuietly(content, log);
+        }
+        if (offset - position != expectedLength) {
+            throw new AmazonClientException("Unable to download part "
+                    + partNumber + " of " + request.getBucketName() + "/"
+                    + request.getKey() + ": expected " + expectedLength
+                    + " bytes but received " + (offset - position));
+        }
+        download.partCompleted(partNumber);
+        return partNumber;
+    }
+
+    /**
+     * Thrown when a part can't be downloaded because the object no longer
+     * has the ETag the download was started on.
+     */
+    static final class ObjectModifiedException extends AmazonClientException {
+        private static final long serialVersionUID = 1L;
+
+        ObjectModifiedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -21,8 +21,10 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +48,7 @@ import com.amazonaws.event.ProgressListener;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.AmazonS3Encryption;
 import com.amazonaws.services.s3.internal.FileLocks;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
@@ -66,12 +69,17 @@ import com.amazonaws.services.s3.transfer.internal.CopyCallable;
 import com.amazonaws.services.s3.transfer.internal.CopyImpl;
 import com.amazonaws.services.s3.transfer.internal.CopyMonitor;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.DirectoryTransferPipeline;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.FileTreeIterator;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
+import com.amazonaws.services.s3.transfer.internal.ObjectSummaryIterator;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListener;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.internal.StreamingMultipleFileDownload;
+import com.amazonaws.services.s3.transfer.internal.StreamingMultipleFileUpload;
 import com.amazonaws.services.s3.transfer.internal.TransferManagerUtils;
 import com.amazonaws.services.s3.transfer.internal.TransferProgressUpdatingListener;
 import com.amazonaws.services.s3.transfer.internal.TransferStateChangeListener;
@@ -329,14 +337,21 @@ public class TransferManager {
      * finished).
      * </p>
      * <p>
-     * When uploading options from a stream, callers <b>must</b> supply the size of
+     * When uploading options from a stream, callers should supply the size of
      * options in the stream through the content length field in the
      * <code>ObjectMetadata</code> parameter.
      * If no content length is specified for the input
-     * stream, then TransferManager will attempt to buffer all the stream
-     * contents in memory and upload the options as a traditional, single part
-     * upload. Because the entire stream contents must be buffered in memory,
-     * this can be very expensive, and should be avoided whenever possible.
+     * stream, then TransferManager reads the stream in parts of
+     * {@link TransferManagerConfiguration#getMinimumUploadPartSize()} bytes
+     * into a bounded pool of
+     * {@link TransferManagerConfiguration#getStreamingUploadBufferCount()}
+     * reusable buffers, and uploads each part as soon as it is filled. Streams
+     * that end within the first part are uploaded as a traditional, single
+     * part upload. When streaming uploads are disabled, or when uploading
+     * through an {@link com.amazonaws.services.s3.AmazonS3EncryptionClient},
+     * the entire stream contents are buffered in memory and uploaded in a
+     * single part, which can be very expensive and should be avoided whenever
+     * possible.
      * </p>
      * <p>
      * Use the returned <code>Upload</code> object to query the progress of the
@@ -793,7 +808,7 @@ public class TransferManager {
     public Download download(final GetObjectRequest getObjectRequest,
                              final File file, long timeoutMillis) {
         return doDownload(getObjectRequest, file, null, null, OVERWRITE_MODE,
-                timeoutMillis);
+                timeoutMillis, null);
     }
 
     /**
@@ -835,7 +850,7 @@ public class TransferManager {
     public Download download(final GetObjectRequest getObjectRequest,
             final File file, final S3ProgressListener progressListener) {
         return doDownload(getObjectRequest, file, null, progressListener,
-                OVERWRITE_MODE, 0);
+                OVERWRITE_MODE, 0, null);
     }
 
     /**
@@ -884,7 +899,7 @@ public class TransferManager {
                              final File file, final S3ProgressListener progressListener,
                              final long timeoutMillis) {
         return doDownload(getObjectRequest, file, null, progressListener,
-                OVERWRITE_MODE, timeoutMillis);
+                OVERWRITE_MODE, timeoutMillis, null);
     }
 
     /**
@@ -897,7 +912,8 @@ public class TransferManager {
             final File file, final TransferStateChangeListener stateListener,
             final S3ProgressListener s3progressListener,
             final boolean resumeExistingDownload,
-            final long timeoutMillis)
+            final long timeoutMillis,
+            final PersistableDownload persistableDownload)
     {
         assertParameterNotNull(getObjectRequest,
                 "A valid GetObjectRequest must be provided to initiate download");
@@ -923,6 +939,7 @@ public class TransferManager {
 
         long startingByte = 0;
         long lastByte;
+        ObjectMetadata objectMetadata = null;
 
         long[] range = getObjectRequest.getRange();
         if (range != null
@@ -930,14 +947,7 @@ public class TransferManager {
             startingByte = range[0];
             lastByte = range[1];
         } else {
-            GetObjectMetadataRequest getObjectMetadataRequest = new GetObjectMetadataRequest(
-                    getObjectRequest.getBucketName(), getObjectRequest.getKey());
-            if (getObjectRequest.getSSECustomerKey() != null)
-                getObjectMetadataRequest.setSSECustomerKey(getObjectRequest.getSSECustomerKey());
-            if (getObjectRequest.getVersionId() != null)
-                getObjectMetadataRequest.setVersionId(getObjectRequest.getVersionId());
-            final ObjectMetadata objectMetadata = s3.getObjectMetadata(getObjectMetadataRequest);
-
+            objectMetadata = getObjectMetadata(s3, getObjectRequest);
             lastByte = objectMetadata.getContentLength() - 1;
         }
         final long origStartingByte = startingByte;
@@ -949,8 +959,16 @@ public class TransferManager {
         long totalBytesToDownload = lastByte - startingByte + 1;
         transferProgress.setTotalBytesToTransfer(totalBytesToDownload);
 
+        long partSize = 0;
+        if (persistableDownload != null && persistableDownload.getPartSize() > 0) {
+            partSize = persistableDownload.getPartSize();
+        } else if (!resumeExistingDownload
+                && isParallelDownloadEnabled(totalBytesToDownload)) {
+            partSize = configuration.getDownloadPartSize();
+        }
+
         long fileLength = -1;
-        if (resumeExistingDownload) {
+        if (resumeExistingDownload && partSize == 0) {
             if (!FileLocks.lock(file)) {
                 throw new FileLockException("Fail to lock " + file
                         + " for resume download");
@@ -981,16 +999,94 @@ public class TransferManager {
                     "Unable to determine the range for download operation.");
         }
 
+        String eTag = null;
+        final Set<Integer> completedParts = new HashSet<Integer>();
+        if (partSize > 0) {
+            if (objectMetadata == null) {
+                objectMetadata = getObjectMetadata(s3, getObjectRequest);
+            }
+            eTag = objectMetadata.getETag();
+            if (persistableDownload != null) {
+                completedParts.addAll(identifyCompletedPartsForResume(
+                        persistableDownload, file, totalBytesToDownload, eTag));
+                for (Integer partNumber : completedParts) {
+                    long offset = (partNumber - 1) * partSize;
+                    transferProgress.updateProgress(Math.min(partSize,
+                            totalBytesToDownload - offset));
+                }
+            }
+        }
+
         final CountDownLatch latch = new CountDownLatch(1);
         Future<?> future = executorService.submit(
             new DownloadCallable(s3, latch,
                 getObjectRequest, resumeExistingDownload, download, file,
-                origStartingByte, fileLength, timeoutMillis, timedThreadPool));
+                origStartingByte, fileLength, timeoutMillis, timedThreadPool,
+                executorService, partSize, lastByte, eTag, completedParts));
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
     }
 
+    /**
+     * Returns the metadata of the object to be downloaded by the given
+     * request.
+     */
+    static ObjectMetadata getObjectMetadata(AmazonS3 s3, GetObjectRequest getObjectRequest) {
+        GetObjectMetadataRequest getObjectMetadataRequest = new GetObjectMetadataRequest(
+                getObjectRequest.getBucketName(), getObjectRequest.getKey());
+        if (getObjectRequest.getSSECustomerKey() != null)
+            getObjectMetadataRequest.setSSECustomerKey(getObjectRequest.getSSECustomerKey());
+        if (getObjectRequest.getVersionId() != null)
+            getObjectMetadataRequest.setVersionId(getObjectRequest.getVersionId());
+        return s3.getObjectMetadata(getObjectMetadataRequest);
+    }
+
+    /**
+     * Returns true if a download of the given number of bytes should be
+     * fetched in parallel byte ranges. Objects downloaded through the
+     * encryption client are always fetched as a single stream, since they
+     * must be decrypted in order.
+     */
+    private boolean isParallelDownloadEnabled(long totalBytesToDownload) {
+        return !(s3 instanceof AmazonS3Encryption)
+                && configuration.getDownloadPartSize() > 0
+                && totalBytesToDownload > configuration.getParallelDownloadThreshold()
+                && totalBytesToDownload > configuration.getDownloadPartSize();
+    }
+
+    /**
+     * Returns the parts of a paused parallel download that can be skipped on
+     * resume. The recorded parts are only trusted if the object still has the
+     * ETag the download was started on, and the destination file still has
+     * the length it was preallocated to; otherwise the download starts over.
+     */
+    private Set<Integer> identifyCompletedPartsForResume(
+            PersistableDownload persistableDownload, File file,
+            long totalBytesToDownload, String eTag) {
+        Set<Integer> completedParts = new HashSet<Integer>();
+        int[] parts = persistableDownload.getCompletedParts();
+        if (parts == null || !file.exists()
+                || file.length() != totalBytesToDownload) {
+            return completedParts;
+        }
+        if (persistableDownload.getETag() == null
+                || !persistableDownload.getETag().equals(eTag)) {
+            log.debug("Resume parallel download: the object has changed since"
+                    + " the download was paused, restarting it, file: " + file);
+            return completedParts;
+        }
+        for (int partNumber : parts) {
+            completedParts.add(partNumber);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Resume parallel download: skipping " + completedParts.size()
+                    + " completed parts of " + persistableDownload.getPartSize()
+                    + " bytes, file: " + file);
+        }
+        return completedParts;
+    }
+
     /**
      * Downloads all objects in the virtual directory designated by the
      * keyPrefix given to the destination directory given. All virtual
@@ -1017,6 +1113,9 @@ public class TransferManager {
     public MultipleFileDownload downloadDirectory(String bucketName, String keyPrefix, File destinationDirectory) {
         if ( keyPrefix == null )
             keyPrefix = "";
+        if (configuration.getDirectoryTransferMaxFilesInFlight() > 0) {
+            return streamDownloadDirectory(bucketName, keyPrefix, destinationDirectory);
+        }
         List<S3ObjectSummary> objectSummaries = new LinkedList<S3ObjectSummary>();
         Stack<String> commonPrefixes = new Stack<String>();
         commonPrefixes.add(keyPrefix);
@@ -1095,7 +1194,7 @@ public class TransferManager {
                                     .<GetObjectRequest>withGeneralProgressListener(
                                             listener),
                             f,
-                            transferListener, null, false, 0));
+                            transferListener, null, false, 0, null));
         }
 
         if ( downloads.isEmpty() ) {
@@ -1179,6 +1278,11 @@ public class TransferManager {
             throw new IllegalArgumentException("Must provide a directory to upload");
         }
 
+        if (configuration.getDirectoryTransferMaxFilesInFlight() > 0) {
+            return streamUploadDirectory(bucketName, virtualDirectoryKeyPrefix, directory,
+                    includeSubdirectories, metadataProvider);
+        }
+
         List<File> files = new LinkedList<File>();
         listFiles(directory, files, includeSubdirectories);
 
@@ -1355,6 +1459,126 @@ public class TransferManager {
         }
     }
 
+    /**
+     * Uploads the files in the directory given as they are found, keeping at
+     * most {@link TransferManagerConfiguration#getDirectoryTransferMaxFilesInFlight()}
+     * of them in flight.
+     */
+    private MultipleFileUpload streamUploadDirectory(final String bucketName, String virtualDirectoryKeyPrefix,
+            File directory, boolean includeSubdirectories, final ObjectMetadataProvider metadataProvider) {
+        if (virtualDirectoryKeyPrefix == null || virtualDirectoryKeyPrefix.length() == 0) {
+            virtualDirectoryKeyPrefix = "";
+        } else if ( !virtualDirectoryKeyPrefix.endsWith("/") ) {
+            virtualDirectoryKeyPrefix = virtualDirectoryKeyPrefix + "/";
+        }
+        final String keyPrefix = virtualDirectoryKeyPrefix;
+
+        // See uploadFileList for the computation of the keys
+        final int startingPosition = directory.getAbsolutePath().length()
+                + (directory.getAbsolutePath().endsWith(File.separator) ? 0 : 1);
+
+        ProgressListenerChain additionalListeners = new ProgressListenerChain();
+        TransferProgress progress = new TransferProgress();
+        final ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
+                progress, additionalListeners);
+
+        StreamingMultipleFileUpload multipleFileUpload = new StreamingMultipleFileUpload(
+                "Uploading to " + bucketName + "/" + keyPrefix, progress, additionalListeners,
+                keyPrefix, bucketName);
+        DirectoryTransferPipeline<File> pipeline = new DirectoryTransferPipeline<File>(multipleFileUpload,
+                new FileTreeIterator(directory, includeSubdirectories), executorService, progress,
+                configuration.getDirectoryTransferMaxFilesInFlight(),
+                configuration.getMultipartUploadThreshold()) {
+            @Override
+            protected long sizeOf(File f) {
+                return f.length();
+            }
+
+            @Override
+            protected void transferSmallFile(File f) {
+                s3.putObject(appendSingleObjectUserAgent(newPutObjectRequest(f)));
+            }
+
+            @Override
+            protected Transfer startTransfer(File f, TransferStateChangeListener stateListener) {
+                return doUpload(newPutObjectRequest(f), stateListener, null, null);
+            }
+
+            private PutObjectRequest newPutObjectRequest(File f) {
+                String key = f.getAbsolutePath()
+                        .substring(startingPosition)
+                        .replaceAll("\\\\", "/");
+                ObjectMetadata metadata = new ObjectMetadata();
+                if (metadataProvider != null) {
+                    metadataProvider.provideObjectMetadata(f, metadata);
+                }
+                return new PutObjectRequest(bucketName, keyPrefix + key, f)
+                        .withMetadata(metadata)
+                        .<PutObjectRequest> withGeneralProgressListener(listener);
+            }
+        };
+        multipleFileUpload.setMonitor(pipeline);
+        pipeline.start();
+        return multipleFileUpload;
+    }
+
+    /**
+     * Downloads the objects in the virtual directory given as they are
+     * listed, keeping at most
+     * {@link TransferManagerConfiguration#getDirectoryTransferMaxFilesInFlight()}
+     * of them in flight.
+     */
+    private MultipleFileDownload streamDownloadDirectory(String bucketName, String keyPrefix,
+            final File destinationDirectory) {
+        ProgressListenerChain additionalListeners = new ProgressListenerChain();
+        TransferProgress progress = new TransferProgress();
+        final ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
+                progress, additionalListeners);
+
+        StreamingMultipleFileDownload multipleFileDownload = new StreamingMultipleFileDownload(
+                "Downloading from " + bucketName + "/" + keyPrefix, progress, additionalListeners,
+                keyPrefix, bucketName);
+        DirectoryTransferPipeline<S3ObjectSummary> pipeline = new DirectoryTransferPipeline<S3ObjectSummary>(
+                multipleFileDownload,
+                new ObjectSummaryIterator(s3, bucketName, keyPrefix, DEFAULT_DELIMITER),
+                executorService, progress,
+                configuration.getDirectoryTransferMaxFilesInFlight(),
+                configuration.getMultipartUploadThreshold()) {
+            @Override
+            protected long sizeOf(S3ObjectSummary summary) {
+                return summary.getSize();
+            }
+
+            @Override
+            protected void transferSmallFile(S3ObjectSummary summary) {
+                s3.getObject(appendSingleObjectUserAgent(newGetObjectRequest(summary)), newFile(summary));
+            }
+
+            @Override
+            protected Transfer startTransfer(S3ObjectSummary summary, TransferStateChangeListener stateListener) {
+                return doDownload(newGetObjectRequest(summary), newFile(summary), stateListener,
+                        null, false, 0, null);
+            }
+
+            private GetObjectRequest newGetObjectRequest(S3ObjectSummary summary) {
+                return new GetObjectRequest(summary.getBucketName(), summary.getKey())
+                        .<GetObjectRequest> withGeneralProgressListener(listener);
+            }
+
+            private File newFile(S3ObjectSummary summary) {
+                File f = new File(destinationDirectory, summary.getKey());
+                File parentFile = f.getParentFile();
+                if ( !parentFile.exists() && !parentFile.mkdirs() && !parentFile.isDirectory() ) {
+                    throw new AmazonClientException("Couldn't create parent directories for " + f.getAbsolutePath());
+                }
+                return f;
+            }
+        };
+        multipleFileDownload.setMonitor(pipeline);
+        pipeline.start();
+        return multipleFileDownload;
+    }
+
     /**
      * <p>
      * Aborts any multipart uploads that were initiated before the specified date.
@@ -1676,7 +1900,9 @@ public class TransferManager {
     /**
      * Resumes an download operation. This download operation uses the same
      * configuration as the original download. Any data already fetched will be
-     * skipped, and only the remaining data is retrieved from Amazon S3.
+     * skipped, and only the remaining data is retrieved from Amazon S3. If the
+     * original download was performed in parallel byte ranges, only the ranges
+     * that had not been fully written to the file are retrieved again.
      *
      * @param persistableDownload
      *            the download to resume.
@@ -1706,7 +1932,7 @@ public class TransferManager {
         request.setResponseHeaders(persistableDownload.getResponseHeaders());
 
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
-                APPEND_MODE, 0);
+                APPEND_MODE, 0, persistableDownload);
     }
 
     /**
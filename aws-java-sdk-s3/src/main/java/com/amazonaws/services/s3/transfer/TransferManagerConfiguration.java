@@ -39,6 +39,24 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /** Default size of each byte range fetched by a parallel download. */
+    private static final long DEFAULT_DOWNLOAD_PART_SIZE = 16 * MB;
+
+    /**
+     * Default size threshold for when to use parallel ranged downloads;
+     * parallel downloads are disabled unless explicitly configured.
+     */
+    private static final long DEFAULT_PARALLEL_DOWNLOAD_THRESHOLD = Long.MAX_VALUE;
+
+    /** Default number of part buffers used to upload a stream of unknown length. */
+    private static final int DEFAULT_STREAMING_UPLOAD_BUFFER_COUNT = 4;
+
+    /**
+     * Default number of files of a directory transfer in flight at once;
+     * every file is transferred at once unless explicitly configured.
+     */
+    private static final int DEFAULT_DIRECTORY_TRANSFER_MAX_FILES_IN_FLIGHT = 0;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +95,36 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size in bytes of each byte range fetched when a download is carried
+     * out in parallel. Each range is retrieved with its own ranged GET request
+     * on the transfer manager's thread pool.
+     */
+    private long downloadPartSize = DEFAULT_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The size threshold, in bytes, for when to download an object in
+     * parallel byte ranges. Downloads over this size will be split into
+     * ranges of {@link #downloadPartSize} bytes that are fetched concurrently
+     * and written directly into their position in the destination file.
+     */
+    private long parallelDownloadThreshold = DEFAULT_PARALLEL_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The number of part buffers used to upload a stream whose content length
+     * is not known. Each buffer holds {@link #minimumUploadPartSize} bytes, so
+     * this bounds both the memory used by such an upload and the number of its
+     * parts uploaded concurrently.
+     */
+    private int streamingUploadBufferCount = DEFAULT_STREAMING_UPLOAD_BUFFER_COUNT;
+
+    /**
+     * The most files of a directory upload or download transferred at the
+     * same time. The directory is walked lazily, as the files in flight
+     * complete, instead of being listed up front.
+     */
+    private int directoryTransferMaxFilesInFlight = DEFAULT_DIRECTORY_TRANSFER_MAX_FILES_IN_FLIGHT;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -193,6 +241,120 @@ public class TransferManagerConfiguration {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
 
+    /**
+     * Returns the size in bytes of each byte range fetched when a download is
+     * carried out in parallel.
+     *
+     * @return The size in bytes of each byte range of a parallel download.
+     */
+    public long getDownloadPartSize() {
+        return downloadPartSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range fetched when a download is
+     * carried out in parallel. Decreasing this size will result in an
+     * increase in the number of ranged GET requests sent to the server.
+     *
+     * @param downloadPartSize
+     *            The size in bytes of each byte range of a parallel download.
+     */
+    public void setDownloadPartSize(long downloadPartSize) {
+        this.downloadPartSize = downloadPartSize;
+    }
+
+    /**
+     * Returns the size threshold in bytes for when to download an object in
+     * parallel byte ranges. By default parallel downloads are disabled.
+     *
+     * @return The size threshold in bytes for when to use parallel downloads.
+     */
+    public long getParallelDownloadThreshold() {
+        return parallelDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to download an object in
+     * parallel byte ranges. Downloads over this size will be split into
+     * ranges of {@link #getDownloadPartSize()} bytes, each of which is fetched
+     * concurrently and written into its position in the destination file.
+     * <p>
+     * Parallel downloads are not used with {@link com.amazonaws.services.s3.AmazonS3EncryptionClient},
+     * since the object content must be decrypted as a single stream.
+     *
+     * @param parallelDownloadThreshold
+     *            The size threshold in bytes for when to use parallel
+     *            downloads.
+     */
+    public void setParallelDownloadThreshold(long parallelDownloadThreshold) {
+        this.parallelDownloadThreshold = parallelDownloadThreshold;
+    }
+
+    /**
+     * Returns the number of part buffers used to upload a stream whose
+     * content length is not known.
+     *
+     * @return The number of part buffers of a streaming upload.
+     */
+    public int getStreamingUploadBufferCount() {
+        return streamingUploadBufferCount;
+    }
+
+    /**
+     * Sets the number of part buffers used to upload a stream whose content
+     * length is not known. Such a stream is read in parts of
+     * {@link #getMinimumUploadPartSize()} bytes, each of which is uploaded
+     * while the following parts are read; reading waits for a buffer to be
+     * freed once all of them hold parts being uploaded. The memory used by
+     * the upload is therefore bounded by the buffer count times the part
+     * size, whatever the length of the stream.
+     * <p>
+     * Since an upload has at most 10,000 parts, a streaming upload can store
+     * objects of up to 10,000 times the minimum part size. Setting the buffer
+     * count to zero disables streaming uploads; streams of unknown length are
+     * then buffered entirely in memory and uploaded in a single part.
+     *
+     * @param streamingUploadBufferCount
+     *            The number of part buffers of a streaming upload.
+     */
+    public void setStreamingUploadBufferCount(int streamingUploadBufferCount) {
+        this.streamingUploadBufferCount = streamingUploadBufferCount;
+    }
+
+    /**
+     * Returns the most files of a directory upload or download transferred at
+     * the same time; zero if all the files are transferred at once.
+     *
+     * @return The most files of a directory transfer in flight at once.
+     */
+    public int getDirectoryTransferMaxFilesInFlight() {
+        return directoryTransferMaxFilesInFlight;
+    }
+
+    /**
+     * Sets the most files of a directory upload or download transferred at
+     * the same time.
+     * <p>
+     * By default, a directory transfer lists all the files of the directory
+     * and starts a transfer for each of them up front, which takes memory in
+     * proportion to the number of files. With a positive limit, the directory
+     * is instead walked as files complete, so that memory use and open files
+     * are bounded by the limit whatever the size of the directory. Files
+     * below the {@link #getMultipartUploadThreshold() multipart upload
+     * threshold} are then transferred in batches, several to a thread, and
+     * the transfer's total size is only known once the whole directory has
+     * been walked. The first file that fails stops the transfer, and
+     * {@link MultipleFileUpload#getSubTransfers()} only returns the transfers
+     * of large files currently in flight.
+     *
+     * @param directoryTransferMaxFilesInFlight
+     *            The most files of a directory transfer in flight at once;
+     *            zero to transfer them all at once.
+     */
+    public void setDirectoryTransferMaxFilesInFlight(int directoryTransferMaxFilesInFlight) {
+        this.directoryTransferMaxFilesInFlight = directoryTransferMaxFilesInFlight;
+    }
+
     /**
      * Sets the size threshold in bytes for when to use multipart uploads.
      * Uploads over this size will automatically use a multipart upload
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+
+/**
+ * Transfers the files of a directory upload or download as they are found,
+ * keeping a bounded number of them in flight, instead of listing them all and
+ * starting a transfer for each up front.
+ * <p>
+ * Entries are taken from an iterator that walks the directory (or lists the
+ * virtual directory) lazily, only as far as needed to fill the window of files
+ * in flight. Files smaller than the small file threshold are transferred in
+ * batches, several to a task on the transfer manager's thread pool, without a
+ * {@link Transfer} of their own. Larger files get a regular single-file
+ * transfer, so that they can be transferred in parts. Progress is tracked in
+ * aggregate: bytes in the shared {@link TransferProgress}, files in counters.
+ * <p>
+ * The first file that fails stops the pipeline from starting further files;
+ * the directory transfer fails once the files in flight are done.
+ *
+ * @param <E>
+ *            The type of the entries transferred, i.e. files or object
+ *            summaries.
+ */
+public abstract class DirectoryTransferPipeline<E> implements TransferMonitor {
+
+    private static final Log log = LogFactory.getLog(DirectoryTransferPipeline.class);
+
+    /** The most small files transferred by a single task. */
+    private static final int MAX_BATCH_SIZE = 16;
+
+    /**
+     * The number of batches that should fit in the window at once; the
+     * default number of transfer manager threads.
+     */
+    private static final int MIN_CONCURRENT_BATCHES = 10;
+
+    private final MultipleFileTransfer<?> transfer;
+    private final Iterator<? extends E> entries;
+    private final ExecutorService executorService;
+    private final TransferProgress transferProgress;
+    private final int maxFilesInFlight;
+    private final long smallFileThreshold;
+    private final int batchSize;
+
+    /** The single-file transfers in flight. */
+    private final Set<Transfer> subTransfers =
+            Collections.newSetFromMap(new ConcurrentHashMap<Transfer, Boolean>());
+
+    /** Files in flight, plus the slots reserved by the thread filling the window. */
+    private final AtomicInteger filesInFlight = new AtomicInteger();
+    private final AtomicLong filesTransferred = new AtomicLong();
+    private final AtomicLong filesDiscovered = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile boolean walkFinished;
+    private volatile boolean stopped;
+    private volatile boolean canceled;
+
+    /** The first failure; either an exception or the failed transfer. */
+    private final AtomicReference<Object> failure = new AtomicReference<Object>();
+
+    /** Guarded by this. */
+    private boolean filling;
+    private boolean refill;
+
+    /** The next entry, read ahead by the filling thread; guarded by filling. */
+    private E pending;
+    private long bytesDiscovered;
+
+    private final Future<?> future = new Future<Object>() {
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return canceled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return DirectoryTransferPipeline.this.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            done.await();
+            return result();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result();
+        }
+    };
+
+    /**
+     * @param transfer
+     *            The directory transfer whose state is driven by the pipeline.
+     * @param entries
+     *            The entries to transfer, read lazily.
+     * @param executorService
+     *            Runs the batches of small files.
+     * @param transferProgress
+     *            The progress of the directory transfer; its total is set once
+     *            all the entries have been read.
+     * @param maxFilesInFlight
+     *            The most files transferred at the same time.
+     * @param smallFileThreshold
+     *            The size, in bytes, below which files are transferred in
+     *            batches.
+     */
+    protected DirectoryTransferPipeline(MultipleFileTransfer<?> transfer, Iterator<? extends E> entries,
+            ExecutorService executorService, TransferProgress transferProgress,
+            int maxFilesInFlight, long smallFileThreshold) {
+        this.transfer = transfer;
+        this.entries = entries;
+        this.executorService = executorService;
+        this.transferProgress = transferProgress;
+        this.maxFilesInFlight = maxFilesInFlight;
+        this.smallFileThreshold = smallFileThreshold;
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, maxFilesInFlight / MIN_CONCURRENT_BATCHES));
+    }
+
+    /**
+     * Returns the size of the given entry, in bytes.
+     */
+    protected abstract long sizeOf(E entry);
+
+    /**
+     * Transfers a small file on the calling thread.
+     */
+    protected abstract void transferSmallFile(E entry) throws Exception;
+
+    /**
+     * Starts the transfer of a large file, notifying the given listener of
+     * its state changes.
+     */
+    protected abstract Transfer startTransfer(E entry, TransferStateChangeListener stateListener);
+
+    /**
+     * Starts transferring the first files; the rest are started as files in
+     * flight complete.
+     */
+    public void start() {
+        fill();
+    }
+
+    /**
+     * Stops starting files; the directory transfer is canceled once the files
+     * in flight are done.
+     */
+    public void cancel() {
+        canceled = true;
+        stopped = true;
+        fill();
+    }
+
+    /**
+     * Returns the single-file transfers currently in flight; small files
+     * transferred in batches have none.
+     */
+    public Collection<Transfer> getSubTransfers() {
+        return subTransfers;
+    }
+
+    /**
+     * Returns the number of files transferred so far.
+     */
+    public long getFilesTransferred() {
+        return filesTransferred.get();
+    }
+
+    /**
+     * Returns the number of files found so far.
+     */
+    public long getFilesDiscovered() {
+        return filesDiscovered.get();
+    }
+
+    @Override
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Starts files until the window is full or there are no more, and
+     * finishes the directory transfer if nothing is left in flight. Only one
+     * thread fills the window at a time; a thread that finds another one
+     * filling it asks it to go round once more.
+     */
+    private void fill() {
+        synchronized (this) {
+            if (filling) {
+                refill = true;
+                return;
+            }
+            filling = true;
+        }
+        for (;;) {
+            try {
+                startFiles();
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            synchronized (this) {
+                if (!refill) {
+                    filling = false;
+                    break;
+                }
+                refill = false;
+            }
+        }
+        if (filesInFlight.get() == 0 && (walkFinished || stopped)) {
+            finish();
+        }
+    }
+
+    private void startFiles() {
+        while (!stopped && reserveSlot()) {
+            E entry = nextEntry();
+            if (entry == null) {
+                filesInFlight.decrementAndGet();
+                return;
+            }
+            if (sizeOf(entry) >= smallFileThreshold) {
+                startLargeFile(entry);
+                continue;
+            }
+            List<E> batch = new ArrayList<E>(batchSize);
+            batch.add(entry);
+            while (batch.size() < batchSize && reserveSlot()) {
+                E next = nextEntry();
+                if (next == null || sizeOf(next) >= smallFileThreshold) {
+                    // Large files are started on their own, in the next round
+                    filesInFlight.decrementAndGet();
+                    pending = next;
+                    break;
+                }
+                batch.add(next);
+            }
+            submitBatch(batch);
+        }
+    }
+
+    /**
+     * Takes a slot in the window of files in flight; returns false if the
+     * window is full.
+     */
+    private boolean reserveSlot() {
+        if (filesInFlight.incrementAndGet() <= maxFilesInFlight) {
+            return true;
+        }
+        filesInFlight.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the next entry to transfer; or null if there are no more.
+     */
+    private E nextEntry() {
+        if (pending != null) {
+            E entry = pending;
+            pending = null;
+            return entry;
+        }
+        if (walkFinished) {
+            return null;
+        }
+        try {
+            if (entries.hasNext()) {
+                E entry = entries.next();
+                bytesDiscovered += sizeOf(entry);
+                filesDiscovered.incrementAndGet();
+                return entry;
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+            return null;
+        }
+        transferProgress.setTotalBytesToTransfer(bytesDiscovered);
+        walkFinished = true;
+        return null;
+    }
+
+    private void submitBatch(final List<E> batch) {
+        try {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    markStarted();
+                    for (E entry : batch) {
+                        if (stopped) {
+                            break;
+                        }
+                        try {
+                            transferSmallFile(entry);
+                            filesTransferred.incrementAndGet();
+                        } catch (Exception e) {
+                            fail(e);
+                        }
+                    }
+                    filesInFlight.addAndGet(-batch.size());
+                    fill();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fail(e);
+            filesInFlight.addAndGet(-batch.size());
+        }
+    }
+
+    private void startLargeFile(E entry) {
+        final AtomicBoolean fileDone = new AtomicBoolean();
+        TransferStateChangeListener stateListener = new TransferStateChangeListener() {
+            @Override
+            public void transferStateChanged(Transfer fileTransfer, TransferState state) {
+                if (state == TransferState.InProgress) {
+                    markStarted();
+                    return;
+                }
+                if (!fileTransfer.isDone() || !fileDone.compareAndSet(false, true)) {
+                    return;
+                }
+                subTransfers.remove(fileTransfer);
+                if (state == TransferState.Completed) {
+                    filesTransferred.incrementAndGet();
+                } else if (state == TransferState.Canceled) {
+                    canceled = true;
+                    stopped = true;
+                } else {
+                    fail(fileTransfer);
+                }
+                filesInFlight.decrementAndGet();
+                fill();
+            }
+        };
+        try {
+            Transfer fileTransfer = startTransfer(entry, stateListener);
+            subTransfers.add(fileTransfer);
+            if (fileDone.get()) {
+                subTransfers.remove(fileTransfer);
+            }
+        } catch (RuntimeException e) {
+            if (fileDone.compareAndSet(false, true)) {
+                fail(e);
+                filesInFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void markStarted() {
+        if (started.compareAndSet(false, true)) {
+            transfer.setState(TransferState.InProgress);
+        }
+    }
+
+    private void fail(Object cause) {
+        if (failure.compareAndSet(null, cause) && cause instanceof Throwable) {
+            log.debug("Directory transfer failed", (Throwable) cause);
+        }
+        stopped = true;
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (failure.get() != null) {
+            transfer.setState(TransferState.Failed);
+        } else if (canceled) {
+            transfer.setState(TransferState.Canceled);
+        } else {
+            transfer.setState(TransferState.Completed);
+        }
+        done.countDown();
+    }
+
+    private Object result() throws ExecutionException {
+        Object cause = failure.get();
+        if (cause instanceof Transfer) {
+            AmazonClientException e;
+            try {
+                e = ((Transfer) cause).waitForException();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                e = null;
+            }
+            throw new ExecutionException(e != null ? e
+                    : new AmazonClientException("Unable to complete transfer: " + ((Transfer) cause).getDescription()));
+        } else if (cause != null) {
+            throw new ExecutionException((Throwable) cause);
+        } else if (canceled) {
+            throw new CancellationException();
+        }
+        return transfer;
+    }
+}
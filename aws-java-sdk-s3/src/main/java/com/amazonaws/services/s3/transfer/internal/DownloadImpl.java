@@ -16,6 +16,9 @@ package com.amazonaws.services.s3.transfer.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListenerChain;
@@ -33,7 +36,28 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     /**
      * Information to resume if the download is paused.
      */
-    private final PersistableDownload persistableDownload;
+    private PersistableDownload persistableDownload;
+
+    /**
+     * The size of each byte range if the download is performed in parallel;
+     * zero otherwise.
+     */
+    private long partSize;
+
+    /**
+     * The part numbers of a parallel download that have been fully written
+     * to the destination file.
+     */
+    private final SortedSet<Integer> completedParts = new TreeSet<Integer>();
+
+    /**
+     * The ETag of the object a parallel download is performed on.
+     */
+    private String eTag;
+
+    private final GetObjectRequest getObjectRequest;
+
+    private final File file;
 
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
@@ -41,6 +65,8 @@ public class DownloadImpl extends AbstractTransfer implements Download {
             GetObjectRequest getObjectRequest, File file) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
         this.persistableDownload = captureDownloadState(getObjectRequest, file);
         S3ProgressPublisher.publishTransferPersistable(progressListenerChain,
                 persistableDownload);
@@ -105,6 +131,30 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         this.s3Object = s3Object;
     }
 
+    /**
+     * Marks this download as being performed in parallel byte ranges of the
+     * given size, of the object with the given ETag, with the given parts
+     * already present in the destination file.
+     */
+    public synchronized void setParallelDownloadParts(long partSize,
+            String eTag, Collection<Integer> completedParts) {
+        this.partSize = partSize;
+        this.eTag = eTag;
+        this.completedParts.clear();
+        this.completedParts.addAll(completedParts);
+        this.persistableDownload = captureDownloadState(getObjectRequest, file);
+    }
+
+    /**
+     * Records that the given part of a parallel download has been fully
+     * written to the destination file, so that it is skipped if the download
+     * is paused and later resumed.
+     */
+    public synchronized void partCompleted(int partNumber) {
+        completedParts.add(partNumber);
+        this.persistableDownload = captureDownloadState(getObjectRequest, file);
+    }
+
     /**
      * This method is also responsible for firing COMPLETED signal to the
      * listeners.
@@ -118,6 +168,10 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         }
     }
 
+    private synchronized PersistableDownload getPersistableDownload() {
+        return persistableDownload;
+    }
+
     /**
      * Returns the captured state of the download; or null if it should not be
      * captured (for security reason).
@@ -130,11 +184,24 @@ public class DownloadImpl extends AbstractTransfer implements Download {
                     getObjectRequest.getKey(), getObjectRequest.getVersionId(),
                     getObjectRequest.getRange(),
                     getObjectRequest.getResponseHeaders(),
-                    getObjectRequest.isRequesterPays(), file.getAbsolutePath());
+                    getObjectRequest.isRequesterPays(), file.getAbsolutePath(),
+                    partSize, toArray(completedParts), eTag);
         }
         return null;
     }
 
+    private static int[] toArray(Collection<Integer> partNumbers) {
+        if (partNumbers.isEmpty()) {
+            return null;
+        }
+        int[] parts = new int[partNumbers.size()];
+        int i = 0;
+        for (Integer partNumber : partNumbers) {
+            parts[i++] = partNumber;
+        }
+        return parts;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -146,6 +213,7 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         TransferState currentState = getState();
         this.monitor.getFuture().cancel(true);
 
+        PersistableDownload persistableDownload = getPersistableDownload();
         if (persistableDownload == null) {
             throw new PauseException(TransferManagerUtils.determinePauseStatus(
                     currentState, forceCancel));
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the files in a directory, optionally including the files in
+ * its subdirectories, listing each directory only once the files listed
+ * before it have been consumed.
+ */
+public class FileTreeIterator implements Iterator<File> {
+
+    private final boolean includeSubdirectories;
+    private final Deque<File> directories = new ArrayDeque<File>();
+    private File[] listing;
+    private int index;
+    private File next;
+
+    public FileTreeIterator(File directory, boolean includeSubdirectories) {
+        this.includeSubdirectories = includeSubdirectories;
+        directories.push(directory);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (listing != null && index < listing.length) {
+                File f = listing[index++];
+                if (f.isDirectory()) {
+                    if (includeSubdirectories) {
+                        directories.push(f);
+                    }
+                } else if (f.isFile()) {
+                    next = f;
+                }
+            } else if (directories.isEmpty()) {
+                return false;
+            } else {
+                listing = directories.pop().listFiles();
+                index = 0;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public File next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        File f = next;
+        next = null;
+        return f;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Iterates over the objects in a virtual directory and its virtual
+ * subdirectories, depth first, fetching each page of the listing only once the
+ * objects of the previous pages have been consumed.
+ * <p>
+ * Objects whose key is also the prefix of a virtual subdirectory are skipped,
+ * since a file and a directory of the same name can't both be downloaded.
+ */
+public class ObjectSummaryIterator implements Iterator<S3ObjectSummary> {
+
+    private static final Log log = LogFactory.getLog(ObjectSummaryIterator.class);
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private final String delimiter;
+    private final Deque<String> prefixes = new ArrayDeque<String>();
+    private String prefix;
+    private ObjectListing listing;
+    private int index;
+    private S3ObjectSummary next;
+
+    public ObjectSummaryIterator(AmazonS3 s3, String bucketName, String keyPrefix, String delimiter) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+        this.delimiter = delimiter;
+        prefixes.push(keyPrefix);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            List<S3ObjectSummary> summaries = listing == null ? null : listing.getObjectSummaries();
+            if (summaries != null && index < summaries.size()) {
+                S3ObjectSummary s = summaries.get(index++);
+                if (!s.getKey().equals(prefix)
+                        && !listing.getCommonPrefixes().contains(s.getKey() + delimiter)) {
+                    next = s;
+                } else {
+                    log.debug("Skipping download for object " + s.getKey()
+                            + " since it is also a virtual directory");
+                }
+            } else if (listing != null && listing.isTruncated()) {
+                listing = s3.listNextBatchOfObjects(listing);
+                index = 0;
+                pushCommonPrefixes();
+            } else if (prefixes.isEmpty()) {
+                return false;
+            } else {
+                prefix = prefixes.pop();
+                listing = s3.listObjects(new ListObjectsRequest().withBucketName(bucketName)
+                        .withDelimiter(delimiter).withPrefix(prefix));
+                index = 0;
+                pushCommonPrefixes();
+            }
+        }
+        return true;
+    }
+
+    private void pushCommonPrefixes() {
+        for (String commonPrefix : listing.getCommonPrefixes()) {
+            prefixes.push(commonPrefix);
+        }
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        S3ObjectSummary s = next;
+        next = null;
+        return s;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
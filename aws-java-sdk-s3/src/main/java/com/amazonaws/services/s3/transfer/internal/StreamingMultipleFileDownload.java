@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.Download;
+import com.amazonaws.services.s3.transfer.MultipleFileDownload;
+import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+
+/**
+ * Multiple file download when downloading an entire virtual directory through
+ * a {@link DirectoryTransferPipeline}, which must be set as its monitor.
+ */
+public class StreamingMultipleFileDownload extends MultipleFileTransfer<Download> implements MultipleFileDownload {
+
+    private final String keyPrefix;
+    private final String bucketName;
+
+    public StreamingMultipleFileDownload(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, String keyPrefix, String bucketName) {
+        super(description, transferProgress, progressListenerChain, Collections.<Download>emptyList());
+        this.keyPrefix = keyPrefix;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Returns the key prefix of the virtual directory being downloaded.
+     */
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    /**
+     * Returns the name of the bucket from which files are downloaded.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the number of files downloaded so far.
+     */
+    public long getFilesTransferred() {
+        return pipeline().getFilesTransferred();
+    }
+
+    /**
+     * Stops starting downloads and aborts the downloads in flight.
+     */
+    public void abort() throws IOException {
+        DirectoryTransferPipeline<?> pipeline = pipeline();
+        pipeline.cancel();
+        /*
+         * As in MultipleFileDownloadImpl, first cancel all the downloads and
+         * only then notify the state change listeners, so that the pipeline
+         * doesn't contend with the worker threads.
+         */
+        Transfer[] downloads = pipeline.getSubTransfers().toArray(new Transfer[0]);
+        for (Transfer fileDownload : downloads) {
+            ((DownloadImpl) fileDownload).abortWithoutNotifyingStateChangeListener();
+        }
+        for (Transfer fileDownload : downloads) {
+            ((DownloadImpl) fileDownload).notifyStateChangeListeners(TransferState.Canceled);
+        }
+    }
+
+    private DirectoryTransferPipeline<?> pipeline() {
+        return (DirectoryTransferPipeline<?>) getMonitor();
+    }
+}
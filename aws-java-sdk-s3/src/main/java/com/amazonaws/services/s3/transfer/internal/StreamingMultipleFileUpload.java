@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.MultipleFileUpload;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+import com.amazonaws.services.s3.transfer.Upload;
+
+/**
+ * Multiple file upload when uploading an entire directory through a
+ * {@link DirectoryTransferPipeline}, which must be set as its monitor.
+ */
+public class StreamingMultipleFileUpload extends MultipleFileTransfer<Upload> implements MultipleFileUpload {
+
+    private final String keyPrefix;
+    private final String bucketName;
+
+    public StreamingMultipleFileUpload(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, String keyPrefix, String bucketName) {
+        super(description, transferProgress, progressListenerChain, Collections.<Upload>emptyList());
+        this.keyPrefix = keyPrefix;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Returns the key prefix of the virtual directory being uploaded to.
+     */
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    /**
+     * Returns the name of the bucket to which files are uploaded.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the uploads of large files currently in flight. Files that are
+     * done, and small files, which are uploaded in batches, have none.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<? extends Upload> getSubTransfers() {
+        Collection<?> uploads = pipeline().getSubTransfers();
+        return Collections.unmodifiableCollection((Collection<? extends Upload>) uploads);
+    }
+
+    /**
+     * Returns the number of files uploaded so far.
+     */
+    public long getFilesTransferred() {
+        return pipeline().getFilesTransferred();
+    }
+
+    private DirectoryTransferPipeline<?> pipeline() {
+        return (DirectoryTransferPipeline<?>) getMonitor();
+    }
+}
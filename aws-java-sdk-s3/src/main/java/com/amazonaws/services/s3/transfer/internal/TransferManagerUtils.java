@@ -132,6 +132,33 @@ public class TransferManagerUtils {
         return (contentLength > configuration.getMultipartUploadThreshold());
     }
 
+    /**
+     * Returns true if the specified request uploads a stream of unknown length
+     * that should be read and uploaded in parts as it is read, rather than
+     * buffered in memory in its entirety.
+     *
+     * @param putObjectRequest
+     *            The request containing all the details of the upload.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     * @param isUsingEncryption
+     *            True if the upload is an encrypted upload, otherwise false.
+     *
+     * @return True if the specified request should be processed as a
+     *         streaming upload.
+     */
+    public static boolean shouldUseStreamingUpload(PutObjectRequest putObjectRequest,
+            TransferManagerConfiguration configuration, boolean isUsingEncryption) {
+        // Encrypted parts must be encrypted in sequence and the last one must
+        // be flagged as such before it is read, which needs the content length.
+        if (isUsingEncryption) return false;
+
+        return putObjectRequest.getInputStream() != null
+                && getContentLength(putObjectRequest) < 0
+                && configuration.getStreamingUploadBufferCount() > 0;
+    }
+
     /**
      * Convenience method for getting the file specified in a request.
      */
@@ -15,20 +15,28 @@
 package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
+import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
@@ -57,12 +65,13 @@ public class UploadCallable implements Callable<UploadResult> {
     private final AmazonS3 s3;
     private final ExecutorService threadPool;
     private final PutObjectRequest origReq;
-    private String multipartUploadId;
+    private volatile String multipartUploadId;
     private final UploadImpl upload;
 
     private static final Log log = LogFactory.getLog(UploadCallable.class);
     private final TransferManagerConfiguration configuration;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    private final List<Future<PartETag>> futures = Collections
+            .synchronizedList(new ArrayList<Future<PartETag>>());
     private final ProgressListenerChain listener;
     private final TransferProgress transferProgress;
 
@@ -74,6 +83,18 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private PersistableUpload persistableUpload;
 
+    /**
+     * True if the request uploads a stream of unknown length, which is read
+     * and uploaded in parts as it is read.
+     */
+    private final boolean isStreamingUpload;
+
+    /**
+     * True once a streaming upload has read more than one part, and is
+     * therefore carried out as a multipart upload.
+     */
+    private volatile boolean streamedInParts;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest origReq,
@@ -88,6 +109,8 @@ public class UploadCallable implements Callable<UploadResult> {
         this.upload = upload;
         this.multipartUploadId = uploadId;
         this.transferProgress = transferProgress;
+        this.isStreamingUpload = TransferManagerUtils.shouldUseStreamingUpload(
+                origReq, configuration, s3 instanceof AmazonS3Encryption);
     }
 
     List<Future<PartETag>> getFutures() {
@@ -111,12 +134,15 @@ public class UploadCallable implements Callable<UploadResult> {
      * @return True if this UploadCallable is processing a multipart upload.
      */
     public boolean isMultipartUpload() {
+        if (isStreamingUpload) return streamedInParts;
         return TransferManagerUtils.shouldUseMultipartUpload(origReq, configuration);
     }
 
     public UploadResult call() throws Exception {
         upload.setState(TransferState.InProgress);
-        if ( isMultipartUpload() ) {
+        if ( isStreamingUpload ) {
+            return uploadStream();
+        } else if ( isMultipartUpload() ) {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
             return uploadInParts();
         } else {
@@ -138,6 +164,150 @@ public class UploadCallable implements Callable<UploadResult> {
         return uploadResult;
     }
 
+    /**
+     * Uploads a stream of unknown length. The stream is read into part
+     * buffers from a bounded pool; each full buffer is uploaded as a part on
+     * the thread pool while the following parts are read, and goes back to
+     * the pool once its part is uploaded. A stream that ends within the first
+     * part is uploaded in a single chunk.
+     */
+    private UploadResult uploadStream() throws Exception {
+        final InputStream inputStream = origReq.getInputStream();
+        final int partSize = (int) Math.min(configuration.getMinimumUploadPartSize(), Integer.MAX_VALUE);
+        final int maxBuffers = configuration.getStreamingUploadBufferCount();
+
+        final LinkedList<byte[]> freeBuffers = new LinkedList<byte[]>();
+        final LinkedList<StreamedPart> inFlight = new LinkedList<StreamedPart>();
+        final List<PartETag> partETags = new ArrayList<PartETag>();
+        UploadPartRequestFactory requestFactory = null;
+        int buffers = 0;
+        long totalBytes = 0;
+
+        try {
+            while (true) {
+                if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+
+                byte[] buffer = freeBuffers.poll();
+                if (buffer == null) {
+                    if (buffers < maxBuffers) {
+                        buffer = new byte[partSize];
+                        buffers++;
+                    } else {
+                        buffer = awaitPart(inFlight.removeFirst(), partETags);
+                    }
+                }
+
+                int length = readFully(inputStream, buffer);
+                totalBytes += length;
+
+                if (requestFactory == null) {
+                    if (length < partSize) {
+                        return uploadInOneChunk(buffer, length);
+                    }
+                    multipartUploadId = initiateMultipartUpload(origReq, false);
+                    requestFactory = new UploadPartRequestFactory(origReq, multipartUploadId, partSize);
+                    streamedInParts = true;
+                    publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+                }
+                if (length == 0) break;
+
+                if (partETags.size() + inFlight.size() >= MAXIMUM_UPLOAD_PARTS) {
+                    throw new AmazonClientException("Unable to upload stream of more than "
+                            + MAXIMUM_UPLOAD_PARTS + " parts of " + partSize
+                            + " bytes. Increase the minimum upload part size to upload larger streams.");
+                }
+                boolean isLastPart = length < partSize;
+                StreamedPart part = new StreamedPart(buffer, new UploadPartCallable(s3,
+                        requestFactory.getNextUploadPartRequest(buffer, length, isLastPart)));
+                inFlight.add(part);
+                futures.add(part.task);
+                threadPool.execute(part.task);
+                if (isLastPart) break;
+
+                // Take back the buffers of the parts already uploaded
+                while (!inFlight.isEmpty() && inFlight.getFirst().task.isDone()) {
+                    freeBuffers.add(awaitPart(inFlight.removeFirst(), partETags));
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                awaitPart(inFlight.removeFirst(), partETags);
+            }
+            transferProgress.setTotalBytesToTransfer(totalBytes);
+            return completeMultipartUpload(partETags);
+        } catch (Exception e) {
+            for (StreamedPart part : inFlight) {
+                part.task.cancel(true);
+            }
+            if (streamedInParts) {
+                publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                performAbortMultipartUpload();
+            }
+            throw e;
+        } finally {
+            try {inputStream.close(); } catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Uploads the first and only part of a streaming upload in a single chunk.
+     */
+    private UploadResult uploadInOneChunk(byte[] buffer, int length) {
+        origReq.setInputStream(new ByteArrayInputStream(buffer, 0, length));
+        origReq.getMetadata().setContentLength(length);
+        return uploadInOneChunk();
+    }
+
+    /**
+     * Waits for the given part of a streaming upload to be uploaded, records
+     * its ETag and returns its buffer. A part that no thread of the pool has
+     * started yet is uploaded by the calling thread, so that streaming uploads
+     * sharing the pool cannot hold all of its threads waiting on each other.
+     */
+    private byte[] awaitPart(StreamedPart part, List<PartETag> partETags)
+            throws InterruptedException {
+        part.task.run();
+        try {
+            partETags.add(part.task.get());
+        } catch (ExecutionException e) {
+            throw new AmazonClientException(
+                    "Unable to complete multi-part upload. Individual part upload failed : "
+                            + e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.remove(part.task);
+        }
+        return part.buffer;
+    }
+
+    /**
+     * Reads from the stream until the buffer is full or the stream ends, and
+     * returns the number of bytes read.
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read == -1) break;
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * A part of a streaming upload, and the buffer it is uploaded from.
+     */
+    private static final class StreamedPart {
+        private final byte[] buffer;
+        private final FutureTask<PartETag> task;
+
+        private StreamedPart(byte[] buffer, UploadPartCallable callable) {
+            this.buffer = buffer;
+            this.task = new FutureTask<PartETag>(callable);
+        }
+    }
+
     /**
      * Captures the state of the upload.
      */
@@ -255,6 +425,14 @@ public class UploadCallable implements Callable<UploadResult> {
             partETags.add(s3.uploadPart(uploadPartRequest).getPartETag());
         }
 
+        return completeMultipartUpload(partETags);
+    }
+
+    /**
+     * Completes the multipart upload from the given parts and returns the
+     * result.
+     */
+    private UploadResult completeMultipartUpload(List<PartETag> partETags) {
         CompleteMultipartUploadRequest req =
             new CompleteMultipartUploadRequest(
                 origReq.getBucketName(), origReq.getKey(), multipartUploadId,
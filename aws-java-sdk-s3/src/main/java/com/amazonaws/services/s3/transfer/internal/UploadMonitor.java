@@ -208,7 +208,14 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         for (Future<PartETag> f : futures) {
             f.cancel(true);
         }
-        multipartUploadCallable.getFutures().clear();
+        // The parts of a streaming upload still being uploaded
+        List<Future<PartETag>> partFutures = multipartUploadCallable.getFutures();
+        synchronized (partFutures) {
+            for (Future<PartETag> f : partFutures) {
+                f.cancel(true);
+            }
+            partFutures.clear();
+        }
         futures.clear();
     }
 
@@ -14,6 +14,7 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 
@@ -96,13 +97,42 @@ public class UploadPartRequestFactory {
                 .withPartNumber(partNumber++)
                 .withPartSize(partSize);
         }
+        offset += partSize;
+        remainingBytes -= partSize;
+
+        return completeRequest(req, isLastPart);
+    }
+
+    /**
+     * Returns the request to upload the next part of a stream of unknown
+     * length, which has already been read into the given buffer.
+     *
+     * @param buffer
+     *            The buffer holding the part's data, which must not be
+     *            modified until the part is uploaded.
+     * @param length
+     *            The number of bytes of the part.
+     * @param isLastPart
+     *            True if the stream ended with this part.
+     */
+    public synchronized UploadPartRequest getNextUploadPartRequest(byte[] buffer, int length, boolean isLastPart) {
+        UploadPartRequest req = new UploadPartRequest()
+            .withBucketName(bucketName)
+            .withKey(key)
+            .withUploadId(uploadId)
+            .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+            .withPartNumber(partNumber++)
+            .withPartSize(length);
+        offset += length;
+
+        return completeRequest(req, isLastPart);
+    }
+
+    private UploadPartRequest completeRequest(UploadPartRequest req, boolean isLastPart) {
         TransferManager.appendMultipartUserAgent(req);
 
         if (sseCustomerKey != null) req.setSSECustomerKey(sseCustomerKey);
 
-        offset += partSize;
-        remainingBytes -= partSize;
-
         req.setLastPart(isLastPart);
 
         req.withGeneralProgressListener(origReq.getGeneralProgressListener())
@@ -15,9 +15,10 @@
 
 package com.amazonaws.services.sqs.buffered;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
@@ -84,7 +85,10 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
     public static final String USER_AGENT = AmazonSQSBufferedAsyncClient.class.getSimpleName() + "/"
             + VersionInfoUtils.getVersion();
 
-    private final CachingMap buffers = new CachingMap(16, (float) 0.75, true);
+    /** The maximum number of queue buffers kept at a time. */
+    private static final int MAX_BUFFERS = 100;
+
+    private final ConcurrentMap<String, QueueBuffer> buffers = new ConcurrentHashMap<String, QueueBuffer>();
     private final AmazonSQSAsync realSQS;
     private final QueueBufferConfig bufferConfigExemplar;
 
@@ -348,13 +352,27 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
     /**
      * Returns (creating it if necessary) a queue buffer for a particular queue Since we are only
      * storing a limited number of queue buffers, it is possible that as a result of calling this
-     * method the least recently used queue buffer will be removed from our queue buffer cache
+     * method the least recently used queue buffer will be removed from our queue buffer cache.
+     * Buffers already cached are looked up without locking, so that calls to different queues
+     * don't contend with each other.
      *
      * @return a queue buffer associated with the provided queue URL. Never null
      */
-    private synchronized QueueBuffer getQBuffer(String qUrl) {
+    private QueueBuffer getQBuffer(String qUrl) {
+        QueueBuffer toReturn = buffers.get(qUrl);
+        if (null == toReturn) {
+            toReturn = createQBuffer(qUrl);
+        }
+        toReturn.markUsed();
+        return toReturn;
+    }
+
+    private synchronized QueueBuffer createQBuffer(String qUrl) {
         QueueBuffer toReturn = buffers.get(qUrl);
         if (null == toReturn) {
+            if (buffers.size() >= MAX_BUFFERS) {
+                evictLeastRecentlyUsed();
+            }
             QueueBufferConfig config = new QueueBufferConfig(bufferConfigExemplar);
             toReturn = new QueueBuffer(config, qUrl, realSQS);
             buffers.put(qUrl, toReturn);
@@ -362,18 +380,16 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         return toReturn;
     }
 
-    class CachingMap extends LinkedHashMap<String, QueueBuffer> {
-        private static final long serialVersionUID = 1;
-        private static final int MAX_ENTRIES = 100;
-
-        public CachingMap(int initial, float loadFactor, boolean accessOrder) {
-            super(initial, loadFactor, accessOrder);
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<String, QueueBuffer> eldest = null;
+        for (Map.Entry<String, QueueBuffer> entry : buffers.entrySet()) {
+            if (eldest == null || entry.getValue().lastUsedNanos() - eldest.getValue().lastUsedNanos() < 0) {
+                eldest = entry;
+            }
         }
-
-        protected boolean removeEldestEntry(java.util.Map.Entry<String, QueueBuffer> eldest) {
-            return size() > MAX_ENTRIES;
+        if (eldest != null) {
+            buffers.remove(eldest.getKey(), eldest.getValue());
         }
-
     }
 
     public Future<Void> changeMessageVisibilityAsync(ChangeMessageVisibilityRequest changeMessageVisibilityRequest,
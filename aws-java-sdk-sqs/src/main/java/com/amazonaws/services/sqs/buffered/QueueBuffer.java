@@ -19,6 +19,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.AmazonClientException;
@@ -54,6 +55,15 @@ class QueueBuffer {
     private final AmazonSQSAsync realSqs;
     QueueBufferConfig config;
 
+    /** How stale {@code lastUsedNanos} may get before a use updates it. */
+    private static final long USE_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * When this buffer was last used, as a {@link System#nanoTime()} reading. Only updated once it
+     * is {@code USE_RESOLUTION_NANOS} old, so that busy buffers are mostly read, not written.
+     */
+    private volatile long lastUsedNanos = System.nanoTime();
+
     /**
      * This executor that will be shared among all queue buffers. Since a single JVM can access
      * hundreds of queues, it won't do to have hundreds of executors spinning up hundreds of threads
@@ -69,6 +79,20 @@ class QueueBuffer {
         receiveBuffer = new ReceiveQueueBuffer(sqs, executor, paramConfig, url);
     }
 
+    /**
+     * Records that this buffer is being used, for the eviction of the least recently used buffers.
+     */
+    void markUsed() {
+        long now = System.nanoTime();
+        if (now - lastUsedNanos > USE_RESOLUTION_NANOS) {
+            lastUsedNanos = now;
+        }
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
     /**
      * asynchronously enqueues a message to SQS.
      * 
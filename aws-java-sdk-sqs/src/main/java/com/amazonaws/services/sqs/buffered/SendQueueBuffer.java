@@ -15,10 +15,16 @@
 package com.amazonaws.services.sqs.buffered;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -54,6 +60,10 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
  * Internally, the batch objects maintain a list of futures corresponding to the requests added to
  * them. When a batch completes, it loads the results into the futures and marks the futures as
  * complete.
+ * <p>
+ * No locks are taken on the path of a request: a request reserves its slot in the open batch with
+ * a compare-and-set on the batch's state, and the thread that finds the open batch closed replaces
+ * it with a compare-and-set on the open batch reference.
  */
 public class SendQueueBuffer {
     private static Log log = LogFactory.getLog(SendQueueBuffer.class);
@@ -80,37 +90,19 @@ public class SendQueueBuffer {
     private final Executor executor;
 
     /**
-     * Object used to serialize sendMessage calls.
+     * Current batching task for sendMessage.
      */
-    private final Object sendMessageLock = new Object();
+    private final AtomicReference<SendMessageBatchTask> openSendMessageBatchTask = new AtomicReference<SendMessageBatchTask>();
 
     /**
-     * Object used to serialize deleteMessage calls.
+     * Current batching task for deleteMessage.
      */
-    private final Object deleteMessageLock = new Object();
+    private final AtomicReference<DeleteMessageBatchTask> openDeleteMessageBatchTask = new AtomicReference<DeleteMessageBatchTask>();
 
     /**
-     * Object used to serialize changeMessageVisibility calls.
+     * Current batching task for changeMessageVisibility.
      */
-    private final Object changeMessageVisibilityLock = new Object();
-
-    /**
-     * Current batching task for sendMessage. Using a size 1 array to allow "passing by reference".
-     * Synchronized by {@code sendMessageLock}.
-     */
-    private final SendMessageBatchTask[] openSendMessageBatchTask = new SendMessageBatchTask[1];
-
-    /**
-     * Current batching task for deleteMessage. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code deleteMessageLock}.
-     */
-    private final DeleteMessageBatchTask[] openDeleteMessageBatchTask = new DeleteMessageBatchTask[1];
-
-    /**
-     * Current batching task for changeMessageVisibility. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code changeMessageVisibilityLock}.
-     */
-    private final ChangeMessageVisibilityBatchTask[] openChangeMessageVisibilityBatchTask = new ChangeMessageVisibilityBatchTask[1];
+    private final AtomicReference<ChangeMessageVisibilityBatchTask> openChangeMessageVisibilityBatchTask = new AtomicReference<ChangeMessageVisibilityBatchTask>();
 
     /**
      * Permits controlling the number of in flight SendMessage batches.
@@ -150,7 +142,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<SendMessageRequest, SendMessageResult> sendMessage(SendMessageRequest request,
                                                                                 QueueBufferCallback<SendMessageRequest, SendMessageResult> callback) {
-        QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(sendMessageLock,
+        QueueBufferFuture<SendMessageRequest, SendMessageResult> result = submitOutboundRequest(
                 openSendMessageBatchTask, request, inflightSendMessageBatches, callback);
         return result;
     }
@@ -160,7 +152,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<DeleteMessageRequest, Void> deleteMessage(DeleteMessageRequest request,
                                                                        QueueBufferCallback<DeleteMessageRequest, Void> callback) {
-        return submitOutboundRequest(deleteMessageLock, openDeleteMessageBatchTask, request,
+        return submitOutboundRequest(openDeleteMessageBatchTask, request,
                 inflightDeleteMessageBatches, callback);
     }
 
@@ -169,7 +161,7 @@ public class SendQueueBuffer {
      */
     public QueueBufferFuture<ChangeMessageVisibilityRequest, Void> changeMessageVisibility(ChangeMessageVisibilityRequest request,
                                                                                            QueueBufferCallback<ChangeMessageVisibilityRequest, Void> callback) {
-        return submitOutboundRequest(changeMessageVisibilityLock, openChangeMessageVisibilityBatchTask, request,
+        return submitOutboundRequest(openChangeMessageVisibilityBatchTask, request,
                 inflightChangeMessageVisibilityBatches, callback);
     }
 
@@ -200,32 +192,38 @@ public class SendQueueBuffer {
     public void flush() {
 
         try {
-            synchronized (sendMessageLock) {
-                inflightSendMessageBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightSendMessageBatches.release(config.getMaxInflightOutboundBatches());
-            }
-            synchronized (deleteMessageLock) {
-                inflightDeleteMessageBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightDeleteMessageBatches.release(config.getMaxInflightOutboundBatches());
-            }
-            synchronized (changeMessageVisibilityLock) {
-                inflightChangeMessageVisibilityBatches.acquire(config.getMaxInflightOutboundBatches());
-                inflightChangeMessageVisibilityBatches.release(config.getMaxInflightOutboundBatches());
-            }
+            awaitInflightBatches(inflightSendMessageBatches);
+            awaitInflightBatches(inflightDeleteMessageBatches);
+            awaitInflightBatches(inflightChangeMessageVisibilityBatches);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Waits until every batch in flight when the call is made has completed. The permits are
+     * taken one at a time, so that batches started meanwhile cannot starve the flush.
+     */
+    private void awaitInflightBatches(Semaphore inflightOperationBatches) throws InterruptedException {
+        int maxBatch = Math.max(1, config.getMaxInflightOutboundBatches());
+        int acquired = 0;
+        try {
+            while (acquired < maxBatch) {
+                inflightOperationBatches.acquire();
+                acquired++;
+            }
+        } finally {
+            inflightOperationBatches.release(acquired);
+        }
+    }
+
     /**
      * Submits an outbound request for delivery to the queue associated with this buffer.
      * <p>
      * 
-     * @param operationLock
-     *            the lock synchronizing calls for the call type ( {@code sendMessage},
-     *            {@code deleteMessage}, {@code changeMessageVisibility} )
      * @param openOutboundBatchTask
-     *            the open batch task for this call type
+     *            the open batch task for this call type ( {@code sendMessage},
+     *            {@code deleteMessage}, {@code changeMessageVisibility} )
      * @param request
      *            the request to submit
      * @param inflightOperationBatches
@@ -235,8 +233,7 @@ public class SendQueueBuffer {
      *             (see the various outbound calls for details)
      */
     @SuppressWarnings("unchecked")
-    <OBT extends OutboundBatchTask<R, Result>, R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(Object operationLock,
-                                                                                                                                             OBT[] openOutboundBatchTask,
+    <OBT extends OutboundBatchTask<R, Result>, R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(AtomicReference<OBT> openOutboundBatchTask,
                                                                                                                                              R request,
                                                                                                                                              final Semaphore inflightOperationBatches,
                                                                                                                                              QueueBufferCallback<R, Result> callback) {
@@ -245,49 +242,60 @@ public class SendQueueBuffer {
          * maxBatchOpenMs elapses. The total number of batch task in flight is controlled by the
          * inflightOperationBatch semaphore capped at maxInflightOutboundBatches.
          */
-        QueueBufferFuture<R, Result> theFuture = null;
-        try {
-            synchronized (operationLock) {
-                if (openOutboundBatchTask[0] == null
-                        || ((theFuture = openOutboundBatchTask[0].addRequest(request, callback))) == null) {
-
-                    OBT obt = (OBT) newOutboundBatchTask(request);
-                    inflightOperationBatches.acquire();
-                    openOutboundBatchTask[0] = obt;
-
-                    // Register a listener for the event signaling that the
-                    // batch task has completed (successfully or not).
-                    openOutboundBatchTask[0].setOnCompleted(new Listener<OutboundBatchTask<R, Result>>() {
-                        @Override
-                        public void invoke(OutboundBatchTask<R, Result> task) {
-                            inflightOperationBatches.release();
-                        }
-                    });
-
-                    if (log.isTraceEnabled()) {
-                        log.trace("Queue " + qUrl + " created new batch for " + request.getClass().toString() + " "
-                                + inflightOperationBatches.availablePermits() + " free slots remain");
-                    }
+        while (true) {
+            OBT current = openOutboundBatchTask.get();
+            if (current != null) {
+                QueueBufferFuture<R, Result> theFuture = current.addRequest(request, callback);
+                if (theFuture != null) {
+                    return theFuture;
+                }
+            }
 
-                    theFuture = openOutboundBatchTask[0].addRequest(request, callback);
-                    executor.execute(openOutboundBatchTask[0]);
-                    if (null == theFuture) {
-                        // this can happen only if the request itself is flawed,
-                        // so that it can't be added to any batch, even a brand
-                        // new one
-                        throw new AmazonClientException("Failed to schedule request " + request + " for execution");
-                    }
+            // The open batch is closed: replace it with a new one holding this request. The permit
+            // is taken before the new batch is published, so that no other request is added to a
+            // batch that might not be able to run.
+            try {
+                inflightOperationBatches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for lock.");
+                toThrow.initCause(e);
+                throw toThrow;
+            }
+
+            OBT obt = (OBT) newOutboundBatchTask(request);
+            QueueBufferFuture<R, Result> theFuture = obt.addRequest(request, callback);
+            if (null == theFuture) {
+                inflightOperationBatches.release();
+                // this can happen only if the request itself is flawed,
+                // so that it can't be added to any batch, even a brand
+                // new one
+                throw new AmazonClientException("Failed to schedule request " + request + " for execution");
+            }
+
+            if (!openOutboundBatchTask.compareAndSet(current, obt)) {
+                // Another caller replaced the batch first; add the request to that one instead.
+                inflightOperationBatches.release();
+                continue;
+            }
+
+            // Register a listener for the event signaling that the
+            // batch task has completed (successfully or not).
+            obt.setOnCompleted(new Listener<OutboundBatchTask<R, Result>>() {
+                @Override
+                public void invoke(OutboundBatchTask<R, Result> task) {
+                    inflightOperationBatches.release();
                 }
+            });
+
+            if (log.isTraceEnabled()) {
+                log.trace("Queue " + qUrl + " created new batch for " + request.getClass().toString() + " "
+                        + inflightOperationBatches.availablePermits() + " free slots remain");
             }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            AmazonClientException toThrow = new AmazonClientException("Interrupted while waiting for lock.");
-            toThrow.initCause(e);
-            throw toThrow;
+            executor.execute(obt);
+            return theFuture;
         }
-
-        return theFuture;
     }
 
     /**
@@ -307,16 +315,32 @@ public class SendQueueBuffer {
      */
     private abstract class OutboundBatchTask<R extends AmazonWebServiceRequest, Result> implements Runnable {
 
-        protected final List<R> requests;
-        protected final ArrayList<QueueBufferFuture<R, Result>> futures;
+        /** The bit of {@code state} set once the batch is closed. */
+        private static final long CLOSED = 1L << 62;
+
+        /**
+         * The number of requests reserved in the batch in the low 32 bits, their size in bytes in
+         * the bits above, and the {@code CLOSED} bit.
+         */
+        private final AtomicLong state = new AtomicLong();
+
+        /** The number of requests written to their reserved slots. */
+        private final AtomicInteger published = new AtomicInteger();
+
+        /** Released when the batch closes because it is full. */
+        private final CountDownLatch closedSignal = new CountDownLatch(1);
+
+        private final AtomicReferenceArray<R> requests;
+        private final AtomicReferenceArray<QueueBufferFuture<R, Result>> futures;
 
-        private boolean closed;
+        /** The futures of the requests in the batch once it is closed; empty before. */
+        private volatile List<QueueBufferFuture<R, Result>> closedFutures = Collections.emptyList();
 
         private volatile Listener<OutboundBatchTask<R, Result>> onCompleted;
 
         public OutboundBatchTask() {
-            this.requests = new ArrayList<R>(config.getMaxBatchSize());
-            this.futures = new ArrayList<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
+            this.requests = new AtomicReferenceArray<R>(config.getMaxBatchSize());
+            this.futures = new AtomicReferenceArray<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
         }
 
         public void setOnCompleted(Listener<OutboundBatchTask<R, Result>> value) {
@@ -329,113 +353,114 @@ public class SendQueueBuffer {
          * @return the future that can be used to get the results of the execution, or null if the
          *         addition failed.
          */
-        public synchronized QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
-
-            if (closed) {
-                return null;
-            }
-
-            QueueBufferFuture<R, Result> theFuture = addIfAllowed(request, callback);
+        public QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
+            final long size = sizeOf(request);
+            while (true) {
+                long current = state.get();
+                if ((current & CLOSED) != 0) {
+                    return null;
+                }
+                int count = (int) current;
+                long bytes = (current & ~CLOSED) >>> 32;
+
+                if (!isOkToAdd(count, bytes, size)) {
+                    // the addition did not work, so we can close the request.
+                    if (state.compareAndSet(current, current | CLOSED)) {
+                        closedSignal.countDown();
+                        return null;
+                    }
+                    continue;
+                }
 
-            // if the addition did not work, or this addition made us full,
-            // we can close the request.
-            if ((null == theFuture) || isFull()) {
-                closed = true;
-                notify();
+                // if this addition makes us full, we can close the request.
+                boolean full = isFull(count + 1, bytes + size);
+                long next = ((bytes + size) << 32) | (count + 1) | (full ? CLOSED : 0);
+                if (state.compareAndSet(current, next)) {
+                    QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
+                    requests.set(count, request);
+                    futures.set(count, theFuture);
+                    published.incrementAndGet();
+                    if (full) {
+                        closedSignal.countDown();
+                    }
+                    return theFuture;
+                }
             }
-
-            return theFuture;
         }
 
         /**
-         * Adds the request to the batch if capacity allows it. Called by {@code addRequest} with a
-         * lock on {@code this} held.
+         * Returns the size in bytes a request counts against {@link #getMaxBatchSizeBytes()}.
          * 
          * @param request
-         * @return the future that will be signaled when the request is completed and can be used to
-         *         retrieve the result. Can be null if the addition could not be done
+         *            the request to add
          */
-        private QueueBufferFuture<R, Result> addIfAllowed(R request, QueueBufferCallback<R, Result> callback) {
-
-            if (isOkToAdd(request)) {
-
-                requests.add(request);
-
-                QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
-
-                futures.add(theFuture);
-                onRequestAdded(request);
-                return theFuture;
+        protected long sizeOf(R request) {
+            return 0;
+        }
 
-            } else {
-                return null;
-            }
+        /**
+         * Returns the maximum total size in bytes of the requests in a batch.
+         */
+        protected long getMaxBatchSizeBytes() {
+            return Long.MAX_VALUE;
         }
 
         /**
-         * Checks whether it's okay to add the request to this buffer. Called by
-         * {@code addIfAllowed} with a lock on {@code this} held.
-         * 
-         * @param request
-         *            the request to add
-         * @return true if the request is okay to add, false otherwise
+         * Checks whether it's okay to add a request to a batch of the given number and size of
+         * requests.
          */
-        protected boolean isOkToAdd(R request) {
-            return requests.size() < config.getMaxBatchSize();
+        private boolean isOkToAdd(int count, long bytes, long size) {
+            return count < config.getMaxBatchSize() && bytes + size < getMaxBatchSizeBytes();
         }
 
         /**
-         * A hook to be run when a request is successfully added to this buffer. Called by
-         * {@code addIfAllowed} with a lock on {@code this} held.
-         * 
-         * @param request
-         *            the request that was added
+         * Checks whether a batch of the given number and size of requests is filled to capacity.
          */
-        protected void onRequestAdded(R request) {
-            // to be overridden by subclasses
+        private boolean isFull(int count, long bytes) {
+            return count >= config.getMaxBatchSize() || bytes >= getMaxBatchSizeBytes();
         }
 
         /**
-         * Checks whether the buffer is now full. Called by {@code addIfAllowed} with a lock on
-         * {@code this} held.
-         * 
-         * @return whether the buffer is filled to capacity
+         * Closes the batch and returns the number of requests it holds, once all of them have been
+         * written to their slots.
          */
-        protected boolean isFull() {
-            return requests.size() >= config.getMaxBatchSize();
+        private int close() {
+            long current;
+            do {
+                current = state.get();
+            } while ((current & CLOSED) == 0 && !state.compareAndSet(current, current | CLOSED));
+
+            int count = (int) current;
+            // A request may have reserved its slot but not written it yet
+            while (published.get() < count) {
+                Thread.yield();
+            }
+            return count;
         }
 
         /**
-         * Processes the batch once closed. Is <em>NOT</em> called with a lock on {@code this}.
-         * However, it's passed a local copy of both the {@code requests} and {@code futures} lists
-         * made while holding the lock.
+         * Processes the batch once closed. Is passed a copy of both the {@code requests} and
+         * {@code futures} of the batch, made once no request can be added anymore.
          */
         protected abstract void process(List<R> requests, List<QueueBufferFuture<R, Result>> futures);
 
         @Override
         public final void run() {
             try {
-
-                long deadlineMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS)
-                        + config.getMaxBatchOpenMs() + 1;
-                long t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
                 List<R> requests;
                 List<QueueBufferFuture<R, Result>> futures;
 
-                synchronized (this) {
-                    while (!closed && (t < deadlineMs)) {
-                        t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
-
-                        // zero means "wait forever", can't have that.
-                        long toWait = Math.max(1, deadlineMs - t);
-                        wait(toWait);
+                try {
+                    closedSignal.await(config.getMaxBatchOpenMs() + 1, TimeUnit.MILLISECONDS);
+                } finally {
+                    int count = close();
+                    requests = new ArrayList<R>(count);
+                    futures = new ArrayList<QueueBufferFuture<R, Result>>(count);
+                    for (int i = 0; i < count; i++) {
+                        requests.add(this.requests.get(i));
+                        futures.add(this.futures.get(i));
                     }
-
-                    closed = true;
-
-                    requests = new ArrayList<R>(this.requests);
-                    futures = new ArrayList<QueueBufferFuture<R, Result>>(this.futures);
+                    closedFutures = futures;
                 }
 
                 process(requests, futures);
@@ -461,7 +486,7 @@ public class SendQueueBuffer {
         }
 
         private void failAll(Exception e) {
-            for (QueueBufferFuture<R, Result> f : futures) {
+            for (QueueBufferFuture<R, Result> f : closedFutures) {
                 f.setFailure(e);
             }
         }
@@ -469,22 +494,14 @@ public class SendQueueBuffer {
 
     private class SendMessageBatchTask extends OutboundBatchTask<SendMessageRequest, SendMessageResult> {
 
-        int batchSizeBytes = 0;
-
-        @Override
-        protected boolean isOkToAdd(SendMessageRequest request) {
-            return (requests.size() < config.getMaxBatchSize())
-                    && ((request.getMessageBody().getBytes().length + batchSizeBytes) < config.getMaxBatchSizeBytes());
-        }
-
         @Override
-        protected void onRequestAdded(SendMessageRequest request) {
-            batchSizeBytes += request.getMessageBody().getBytes().length;
+        protected long sizeOf(SendMessageRequest request) {
+            return request.getMessageBody().getBytes().length;
         }
 
         @Override
-        protected boolean isFull() {
-            return (requests.size() >= config.getMaxBatchSize()) || (batchSizeBytes >= config.getMaxBatchSizeBytes());
+        protected long getMaxBatchSizeBytes() {
+            return config.getMaxBatchSizeBytes();
         }
 
         @Override
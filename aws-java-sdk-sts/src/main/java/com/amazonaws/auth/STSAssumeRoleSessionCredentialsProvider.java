@@ -168,7 +168,8 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSSessionCreden
         return new RefreshableTask.Builder<SessionCredentialsHolder>()
                 .withRefreshCallable(refreshCallable)
                 .withBlockingRefreshPredicate(new ShouldDoBlockingSessionRefresh())
-                .withAsyncRefreshPredicate(new ShouldDoAsyncSessionRefresh()).build();
+                .withAsyncRefreshPredicate(new ShouldDoAsyncSessionRefresh())
+                .withPrefetchTimeFunction(new SessionCredentialsPrefetchTime()).build();
     }
 
     /**
@@ -114,7 +114,8 @@ public class STSSessionCredentialsProvider implements AWSSessionCredentialsProvi
         return new RefreshableTask.Builder<SessionCredentialsHolder>()
                 .withRefreshCallable(refreshCallable)
                 .withBlockingRefreshPredicate(new ShouldDoBlockingSessionRefresh())
-                .withAsyncRefreshPredicate(new ShouldDoAsyncSessionRefresh()).build();
+                .withAsyncRefreshPredicate(new ShouldDoAsyncSessionRefresh())
+                .withPrefetchTimeFunction(new SessionCredentialsPrefetchTime()).build();
     }
 
     /**
@@ -16,8 +16,11 @@
 package com.amazonaws.auth;
 
 import java.util.Date;
+import java.util.concurrent.Callable;
 
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.internal.SdkFunction;
+import com.amazonaws.internal.SdkPredicate;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
 import com.amazonaws.services.securitytoken.model.AssumeRoleWithWebIdentityRequest;
@@ -39,18 +42,15 @@ public class WebIdentityFederationSessionCredentialsProvider implements AWSSessi
     /** The client for starting STS sessions */
     private final AWSSecurityTokenService securityTokenService;
 
-    /** The current session credentials */
-    private AWSSessionCredentials sessionCredentials;
-
-    /** The expiration time for the current session credentials */
-    private Date sessionCredentialsExpiration;
+    /** Refreshes the session credentials ahead of their expiration */
+    private final RefreshableTask<SessionCredentialsHolder> refreshableTask;
 
     private final String wifToken;
     private final String wifProvider;
     private final String roleArn;
-    private int sessionDuration;
-    private int refreshThreshold;
-    private String subjectFromWIF;
+    private volatile int sessionDuration;
+    private volatile int refreshThreshold;
+    private volatile String subjectFromWIF;
 
     /**
      * Constructs a new WebIdentityFederationSessionCredentialsProvider, which will use the
@@ -113,18 +113,42 @@ public class WebIdentityFederationSessionCredentialsProvider implements AWSSessi
         this.roleArn = roleArn;
         this.sessionDuration = DEFAULT_DURATION_SECONDS;
         this.refreshThreshold = DEFAULT_THRESHOLD_SECONDS;
+        this.refreshableTask = createRefreshableTask();
+    }
+
+    private RefreshableTask<SessionCredentialsHolder> createRefreshableTask() {
+        return new RefreshableTask.Builder<SessionCredentialsHolder>()
+                .withRefreshCallable(new Callable<SessionCredentialsHolder>() {
+                    @Override
+                    public SessionCredentialsHolder call() throws Exception {
+                        return startSession();
+                    }
+                })
+                .withBlockingRefreshPredicate(new ShouldDoBlockingSessionRefresh())
+                .withAsyncRefreshPredicate(new SdkPredicate<SessionCredentialsHolder>() {
+                    @Override
+                    public boolean test(SessionCredentialsHolder sessionCredentialsHolder) {
+                        return sessionCredentialsHolder.getSessionCredentialsExpiration().getTime()
+                               - System.currentTimeMillis() < refreshThreshold * 1000L;
+                    }
+                })
+                .withPrefetchTimeFunction(new SdkFunction<SessionCredentialsHolder, Date>() {
+                    @Override
+                    public Date apply(SessionCredentialsHolder sessionCredentialsHolder) {
+                        return new Date(sessionCredentialsHolder.getSessionCredentialsExpiration()
+                                                .getTime() - refreshThreshold * 1000L);
+                    }
+                }).build();
     }
 
     @Override
     public AWSSessionCredentials getCredentials() {
-        if (needsNewSession()) startSession();
-
-        return sessionCredentials;
+        return refreshableTask.getValue().getSessionCredentials();
     }
 
     @Override
     public void refresh() {
-        startSession();
+        refreshableTask.forceGetValue();
     }
 
    /**
@@ -241,7 +265,7 @@ public class WebIdentityFederationSessionCredentialsProvider implements AWSSessi
      * Service (STS) with the long lived AWS credentials. This class then vends
      * the short lived session credentials sent back from STS.
      */
-    private void startSession() {
+    private SessionCredentialsHolder startSession() {
         AssumeRoleWithWebIdentityResult sessionTokenResult = securityTokenService
                 .assumeRoleWithWebIdentity(new AssumeRoleWithWebIdentityRequest().withWebIdentityToken(wifToken)
                         .withProviderId(wifProvider)
@@ -252,25 +276,7 @@ public class WebIdentityFederationSessionCredentialsProvider implements AWSSessi
 
         subjectFromWIF = sessionTokenResult.getSubjectFromWebIdentityToken();
 
-        sessionCredentials = new BasicSessionCredentials(
-                stsCredentials.getAccessKeyId(),
-                stsCredentials.getSecretAccessKey(),
-                stsCredentials.getSessionToken());
-        sessionCredentialsExpiration = stsCredentials.getExpiration();
-    }
-
-    /**
-     * Returns true if a new STS session needs to be started. A new STS session
-     * is needed when no session has been started yet, or if the last session is
-     * within the configured refresh threshold.
-     *
-     * @return True if a new STS session needs to be started.
-     */
-    private boolean needsNewSession() {
-        if (sessionCredentials == null) return true;
-
-        long timeRemaining = sessionCredentialsExpiration.getTime() - System.currentTimeMillis();
-        return timeRemaining < (this.refreshThreshold * 1000);
+        return new SessionCredentialsHolder(stsCredentials);
     }
 
 }